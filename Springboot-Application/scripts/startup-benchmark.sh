@@ -0,0 +1,95 @@
+#!/usr/bin/env bash
+#
+# Measures time-to-first-request and resident memory for each startup mode.
+#
+#   ./scripts/startup-benchmark.sh              # jvm, aot, cds, aot+cds (+ native if built)
+#   RUNS=10 PORT=8085 ./scripts/startup-benchmark.sh
+#
+# Builds the prod profile jar, trains an AppCDS archive, then starts every mode
+# RUNS times and prints the median. Build the native executable beforehand with
+# `sh ./mvnw -Pprod,native native:compile` to include it. MongoDB does not need to
+# be reachable: the probe endpoint does not touch the database.
+
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+RUNS=${RUNS:-5}
+PORT=${PORT:-8085}
+PROBE=${PROBE:-/admin/ratelimit}
+MONGO_URI=${MONGO_URI:-mongodb://localhost:27017/startup_benchmark}
+OUT=target/startup-benchmark
+mkdir -p "$OUT"
+
+sh ./mvnw -q -B -Pprod -DskipTests package
+JAR=$(ls target/csihackathonspring-*.jar | grep -v original | head -n1)
+
+# Unpack into plain jars: AppCDS needs a jar-only class path that is identical across runs
+rm -rf "$OUT/app" && mkdir -p "$OUT/app"
+(cd "$OUT/app" && jar xf "../../../$JAR")
+jar cf "$OUT/application.jar" -C "$OUT/app/BOOT-INF/classes" .
+CP="$OUT/application.jar:$(ls "$OUT"/app/BOOT-INF/lib/*.jar | sort | paste -sd:)"
+MAIN=com.example.csihackathonspring.CsihackathonspringApplication
+APP_OPTS=(--server.port="$PORT" --spring.profiles.active=prod --spring.data.mongodb.uri="$MONGO_URI")
+
+launch() {
+    case "$1" in
+        jvm)     exec java -jar "$JAR" "${APP_OPTS[@]}" ;;
+        aot)     exec java -Dspring.aot.enabled=true -jar "$JAR" "${APP_OPTS[@]}" ;;
+        cds)     exec java -XX:SharedArchiveFile="$OUT/app.jsa" -cp "$CP" "$MAIN" "${APP_OPTS[@]}" ;;
+        aot+cds) exec java -Dspring.aot.enabled=true -XX:SharedArchiveFile="$OUT/app-aot.jsa" -cp "$CP" "$MAIN" "${APP_OPTS[@]}" ;;
+        native)  exec target/csihackathonspring "${APP_OPTS[@]}" ;;
+    esac
+}
+
+# Start, wait for the first successful response, record latency and RSS, stop
+measure() {
+    local mode=$1 start pid ms rss
+    start=$(date +%s%N)
+    launch "$mode" >"$OUT/$mode.log" 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "http://localhost:$PORT$PROBE"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "$mode failed to start, see $OUT/$mode.log" >&2
+            return 1
+        fi
+        sleep 0.01
+    done
+    ms=$(( ($(date +%s%N) - start) / 1000000 ))
+    rss=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")
+    kill "$pid" && wait "$pid" 2>/dev/null || true
+    while curl -s -o /dev/null "http://localhost:$PORT$PROBE"; do sleep 0.05; done
+    echo "$ms $((rss / 1024))"
+}
+
+# Training runs: the archive is written when the JVM exits after serving a request
+train() {
+    local flags=$1 archive=$2 pid
+    java $flags -XX:ArchiveClassesAtExit="$archive" -cp "$CP" "$MAIN" "${APP_OPTS[@]}" >"$OUT/train.log" 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "http://localhost:$PORT$PROBE"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "training run failed, see $OUT/train.log" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    kill "$pid" && wait "$pid" 2>/dev/null || true
+}
+train "" "$OUT/app.jsa"
+train "-Dspring.aot.enabled=true" "$OUT/app-aot.jsa"
+
+MODES=(jvm aot cds aot+cds)
+[ -x target/csihackathonspring ] && MODES+=(native)
+
+median() { sort -n | awk '{a[NR]=$1} END {print a[int((NR+1)/2)]}'; }
+
+printf "%-10s %22s %10s\n" mode "time-to-first-req(ms)" "rss(MB)" | tee "$OUT/report.txt"
+for mode in "${MODES[@]}"; do
+    : >"$OUT/$mode.runs"
+    for _ in $(seq "$RUNS"); do
+        measure "$mode" >>"$OUT/$mode.runs"
+    done
+    printf "%-10s %22s %10s\n" "$mode" \
+        "$(cut -d' ' -f1 "$OUT/$mode.runs" | median)" \
+        "$(cut -d' ' -f2 "$OUT/$mode.runs" | median)" | tee -a "$OUT/report.txt"
+done
@@ -0,0 +1,91 @@
+package com.example.csihackathonspring.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "badges")
+public class BadgeProperties {
+
+    public enum Metric { INVESTMENTS_COUNT, TOTAL_INVESTED, PORTFOLIO_VALUE, ROI, FOLLOWERS, HOLDING_DAYS }
+
+    public enum Op { GTE, GT, LTE, LT }
+
+    private List<Rule> rules = new ArrayList<>();
+    // How far before the watermark each purchase poll re-reads, for purchases that commit late
+    private long pollOverlapMs = 10_000;
+
+    // Getters and Setters
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    public void setRules(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    public long getPollOverlapMs() {
+        return pollOverlapMs;
+    }
+
+    public void setPollOverlapMs(long pollOverlapMs) {
+        this.pollOverlapMs = pollOverlapMs;
+    }
+
+    // Awards the badge once metric op threshold holds; badges are never revoked
+    public static class Rule {
+
+        private String badge;
+        private Metric metric;
+        private Op op = Op.GTE;
+        private double threshold;
+
+        public Rule() {
+        }
+
+        public Rule(String badge, Metric metric, Op op, double threshold) {
+            this.badge = badge;
+            this.metric = metric;
+            this.op = op;
+            this.threshold = threshold;
+        }
+
+        // Getters and Setters
+
+        public String getBadge() {
+            return badge;
+        }
+
+        public void setBadge(String badge) {
+            this.badge = badge;
+        }
+
+        public Metric getMetric() {
+            return metric;
+        }
+
+        public void setMetric(Metric metric) {
+            this.metric = metric;
+        }
+
+        public Op getOp() {
+            return op;
+        }
+
+        public void setOp(Op op) {
+            this.op = op;
+        }
+
+        public double getThreshold() {
+            return threshold;
+        }
+
+        public void setThreshold(double threshold) {
+            this.threshold = threshold;
+        }
+    }
+}
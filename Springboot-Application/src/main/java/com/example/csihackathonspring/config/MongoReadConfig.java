@@ -0,0 +1,32 @@
+package com.example.csihackathonspring.config;
+
+import com.mongodb.ReadPreference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class MongoReadConfig {
+
+    // Default template used by repositories and all writes; reads go to the primary
+    @Bean
+    @Primary
+    public MongoTemplate mongoTemplate(MongoDatabaseFactory factory, MongoConverter converter) {
+        return new MongoTemplate(factory, converter);
+    }
+
+    // Profile reads that tolerate bounded staleness (MongoDB requires at least 90 seconds)
+    @Bean
+    public MongoTemplate secondaryMongoTemplate(MongoDatabaseFactory factory, MongoConverter converter,
+                                                @Value("${mongo.read.max-staleness-seconds:90}") long maxStalenessSeconds) {
+        MongoTemplate template = new MongoTemplate(factory, converter);
+        template.setReadPreference(ReadPreference.secondaryPreferred(maxStalenessSeconds, TimeUnit.SECONDS));
+        return template;
+    }
+}
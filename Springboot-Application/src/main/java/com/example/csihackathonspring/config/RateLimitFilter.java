@@ -0,0 +1,63 @@
+package com.example.csihackathonspring.config;
+
+import com.example.csihackathonspring.services.RateLimitService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Admission control in front of every controller
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitService rateLimitService;
+
+    @Autowired
+    public RateLimitFilter(RateLimitService rateLimitService) {
+        this.rateLimitService = rateLimitService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !rateLimitService.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        // Keyed on the client address: a wallet header is unauthenticated and free to rotate. With
+        // server.forward-headers-strategy=native this is the X-Forwarded-For client when the peer is
+        // a trusted proxy, and the peer itself otherwise, so clients cannot pick their own key
+        RateLimitService.Admission admission;
+        try {
+            admission = rateLimitService.admit(request.getRequestURI(), request.getRemoteAddr());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+
+        if (admission.getVerdict() != RateLimitService.Verdict.ADMITTED) {
+            long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(admission.getRetryAfterNanos() + 999_999_999L));
+            response.setHeader("Retry-After", Long.toString(seconds));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            return;
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            rateLimitService.release();
+        }
+    }
+}
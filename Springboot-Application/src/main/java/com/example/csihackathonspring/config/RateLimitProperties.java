@@ -0,0 +1,132 @@
+package com.example.csihackathonspring.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "ratelimit")
+public class RateLimitProperties {
+
+    public enum Priority { HIGH, LOW }
+
+    private boolean enabled = true;
+    private double defaultRate = 20;
+    private int defaultBurst = 40;
+    private int maxConcurrent = 150;
+    private long lowPriorityMaxQueueMs = 20;
+    private long highPriorityMaxQueueMs = 500;
+    private int maxClients = 100_000;
+    private List<Route> routes = new ArrayList<>();
+
+    // Getters and Setters
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getDefaultRate() {
+        return defaultRate;
+    }
+
+    public void setDefaultRate(double defaultRate) {
+        this.defaultRate = defaultRate;
+    }
+
+    public int getDefaultBurst() {
+        return defaultBurst;
+    }
+
+    public void setDefaultBurst(int defaultBurst) {
+        this.defaultBurst = defaultBurst;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public void setMaxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public long getLowPriorityMaxQueueMs() {
+        return lowPriorityMaxQueueMs;
+    }
+
+    public void setLowPriorityMaxQueueMs(long lowPriorityMaxQueueMs) {
+        this.lowPriorityMaxQueueMs = lowPriorityMaxQueueMs;
+    }
+
+    public long getHighPriorityMaxQueueMs() {
+        return highPriorityMaxQueueMs;
+    }
+
+    public void setHighPriorityMaxQueueMs(long highPriorityMaxQueueMs) {
+        this.highPriorityMaxQueueMs = highPriorityMaxQueueMs;
+    }
+
+    public int getMaxClients() {
+        return maxClients;
+    }
+
+    public void setMaxClients(int maxClients) {
+        this.maxClients = maxClients;
+    }
+
+    public List<Route> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(List<Route> routes) {
+        this.routes = routes;
+    }
+
+    // Per-route quota, matched by Ant-style path pattern in declaration order
+    public static class Route {
+
+        private String pattern;
+        private double rate;
+        private int burst;
+        private Priority priority = Priority.HIGH;
+
+        // Getters and Setters
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        public void setPattern(String pattern) {
+            this.pattern = pattern;
+        }
+
+        public double getRate() {
+            return rate;
+        }
+
+        public void setRate(double rate) {
+            this.rate = rate;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+
+        public void setPriority(Priority priority) {
+            this.priority = priority;
+        }
+    }
+}
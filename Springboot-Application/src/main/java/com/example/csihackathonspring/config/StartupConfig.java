@@ -0,0 +1,32 @@
+package com.example.csihackathonspring.config;
+
+import com.example.csihackathonspring.controllers.CuratorController;
+import com.example.csihackathonspring.controllers.InvestorController;
+import com.example.csihackathonspring.controllers.UserController;
+import jakarta.servlet.Filter;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+
+@Configuration
+public class StartupConfig {
+
+    // Under lazy initialization, keep filters and the profile endpoints eager so the first request is not slow
+    @Bean
+    static LazyInitializationExcludeFilter criticalBeans() {
+        return (beanName, definition, type) -> Filter.class.isAssignableFrom(type)
+                || type == UserController.class
+                || type == InvestorController.class
+                || type == CuratorController.class
+                || hasScheduledMethods(type);
+    }
+
+    // A lazy bean nothing injects is never created, so its @Scheduled jobs (reconciliation, archival...) would never run
+    private static boolean hasScheduledMethods(Class<?> type) {
+        return !MethodIntrospector.selectMethods(type, (MethodIntrospector.MetadataLookup<Scheduled>) method ->
+                AnnotatedElementUtils.findMergedAnnotation(method, Scheduled.class)).isEmpty();
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.csihackathonspring.controllers;
+
+import com.example.csihackathonspring.services.ArchiveService;
+import com.example.csihackathonspring.services.BadgeService;
+import com.example.csihackathonspring.services.CuratorPageService;
+import com.example.csihackathonspring.services.HotKeyService;
+import com.example.csihackathonspring.services.IpfsMetadataService;
+import com.example.csihackathonspring.services.MongoAccessLimiter;
+import com.example.csihackathonspring.services.MutationJournal;
+import com.example.csihackathonspring.services.MutationJournalService;
+import com.example.csihackathonspring.services.PartialUpdateService;
+import com.example.csihackathonspring.services.PlatformAnalyticsService;
+import com.example.csihackathonspring.services.RateLimitService;
+import com.example.csihackathonspring.services.RevenueReconciliationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+    private final RateLimitService rateLimitService;
+    private final BadgeService badgeService;
+    private final RevenueReconciliationService reconciliationService;
+    private final MongoAccessLimiter mongoAccessLimiter;
+    private final MutationJournalService journalService;
+    private final CuratorPageService curatorPageService;
+    private final PartialUpdateService partialUpdateService;
+    private final HotKeyService hotKeyService;
+    private final ArchiveService archiveService;
+    private final PlatformAnalyticsService platformAnalyticsService;
+    private final IpfsMetadataService metadataService;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public AdminController(RateLimitService rateLimitService, BadgeService badgeService,
+                           RevenueReconciliationService reconciliationService,
+                           MongoAccessLimiter mongoAccessLimiter,
+                           MutationJournalService journalService,
+                           CuratorPageService curatorPageService,
+                           PartialUpdateService partialUpdateService,
+                           HotKeyService hotKeyService,
+                           ArchiveService archiveService,
+                           PlatformAnalyticsService platformAnalyticsService,
+                           IpfsMetadataService metadataService,
+                           ObjectMapper objectMapper) {
+        this.rateLimitService = rateLimitService;
+        this.badgeService = badgeService;
+        this.reconciliationService = reconciliationService;
+        this.mongoAccessLimiter = mongoAccessLimiter;
+        this.journalService = journalService;
+        this.curatorPageService = curatorPageService;
+        this.partialUpdateService = partialUpdateService;
+        this.hotKeyService = hotKeyService;
+        this.archiveService = archiveService;
+        this.platformAnalyticsService = platformAnalyticsService;
+        this.metadataService = metadataService;
+        this.objectMapper = objectMapper;
+    }
+
+    // Admission counters per route and current concurrency
+    @GetMapping("/ratelimit")
+    public ResponseEntity<Map<String, Object>> getRateLimitStats() {
+        return ResponseEntity.ok(rateLimitService.stats());
+    }
+
+    // Current adaptive limit on profile reads, in-flight calls, round trips and estimated queue
+    @GetMapping("/concurrency")
+    public ResponseEntity<Map<String, Object>> getConcurrencyStats() {
+        return ResponseEntity.ok(mongoAccessLimiter.stats());
+    }
+
+    // Journal offsets, group commit sizes and per-subscriber lag
+    @GetMapping("/journal")
+    public ResponseEntity<Map<String, Object>> getJournalStats() {
+        return ResponseEntity.ok(journalService.stats());
+    }
+
+    // Committed mutations from an offset; continue paging from the last entry's nextOffset
+    @GetMapping("/journal/mutations")
+    public ResponseEntity<List<Map<String, Object>>> getMutations(@RequestParam(defaultValue = "0") long from,
+                                                                  @RequestParam(defaultValue = "100") int limit) throws IOException {
+        List<MutationJournal.Mutation> page;
+        try {
+            page = journalService.replay(from, Math.min(limit, 1000));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<Map<String, Object>> mutations = new ArrayList<>();
+        for (MutationJournal.Mutation mutation : page) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("offset", mutation.offset());
+            entry.put("nextOffset", mutation.nextOffset());
+            entry.put("timestamp", new Date(mutation.timestamp()));
+            entry.put("collection", mutation.collection());
+            entry.put("id", mutation.id());
+            entry.put("op", mutation.op());
+            // Extended JSON keeps ObjectIds, dates and decimals readable
+            entry.put("delta", mutation.delta() == null ? null : objectMapper.readTree(mutation.delta().toJson()));
+            mutations.add(entry);
+        }
+        return ResponseEntity.ok(mutations);
+    }
+
+    // Curator page cache size, hits and misses
+    @GetMapping("/curator-pages")
+    public ResponseEntity<Map<String, Object>> getCuratorPageStats() {
+        return ResponseEntity.ok(curatorPageService.stats());
+    }
+
+    // Partial update counts, version conflicts and update bytes against full-document bytes
+    @GetMapping("/updates")
+    public ResponseEntity<Map<String, Object>> getUpdateStats() {
+        return ResponseEntity.ok(partialUpdateService.stats());
+    }
+
+    // Most looked-up profiles with estimated lookup counts, plus sampler and last prefetch figures
+    @GetMapping("/hot-keys")
+    public ResponseEntity<Map<String, Object>> getHotKeys(@RequestParam(defaultValue = "50") int limit) {
+        Map<String, Object> body = new LinkedHashMap<>(hotKeyService.stats());
+        body.put("keys", hotKeyService.top(Math.min(limit, 1000)));
+        return ResponseEntity.ok(body);
+    }
+
+    // Archived and rehydrated accounts, compression, and hot versus cold collection sizes
+    @GetMapping("/archive")
+    public ResponseEntity<Map<String, Object>> getArchiveStats() {
+        return ResponseEntity.ok(archiveService.stats());
+    }
+
+    // Move inactive accounts to the cold tier now
+    @PostMapping("/archive")
+    public ResponseEntity<Map<String, Object>> archive() {
+        try {
+            return ResponseEntity.ok(archiveService.archive());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    // Full and incremental analytics refreshes, partitions re-aggregated and the last refresh time
+    @GetMapping("/analytics")
+    public ResponseEntity<Map<String, Object>> getAnalyticsStats() {
+        return ResponseEntity.ok(platformAnalyticsService.stats());
+    }
+
+    // Badge rule count, evaluations, awards and event watermarks
+    @GetMapping("/badges")
+    public ResponseEntity<Map<String, Object>> getBadgeStats() {
+        return ResponseEntity.ok(badgeService.stats());
+    }
+
+    // Run a revenue audit now; apply=false only reports discrepancies
+    @PostMapping("/reconcile")
+    public ResponseEntity<RevenueReconciliationService.Report> reconcile(@RequestParam(defaultValue = "false") boolean apply) {
+        try {
+            return ResponseEntity.ok(reconciliationService.reconcile(apply));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    // Summary of the most recent revenue audit
+    @GetMapping("/reconcile/last")
+    public ResponseEntity<RevenueReconciliationService.Report> getLastReconciliation() {
+        RevenueReconciliationService.Report report = reconciliationService.lastReport();
+        return report == null ? ResponseEntity.status(HttpStatus.NOT_FOUND).build() : ResponseEntity.ok(report);
+    }
+
+    // Drop a cached IPFS document, e.g. one served through a path that could not be checked against its CID
+    @DeleteMapping("/metadata")
+    public ResponseEntity<Void> evictMetadata(@RequestParam String uri) {
+        try {
+            return metadataService.evict(uri) ? ResponseEntity.noContent().build()
+                    : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.csihackathonspring.controllers;
+
+import com.example.csihackathonspring.services.PlatformAnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/analytics")
+public class AnalyticsController {
+
+    private final PlatformAnalyticsService platformAnalyticsService;
+
+    @Autowired
+    public AnalyticsController(PlatformAnalyticsService platformAnalyticsService) {
+        this.platformAnalyticsService = platformAnalyticsService;
+    }
+
+    // Sales by network, curator revenue and investor totals, at most a cache TTL old
+    @GetMapping("/platform")
+    public ResponseEntity<PlatformAnalyticsService.Platform> getPlatform() {
+        return ResponseEntity.ok(platformAnalyticsService.getPlatform());
+    }
+}
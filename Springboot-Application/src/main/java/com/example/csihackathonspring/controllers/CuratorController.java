@@ -1,8 +1,13 @@
 package com.example.csihackathonspring.controllers;
 
 import com.example.csihackathonspring.entities.Curator;
+import com.example.csihackathonspring.entities.CuratorPage;
+import com.example.csihackathonspring.services.CuratorPageService;
 import com.example.csihackathonspring.services.CuratorService;
+import com.example.csihackathonspring.services.PartialUpdateService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -14,10 +19,15 @@ import java.util.Optional;
 public class CuratorController {
 
     private final CuratorService curatorService;
+    private final CuratorPageService curatorPageService;
+    private final PartialUpdateService partialUpdateService;
 
     @Autowired
-    public CuratorController(CuratorService curatorService) {
+    public CuratorController(CuratorService curatorService, CuratorPageService curatorPageService,
+                             PartialUpdateService partialUpdateService) {
         this.curatorService = curatorService;
+        this.curatorPageService = curatorPageService;
+        this.partialUpdateService = partialUpdateService;
     }
 
     // Fetch curator by ID
@@ -35,4 +45,28 @@ public class CuratorController {
         return curator.map(ResponseEntity::ok)
                 .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
+
+    // Fetch curator with its galleries and their artists in one round trip
+    @GetMapping("/{id}/page")
+    public ResponseEntity<CuratorPage> getCuratorPage(@PathVariable String id) {
+        Optional<CuratorPage> page = curatorPageService.getPage(id);
+        return page.map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
+    // Partial update of a curator, guarded by If-Match when given
+    @PatchMapping("/{id}")
+    public ResponseEntity<Curator> patchCurator(@PathVariable String id,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                @RequestBody PartialUpdateService.Patch patch) {
+        try {
+            Optional<Curator> curator = partialUpdateService.patch(Curator.class, id, patch, PartialUpdateService.parseIfMatch(ifMatch));
+            return curator.map(updated -> ResponseEntity.ok().eTag(String.valueOf(updated.getVersion())).body(updated))
+                    .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+    }
 }
@@ -0,0 +1,49 @@
+package com.example.csihackathonspring.controllers;
+
+import com.example.csihackathonspring.entities.DeploymentJob;
+import com.example.csihackathonspring.services.DeploymentJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/deployments")
+public class DeploymentController {
+
+    private final DeploymentJobService deploymentJobService;
+
+    @Autowired
+    public DeploymentController(DeploymentJobService deploymentJobService) {
+        this.deploymentJobService = deploymentJobService;
+    }
+
+    // Track a submitted contract deployment transaction for an artist
+    @PostMapping
+    public ResponseEntity<DeploymentJob> enqueue(@RequestBody Map<String, String> body) {
+        String userId = body.get("userId");
+        String transactionHash = body.get("transactionHash");
+        if (userId == null || transactionHash == null || !transactionHash.startsWith("0x")) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(deploymentJobService.enqueue(userId, transactionHash));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    // Fetch deployment job status
+    @GetMapping("/{id}")
+    public ResponseEntity<DeploymentJob> getJob(@PathVariable String id) {
+        Optional<DeploymentJob> job = deploymentJobService.getJob(id);
+        return job.map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+}
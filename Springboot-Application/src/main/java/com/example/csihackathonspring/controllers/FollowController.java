@@ -0,0 +1,64 @@
+package com.example.csihackathonspring.controllers;
+
+import com.example.csihackathonspring.entities.Transaction;
+import com.example.csihackathonspring.services.FollowService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+@RestController
+@RequestMapping("/follows")
+public class FollowController {
+
+    private final FollowService followService;
+
+    @Autowired
+    public FollowController(FollowService followService) {
+        this.followService = followService;
+    }
+
+    // Follow another user or investor
+    @PostMapping("/{followerId}/{followeeId}")
+    public ResponseEntity<Void> follow(@PathVariable String followerId, @PathVariable String followeeId) {
+        if (followerId.equals(followeeId)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            boolean created = followService.follow(followerId, followeeId);
+            return ResponseEntity.status(created ? HttpStatus.CREATED : HttpStatus.OK).build();
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    // Remove a follow edge
+    @DeleteMapping("/{followerId}/{followeeId}")
+    public ResponseEntity<Void> unfollow(@PathVariable String followerId, @PathVariable String followeeId) {
+        boolean removed = followService.unfollow(followerId, followeeId);
+        return removed ? ResponseEntity.noContent().build()
+                : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    }
+
+    // Ids following this account
+    @GetMapping("/{id}/followers")
+    public ResponseEntity<List<String>> getFollowers(@PathVariable String id) {
+        return ResponseEntity.ok(followService.getFollowers(id));
+    }
+
+    // Ids this account follows
+    @GetMapping("/{id}/following")
+    public ResponseEntity<List<String>> getFollowing(@PathVariable String id) {
+        return ResponseEntity.ok(followService.getFollowing(id));
+    }
+
+    // Recent sales from followed artists
+    @GetMapping("/{id}/feed")
+    public ResponseEntity<List<Transaction>> getFeed(@PathVariable String id,
+                                                     @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(followService.getFeed(id, limit));
+    }
+}
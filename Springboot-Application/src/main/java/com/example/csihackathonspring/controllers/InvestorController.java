@@ -2,11 +2,17 @@ package com.example.csihackathonspring.controllers;
 
 import com.example.csihackathonspring.entities.Investor;
 import com.example.csihackathonspring.services.InvestorService;
+import com.example.csihackathonspring.services.PartialUpdateService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -17,10 +23,12 @@ import java.util.Optional;
 public class InvestorController {
 
     private final InvestorService investorService;
+    private final PartialUpdateService partialUpdateService;
 
     @Autowired
-    public InvestorController(InvestorService investorService) {
+    public InvestorController(InvestorService investorService, PartialUpdateService partialUpdateService) {
         this.investorService = investorService;
+        this.partialUpdateService = partialUpdateService;
     }
 
     // Fetch investor by ID
@@ -44,4 +52,20 @@ public class InvestorController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
     }
+
+    // Partial update of an investor; a stale If-Match version is rejected with 412
+    @PatchMapping("/{id}")
+    public ResponseEntity<Investor> patchInvestor(@PathVariable String id,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                  @RequestBody PartialUpdateService.Patch patch) {
+        try {
+            Optional<Investor> investor = partialUpdateService.patch(Investor.class, id, patch, PartialUpdateService.parseIfMatch(ifMatch));
+            return investor.map(updated -> ResponseEntity.ok().eTag(String.valueOf(updated.getVersion())).body(updated))
+                    .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+    }
 }
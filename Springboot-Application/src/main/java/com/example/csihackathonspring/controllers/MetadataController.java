@@ -0,0 +1,57 @@
+package com.example.csihackathonspring.controllers;
+
+import com.example.csihackathonspring.services.IpfsMetadataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+@RestController
+@RequestMapping("/metadata")
+public class MetadataController {
+
+    private final IpfsMetadataService metadataService;
+
+    @Autowired
+    public MetadataController(IpfsMetadataService metadataService) {
+        this.metadataService = metadataService;
+    }
+
+    // Fetch artwork metadata by ipfsHash or tokenURI
+    @GetMapping
+    public ResponseEntity<byte[]> getMetadata(@RequestParam String uri) {
+        try {
+            byte[] document = metadataService.get(uri);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                    .body(document);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+        }
+    }
+
+    // Warm the cache for every artwork on a gallery page
+    @PostMapping("/prefetch")
+    public ResponseEntity<IpfsMetadataService.PrefetchResult> prefetch(@RequestBody List<String> uris) {
+        try {
+            return ResponseEntity.ok(metadataService.prefetch(uris));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Hit counts per tier and cache size
+    @GetMapping("/stats")
+    public ResponseEntity<IpfsMetadataService.Stats> stats() {
+        return ResponseEntity.ok(metadataService.stats());
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.csihackathonspring.controllers;
+
+import com.example.csihackathonspring.services.PrefixIndex;
+import com.example.csihackathonspring.services.SearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/search")
+public class SearchController {
+
+    private final SearchService searchService;
+
+    @Autowired
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    // Typeahead suggestions across usernames and curator display names
+    @GetMapping("/suggest")
+    public ResponseEntity<List<PrefixIndex.Entry>> suggest(@RequestParam("q") String query,
+                                                           @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(searchService.suggest(query, limit));
+    }
+
+    // Index size and estimated memory footprint
+    @GetMapping("/stats")
+    public ResponseEntity<PrefixIndex.Stats> stats() {
+        return ResponseEntity.ok(searchService.stats());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.csihackathonspring.controllers;
+
+import com.example.csihackathonspring.services.TrendingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/trending")
+public class TrendingController {
+
+    private final TrendingService trendingService;
+
+    @Autowired
+    public TrendingController(TrendingService trendingService) {
+        this.trendingService = trendingService;
+    }
+
+    // Trending artists over the last hour, day or week
+    @GetMapping("/artists")
+    public ResponseEntity<List<TrendingService.Trend>> getTrendingArtists(
+            @RequestParam(defaultValue = "HOUR") TrendingService.Window window,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(trendingService.getTrending(TrendingService.EntityType.ARTIST, window, limit));
+    }
+
+    // Trending curators over the last hour, day or week
+    @GetMapping("/curators")
+    public ResponseEntity<List<TrendingService.Trend>> getTrendingCurators(
+            @RequestParam(defaultValue = "HOUR") TrendingService.Window window,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(trendingService.getTrending(TrendingService.EntityType.CURATOR, window, limit));
+    }
+
+    // Ingest a batch of view/like/sale events
+    @PostMapping("/events")
+    public ResponseEntity<Void> recordEvents(@RequestBody List<TrendingService.Event> events) {
+        for (TrendingService.Event event : events) {
+            if (event.getEntityType() == null || event.getEntityId() == null || event.getType() == null
+                    || !trendingService.isTimely(event)) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        events.forEach(trendingService::record);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+    }
+}
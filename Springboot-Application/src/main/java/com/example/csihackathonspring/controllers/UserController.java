@@ -2,11 +2,17 @@ package com.example.csihackathonspring.controllers;
 
 import com.example.csihackathonspring.entities.User;
 import com.example.csihackathonspring.services.UserService;
+import com.example.csihackathonspring.services.PartialUpdateService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -17,10 +23,12 @@ import java.util.Optional;
 public class UserController {
 
     private final UserService userService;
+    private final PartialUpdateService partialUpdateService;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, PartialUpdateService partialUpdateService) {
         this.userService = userService;
+        this.partialUpdateService = partialUpdateService;
     }
 
     // Fetch user by ID
@@ -44,4 +52,20 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
     }
+
+    // Change only the given fields; send If-Match with the last seen version to avoid overwriting someone else's change
+    @PatchMapping("/{id}")
+    public ResponseEntity<User> patchUser(@PathVariable String id,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                          @RequestBody PartialUpdateService.Patch patch) {
+        try {
+            Optional<User> user = partialUpdateService.patch(User.class, id, patch, PartialUpdateService.parseIfMatch(ifMatch));
+            return user.map(updated -> ResponseEntity.ok().eTag(String.valueOf(updated.getVersion())).body(updated))
+                    .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+    }
 }
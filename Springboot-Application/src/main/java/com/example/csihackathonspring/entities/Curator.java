@@ -3,6 +3,7 @@ package com.example.csihackathonspring.entities;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Date;
@@ -100,6 +101,14 @@ public class Curator {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @JsonProperty("walletAddress")
     private String walletAddress;
 
@@ -123,16 +132,20 @@ public class Curator {
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSZ")
     private Date updatedAt;
 
+    @Version
+    @JsonProperty("version")
+    private Long version;
+
     // Getters and Setters
 
-    // Nested Classes for Contract, Profile, and Analytics
+    // Nested Classes for Contract, Gallery, Profile, and Analytics
 
     public static class Contract {
         @JsonProperty("network")
         private String network;
 
         @JsonProperty("galleries")
-        private List<String> galleries;
+        private List<Gallery> galleries;
 
         @JsonProperty("totalRevenue")
         private String totalRevenue;
@@ -141,6 +154,88 @@ public class Curator {
         private String pendingRevenue;
 
         // Getters and Setters
+
+        public String getNetwork() {
+            return network;
+        }
+
+        public void setNetwork(String network) {
+            this.network = network;
+        }
+
+        public List<Gallery> getGalleries() {
+            return galleries;
+        }
+
+        public void setGalleries(List<Gallery> galleries) {
+            this.galleries = galleries;
+        }
+
+        public String getTotalRevenue() {
+            return totalRevenue;
+        }
+
+        public void setTotalRevenue(String totalRevenue) {
+            this.totalRevenue = totalRevenue;
+        }
+
+        public String getPendingRevenue() {
+            return pendingRevenue;
+        }
+
+        public void setPendingRevenue(String pendingRevenue) {
+            this.pendingRevenue = pendingRevenue;
+        }
+    }
+
+    // A deployed gallery as the Node backend records it on the curator
+    public static class Gallery {
+        @JsonProperty("address")
+        private String address;
+
+        @JsonProperty("name")
+        private String name;
+
+        @JsonProperty("status")
+        private String status;
+
+        @JsonProperty("createdAt")
+        @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSZ")
+        private Date createdAt;
+
+        // Getters and Setters
+
+        public String getAddress() {
+            return address;
+        }
+
+        public void setAddress(String address) {
+            this.address = address;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+
+        public Date getCreatedAt() {
+            return createdAt;
+        }
+
+        public void setCreatedAt(Date createdAt) {
+            this.createdAt = createdAt;
+        }
     }
 
     public static class Profile {
@@ -151,6 +246,22 @@ public class Curator {
         private int galleriesCount;
 
         // Getters and Setters
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        public void setDisplayName(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public int getGalleriesCount() {
+            return galleriesCount;
+        }
+
+        public void setGalleriesCount(int galleriesCount) {
+            this.galleriesCount = galleriesCount;
+        }
     }
 
     public static class Analytics {
@@ -164,5 +275,29 @@ public class Curator {
         private int totalArtworksSold;
 
         // Getters and Setters
+
+        public int getTotalArtistsCurated() {
+            return totalArtistsCurated;
+        }
+
+        public void setTotalArtistsCurated(int totalArtistsCurated) {
+            this.totalArtistsCurated = totalArtistsCurated;
+        }
+
+        public int getTotalVisitors() {
+            return totalVisitors;
+        }
+
+        public void setTotalVisitors(int totalVisitors) {
+            this.totalVisitors = totalVisitors;
+        }
+
+        public int getTotalArtworksSold() {
+            return totalArtworksSold;
+        }
+
+        public void setTotalArtworksSold(int totalArtworksSold) {
+            this.totalArtworksSold = totalArtworksSold;
+        }
     }
 }
@@ -0,0 +1,339 @@
+package com.example.csihackathonspring.entities;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.data.annotation.Id;
+
+import java.util.Date;
+import java.util.List;
+
+// Read model for a curator's page: the curator, its galleries, and each gallery's artists, built by one aggregation
+public class CuratorPage {
+
+    @Id
+    private String id;
+
+    @JsonProperty("username")
+    private String username;
+
+    @JsonProperty("walletAddress")
+    private String walletAddress;
+
+    @JsonProperty("role")
+    private String role;
+
+    @JsonProperty("contract")
+    private Curator.Contract contract;
+
+    @JsonProperty("profile")
+    private Curator.Profile profile;
+
+    @JsonProperty("analytics")
+    private Curator.Analytics analytics;
+
+    @JsonProperty("galleries")
+    private List<Gallery> galleries;
+
+    @JsonProperty("createdAt")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSZ")
+    private Date createdAt;
+
+    @JsonProperty("updatedAt")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSZ")
+    private Date updatedAt;
+
+    // Getters and Setters
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getWalletAddress() {
+        return walletAddress;
+    }
+
+    public void setWalletAddress(String walletAddress) {
+        this.walletAddress = walletAddress;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public Curator.Contract getContract() {
+        return contract;
+    }
+
+    public void setContract(Curator.Contract contract) {
+        this.contract = contract;
+    }
+
+    public Curator.Profile getProfile() {
+        return profile;
+    }
+
+    public void setProfile(Curator.Profile profile) {
+        this.profile = profile;
+    }
+
+    public Curator.Analytics getAnalytics() {
+        return analytics;
+    }
+
+    public void setAnalytics(Curator.Analytics analytics) {
+        this.analytics = analytics;
+    }
+
+    public List<Gallery> getGalleries() {
+        return galleries;
+    }
+
+    public void setGalleries(List<Gallery> galleries) {
+        this.galleries = galleries;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Date updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+
+    // Nested Classes for Gallery, Stats and Artist
+
+    public static class Gallery {
+        @Id
+        private String id;
+
+        @JsonProperty("name")
+        private String name;
+
+        @JsonProperty("description")
+        private String description;
+
+        @JsonProperty("galleryAddress")
+        private String galleryAddress;
+
+        @JsonProperty("theme")
+        private String theme;
+
+        @JsonProperty("coverImage")
+        private String coverImage;
+
+        @JsonProperty("status")
+        private String status;
+
+        @JsonProperty("stats")
+        private Stats stats;
+
+        @JsonProperty("artists")
+        private List<Artist> artists;
+
+        // Getters and Setters
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public void setDescription(String description) {
+            this.description = description;
+        }
+
+        public String getGalleryAddress() {
+            return galleryAddress;
+        }
+
+        public void setGalleryAddress(String galleryAddress) {
+            this.galleryAddress = galleryAddress;
+        }
+
+        public String getTheme() {
+            return theme;
+        }
+
+        public void setTheme(String theme) {
+            this.theme = theme;
+        }
+
+        public String getCoverImage() {
+            return coverImage;
+        }
+
+        public void setCoverImage(String coverImage) {
+            this.coverImage = coverImage;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+
+        public Stats getStats() {
+            return stats;
+        }
+
+        public void setStats(Stats stats) {
+            this.stats = stats;
+        }
+
+        public List<Artist> getArtists() {
+            return artists;
+        }
+
+        public void setArtists(List<Artist> artists) {
+            this.artists = artists;
+        }
+    }
+
+    public static class Stats {
+        @JsonProperty("artistCount")
+        private int artistCount;
+
+        @JsonProperty("artworkCount")
+        private int artworkCount;
+
+        @JsonProperty("visitorCount")
+        private int visitorCount;
+
+        @JsonProperty("totalSales")
+        private double totalSales;
+
+        // Getters and Setters
+
+        public int getArtistCount() {
+            return artistCount;
+        }
+
+        public void setArtistCount(int artistCount) {
+            this.artistCount = artistCount;
+        }
+
+        public int getArtworkCount() {
+            return artworkCount;
+        }
+
+        public void setArtworkCount(int artworkCount) {
+            this.artworkCount = artworkCount;
+        }
+
+        public int getVisitorCount() {
+            return visitorCount;
+        }
+
+        public void setVisitorCount(int visitorCount) {
+            this.visitorCount = visitorCount;
+        }
+
+        public double getTotalSales() {
+            return totalSales;
+        }
+
+        public void setTotalSales(double totalSales) {
+            this.totalSales = totalSales;
+        }
+    }
+
+    public static class Artist {
+        @Id
+        private String id;
+
+        @JsonProperty("username")
+        private String username;
+
+        @JsonProperty("walletAddress")
+        private String walletAddress;
+
+        @JsonProperty("contract")
+        private User.Contract contract;
+
+        @JsonProperty("profile")
+        private User.Profile profile;
+
+        // Getters and Setters
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getWalletAddress() {
+            return walletAddress;
+        }
+
+        public void setWalletAddress(String walletAddress) {
+            this.walletAddress = walletAddress;
+        }
+
+        public User.Contract getContract() {
+            return contract;
+        }
+
+        public void setContract(User.Contract contract) {
+            this.contract = contract;
+        }
+
+        public User.Profile getProfile() {
+            return profile;
+        }
+
+        public void setProfile(User.Profile profile) {
+            this.profile = profile;
+        }
+    }
+}
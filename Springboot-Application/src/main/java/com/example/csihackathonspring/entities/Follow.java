@@ -0,0 +1,64 @@
+package com.example.csihackathonspring.entities;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+@Document(collection = "follows")
+@CompoundIndex(name = "follower_followee", def = "{'followerId': 1, 'followeeId': 1}", unique = true)
+public class Follow {
+
+    @Id
+    private String id;
+
+    @JsonProperty("followerId")
+    private String followerId;
+
+    @JsonProperty("followeeId")
+    private String followeeId;
+
+    // Instances poll new edges by creation time
+    @JsonProperty("createdAt")
+    @Indexed(name = "follow_created")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSZ")
+    private Date createdAt;
+
+    // Getters and Setters
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFollowerId() {
+        return followerId;
+    }
+
+    public void setFollowerId(String followerId) {
+        this.followerId = followerId;
+    }
+
+    public String getFolloweeId() {
+        return followeeId;
+    }
+
+    public void setFolloweeId(String followeeId) {
+        this.followeeId = followeeId;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -3,6 +3,8 @@ package com.example.csihackathonspring.entities;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Date;
@@ -21,6 +23,7 @@ public class Investor {
     private String password;
 
     @JsonProperty("walletAddress")
+    @Indexed(name = "wallet_ci", collation = "{ 'locale': 'en', 'strength': 2 }")
     private String walletAddress;
 
     @JsonProperty("role")
@@ -39,6 +42,10 @@ public class Investor {
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSZ")
     private Date createdAt;
 
+    @Version
+    @JsonProperty("version")
+    private Long version;
+
     // Getters and Setters
 
     public String getId() {
@@ -113,6 +120,14 @@ public class Investor {
         this.createdAt = createdAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     // Inner classes
 
     public static class Profile {
@@ -0,0 +1,106 @@
+package com.example.csihackathonspring.entities;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+// NFT sale records written by the Node backend
+@Document(collection = "transactions")
+@CompoundIndex(name = "buyer_created_ci", def = "{'buyer': 1, 'createdAt': 1}", collation = "{ 'locale': 'en', 'strength': 2 }")
+public class Transaction {
+
+    @Id
+    private String id;
+
+    @JsonProperty("nftId")
+    private String nftId;
+
+    @JsonProperty("tokenId")
+    private long tokenId;
+
+    @JsonProperty("seller")
+    private String seller;
+
+    @JsonProperty("buyer")
+    private String buyer;
+
+    @JsonProperty("price")
+    private String price;
+
+    @JsonProperty("transactionHash")
+    private String transactionHash;
+
+    @JsonProperty("createdAt")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSZ")
+    private Date createdAt;
+
+    // Getters and Setters
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getNftId() {
+        return nftId;
+    }
+
+    public void setNftId(String nftId) {
+        this.nftId = nftId;
+    }
+
+    public long getTokenId() {
+        return tokenId;
+    }
+
+    public void setTokenId(long tokenId) {
+        this.tokenId = tokenId;
+    }
+
+    public String getSeller() {
+        return seller;
+    }
+
+    public void setSeller(String seller) {
+        this.seller = seller;
+    }
+
+    public String getBuyer() {
+        return buyer;
+    }
+
+    public void setBuyer(String buyer) {
+        this.buyer = buyer;
+    }
+
+    public String getPrice() {
+        return price;
+    }
+
+    public void setPrice(String price) {
+        this.price = price;
+    }
+
+    public String getTransactionHash() {
+        return transactionHash;
+    }
+
+    public void setTransactionHash(String transactionHash) {
+        this.transactionHash = transactionHash;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+}
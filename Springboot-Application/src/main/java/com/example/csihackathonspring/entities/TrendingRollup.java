@@ -0,0 +1,107 @@
+package com.example.csihackathonspring.entities;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+// Hourly and daily activity totals per artist or curator
+@Document(collection = "trending_rollups")
+@CompoundIndex(name = "entity_bucket",
+        def = "{'entityType': 1, 'entityId': 1, 'granularity': 1, 'bucketStart': 1}", unique = true)
+public class TrendingRollup {
+
+    @Id
+    private String id;
+
+    @JsonProperty("entityType")
+    private String entityType;
+
+    @JsonProperty("entityId")
+    private String entityId;
+
+    @JsonProperty("granularity")
+    private String granularity;
+
+    @JsonProperty("bucketStart")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSZ")
+    private Date bucketStart;
+
+    @JsonProperty("views")
+    private long views;
+
+    @JsonProperty("likes")
+    private long likes;
+
+    @JsonProperty("sales")
+    private long sales;
+
+    // Getters and Setters
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public String getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(String entityId) {
+        this.entityId = entityId;
+    }
+
+    public String getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(String granularity) {
+        this.granularity = granularity;
+    }
+
+    public Date getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(Date bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public long getViews() {
+        return views;
+    }
+
+    public void setViews(long views) {
+        this.views = views;
+    }
+
+    public long getLikes() {
+        return likes;
+    }
+
+    public void setLikes(long likes) {
+        this.likes = likes;
+    }
+
+    public long getSales() {
+        return sales;
+    }
+
+    public void setSales(long sales) {
+        this.sales = sales;
+    }
+}
@@ -3,6 +3,7 @@ package com.example.csihackathonspring.entities;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Date;
@@ -49,6 +50,11 @@ public class User {
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSZ")
     private Date updatedAt;
 
+    // Bumped by every targeted update; documents written before versioning read as null and match version 0
+    @Version
+    @JsonProperty("version")
+    private Long version;
+
     // Getters and Setters
 
     public String getId() {
@@ -147,6 +153,14 @@ public class User {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     // Inner classes
 
     public static class Contract {
@@ -0,0 +1,10 @@
+package com.example.csihackathonspring.repositories;
+
+import com.example.csihackathonspring.entities.Follow;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FollowRepository extends MongoRepository<Follow, String> {
+    long deleteByFollowerIdAndFolloweeId(String followerId, String followeeId);
+}
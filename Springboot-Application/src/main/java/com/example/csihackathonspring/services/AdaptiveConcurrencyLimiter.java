@@ -0,0 +1,126 @@
+package com.example.csihackathonspring.services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gradient concurrency limit in the style of TCP Vegas: the ratio between the
+ * no-load round trip (a windowed minimum) and the current round trip says how
+ * much of the latency is queueing, and the limit is scaled by that ratio plus
+ * a small sqrt(limit) headroom so it keeps probing upward when latency is flat.
+ * Callers over the limit are rejected immediately instead of joining a queue.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final long minRttWindowNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private double smoothedRttNanos;
+    private long minRttNanos = Long.MAX_VALUE;
+    private long previousWindowMinRtt = Long.MAX_VALUE;
+    private long windowStartNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double tolerance, double smoothing, long minRttWindowNanos) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.minRttWindowNanos = minRttWindowNanos;
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+        this.windowStartNanos = System.nanoTime();
+    }
+
+    // Take a slot if one is free; never waits
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                accepted.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Return the slot and feed the call's round trip into the estimate. A dropped
+     * call (timeout, connection failure) backs the limit off multiplicatively.
+     */
+    public void release(long rttNanos, boolean droppedCall) {
+        int inFlightAtStart = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (droppedCall) {
+                dropped.increment();
+                estimatedLimit = Math.max(minLimit, estimatedLimit * 0.9);
+                limit = (int) estimatedLimit;
+                return;
+            }
+            long now = System.nanoTime();
+            if (now - windowStartNanos > minRttWindowNanos) {
+                previousWindowMinRtt = minRttNanos;
+                minRttNanos = Long.MAX_VALUE;
+                windowStartNanos = now;
+            }
+            minRttNanos = Math.min(minRttNanos, rttNanos);
+            smoothedRttNanos = smoothedRttNanos == 0 ? rttNanos : smoothedRttNanos * 0.8 + rttNanos * 0.2;
+
+            // Do not grow a limit the caller is nowhere near using
+            if (inFlightAtStart < estimatedLimit / 2 && smoothedRttNanos <= baselineRtt() * tolerance) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * baselineRtt() / smoothedRttNanos));
+            double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit * (1 - smoothing) + target * smoothing));
+            limit = (int) estimatedLimit;
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long baseline = baselineRtt();
+        stats.put("limit", limit);
+        stats.put("inFlight", inFlight.get());
+        stats.put("accepted", accepted.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("minRttMicros", baseline == Long.MAX_VALUE ? 0 : baseline / 1_000);
+        stats.put("rttMicros", (long) smoothedRttNanos / 1_000);
+        // Vegas queue estimate: the share of in-flight calls that is waiting rather than being served
+        stats.put("estimatedQueue", smoothedRttNanos == 0 || baseline == Long.MAX_VALUE ? 0.0
+                : Math.max(0, limit * (1 - baseline / smoothedRttNanos)));
+        return stats;
+    }
+
+    // Lowest round trip over the current and the previous window, so the baseline can drift up slowly
+    private long baselineRtt() {
+        return Math.min(minRttNanos, previousWindowMinRtt);
+    }
+}
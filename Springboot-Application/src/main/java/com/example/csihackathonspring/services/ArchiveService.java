@@ -0,0 +1,388 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.entities.Investor;
+import com.example.csihackathonspring.entities.User;
+import com.mongodb.MongoClientSettings;
+import org.bson.BsonBinaryReader;
+import org.bson.ByteBuf;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Cold tier for users and investors that have been inactive for a long time.
+ * Such documents move in batches to {@code <collection>_cold} as deflated
+ * BSON. Only _id and username stay readable there, so the hot collections
+ * and their indexes shrink to the active accounts.
+ *
+ * The cold copy is written before the hot one is deleted, and the delete
+ * only matches the version that was read and re-checks inactivity, so a
+ * crash or a concurrent write never loses a document. A lookup that misses
+ * the hot collection calls {@link #rehydrate}, and a targeted write that
+ * matched nothing calls {@link #restore}; both move the document back and
+ * mark it so the next run leaves it alone. Neither move goes through a
+ * repository, so the journal and search index are told here.
+ *
+ * The Node backend reads these collections directly and does not know
+ * about the cold tier, which is why archiving is off unless enabled.
+ */
+@Service
+public class ArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchiveService.class);
+    private static final Codec<Document> CODEC = MongoClientSettings.getDefaultCodecRegistry().get(Document.class);
+    private static final Map<Class<?>, String> HOT = Map.of(User.class, "users", Investor.class, "investors");
+    private static final String COLD_SUFFIX = "_cold";
+
+    private final MongoTemplate mongoTemplate;
+    private final MutationJournalService journal;
+    private final SearchService searchService;
+    private final boolean enabled;
+    private final long inactiveMillis;
+    private final int batchSize;
+    private final int maxPerRun;
+    private final int compressionLevel;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong archived = new AtomicLong();
+    private final AtomicLong archivedBytes = new AtomicLong();
+    private final AtomicLong compressedBytes = new AtomicLong();
+    private final AtomicLong rehydrated = new AtomicLong();
+    private volatile Map<String, Object> lastRun = Map.of();
+
+    @Autowired
+    public ArchiveService(MongoTemplate mongoTemplate,
+                          MutationJournalService journal,
+                          SearchService searchService,
+                          @Value("${archive.enabled:false}") boolean enabled,
+                          @Value("${archive.inactive-days:180}") int inactiveDays,
+                          @Value("${archive.batch-size:500}") int batchSize,
+                          @Value("${archive.max-per-run:100000}") int maxPerRun,
+                          @Value("${archive.compression-level:6}") int compressionLevel) {
+        this.mongoTemplate = mongoTemplate;
+        this.journal = journal;
+        this.searchService = searchService;
+        this.enabled = enabled;
+        this.inactiveMillis = TimeUnit.DAYS.toMillis(inactiveDays);
+        this.batchSize = batchSize;
+        this.maxPerRun = maxPerRun;
+        this.compressionLevel = compressionLevel;
+    }
+
+    @Scheduled(cron = "${archive.cron:0 30 4 * * *}")
+    public void scheduledArchive() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            archive();
+        } catch (IllegalStateException e) {
+            log.info("Skipping scheduled archive: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Scheduled archive failed", e);
+        }
+    }
+
+    // One pass over both collections; IllegalStateException if a pass is already running
+    public Map<String, Object> archive() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("An archive pass is already running");
+        }
+        try {
+            long start = System.nanoTime();
+            Date cutoff = new Date(System.currentTimeMillis() - inactiveMillis);
+            Map<String, Object> run = new LinkedHashMap<>();
+            run.put("cutoff", cutoff);
+            for (Class<?> type : List.of(User.class, Investor.class)) {
+                run.put(HOT.get(type), archive(type, cutoff));
+            }
+            run.put("millis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            lastRun = run;
+            return run;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * The document from the cold tier, moved back into the hot collection,
+     * or null when it was never archived. Field is "id" or "username".
+     */
+    public <T> T rehydrate(Class<T> type, String field, String value) {
+        String hot = HOT.get(type);
+        if (hot == null || value == null) {
+            return null;
+        }
+        Object key = "id".equals(field) && ObjectId.isValid(value) ? new ObjectId(value) : value;
+        Document cold = mongoTemplate.findOne(new Query(where("id".equals(field) ? "_id" : field).is(key)),
+                Document.class, hot + COLD_SUFFIX);
+        if (cold == null) {
+            return null;
+        }
+        Document original = decompress(cold.get("data", Binary.class).getData());
+        original.put("rehydratedAt", new Date());
+        // Moving back is a write like any other, so versions read before archival no longer match
+        original.put("version", original.get("version") instanceof Number version ? version.longValue() + 1 : 1L);
+        T document = mongoTemplate.getConverter().read(type, original);
+        try {
+            mongoTemplate.insert(original, hot);
+            mongoTemplate.remove(new Query(where("_id").is(cold.get("_id"))), hot + COLD_SUFFIX);
+            rehydrated.incrementAndGet();
+            journal.recordInsert(type, original);
+            if (document instanceof User user) {
+                searchService.index(user);
+            } else if (document instanceof Investor investor) {
+                searchService.index(investor);
+            }
+        } catch (DuplicateKeyException e) {
+            // Another lookup moved it back first and removes the cold copy itself
+            log.debug("{} {} was rehydrated concurrently", hot, cold.get("_id"));
+        }
+        return document;
+    }
+
+    /**
+     * For a targeted write that matched nothing: moves the account back from
+     * the cold tier so the write can be retried. False when the id is not
+     * archived, in which case there really is nothing to update.
+     */
+    public boolean restore(Class<?> type, String id) {
+        return rehydrate(type, "id", id) != null;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long raw = archivedBytes.get();
+        long compressed = compressedBytes.get();
+        stats.put("enabled", enabled);
+        stats.put("inactiveDays", TimeUnit.MILLISECONDS.toDays(inactiveMillis));
+        stats.put("archived", archived.get());
+        stats.put("rehydrated", rehydrated.get());
+        // Document bytes taken out of the hot collections and what they occupy once deflated
+        stats.put("archivedBytes", raw);
+        stats.put("compressedBytes", compressed);
+        stats.put("compressionRatio", compressed == 0 ? 0.0 : (double) raw / compressed);
+        Map<String, Object> collections = new LinkedHashMap<>();
+        for (String hot : HOT.values()) {
+            collections.put(hot, workingSet(hot));
+        }
+        stats.put("collections", collections);
+        stats.put("lastRun", lastRun);
+        return stats;
+    }
+
+    private Map<String, Object> archive(Class<?> type, Date cutoff) {
+        String hot = HOT.get(type);
+        String cold = hot + COLD_SUFFIX;
+        int moved = 0;
+        int skipped = 0;
+        Object lastId = null;
+        while (moved < maxPerRun) {
+            Criteria page = lastId == null ? inactive(cutoff) : new Criteria().andOperator(where("_id").gt(lastId), inactive(cutoff));
+            Query query = new Query(page).with(Sort.by("_id")).limit(Math.min(batchSize, maxPerRun - moved));
+            List<Document> batch = mongoTemplate.find(query, Document.class, hot);
+            if (batch.isEmpty()) {
+                break;
+            }
+            lastId = batch.get(batch.size() - 1).get("_id");
+            List<Document> candidates = "investors".equals(hot) ? withoutRecentPurchases(batch, cutoff) : batch;
+            skipped += batch.size() - candidates.size();
+            if (candidates.isEmpty()) {
+                continue;
+            }
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, cold);
+            // _id -> raw and deflated size, for counting only what actually leaves the hot collection
+            Map<Object, long[]> sizes = new LinkedHashMap<>();
+            Date now = new Date();
+            for (Document document : candidates) {
+                byte[] bson = bson(document);
+                byte[] deflated = deflate(bson, compressionLevel);
+                sizes.put(document.get("_id"), new long[]{bson.length, deflated.length});
+                bulk.replaceOne(new Query(where("_id").is(document.get("_id"))),
+                        new Document("_id", document.get("_id"))
+                                .append("username", document.get("username"))
+                                .append("archivedAt", now)
+                                .append("rawBytes", bson.length)
+                                .append("data", new Binary(deflated)),
+                        FindAndReplaceOptions.options().upsert());
+            }
+            bulk.execute();
+
+            // Only the image that was archived is removed: our targeted writes bump the version and the
+            // Node backend's touch updatedAt, so anything written since the read keeps its hot copy
+            BulkOperations deletes = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, hot);
+            for (Document document : candidates) {
+                deletes.remove(new Query(new Criteria().andOperator(
+                        where("_id").is(document.get("_id")), sameVersion(document), inactive(cutoff))));
+            }
+            deletes.execute();
+            Query survivors = new Query(where("_id").in(sizes.keySet()));
+            survivors.fields().include("_id");
+            List<Object> stillHot = mongoTemplate.find(survivors, Document.class, hot).stream().map(d -> d.get("_id")).toList();
+            if (!stillHot.isEmpty()) {
+                mongoTemplate.remove(new Query(where("_id").in(stillHot)), cold);
+                skipped += stillHot.size();
+                stillHot.forEach(sizes::remove);
+            }
+            for (Map.Entry<Object, long[]> entry : sizes.entrySet()) {
+                archivedBytes.addAndGet(entry.getValue()[0]);
+                compressedBytes.addAndGet(entry.getValue()[1]);
+                journal.recordDelete(type, entry.getKey().toString());
+                searchService.remove(type, entry.getKey().toString());
+            }
+            moved += sizes.size();
+            archived.addAndGet(sizes.size());
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("archived", moved);
+        result.put("skipped", skipped);
+        return result;
+    }
+
+    // Not updated (or, lacking updatedAt, not created) since the cutoff, and not brought back from the cold tier since
+    static Criteria inactive(Date cutoff) {
+        return new Criteria().andOperator(
+                new Criteria().orOperator(
+                        where("updatedAt").lt(cutoff),
+                        new Criteria().andOperator(where("updatedAt").exists(false), where("createdAt").lt(cutoff))),
+                where("rehydratedAt").not().gte(cutoff));
+    }
+
+    // Documents written before versioning have no version field; they must still have none
+    private static Criteria sameVersion(Document read) {
+        Object version = read.get("version");
+        return version == null ? where("version").exists(false) : where("version").is(version);
+    }
+
+    // Investor documents carry no updatedAt of their own, so purchases count as activity too
+    private List<Document> withoutRecentPurchases(List<Document> batch, Date cutoff) {
+        Set<String> wallets = new HashSet<>();
+        for (Document investor : batch) {
+            String wallet = BadgeService.wallet(investor.getString("walletAddress"));
+            if (wallet != null) {
+                wallets.add(wallet);
+            }
+        }
+        if (wallets.isEmpty()) {
+            return batch;
+        }
+        Query purchases = new Query(where("buyer").in(wallets).and("createdAt").gte(cutoff)).collation(BadgeService.WALLET_CASE);
+        Set<String> active = new HashSet<>();
+        for (String buyer : mongoTemplate.findDistinct(purchases, "buyer", "transactions", String.class)) {
+            active.add(BadgeService.wallet(buyer));
+        }
+        return batch.stream().filter(investor -> !active.contains(BadgeService.wallet(investor.getString("walletAddress")))).toList();
+    }
+
+    // Data and index sizes of the hot collection next to the storage of its cold tier, from collStats
+    private Map<String, Object> workingSet(String hot) {
+        Map<String, Object> sizes = new LinkedHashMap<>();
+        try {
+            Document hotStats = mongoTemplate.executeCommand(new Document("collStats", hot));
+            Document coldStats = mongoTemplate.executeCommand(new Document("collStats", hot + COLD_SUFFIX));
+            sizes.put("hotDocuments", hotStats.get("count"));
+            sizes.put("hotDataBytes", hotStats.get("size"));
+            sizes.put("hotIndexBytes", hotStats.get("totalIndexSize"));
+            sizes.put("coldDocuments", coldStats.get("count"));
+            sizes.put("coldStorageBytes", coldStats.get("storageSize"));
+        } catch (RuntimeException e) {
+            sizes.put("error", e.getMessage());
+        }
+        return sizes;
+    }
+
+    static byte[] bson(Document document) {
+        ByteBuf buffer = new RawBsonDocument(document, CODEC).getByteBuffer();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    static byte[] deflate(byte[] bytes, int level) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 64);
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static Document decompress(byte[] deflated) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(deflated);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(deflated.length * 3);
+            byte[] chunk = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(chunk);
+                if (n == 0 && inflater.needsInput()) {
+                    throw new IllegalStateException("Truncated archived document");
+                }
+                out.write(chunk, 0, n);
+            }
+            return CODEC.decode(new BsonBinaryReader(ByteBuffer.wrap(out.toByteArray())), DecoderContext.builder().build());
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt archived document", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // The archive scan filters on updatedAt; rehydration by username looks cold documents up by it
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            for (String hot : HOT.values()) {
+                mongoTemplate.indexOps(hot + COLD_SUFFIX).ensureIndex(new Index().on("username", Sort.Direction.ASC));
+                if (enabled) {
+                    mongoTemplate.indexOps(hot).ensureIndex(new Index().on("updatedAt", Sort.Direction.ASC));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Archive index creation failed", e);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.config.BadgeProperties.Metric;
+import com.example.csihackathonspring.config.BadgeProperties.Op;
+import com.example.csihackathonspring.config.BadgeProperties.Rule;
+import com.example.csihackathonspring.entities.Investor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoublePredicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Badge rules compiled once into accessor + comparison lambdas and indexed by
+ * the metric they read, so an event only runs the rules whose inputs it changed.
+ */
+public class BadgeEngine {
+
+    // What a rule can see about one investor; firstPurchaseMillis is 0 when never bought or not loaded
+    public static final class Facts {
+        private final Investor investor;
+        private final long firstPurchaseMillis;
+        private final long nowMillis;
+
+        public Facts(Investor investor, long firstPurchaseMillis, long nowMillis) {
+            this.investor = investor;
+            this.firstPurchaseMillis = firstPurchaseMillis;
+            this.nowMillis = nowMillis;
+        }
+    }
+
+    private static final class CompiledRule {
+        private final String badge;
+        private final ToDoubleFunction<Facts> metric;
+        private final DoublePredicate test;
+
+        CompiledRule(String badge, ToDoubleFunction<Facts> metric, DoublePredicate test) {
+            this.badge = badge;
+            this.metric = metric;
+            this.test = test;
+        }
+    }
+
+    private final Map<Metric, List<CompiledRule>> rulesByMetric = new EnumMap<>(Metric.class);
+    private final TreeSet<Double> holdingThresholdDays = new TreeSet<>();
+
+    public BadgeEngine(Collection<Rule> rules) {
+        for (Rule rule : rules) {
+            rulesByMetric.computeIfAbsent(rule.getMetric(), m -> new ArrayList<>())
+                    .add(new CompiledRule(rule.getBadge(), accessor(rule.getMetric()), comparison(rule.getOp(), rule.getThreshold())));
+            if (rule.getMetric() == Metric.HOLDING_DAYS) {
+                holdingThresholdDays.add(rule.getThreshold());
+            }
+        }
+    }
+
+    // Badges the investor now qualifies for but does not hold, from rules reading any changed metric
+    public Set<String> evaluate(Facts facts, Set<Metric> changed) {
+        Set<String> earned = new LinkedHashSet<>();
+        List<String> held = facts.investor.getProfile() == null ? null : facts.investor.getProfile().getBadges();
+        for (Metric metric : changed) {
+            List<CompiledRule> rules = rulesByMetric.get(metric);
+            if (rules == null) {
+                continue;
+            }
+            for (CompiledRule rule : rules) {
+                if ((held == null || !held.contains(rule.badge)) && rule.test.test(rule.metric.applyAsDouble(facts))) {
+                    earned.add(rule.badge);
+                }
+            }
+        }
+        return earned;
+    }
+
+    public boolean uses(Metric metric) {
+        return rulesByMetric.containsKey(metric);
+    }
+
+    public Set<Double> holdingThresholdDays() {
+        return holdingThresholdDays;
+    }
+
+    public int ruleCount() {
+        return rulesByMetric.values().stream().mapToInt(List::size).sum();
+    }
+
+    // Document paths a rule over this metric reads, for projected loads
+    public static String field(Metric metric) {
+        switch (metric) {
+            case INVESTMENTS_COUNT: return "profile.investmentsCount";
+            case FOLLOWERS: return "profile.followersCount";
+            case TOTAL_INVESTED: return "analytics.totalInvested";
+            case PORTFOLIO_VALUE: return "analytics.portfolioValue";
+            case ROI: return "analytics.totalROI";
+            case HOLDING_DAYS: return "walletAddress";
+            default: throw new IllegalArgumentException("Unsupported badge metric " + metric);
+        }
+    }
+
+    private static ToDoubleFunction<Facts> accessor(Metric metric) {
+        switch (metric) {
+            case INVESTMENTS_COUNT:
+                return f -> f.investor.getProfile() == null ? 0 : f.investor.getProfile().getInvestmentsCount();
+            case FOLLOWERS:
+                return f -> f.investor.getProfile() == null ? 0 : f.investor.getProfile().getFollowersCount();
+            case TOTAL_INVESTED:
+                return f -> f.investor.getAnalytics() == null ? 0 : f.investor.getAnalytics().getTotalInvested();
+            case PORTFOLIO_VALUE:
+                return f -> f.investor.getAnalytics() == null ? 0 : f.investor.getAnalytics().getPortfolioValue();
+            case ROI:
+                return f -> f.investor.getAnalytics() == null ? 0 : f.investor.getAnalytics().getTotalROI();
+            case HOLDING_DAYS:
+                return f -> f.firstPurchaseMillis == 0 ? 0
+                        : (f.nowMillis - f.firstPurchaseMillis) / (double) TimeUnit.DAYS.toMillis(1);
+            default:
+                throw new IllegalArgumentException("Unsupported badge metric " + metric);
+        }
+    }
+
+    private static DoublePredicate comparison(Op op, double threshold) {
+        switch (op) {
+            case GT: return v -> v > threshold;
+            case LTE: return v -> v <= threshold;
+            case LT: return v -> v < threshold;
+            default: return v -> v >= threshold;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.config.BadgeProperties;
+import com.example.csihackathonspring.config.BadgeProperties.Metric;
+import com.example.csihackathonspring.entities.Investor;
+import com.example.csihackathonspring.entities.Transaction;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Feeds investor activity into the {@link BadgeEngine}. Three sources trigger
+ * evaluation, each touching only the investors it affects: repository saves,
+ * newly recorded purchases, and holding periods crossing a rule threshold.
+ * Nothing ever scans the investors collection.
+ */
+@Service
+public class BadgeService {
+
+    private static final Logger log = LoggerFactory.getLogger(BadgeService.class);
+    private static final String STATE_COLLECTION = "badge_engine_state";
+    private static final Set<Metric> PURCHASE_METRICS = EnumSet.of(
+            Metric.INVESTMENTS_COUNT, Metric.TOTAL_INVESTED, Metric.PORTFOLIO_VALUE, Metric.ROI, Metric.HOLDING_DAYS);
+    // Wallets are stored as the Node backend received them, checksummed or not; matches the *_ci indexes
+    static final Collation WALLET_CASE = Collation.of("en").strength(Collation.ComparisonLevel.secondary());
+
+    private final MongoTemplate mongoTemplate;
+    private final MutationJournalService journal;
+    private final ArchiveService archive;
+    private final BadgeEngine engine;
+    private final long overlapMillis;
+    // Purchases inside the re-read window that were already evaluated, by id; guarded by pollPurchases
+    private final Map<String, Date> seenPurchases = new HashMap<>();
+    private volatile Date purchaseWatermark;
+    private volatile Date holdingCheckedUntil;
+    private final AtomicLong evaluations = new AtomicLong();
+    private final AtomicLong awarded = new AtomicLong();
+
+    @Autowired
+    public BadgeService(MongoTemplate mongoTemplate, MutationJournalService journal, ArchiveService archive,
+                        BadgeProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.journal = journal;
+        this.archive = archive;
+        this.engine = new BadgeEngine(properties.getRules());
+        this.overlapMillis = properties.getPollOverlapMs();
+    }
+
+    // Re-evaluate one investor after a targeted write changed the given metrics
+    public Set<String> onActivity(String investorId, Set<Metric> changed) {
+        Query query = projected(where("_id").is(investorId), changed);
+        Investor investor = mongoTemplate.findOne(query, Investor.class);
+        if (investor == null && archive.restore(Investor.class, investorId)) {
+            investor = mongoTemplate.findOne(query, Investor.class);
+        }
+        return investor == null ? Set.of() : evaluate(investor, changed);
+    }
+
+    // Full saves may change anything, and the saved document is already in hand
+    @EventListener
+    public void onAfterSave(AfterSaveEvent<?> event) {
+        if (event.getSource() instanceof Investor investor && investor.getId() != null) {
+            evaluate(investor, EnumSet.allOf(Metric.class));
+        }
+    }
+
+    // Purchases since the last poll; each buyer is evaluated once per poll however many they made.
+    // A purchase can commit after a later-stamped one was seen, so the poll re-reads an overlap
+    // window before the watermark and skips the purchases it already evaluated.
+    @Scheduled(fixedDelayString = "${badges.poll-ms:5000}")
+    public synchronized void pollPurchases() {
+        Date watermark = purchaseWatermark;
+        if (watermark == null) {
+            return;
+        }
+        Date from = new Date(watermark.getTime() - overlapMillis);
+        Query query = new Query(where("createdAt").gte(from)).with(Sort.by("createdAt"));
+        query.fields().include("buyer", "createdAt");
+        List<Transaction> purchases = mongoTemplate.find(query, Transaction.class);
+        seenPurchases.values().removeIf(createdAt -> createdAt.before(from));
+        List<Transaction> fresh = purchases.stream().filter(t -> !seenPurchases.containsKey(t.getId())).toList();
+        if (fresh.isEmpty()) {
+            return;
+        }
+        Set<String> buyers = fresh.stream().map(t -> wallet(t.getBuyer())).filter(Objects::nonNull).collect(Collectors.toSet());
+        evaluateWallets(buyers, PURCHASE_METRICS);
+        fresh.forEach(t -> seenPurchases.put(t.getId(), t.getCreatedAt()));
+        Date newest = purchases.get(purchases.size() - 1).getCreatedAt();
+        if (newest.after(watermark)) {
+            purchaseWatermark = newest;
+        }
+        saveState();
+    }
+
+    /**
+     * A holding rule of N days can only flip for investors whose first purchase
+     * happened between N days before the last check and N days ago, so each tick
+     * reads that slice of transactions and nothing else.
+     */
+    @Scheduled(fixedDelayString = "${badges.holding-check-ms:60000}")
+    public synchronized void checkHoldings() {
+        Date checkedUntil = holdingCheckedUntil;
+        if (checkedUntil == null || engine.holdingThresholdDays().isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Set<String> candidates = new HashSet<>();
+        for (double days : engine.holdingThresholdDays()) {
+            long threshold = (long) (days * TimeUnit.DAYS.toMillis(1));
+            Query slice = new Query(where("createdAt").gt(new Date(checkedUntil.getTime() - threshold)).lte(new Date(now - threshold)));
+            Set<String> buyers = mongoTemplate.findDistinct(slice, "buyer", Transaction.class, String.class).stream()
+                    .map(BadgeService::wallet).filter(Objects::nonNull).collect(Collectors.toSet());
+            for (String buyer : buyers) {
+                Date first = firstPurchase(buyer);
+                if (first != null && first.getTime() > checkedUntil.getTime() - threshold) {
+                    candidates.add(buyer);
+                }
+            }
+        }
+        evaluateWallets(candidates, EnumSet.of(Metric.HOLDING_DAYS));
+        holdingCheckedUntil = new Date(now);
+        saveState();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("rules", engine.ruleCount());
+        stats.put("evaluations", evaluations.get());
+        stats.put("awarded", awarded.get());
+        stats.put("purchaseWatermark", purchaseWatermark);
+        stats.put("holdingCheckedUntil", holdingCheckedUntil);
+        return stats;
+    }
+
+    private void evaluateWallets(Set<String> wallets, Set<Metric> changed) {
+        if (wallets.isEmpty()) {
+            return;
+        }
+        Query query = projected(where("walletAddress").in(wallets), changed).collation(WALLET_CASE);
+        for (Investor investor : mongoTemplate.find(query, Investor.class)) {
+            evaluate(investor, changed);
+        }
+    }
+
+    private Set<String> evaluate(Investor investor, Set<Metric> changed) {
+        evaluations.incrementAndGet();
+        long firstPurchase = 0;
+        String wallet = wallet(investor.getWalletAddress());
+        if (changed.contains(Metric.HOLDING_DAYS) && engine.uses(Metric.HOLDING_DAYS) && wallet != null) {
+            Date first = firstPurchase(wallet);
+            firstPurchase = first == null ? 0 : first.getTime();
+        }
+        Set<String> earned = engine.evaluate(new BadgeEngine.Facts(investor, firstPurchase, System.currentTimeMillis()), changed);
+        if (!earned.isEmpty()) {
+            // $addToSet keeps concurrent awards idempotent and leaves the rest of the document alone
+            Update award = new Update().addToSet("profile.badges").each(earned.toArray()).inc("version", 1);
+            Query target = new Query(where("_id").is(investor.getId()));
+            long matched = mongoTemplate.updateFirst(target, award, Investor.class).getMatchedCount();
+            // Archived between the read and the award; move it back rather than drop the badges
+            if (matched == 0 && archive.restore(Investor.class, investor.getId())) {
+                matched = mongoTemplate.updateFirst(target, award, Investor.class).getMatchedCount();
+            }
+            if (matched == 0) {
+                return Set.of();
+            }
+            journal.recordUpdate(Investor.class, investor.getId(), award);
+            awarded.addAndGet(earned.size());
+            log.debug("Investor {} earned {}", investor.getId(), earned);
+        }
+        return earned;
+    }
+
+    private Query projected(Criteria criteria, Set<Metric> changed) {
+        Query query = new Query(criteria);
+        query.fields().include("profile.badges", "walletAddress");
+        for (Metric metric : changed) {
+            query.fields().include(BadgeEngine.field(metric));
+        }
+        return query;
+    }
+
+    // The one place wallet casing is decided; queries still match stored variants through WALLET_CASE
+    static String wallet(String address) {
+        if (address == null || address.isBlank()) {
+            return null;
+        }
+        return address.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private Date firstPurchase(String buyer) {
+        Query query = new Query(where("buyer").is(buyer)).with(Sort.by("createdAt")).limit(1).collation(WALLET_CASE);
+        query.fields().include("createdAt");
+        Transaction first = mongoTemplate.findOne(query, Transaction.class);
+        return first == null ? null : first.getCreatedAt();
+    }
+
+    private void saveState() {
+        mongoTemplate.upsert(new Query(where("_id").is("investors")),
+                new Update().set("purchaseWatermark", purchaseWatermark).set("holdingCheckedUntil", holdingCheckedUntil),
+                STATE_COLLECTION);
+    }
+
+    // Resume from the persisted watermarks so purchases made while stopped are still evaluated
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            IndexResolver resolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+            for (Class<?> type : List.of(Transaction.class, Investor.class)) {
+                IndexOperations indexOps = mongoTemplate.indexOps(type);
+                resolver.resolveIndexFor(type).forEach(indexOps::ensureIndex);
+            }
+            Document state = mongoTemplate.findById("investors", Document.class, STATE_COLLECTION);
+            Date now = new Date();
+            purchaseWatermark = state == null || state.getDate("purchaseWatermark") == null ? now : state.getDate("purchaseWatermark");
+            holdingCheckedUntil = state == null || state.getDate("holdingCheckedUntil") == null ? now : state.getDate("holdingCheckedUntil");
+        } catch (RuntimeException e) {
+            log.warn("Badge engine state load failed, badges will not be awarded from purchases", e);
+            return;
+        }
+        log.info("Badge engine loaded {} rules, resuming purchases after {}", engine.ruleCount(), purchaseWatermark);
+    }
+}
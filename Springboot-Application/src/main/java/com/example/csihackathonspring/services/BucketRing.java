@@ -0,0 +1,139 @@
+package com.example.csihackathonspring.services;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Fixed ring of time buckets, each holding one counter per activity type. A
+ * slot is lazily reset when a newer bucket lands on it, so there is no
+ * background rotation. Alongside each total the ring keeps how much of it
+ * has been persisted, so only the unpersisted part is written out. Not
+ * thread-safe; callers synchronize per entity.
+ */
+public class BucketRing {
+
+    public static final int TYPES = 3;
+
+    private final long bucketMillis;
+    private final int size;
+    private final long[] epochs;
+    private final long[] counts;
+    private final long[] flushed;
+
+    public BucketRing(long bucketMillis, int size) {
+        this.bucketMillis = bucketMillis;
+        this.size = size;
+        this.epochs = new long[size];
+        this.counts = new long[size * TYPES];
+        this.flushed = new long[size * TYPES];
+        Arrays.fill(epochs, Long.MIN_VALUE);
+    }
+
+    public long bucketOf(long timeMillis) {
+        return Math.floorDiv(timeMillis, bucketMillis);
+    }
+
+    public long bucketMillis() {
+        return bucketMillis;
+    }
+
+    public void add(long timeMillis, int type, long n) {
+        long bucket = bucketOf(timeMillis);
+        int slot = slot(bucket);
+        if (epochs[slot] != bucket) {
+            if (epochs[slot] > bucket) {
+                return; // older than the ring's horizon
+            }
+            epochs[slot] = bucket;
+            Arrays.fill(counts, slot * TYPES, slot * TYPES + TYPES, 0);
+            Arrays.fill(flushed, slot * TYPES, slot * TYPES + TYPES, 0);
+        }
+        counts[slot * TYPES + type] += n;
+    }
+
+    // Overwrite a bucket's totals, used when restoring persisted rollups, so they count as flushed
+    public void set(long bucket, long[] values) {
+        int slot = slot(bucket);
+        if (epochs[slot] > bucket) {
+            return;
+        }
+        epochs[slot] = bucket;
+        System.arraycopy(values, 0, counts, slot * TYPES, TYPES);
+        System.arraycopy(values, 0, flushed, slot * TYPES, TYPES);
+    }
+
+    // Per bucket still in the ring, the part of its totals not yet persisted; oldest first
+    public Map<Long, long[]> unflushed() {
+        Map<Long, long[]> pending = new TreeMap<>();
+        for (int slot = 0; slot < size; slot++) {
+            if (epochs[slot] == Long.MIN_VALUE) {
+                continue;
+            }
+            long[] delta = new long[TYPES];
+            boolean changed = false;
+            for (int type = 0; type < TYPES; type++) {
+                delta[type] = counts[slot * TYPES + type] - flushed[slot * TYPES + type];
+                changed |= delta[type] != 0;
+            }
+            if (changed) {
+                pending.put(epochs[slot], delta);
+            }
+        }
+        return pending;
+    }
+
+    // Record a delta from unflushed() as persisted, unless its bucket has since rotated out
+    public void markFlushed(long bucket, long[] delta) {
+        int slot = slot(bucket);
+        if (epochs[slot] != bucket) {
+            return;
+        }
+        for (int type = 0; type < TYPES; type++) {
+            flushed[slot * TYPES + type] += delta[type];
+        }
+    }
+
+    // Totals for a bucket, or null when it has rotated out or never had activity
+    public long[] get(long bucket) {
+        int slot = slot(bucket);
+        if (epochs[slot] != bucket) {
+            return null;
+        }
+        long[] values = new long[TYPES];
+        System.arraycopy(counts, slot * TYPES, values, 0, TYPES);
+        return values;
+    }
+
+    // Weighted activity with each bucket decayed by its age relative to now
+    public double score(long nowMillis, double[] weights, double halfLifeBuckets) {
+        long current = bucketOf(nowMillis);
+        double lambda = Math.log(2) / halfLifeBuckets;
+        double score = 0;
+        for (int slot = 0; slot < size; slot++) {
+            long age = current - epochs[slot];
+            if (age < 0 || age >= size) {
+                continue;
+            }
+            double raw = 0;
+            for (int type = 0; type < TYPES; type++) {
+                raw += weights[type] * counts[slot * TYPES + type];
+            }
+            score += raw * Math.exp(-lambda * age);
+        }
+        return score;
+    }
+
+    // Most recent bucket with activity, or Long.MIN_VALUE
+    public long latestBucket() {
+        long latest = Long.MIN_VALUE;
+        for (long epoch : epochs) {
+            latest = Math.max(latest, epoch);
+        }
+        return latest;
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) size);
+    }
+}
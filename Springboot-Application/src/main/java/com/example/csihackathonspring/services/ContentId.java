@@ -0,0 +1,198 @@
+package com.example.csihackathonspring.services;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Parsed IPFS CID (v0 base58 "Qm..." or v1 multibase) and the check of fetched
+ * bytes against its multihash. Only sha2-256 CIDs whose block is the whole
+ * document can be checked locally: raw blocks hash the bytes directly, and a
+ * single-chunk UnixFS file hashes the dag-pb node wrapping them. Anything
+ * larger or addressed through a path needs the DAG and is left unverified.
+ */
+public final class ContentId {
+
+    public static final int RAW = 0x55;
+    public static final int DAG_PB = 0x70;
+
+    private static final int SHA2_256 = 0x12;
+    // Default chunk size of "ipfs add"; larger files become a tree of links
+    private static final int MAX_SINGLE_CHUNK = 262_144;
+    private static final String BASE58 = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz";
+    private static final String BASE32 = "abcdefghijklmnopqrstuvwxyz234567";
+
+    private final int version;
+    private final int codec;
+    private final int hashFunction;
+    private final byte[] digest;
+
+    private ContentId(int version, int codec, int hashFunction, byte[] digest) {
+        this.version = version;
+        this.codec = codec;
+        this.hashFunction = hashFunction;
+        this.digest = digest;
+    }
+
+    public static ContentId parse(String cid) {
+        if (cid.length() == 46 && cid.startsWith("Qm")) {
+            return multihash(0, DAG_PB, base58(cid), 0);
+        }
+        if (cid.length() < 2) {
+            throw new IllegalArgumentException("Not a CID: " + cid);
+        }
+        byte[] bytes = switch (cid.charAt(0)) {
+            case 'b' -> base32(cid.substring(1));
+            case 'z' -> base58(cid.substring(1));
+            case 'f' -> base16(cid.substring(1));
+            default -> throw new IllegalArgumentException("Unsupported multibase in CID: " + cid);
+        };
+        int[] cursor = { 0 };
+        if (varint(bytes, cursor) != 1) {
+            throw new IllegalArgumentException("Unsupported CID version: " + cid);
+        }
+        int codec = varint(bytes, cursor);
+        return multihash(1, codec, bytes, cursor[0]);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getCodec() {
+        return codec;
+    }
+
+    // Whether matches() can decide for a document of this size
+    public boolean isVerifiable(int contentLength) {
+        return hashFunction == SHA2_256
+                && (codec == RAW || (codec == DAG_PB && contentLength > 0 && contentLength <= MAX_SINGLE_CHUNK));
+    }
+
+    // True when the bytes are what this CID addresses; only meaningful when isVerifiable
+    public boolean matches(byte[] content) {
+        if (!isVerifiable(content.length)) {
+            return false;
+        }
+        byte[] block = codec == RAW ? content : unixfsFile(content);
+        return MessageDigest.isEqual(digest, sha256(block));
+    }
+
+    // PBNode { Data: UnixFS { Type: File, Data: content, filesize } } as "ipfs add" writes it
+    static byte[] unixfsFile(byte[] content) {
+        ByteArrayOutputStream unixfs = new ByteArrayOutputStream(content.length + 16);
+        unixfs.write(0x08);
+        unixfs.write(0x02);
+        unixfs.write(0x12);
+        writeVarint(unixfs, content.length);
+        unixfs.writeBytes(content);
+        unixfs.write(0x18);
+        writeVarint(unixfs, content.length);
+        ByteArrayOutputStream node = new ByteArrayOutputStream(unixfs.size() + 8);
+        node.write(0x0a);
+        writeVarint(node, unixfs.size());
+        node.writeBytes(unixfs.toByteArray());
+        return node.toByteArray();
+    }
+
+    private static ContentId multihash(int version, int codec, byte[] bytes, int offset) {
+        int[] cursor = { offset };
+        int function = varint(bytes, cursor);
+        int length = varint(bytes, cursor);
+        if (length <= 0 || cursor[0] + length != bytes.length) {
+            throw new IllegalArgumentException("Malformed multihash in CID");
+        }
+        if (function == SHA2_256 && length != 32) {
+            throw new IllegalArgumentException("sha2-256 digest must be 32 bytes");
+        }
+        return new ContentId(version, codec, function, Arrays.copyOfRange(bytes, cursor[0], bytes.length));
+    }
+
+    private static int varint(byte[] bytes, int[] cursor) {
+        int value = 0;
+        for (int shift = 0; shift < 28; shift += 7) {
+            if (cursor[0] >= bytes.length) {
+                break;
+            }
+            int b = bytes[cursor[0]++] & 0xff;
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in CID");
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static byte[] base58(String text) {
+        BigInteger value = BigInteger.ZERO;
+        int zeros = 0;
+        while (zeros < text.length() && text.charAt(zeros) == '1') {
+            zeros++;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            int digit = BASE58.indexOf(text.charAt(i));
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid base58 character in CID");
+            }
+            value = value.multiply(BigInteger.valueOf(58)).add(BigInteger.valueOf(digit));
+        }
+        byte[] magnitude = value.signum() == 0 ? new byte[0] : value.toByteArray();
+        int sign = magnitude.length > 1 && magnitude[0] == 0 ? 1 : 0;
+        byte[] bytes = new byte[zeros + magnitude.length - sign];
+        System.arraycopy(magnitude, sign, bytes, zeros, magnitude.length - sign);
+        return bytes;
+    }
+
+    private static byte[] base32(String text) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(text.length() * 5 / 8);
+        int buffer = 0;
+        int bits = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int digit = BASE32.indexOf(text.charAt(i));
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid base32 character in CID");
+            }
+            buffer = (buffer << 5) | digit;
+            bits += 5;
+            if (bits >= 8) {
+                bits -= 8;
+                out.write((buffer >> bits) & 0xff);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] base16(String text) {
+        if (text.length() % 2 != 0) {
+            throw new IllegalArgumentException("Odd-length base16 CID");
+        }
+        byte[] bytes = new byte[text.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int hi = Character.digit(text.charAt(2 * i), 16);
+            int lo = Character.digit(text.charAt(2 * i + 1), 16);
+            if (hi < 0 || lo < 0) {
+                throw new IllegalArgumentException("Invalid base16 character in CID");
+            }
+            bytes[i] = (byte) (hi << 4 | lo);
+        }
+        return bytes;
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.entities.CuratorPage;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Curator page assembled in one aggregation: the curator, a $lookup of its
+ * galleries from the galleries collection the Node backend maintains, and a
+ * nested $lookup of each gallery's artists, every stage projected down to
+ * what the page shows. Assembled pages are cached briefly; a journaled change
+ * to the curator evicts its page at once.
+ */
+@Service
+public class CuratorPageService {
+
+    private static final Logger log = LoggerFactory.getLogger(CuratorPageService.class);
+    private static final String GALLERIES = "galleries";
+
+    private record Cached(CuratorPage page, long expiresAt) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final ReadRoutingService readRouting;
+    private final MongoAccessLimiter limiter;
+    private final SingleFlight<CuratorPage> assembles;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final LinkedHashMap<String, Cached> cache = new LinkedHashMap<>(256, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Autowired
+    public CuratorPageService(MongoTemplate mongoTemplate,
+                              ReadRoutingService readRouting,
+                              MongoAccessLimiter limiter,
+                              MutationJournalService journal,
+                              @Value("${curator.page.cache-ttl-ms:5000}") long ttlMillis,
+                              @Value("${curator.page.cache-max-entries:10000}") int maxEntries,
+                              @Value("${lookup.coalesce.max-wait-ms:2000}") long maxWaitMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.readRouting = readRouting;
+        this.limiter = limiter;
+        this.assembles = new SingleFlight<>(maxWaitMillis);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxEntries = maxEntries;
+        journal.subscribe("curator-page-cache", journal.endOffset(), mutation -> {
+            if ("curators".equals(mutation.collection())) {
+                evict(mutation.id());
+            }
+        });
+    }
+
+    // Whole page for the curator, from cache when assembled within the TTL
+    public Optional<CuratorPage> getPage(String curatorId) {
+        long now = System.nanoTime();
+        synchronized (cache) {
+            Cached cached = cache.get(curatorId);
+            if (cached != null && cached.expiresAt() - now > 0) {
+                hits.incrementAndGet();
+                return Optional.of(cached.page());
+            }
+        }
+        misses.incrementAndGet();
+        CuratorPage page = assembles.execute(curatorId, () ->
+                limiter.call(() -> readRouting.read(ops ->
+                        ops.aggregate(pipeline(curatorId), "curators", CuratorPage.class).getUniqueMappedResult())));
+        if (page != null) {
+            synchronized (cache) {
+                cache.put(curatorId, new Cached(page, System.nanoTime() + ttlNanos));
+                if (cache.size() > maxEntries) {
+                    cache.remove(cache.keySet().iterator().next());
+                }
+            }
+        }
+        return Optional.ofNullable(page);
+    }
+
+    public void evict(String curatorId) {
+        synchronized (cache) {
+            cache.remove(curatorId);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (cache) {
+            stats.put("entries", cache.size());
+        }
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        return stats;
+    }
+
+    /**
+     * $match on the curator, then $lookup galleries by address with a nested
+     * $lookup of artists by id. Each lookup uses localField/foreignField plus a
+     * projection sub-pipeline, so the joins use the galleryAddress and _id
+     * indexes (MongoDB 5.0+). The curator's own gallery entries are
+     * subdocuments; only their addresses are read, for the join, and dropped
+     * once the joined galleries replace them.
+     */
+    static Aggregation pipeline(String curatorId) {
+        Object id = ObjectId.isValid(curatorId) ? new ObjectId(curatorId) : curatorId;
+        Document artists = new Document("from", "users")
+                .append("localField", "artists")
+                .append("foreignField", "_id")
+                .append("pipeline", List.of(project("username", "walletAddress", "profile",
+                        "contract.address", "contract.network", "contract.blockExplorerUrl")))
+                .append("as", "artists");
+        Document galleries = new Document("from", GALLERIES)
+                .append("localField", "contract.galleries.address")
+                .append("foreignField", "galleryAddress")
+                .append("pipeline", List.of(
+                        project("name", "description", "galleryAddress", "theme", "coverImage", "status", "stats", "artists"),
+                        new Document("$lookup", artists)))
+                .append("as", "galleries");
+        return Aggregation.newAggregation(
+                stage(new Document("$match", new Document("_id", id))),
+                stage(project("username", "walletAddress", "role", "contract.network", "contract.galleries.address",
+                        "contract.totalRevenue", "contract.pendingRevenue", "profile", "analytics", "createdAt", "updatedAt")),
+                stage(new Document("$lookup", galleries)),
+                stage(new Document("$unset", "contract.galleries")));
+    }
+
+    private static Document project(String... fields) {
+        Document projection = new Document();
+        for (String field : fields) {
+            projection.append(field, 1);
+        }
+        return new Document("$project", projection);
+    }
+
+    private static AggregationOperation stage(Document stage) {
+        return context -> stage;
+    }
+
+    // Gallery lookups join on galleryAddress, which the Node backend does not index
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            mongoTemplate.indexOps(GALLERIES).ensureIndex(new Index().on("galleryAddress", Sort.Direction.ASC));
+        } catch (RuntimeException e) {
+            log.warn("Gallery address index creation failed, curator pages will scan galleries", e);
+        }
+    }
+}
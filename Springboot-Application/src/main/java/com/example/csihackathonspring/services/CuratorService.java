@@ -1,29 +1,45 @@
 package com.example.csihackathonspring.services;
 
 import com.example.csihackathonspring.entities.Curator;
-import com.example.csihackathonspring.repositories.CuratorRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
 @Service
 public class CuratorService {
 
-    private final CuratorRepository curatorRepository;
+    private final ReadRoutingService readRouting;
+    private final MongoAccessLimiter limiter;
+    private final HotKeyService hotKeys;
+    private final SingleFlight<Curator> lookups;
 
     @Autowired
-    public CuratorService(CuratorRepository curatorRepository) {
-        this.curatorRepository = curatorRepository;
+    public CuratorService(ReadRoutingService readRouting,
+                          MongoAccessLimiter limiter,
+                          HotKeyService hotKeys,
+                          @Value("${lookup.coalesce.max-wait-ms:2000}") long maxWaitMillis) {
+        this.readRouting = readRouting;
+        this.limiter = limiter;
+        this.hotKeys = hotKeys;
+        this.lookups = new SingleFlight<>(maxWaitMillis);
     }
 
     // Fetch curator by ID
     public Optional<Curator> getCuratorById(String id) {
-        return curatorRepository.findById(id);
+        hotKeys.sample("curators", "id", id);
+        return Optional.ofNullable(lookups.execute(ReadRoutingService.lookupKey("id:", id), () ->
+                limiter.call(() -> readRouting.read(ops -> ops.findById(id, Curator.class)))));
     }
 
     // Fetch curator by username
     public Optional<Curator> getCuratorByUsername(String username) {
-        return curatorRepository.findByUsername(username);
+        hotKeys.sample("curators", "username", username);
+        return Optional.ofNullable(lookups.execute(ReadRoutingService.lookupKey("username:", username), () ->
+                limiter.call(() -> readRouting.read(ops -> ops.findOne(new Query(where("username").is(username)), Curator.class)))));
     }
 }
@@ -0,0 +1,271 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.entities.DeploymentJob;
+import com.example.csihackathonspring.entities.User;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Durable queue driving contract deployments from "pending" to "deployed" or
+ * "failed". Jobs are claimed with a time-limited lease so a crashed instance's
+ * work is picked up elsewhere, and receipts for a whole batch of claimed jobs
+ * are fetched with one JSON-RPC batch call.
+ */
+@Service
+public class DeploymentJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(DeploymentJobService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MutationJournalService journal;
+    private final ArchiveService archive;
+    private final EthRpcClient rpc;
+    private final String owner = UUID.randomUUID().toString();
+    private final ThreadPoolExecutor workers;
+    private final int batchSize;
+    private final long leaseMillis;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final int maxAttempts;
+
+    @Autowired
+    public DeploymentJobService(MongoTemplate mongoTemplate,
+                                MutationJournalService journal,
+                                ArchiveService archive,
+                                EthRpcClient rpc,
+                                @Value("${deployment.workers:4}") int workerCount,
+                                @Value("${deployment.queue-capacity:16}") int queueCapacity,
+                                @Value("${deployment.receipt-batch-size:100}") int batchSize,
+                                @Value("${deployment.lease-ms:60000}") long leaseMillis,
+                                @Value("${deployment.backoff.base-ms:2000}") long baseBackoffMillis,
+                                @Value("${deployment.backoff.max-ms:300000}") long maxBackoffMillis,
+                                @Value("${deployment.max-attempts:40}") int maxAttempts) {
+        this.mongoTemplate = mongoTemplate;
+        this.journal = journal;
+        this.archive = archive;
+        this.rpc = rpc;
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity));
+        this.batchSize = batchSize;
+        this.leaseMillis = leaseMillis;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.maxAttempts = maxAttempts;
+    }
+
+    // Record a submitted deployment transaction and mark the artist's contract pending.
+    // Resubmitting a transaction returns the job already tracking it.
+    public DeploymentJob enqueue(String userId, String transactionHash) {
+        Query user = new Query(where("_id").is(userId));
+        if (!mongoTemplate.exists(user, User.class) && !archive.restore(User.class, userId)) {
+            throw new NoSuchElementException("No user " + userId);
+        }
+        Date now = new Date();
+        DeploymentJob job = new DeploymentJob();
+        job.setUserId(userId);
+        job.setTransactionHash(transactionHash);
+        job.setStatus(DeploymentJob.Status.PENDING);
+        job.setNextAttemptAt(now);
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+        try {
+            mongoTemplate.insert(job);
+        } catch (DuplicateKeyException e) {
+            DeploymentJob existing = mongoTemplate.findOne(new Query(where("transactionHash").is(transactionHash)), DeploymentJob.class);
+            if (existing == null) {
+                throw e;
+            }
+            if (!userId.equals(existing.getUserId())) {
+                throw new IllegalArgumentException("Transaction " + transactionHash + " is tracked for another user");
+            }
+            return existing;
+        }
+        updateContract(userId, new Update()
+                .set("contract.deploymentStatus", "pending")
+                .set("contract.transactionHash", transactionHash));
+        return job;
+    }
+
+    public Optional<DeploymentJob> getJob(String id) {
+        return Optional.ofNullable(mongoTemplate.findById(id, DeploymentJob.class));
+    }
+
+    // Claim only as many batches as the worker queue can take, so backlog stays in Mongo
+    @Scheduled(fixedDelayString = "${deployment.poll-ms:3000}")
+    public void poll() {
+        int freeSlots = workers.getQueue().remainingCapacity()
+                + Math.max(0, workers.getMaximumPoolSize() - workers.getActiveCount());
+        for (int slot = 0; slot < freeSlots; slot++) {
+            List<DeploymentJob> batch = claim(batchSize);
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                workers.execute(() -> process(batch));
+            } catch (RejectedExecutionException e) {
+                batch.forEach(job -> release(job, 0, null));
+                return;
+            }
+        }
+    }
+
+    // Atomically lease due jobs, including ones whose previous lease has lapsed
+    List<DeploymentJob> claim(int limit) {
+        List<DeploymentJob> claimed = new ArrayList<>();
+        Date now = new Date();
+        Query due = new Query(new Criteria().orOperator(
+                where("status").is(DeploymentJob.Status.PENDING).and("nextAttemptAt").lte(now),
+                where("status").is(DeploymentJob.Status.CLAIMED).and("leaseExpiresAt").lt(now)))
+                .with(Sort.by("nextAttemptAt"));
+        Update lease = new Update()
+                .set("status", DeploymentJob.Status.CLAIMED)
+                .set("leaseOwner", owner)
+                .set("leaseExpiresAt", new Date(now.getTime() + leaseMillis));
+        FindAndModifyOptions returnNew = FindAndModifyOptions.options().returnNew(true);
+        while (claimed.size() < limit) {
+            DeploymentJob job = mongoTemplate.findAndModify(due, lease, returnNew, DeploymentJob.class);
+            if (job == null) {
+                break;
+            }
+            claimed.add(job);
+        }
+        return claimed;
+    }
+
+    void process(List<DeploymentJob> batch) {
+        Map<String, EthRpcClient.Receipt> receipts;
+        try {
+            receipts = rpc.getTransactionReceipts(batch.stream().map(DeploymentJob::getTransactionHash).toList());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Receipt poll for {} deployments failed: {}", batch.size(), e.getMessage());
+            batch.forEach(job -> retryOrFail(job, e.getMessage()));
+            return;
+        }
+        for (DeploymentJob job : batch) {
+            EthRpcClient.Receipt receipt = receipts.get(job.getTransactionHash());
+            if (receipt == null) {
+                retryOrFail(job, null);
+            } else if (receipt.isSuccess()) {
+                if (complete(job, DeploymentJob.Status.DEPLOYED, receipt.getContractAddress(), null)) {
+                    updateContract(job.getUserId(), new Update()
+                            .set("contract.deploymentStatus", "deployed")
+                            .set("contract.address", receipt.getContractAddress())
+                            .set("contract.deploymentDate", new Date()));
+                }
+            } else if (complete(job, DeploymentJob.Status.FAILED, null, "Transaction reverted")) {
+                updateContract(job.getUserId(), new Update().set("contract.deploymentStatus", "failed"));
+            }
+        }
+    }
+
+    private void retryOrFail(DeploymentJob job, String error) {
+        int attempts = job.getAttempts() + 1;
+        if (attempts >= maxAttempts) {
+            if (complete(job, DeploymentJob.Status.FAILED, null, error == null ? "Not mined after " + attempts + " polls" : error)) {
+                updateContract(job.getUserId(), new Update().set("contract.deploymentStatus", "failed"));
+            }
+            return;
+        }
+        long backoff = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempts - 1, 20));
+        release(job, backoff, error);
+    }
+
+    // Hand the job back to the queue; guarded by lease ownership so a lapsed lease cannot clobber a new owner
+    private void release(DeploymentJob job, long delayMillis, String error) {
+        Date now = new Date();
+        Update update = new Update()
+                .set("status", DeploymentJob.Status.PENDING)
+                .set("nextAttemptAt", new Date(now.getTime() + delayMillis))
+                .set("lastError", error)
+                .set("updatedAt", now)
+                .unset("leaseOwner")
+                .unset("leaseExpiresAt");
+        if (delayMillis > 0) {
+            update.inc("attempts", 1);
+        }
+        mongoTemplate.updateFirst(owned(job), update, DeploymentJob.class);
+    }
+
+    // Finish the job if this worker still holds its lease; only then may the caller touch the user
+    private boolean complete(DeploymentJob job, DeploymentJob.Status status, String contractAddress, String error) {
+        Update update = new Update()
+                .set("status", status)
+                .set("contractAddress", contractAddress)
+                .set("lastError", error)
+                .set("updatedAt", new Date())
+                .unset("leaseOwner")
+                .unset("leaseExpiresAt");
+        return mongoTemplate.updateFirst(owned(job), update, DeploymentJob.class).getModifiedCount() > 0;
+    }
+
+    // The lease this worker claimed: the expiry is part of the match, so a lapsed lease that was
+    // re-claimed, even by this same instance, no longer matches
+    private Query owned(DeploymentJob job) {
+        return new Query(where("_id").is(job.getId())
+                .and("leaseOwner").is(owner)
+                .and("leaseExpiresAt").is(job.getLeaseExpiresAt()));
+    }
+
+    // Targeted $set on the nested contract fields rather than rewriting the user document
+    private void updateContract(String userId, Update update) {
+        update.inc("version", 1);
+        Query user = new Query(where("_id").is(userId));
+        long matched = mongoTemplate.updateFirst(user, update, User.class).getMatchedCount();
+        // An artist idle long enough to be archived while the job waited is moved back first
+        if (matched == 0 && archive.restore(User.class, userId)) {
+            matched = mongoTemplate.updateFirst(user, update, User.class).getMatchedCount();
+        }
+        if (matched > 0) {
+            journal.recordUpdate(User.class, userId, update);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps(DeploymentJob.class);
+            IndexResolver.create(mongoTemplate.getConverter().getMappingContext())
+                    .resolveIndexFor(DeploymentJob.class)
+                    .forEach(indexOps::ensureIndex);
+        } catch (RuntimeException e) {
+            log.warn("Deployment job index creation failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
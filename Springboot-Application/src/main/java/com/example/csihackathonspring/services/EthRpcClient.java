@@ -0,0 +1,150 @@
+package com.example.csihackathonspring.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal Ethereum JSON-RPC client. Calls for many transactions are sent as a
+ * single JSON-RPC batch, so a poll round costs one HTTP round-trip.
+ */
+@Service
+public class EthRpcClient {
+
+    public static final class Receipt {
+        private final boolean success;
+        private final String contractAddress;
+        private final long blockNumber;
+
+        Receipt(boolean success, String contractAddress, long blockNumber) {
+            this.success = success;
+            this.contractAddress = contractAddress;
+            this.blockNumber = blockNumber;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public String getContractAddress() {
+            return contractAddress;
+        }
+
+        public long getBlockNumber() {
+            return blockNumber;
+        }
+    }
+
+    private final HttpClient http;
+    private final ObjectMapper objectMapper;
+    private final URI endpoint;
+    private final Duration timeout;
+
+    @Autowired
+    public EthRpcClient(ObjectMapper objectMapper,
+                        @Value("${eth.rpc-url:http://127.0.0.1:8545}") String rpcUrl,
+                        @Value("${eth.rpc-timeout-ms:10000}") long timeoutMillis) {
+        this.objectMapper = objectMapper;
+        this.endpoint = URI.create(rpcUrl);
+        this.timeout = Duration.ofMillis(timeoutMillis);
+        this.http = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    // Receipts keyed by transaction hash; hashes that are not mined yet are absent
+    public Map<String, Receipt> getTransactionReceipts(List<String> transactionHashes) throws IOException {
+        ArrayNode batch = objectMapper.createArrayNode();
+        for (int i = 0; i < transactionHashes.size(); i++) {
+            batch.add(request(i, "eth_getTransactionReceipt", transactionHashes.get(i)));
+        }
+        Map<String, Receipt> receipts = new HashMap<>();
+        for (JsonNode response : send(batch)) {
+            JsonNode result = response.get("result");
+            if (result == null || result.isNull()) {
+                continue;
+            }
+            String hash = transactionHashes.get(response.get("id").asInt());
+            JsonNode address = result.get("contractAddress");
+            receipts.put(hash, new Receipt(
+                    "0x1".equals(result.path("status").asText()),
+                    address == null || address.isNull() ? null : address.asText(),
+                    Long.decode(result.path("blockNumber").asText("0"))));
+        }
+        return receipts;
+    }
+
+    // Same read-only call against many contracts in one batch; a null entry means that call reverted or failed
+    public List<String> ethCallBatch(List<String> contracts, String data) throws IOException {
+        ArrayNode batch = objectMapper.createArrayNode();
+        for (int i = 0; i < contracts.size(); i++) {
+            ObjectNode call = objectMapper.createObjectNode();
+            call.put("to", contracts.get(i));
+            call.put("data", data);
+            batch.add(request(i, "eth_call", call, "latest"));
+        }
+        String[] results = new String[contracts.size()];
+        for (JsonNode response : send(batch)) {
+            JsonNode result = response.get("result");
+            if (result != null && !result.isNull()) {
+                results[response.get("id").asInt()] = result.asText();
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    // Single call returning the raw result node, e.g. eth_sendTransaction
+    public JsonNode call(String method, Object... params) throws IOException {
+        ArrayNode batch = objectMapper.createArrayNode();
+        batch.add(request(0, method, params));
+        JsonNode response = send(batch).get(0);
+        if (response.hasNonNull("error")) {
+            throw new IOException("RPC " + method + " failed: " + response.get("error"));
+        }
+        return response.get("result");
+    }
+
+    private ObjectNode request(int id, String method, Object... params) {
+        ObjectNode request = objectMapper.createObjectNode();
+        request.put("jsonrpc", "2.0");
+        request.put("id", id);
+        request.put("method", method);
+        request.set("params", objectMapper.valueToTree(params));
+        return request;
+    }
+
+    private JsonNode send(ArrayNode batch) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(endpoint)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(batch)))
+                .build();
+        try {
+            HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw new IOException("RPC endpoint returned HTTP " + response.statusCode());
+            }
+            JsonNode body = objectMapper.readTree(response.body());
+            if (!body.isArray()) {
+                throw new IOException("RPC endpoint did not return a batch response: " + body);
+            }
+            return body;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted during RPC call", e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.csihackathonspring.services;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Follow edges held as sorted primitive int adjacency arrays. Document ids are
+ * interned to dense ints on first sight; the structure is not thread-safe and
+ * callers are expected to guard it.
+ */
+public class FollowGraph {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private String[] names = new String[1024];
+    private int[][] out = new int[1024][];
+    private int[][] in = new int[1024][];
+    private int[] outSize = new int[1024];
+    private int[] inSize = new int[1024];
+    private int count;
+
+    public int intern(String id) {
+        Integer existing = ids.get(id);
+        if (existing != null) {
+            return existing;
+        }
+        if (count == names.length) {
+            int capacity = count * 2;
+            names = Arrays.copyOf(names, capacity);
+            out = Arrays.copyOf(out, capacity);
+            in = Arrays.copyOf(in, capacity);
+            outSize = Arrays.copyOf(outSize, capacity);
+            inSize = Arrays.copyOf(inSize, capacity);
+        }
+        int node = count++;
+        names[node] = id;
+        out[node] = EMPTY;
+        in[node] = EMPTY;
+        ids.put(id, node);
+        return node;
+    }
+
+    // Interned id, or -1 if the id has never taken part in an edge
+    public int lookup(String id) {
+        Integer node = ids.get(id);
+        return node == null ? -1 : node;
+    }
+
+    public String name(int node) {
+        return names[node];
+    }
+
+    public boolean add(int follower, int followee) {
+        if (!insert(out, outSize, follower, followee)) {
+            return false;
+        }
+        insert(in, inSize, followee, follower);
+        return true;
+    }
+
+    public boolean remove(int follower, int followee) {
+        if (!delete(out, outSize, follower, followee)) {
+            return false;
+        }
+        delete(in, inSize, followee, follower);
+        return true;
+    }
+
+    public boolean contains(int follower, int followee) {
+        return Arrays.binarySearch(out[follower], 0, outSize[follower], followee) >= 0;
+    }
+
+    public int[] following(int node) {
+        return Arrays.copyOf(out[node], outSize[node]);
+    }
+
+    public int[] followers(int node) {
+        return Arrays.copyOf(in[node], inSize[node]);
+    }
+
+    public int followingCount(int node) {
+        return outSize[node];
+    }
+
+    public int followersCount(int node) {
+        return inSize[node];
+    }
+
+    public int size() {
+        return count;
+    }
+
+    private static boolean insert(int[][] lists, int[] sizes, int node, int value) {
+        int[] list = lists[node];
+        int size = sizes[node];
+        int pos = Arrays.binarySearch(list, 0, size, value);
+        if (pos >= 0) {
+            return false;
+        }
+        pos = -pos - 1;
+        if (size == list.length) {
+            list = Arrays.copyOf(list, Math.max(4, size + (size >> 1)));
+            lists[node] = list;
+        }
+        System.arraycopy(list, pos, list, pos + 1, size - pos);
+        list[pos] = value;
+        sizes[node] = size + 1;
+        return true;
+    }
+
+    private static boolean delete(int[][] lists, int[] sizes, int node, int value) {
+        int[] list = lists[node];
+        int size = sizes[node];
+        int pos = Arrays.binarySearch(list, 0, size, value);
+        if (pos < 0) {
+            return false;
+        }
+        System.arraycopy(list, pos + 1, list, pos, size - pos - 1);
+        sizes[node] = size - 1;
+        return true;
+    }
+}
@@ -0,0 +1,507 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.entities.Follow;
+import com.example.csihackathonspring.entities.Investor;
+import com.example.csihackathonspring.entities.Transaction;
+import com.example.csihackathonspring.entities.User;
+import com.example.csihackathonspring.repositories.FollowRepository;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@Service
+public class FollowService {
+
+    private static final Logger log = LoggerFactory.getLogger(FollowService.class);
+    private static final Transaction[] NO_SALES = new Transaction[0];
+    private static final FindAndModifyOptions RETURN_NEW = FindAndModifyOptions.options().returnNew(true);
+
+    private final FollowRepository followRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ReadRoutingService readRouting;
+    private final MutationJournalService journal;
+    private final SearchService searchService;
+    private final ArchiveService archive;
+    private final int salesPerArtist;
+    private final long windowMillis;
+    private final long overlapMillis;
+
+    // Replaced wholesale by resync(); read and written under the lock
+    private FollowGraph graph = new FollowGraph();
+    private final Map<String, Transaction[]> recentSales = new HashMap<>();
+    private final Map<String, String> artistsByWallet = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Date salesWatermark;
+    private volatile Date edgeWatermark;
+
+    @Autowired
+    public FollowService(FollowRepository followRepository,
+                         MongoTemplate mongoTemplate,
+                         ReadRoutingService readRouting,
+                         MutationJournalService journal,
+                         SearchService searchService,
+                         ArchiveService archive,
+                         @Value("${follow.feed.sales-per-artist:20}") int salesPerArtist,
+                         @Value("${follow.feed.window-days:30}") int windowDays,
+                         @Value("${follow.poll-overlap-ms:10000}") long overlapMillis) {
+        this.followRepository = followRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.readRouting = readRouting;
+        this.journal = journal;
+        this.searchService = searchService;
+        this.archive = archive;
+        this.salesPerArtist = salesPerArtist;
+        this.windowMillis = TimeUnit.DAYS.toMillis(windowDays);
+        this.overlapMillis = overlapMillis;
+    }
+
+    // Follow a user or investor; returns false if the edge already existed.
+    // The persisted edge decides the outcome, since other instances hold graphs of their own.
+    public boolean follow(String followerId, String followeeId) {
+        if (followerId.equals(followeeId)) {
+            throw new IllegalArgumentException("Cannot follow yourself");
+        }
+        requireAccount(followerId);
+        requireAccount(followeeId);
+
+        Follow edge = new Follow();
+        edge.setFollowerId(followerId);
+        edge.setFolloweeId(followeeId);
+        edge.setCreatedAt(new Date());
+        boolean inserted = true;
+        try {
+            followRepository.insert(edge);
+        } catch (DuplicateKeyException e) {
+            // Persisted already, possibly by another instance; still make sure our graph has it
+            inserted = false;
+        }
+
+        lock.writeLock().lock();
+        try {
+            graph.add(graph.intern(followerId), graph.intern(followeeId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (inserted) {
+            adjustCounts(followerId, followeeId, 1);
+        }
+        return inserted;
+    }
+
+    // Unfollow; returns false if there was no such edge
+    public boolean unfollow(String followerId, String followeeId) {
+        boolean deleted = followRepository.deleteByFollowerIdAndFolloweeId(followerId, followeeId) > 0;
+        lock.writeLock().lock();
+        try {
+            int follower = graph.lookup(followerId);
+            int followee = graph.lookup(followeeId);
+            if (follower >= 0 && followee >= 0) {
+                graph.remove(follower, followee);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (deleted) {
+            adjustCounts(followerId, followeeId, -1);
+        }
+        return deleted;
+    }
+
+    public List<String> getFollowers(String id) {
+        lock.readLock().lock();
+        try {
+            int node = graph.lookup(id);
+            return node < 0 ? List.of() : names(graph.followers(node));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<String> getFollowing(String id) {
+        lock.readLock().lock();
+        try {
+            int node = graph.lookup(id);
+            return node < 0 ? List.of() : names(graph.following(node));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getFollowersCount(String id) {
+        lock.readLock().lock();
+        try {
+            int node = graph.lookup(id);
+            return node < 0 ? 0 : graph.followersCount(node);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getFollowingCount(String id) {
+        lock.readLock().lock();
+        try {
+            int node = graph.lookup(id);
+            return node < 0 ? 0 : graph.followingCount(node);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Most recent sales by the artists this user follows, merged newest first
+    public List<Transaction> getFeed(String id, int limit) {
+        lock.readLock().lock();
+        try {
+            int node = graph.lookup(id);
+            if (node < 0 || limit <= 0) {
+                return List.of();
+            }
+            PriorityQueue<Cursor> heads = new PriorityQueue<>();
+            for (int followee : graph.following(node)) {
+                Transaction[] sales = recentSales.get(graph.name(followee));
+                if (sales != null && sales.length > 0) {
+                    heads.add(new Cursor(sales));
+                }
+            }
+            List<Transaction> feed = new ArrayList<>(Math.min(limit, 256));
+            while (feed.size() < limit && !heads.isEmpty()) {
+                Cursor cursor = heads.poll();
+                feed.add(cursor.sales[cursor.index++]);
+                if (cursor.index < cursor.sales.length) {
+                    heads.add(cursor);
+                }
+            }
+            return feed;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Rebuild the graph from persisted edges and seed recent sales
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            // Created here rather than by auto index creation so startup never waits on Mongo
+            IndexOperations indexOps = mongoTemplate.indexOps(Follow.class);
+            IndexResolver.create(mongoTemplate.getConverter().getMappingContext())
+                    .resolveIndexFor(Follow.class)
+                    .forEach(indexOps::ensureIndex);
+            resync();
+        } catch (RuntimeException e) {
+            log.warn("Follow graph load failed", e);
+            return;
+        }
+        salesWatermark = new Date(System.currentTimeMillis() - windowMillis);
+        pollSales();
+    }
+
+    /**
+     * The edge collection is the source of truth. Rebuilds the graph and the
+     * wallet map from it, then rewrites any stored follower or following count
+     * that disagrees with the edges, whether it drifted through a failed write
+     * or was wrong before counts were kept here. Unfollows made on other
+     * instances reach this one's graph here; follows arrive sooner through
+     * {@link #pollEdges}.
+     */
+    @Scheduled(fixedDelayString = "${follow.resync-ms:300000}", initialDelayString = "${follow.resync-ms:300000}")
+    public synchronized void resync() {
+        long start = System.nanoTime();
+        // Edges written while the scan runs may be missed by it; the next edge poll replays them
+        Date scanStart = new Date();
+        Query users = new Query();
+        users.fields().include("walletAddress");
+        try (Stream<User> stream = mongoTemplate.stream(users, User.class)) {
+            stream.forEach(this::rememberWallet);
+        }
+        FollowGraph rebuilt = new FollowGraph();
+        int edges = 0;
+        try (Stream<Follow> stream = mongoTemplate.stream(new Query(), Follow.class)) {
+            for (Follow edge : (Iterable<Follow>) stream::iterator) {
+                rebuilt.add(rebuilt.intern(edge.getFollowerId()), rebuilt.intern(edge.getFolloweeId()));
+                edges++;
+            }
+        }
+        // Not shared yet, so the counts can be read without the lock
+        int corrected = correctCounts(User.class, rebuilt) + correctCounts(Investor.class, rebuilt);
+        lock.writeLock().lock();
+        try {
+            graph = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        edgeWatermark = scanStart;
+        log.info("Follow graph rebuilt from {} edges over {} ids, {} stored counts corrected in {} ms",
+                edges, rebuilt.size(), corrected, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Edges persisted by any instance since the last poll. Re-reading an overlap window catches
+    // edges that committed after a later-stamped one; adding an edge twice is a no-op.
+    @Scheduled(fixedDelayString = "${follow.edges.poll-ms:5000}")
+    public synchronized void pollEdges() {
+        Date watermark = edgeWatermark;
+        if (watermark == null) {
+            return;
+        }
+        Query query = new Query(where("createdAt").gte(new Date(watermark.getTime() - overlapMillis))).with(Sort.by("createdAt"));
+        query.fields().include("followerId", "followeeId", "createdAt");
+        List<Follow> edges = mongoTemplate.find(query, Follow.class);
+        if (edges.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Follow edge : edges) {
+                graph.add(graph.intern(edge.getFollowerId()), graph.intern(edge.getFolloweeId()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Date newest = edges.get(edges.size() - 1).getCreatedAt();
+        if (newest != null && newest.after(watermark)) {
+            edgeWatermark = newest;
+        }
+    }
+
+    // Pick up sales recorded since the last poll, re-reading an overlap window for late commits
+    @Scheduled(fixedDelayString = "${follow.feed.poll-ms:5000}")
+    public synchronized void pollSales() {
+        Date watermark = salesWatermark;
+        if (watermark == null) {
+            return;
+        }
+        Query query = new Query(where("createdAt").gte(new Date(watermark.getTime() - overlapMillis))).with(Sort.by("createdAt"));
+        query.fields().include("seller", "buyer", "price", "tokenId", "nftId", "transactionHash", "createdAt");
+        List<Transaction> sales = mongoTemplate.find(query, Transaction.class);
+        if (sales.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Transaction sale : sales) {
+                String wallet = BadgeService.wallet(sale.getSeller());
+                String artistId = wallet == null ? null : artistsByWallet.get(wallet);
+                if (artistId != null) {
+                    recordSale(artistId, sale);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Date newest = sales.get(sales.size() - 1).getCreatedAt();
+        if (newest.after(watermark)) {
+            salesWatermark = newest;
+        }
+    }
+
+    @EventListener
+    public void onAfterSave(AfterSaveEvent<?> event) {
+        if (event.getSource() instanceof User user) {
+            rememberWallet(user);
+        }
+    }
+
+    private void rememberWallet(User user) {
+        String wallet = BadgeService.wallet(user.getWalletAddress());
+        if (wallet != null) {
+            artistsByWallet.put(wallet, user.getId());
+        }
+    }
+
+    // Keep the newest sales first, bounded per artist; a sale read again by an overlapping poll is skipped
+    private void recordSale(String artistId, Transaction sale) {
+        Transaction[] current = recentSales.getOrDefault(artistId, NO_SALES);
+        int at = 0;
+        for (Transaction known : current) {
+            if (sale.getId() != null && sale.getId().equals(known.getId())) {
+                return;
+            }
+            if (!known.getCreatedAt().after(sale.getCreatedAt())) {
+                break;
+            }
+            at++;
+        }
+        if (at >= salesPerArtist) {
+            return;
+        }
+        Transaction[] next = new Transaction[Math.min(salesPerArtist, current.length + 1)];
+        System.arraycopy(current, 0, next, 0, at);
+        next[at] = sale;
+        System.arraycopy(current, at, next, at + 1, next.length - at - 1);
+        recentSales.put(artistId, next);
+    }
+
+    /**
+     * Sets profile.followersCount (and followingCount for users) wherever the
+     * stored value differs from the edges. Each update only applies if the
+     * stored value is still the one read, so a follow landing meanwhile is
+     * left to its own $inc and the next resync.
+     */
+    private int correctCounts(Class<?> type, FollowGraph edges) {
+        boolean following = type == User.class;
+        Query query = new Query();
+        query.fields().include("username", "profile.followersCount", "profile.followingCount", "profile.salesCount");
+        List<String> ids = new ArrayList<>();
+        List<Update> updates = new ArrayList<>();
+        List<Document> corrected = new ArrayList<>();
+        BulkOperations bulk = null;
+        try (Stream<Document> stream = mongoTemplate.stream(query, Document.class, mongoTemplate.getCollectionName(type))) {
+            for (Document account : (Iterable<Document>) stream::iterator) {
+                String id = account.get("_id").toString();
+                int node = edges.lookup(id);
+                Document profile = account.get("profile") instanceof Document p ? p : new Document();
+                Criteria unchanged = where("_id").is(account.get("_id"));
+                Update update = new Update();
+                int followers = node < 0 ? 0 : edges.followersCount(node);
+                if (differs(profile.get("followersCount"), followers)) {
+                    unchanged = unchanged.and("profile.followersCount").is(profile.get("followersCount"));
+                    update.set("profile.followersCount", followers);
+                    profile.put("followersCount", followers);
+                }
+                int followingCount = node < 0 ? 0 : edges.followingCount(node);
+                if (following && differs(profile.get("followingCount"), followingCount)) {
+                    unchanged = unchanged.and("profile.followingCount").is(profile.get("followingCount"));
+                    update.set("profile.followingCount", followingCount);
+                    profile.put("followingCount", followingCount);
+                }
+                if (update.getUpdateObject().isEmpty()) {
+                    continue;
+                }
+                update.inc("version", 1);
+                if (bulk == null) {
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type);
+                }
+                bulk.updateOne(new Query(unchanged), update);
+                account.put("profile", profile);
+                ids.add(id);
+                updates.add(update);
+                corrected.add(account);
+            }
+        }
+        if (bulk == null) {
+            return 0;
+        }
+        bulk.execute();
+        for (int i = 0; i < ids.size(); i++) {
+            journal.recordUpdate(type, ids.get(i), updates.get(i));
+            Object account = mongoTemplate.getConverter().read(type, corrected.get(i));
+            if (account instanceof User user) {
+                searchService.index(user);
+            } else if (account instanceof Investor investor) {
+                searchService.index(investor);
+            }
+        }
+        return ids.size();
+    }
+
+    // A missing count reads as zero in the entities, so only a real difference is rewritten
+    private static boolean differs(Object stored, int derived) {
+        return stored instanceof Number number ? number.intValue() != derived : derived != 0;
+    }
+
+    // Only the instance whose insert or delete actually changed the edge moves the counters, by
+    // exactly one, so concurrent instances never overwrite each other's view; resync() corrects
+    // anything a failed write left behind. The updated documents come back with just the fields
+    // the search ranking needs. The version moves too, so an If-Match PATCH against the pre-follow
+    // document is refused.
+    private void adjustCounts(String followerId, String followeeId, int delta) {
+        Update followingUpdate = new Update().inc("profile.followingCount", delta).inc("version", 1);
+        Update followersUpdate = new Update().inc("profile.followersCount", delta).inc("version", 1);
+        Object[] updated = readRouting.write(ops -> new Object[] {
+                ops.findAndModify(ranked(followerId), followingUpdate, RETURN_NEW, User.class),
+                ops.findAndModify(ranked(followeeId), followersUpdate, RETURN_NEW, User.class),
+                ops.findAndModify(ranked(followeeId), followersUpdate, RETURN_NEW, Investor.class)
+        });
+        // An account archived since the edge was written matches nothing; bring it back and count again
+        if (updated[0] == null && archive.restore(User.class, followerId)) {
+            updated[0] = readRouting.write(ops -> ops.findAndModify(ranked(followerId), followingUpdate, RETURN_NEW, User.class));
+        }
+        if (updated[1] == null && updated[2] == null) {
+            if (archive.restore(User.class, followeeId)) {
+                updated[1] = readRouting.write(ops -> ops.findAndModify(ranked(followeeId), followersUpdate, RETURN_NEW, User.class));
+            } else if (archive.restore(Investor.class, followeeId)) {
+                updated[2] = readRouting.write(ops -> ops.findAndModify(ranked(followeeId), followersUpdate, RETURN_NEW, Investor.class));
+            }
+        }
+        if (updated[0] != null) {
+            journal.recordUpdate(User.class, followerId, followingUpdate);
+        }
+        if (updated[1] != null) {
+            journal.recordUpdate(User.class, followeeId, followersUpdate);
+            searchService.index((User) updated[1]);
+        }
+        if (updated[2] != null) {
+            journal.recordUpdate(Investor.class, followeeId, followersUpdate);
+            searchService.index((Investor) updated[2]);
+        }
+    }
+
+    // Archived accounts still exist; they are moved back so the counter updates find them
+    private void requireAccount(String id) {
+        Query query = new Query(where("_id").is(id));
+        if (!mongoTemplate.exists(query, User.class) && !mongoTemplate.exists(query, Investor.class)
+                && !archive.restore(User.class, id) && !archive.restore(Investor.class, id)) {
+            throw new NoSuchElementException("No user or investor " + id);
+        }
+    }
+
+    private static Query ranked(String id) {
+        Query query = new Query(where("_id").is(id));
+        query.fields().include("username", "profile.followersCount", "profile.salesCount");
+        return query;
+    }
+
+    private List<String> names(int[] nodes) {
+        String[] result = new String[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            result[i] = graph.name(nodes[i]);
+        }
+        return Arrays.asList(result);
+    }
+
+    private static final class Cursor implements Comparable<Cursor> {
+        private final Transaction[] sales;
+        private int index;
+
+        Cursor(Transaction[] sales) {
+            this.sales = sales;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            Date mine = sales[index].getCreatedAt();
+            Date theirs = other.sales[other.index].getCreatedAt();
+            return theirs.compareTo(mine);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.csihackathonspring.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-min sketch with a bounded set of current leaders. Counting is a few
+ * atomic increments and never takes a lock; the lock is only taken when a
+ * key not yet among the leaders overtakes the weakest of them. Counts are
+ * overestimates by at most total / width with high probability.
+ */
+public class HeavyHitters {
+
+    public record Entry(String key, long count) {
+    }
+
+    private final int width;
+    private final int depth;
+    private final int mask;
+    private final int capacity;
+    private final AtomicLongArray counters;
+    private final AtomicLong total = new AtomicLong();
+    private final Map<String, Boolean> leaders = new ConcurrentHashMap<>();
+    // Smallest leader estimate when the leader set is full, 0 while it still has room
+    private volatile long floor;
+
+    public HeavyHitters(int width, int depth, int capacity) {
+        this.width = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+        this.depth = depth;
+        this.mask = this.width - 1;
+        this.capacity = capacity;
+        this.counters = new AtomicLongArray(this.width * depth);
+    }
+
+    public long add(String key, long count) {
+        int h1 = mix(key.hashCode());
+        int h2 = mix(h1 ^ 0x9E3779B9) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int slot = row * width + ((h1 + row * h2) & mask);
+            estimate = Math.min(estimate, counters.addAndGet(slot, count));
+        }
+        total.addAndGet(count);
+        if (estimate > floor && !leaders.containsKey(key)) {
+            promote(key, estimate);
+        }
+        return estimate;
+    }
+
+    public long estimate(String key) {
+        int h1 = mix(key.hashCode());
+        int h2 = mix(h1 ^ 0x9E3779B9) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(row * width + ((h1 + row * h2) & mask)));
+        }
+        return estimate;
+    }
+
+    // Leaders by current estimate, largest first
+    public List<Entry> top() {
+        List<Entry> entries = new ArrayList<>();
+        for (String key : leaders.keySet()) {
+            entries.add(new Entry(key, estimate(key)));
+        }
+        entries.sort(Comparator.comparingLong(Entry::count).reversed());
+        return entries;
+    }
+
+    public long total() {
+        return total.get();
+    }
+
+    // Halve every counter so old popularity fades; leaders keep their places until overtaken
+    public synchronized void decay() {
+        for (int i = 0; i < counters.length(); i++) {
+            long value = counters.get(i);
+            counters.addAndGet(i, -(value - value / 2));
+        }
+        total.set(total.get() / 2);
+        floor = leaders.size() < capacity ? 0 : weakest().count();
+    }
+
+    private synchronized void promote(String key, long estimate) {
+        if (leaders.containsKey(key)) {
+            return;
+        }
+        if (leaders.size() < capacity) {
+            leaders.put(key, Boolean.TRUE);
+            if (leaders.size() == capacity) {
+                floor = weakest().count();
+            }
+            return;
+        }
+        // The floor may lag behind leaders that kept counting, so compare against live estimates
+        Entry weakest = weakest();
+        if (estimate > weakest.count()) {
+            leaders.remove(weakest.key());
+            leaders.put(key, Boolean.TRUE);
+            weakest = weakest();
+        }
+        floor = weakest.count();
+    }
+
+    private Entry weakest() {
+        Entry weakest = null;
+        for (String key : leaders.keySet()) {
+            long count = estimate(key);
+            if (weakest == null || count < weakest.count()) {
+                weakest = new Entry(key, count);
+            }
+        }
+        return weakest;
+    }
+
+    // Murmur3 finalizer, spreads String.hashCode over all bits
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.entities.Curator;
+import com.example.csihackathonspring.entities.Investor;
+import com.example.csihackathonspring.entities.User;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Heavy hitters among profile lookups. One lookup in {@code sampleRate} is
+ * counted into a {@link HeavyHitters} sketch; the rest cost a random draw.
+ * The leaders are snapshotted to Mongo so the next instance to start can
+ * read those profiles in parallel, warming the database cache and the
+ * connection pools before it reports ready.
+ */
+@Service
+public class HotKeyService {
+
+    public record HotKey(String collection, String field, String value, long estimatedLookups) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(HotKeyService.class);
+    private static final String SNAPSHOTS = "hot_keys";
+    private static final Map<String, Class<?>> TYPES = Map.of(
+            "users", User.class, "investors", Investor.class, "curators", Curator.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ReadRoutingService readRouting;
+    private final boolean enabled;
+    private final int sampleMask;
+    private final HeavyHitters sketch;
+    private final int prefetchParallelism;
+    private final long prefetchTimeoutMillis;
+    private volatile Map<String, Object> lastPrefetch = Map.of();
+
+    @Autowired
+    public HotKeyService(MongoTemplate mongoTemplate,
+                         ReadRoutingService readRouting,
+                         @Value("${hotkeys.enabled:true}") boolean enabled,
+                         @Value("${hotkeys.sample-rate:16}") int sampleRate,
+                         @Value("${hotkeys.sketch-width:8192}") int width,
+                         @Value("${hotkeys.sketch-depth:4}") int depth,
+                         @Value("${hotkeys.top-k:200}") int topK,
+                         @Value("${hotkeys.prefetch.parallelism:8}") int prefetchParallelism,
+                         @Value("${hotkeys.prefetch.timeout-ms:10000}") long prefetchTimeoutMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.readRouting = readRouting;
+        this.enabled = enabled;
+        // Rounded down to a power of two so the sampling test is a mask
+        this.sampleMask = Integer.highestOneBit(Math.max(1, sampleRate)) - 1;
+        this.sketch = new HeavyHitters(width, depth, topK);
+        this.prefetchParallelism = prefetchParallelism;
+        this.prefetchTimeoutMillis = prefetchTimeoutMillis;
+    }
+
+    // Called on every profile lookup; the key string is only built for sampled calls
+    public void sample(String collection, String field, String value) {
+        if (!enabled || value == null || (ThreadLocalRandom.current().nextInt() & sampleMask) != 0) {
+            return;
+        }
+        sketch.add(collection + '/' + field + '/' + value, 1);
+    }
+
+    // Current leaders with counts scaled back up by the sampling rate
+    public List<HotKey> top(int limit) {
+        List<HotKey> keys = new ArrayList<>();
+        for (HeavyHitters.Entry entry : sketch.top()) {
+            if (keys.size() == limit) {
+                break;
+            }
+            String[] parts = entry.key().split("/", 3);
+            keys.add(new HotKey(parts[0], parts[1], parts[2], entry.count() * (sampleMask + 1)));
+        }
+        return keys;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("sampleRate", sampleMask + 1);
+        stats.put("sampledLookups", sketch.total());
+        stats.put("estimatedLookups", sketch.total() * (sampleMask + 1));
+        stats.put("lastPrefetch", lastPrefetch);
+        return stats;
+    }
+
+    // Older popularity fades so a profile that cooled off drops out of the leaders
+    @Scheduled(fixedDelayString = "${hotkeys.decay-ms:600000}")
+    public void decay() {
+        sketch.decay();
+    }
+
+    @Scheduled(fixedDelayString = "${hotkeys.snapshot-ms:60000}", initialDelayString = "${hotkeys.snapshot-ms:60000}")
+    public void snapshot() {
+        List<HotKey> keys = top(Integer.MAX_VALUE);
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<Document> entries = new ArrayList<>();
+        for (HotKey key : keys) {
+            entries.add(new Document("collection", key.collection())
+                    .append("field", key.field())
+                    .append("value", key.value())
+                    .append("estimatedLookups", key.estimatedLookups()));
+        }
+        try {
+            mongoTemplate.upsert(new Query(where("_id").is("latest")),
+                    new Update().set("takenAt", new Date()).set("keys", entries), SNAPSHOTS);
+        } catch (RuntimeException e) {
+            log.warn("Hot key snapshot failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Read the last snapshot's profiles in parallel, bounded by the prefetch
+     * timeout. Runs inside the ready event, and Spring Boot only switches
+     * readiness to accepting traffic once the ready listeners return. The
+     * snapshot counts also seed the sketch so the leaders survive a restart.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void prefetch() {
+        if (!enabled) {
+            return;
+        }
+        List<Document> keys;
+        try {
+            Document snapshot = mongoTemplate.findById("latest", Document.class, SNAPSHOTS);
+            keys = snapshot == null ? List.of() : snapshot.getList("keys", Document.class, List.of());
+        } catch (RuntimeException e) {
+            log.warn("Hot key snapshot load failed, starting cold", e);
+            return;
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        AtomicInteger fetched = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(prefetchParallelism);
+        try {
+            List<CompletableFuture<Void>> reads = new ArrayList<>();
+            for (Document key : keys) {
+                String collection = key.getString("collection");
+                String field = key.getString("field");
+                String value = key.getString("value");
+                Class<?> type = TYPES.get(collection);
+                if (type == null || field == null || value == null) {
+                    continue;
+                }
+                Number lookups = key.get("estimatedLookups", Number.class);
+                sketch.add(collection + '/' + field + '/' + value, lookups == null ? 1 : Math.max(1, lookups.longValue() / (sampleMask + 1)));
+                reads.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        readRouting.read(ops -> ops.findOne(new Query(where(field).is(value)), type));
+                        fetched.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                        log.debug("Prefetch of {}/{} failed: {}", collection, value, e.getMessage());
+                    }
+                }, pool));
+            }
+            CompletableFuture.allOf(reads.toArray(CompletableFuture[]::new)).get(prefetchTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Hot key prefetch did not finish within {} ms, continuing", prefetchTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.warn("Hot key prefetch failed", e);
+        } finally {
+            pool.shutdownNow();
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("keys", keys.size());
+        result.put("fetched", fetched.get());
+        result.put("failed", failed.get());
+        result.put("millis", millis);
+        lastPrefetch = result;
+        log.info("Prefetched {} of {} hot profiles in {} ms", fetched.get(), keys.size(), millis);
+    }
+}
@@ -1,29 +1,54 @@
 package com.example.csihackathonspring.services;
 
 import com.example.csihackathonspring.entities.Investor;
-import com.example.csihackathonspring.repositories.InvestorRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
 @Service
 public class InvestorService {
 
-    private final InvestorRepository investorRepository;
+    private final ReadRoutingService readRouting;
+    private final MongoAccessLimiter limiter;
+    private final HotKeyService hotKeys;
+    private final ArchiveService archive;
+    private final SingleFlight<Investor> lookups;
 
     @Autowired
-    public InvestorService(InvestorRepository investorRepository) {
-        this.investorRepository = investorRepository;
+    public InvestorService(ReadRoutingService readRouting,
+                           MongoAccessLimiter limiter,
+                           HotKeyService hotKeys,
+                           ArchiveService archive,
+                           @Value("${lookup.coalesce.max-wait-ms:2000}") long maxWaitMillis) {
+        this.readRouting = readRouting;
+        this.limiter = limiter;
+        this.hotKeys = hotKeys;
+        this.archive = archive;
+        this.lookups = new SingleFlight<>(maxWaitMillis);
     }
 
     // Fetch investor by ID
     public Optional<Investor> getInvestorById(String id) {
-        return investorRepository.findById(id);
+        hotKeys.sample("investors", "id", id);
+        return Optional.ofNullable(lookups.execute(ReadRoutingService.lookupKey("id:", id), () ->
+                orArchived(limiter.call(() -> readRouting.read(ops -> ops.findById(id, Investor.class))), "id", id)));
     }
 
     // Fetch investor by username
     public Optional<Investor> getInvestorByUsername(String username) {
-        return investorRepository.findByUsername(username);
+        hotKeys.sample("investors", "username", username);
+        return Optional.ofNullable(lookups.execute(ReadRoutingService.lookupKey("username:", username), () ->
+                orArchived(limiter.call(() -> readRouting.read(ops -> ops.findOne(new Query(where("username").is(username)), Investor.class))),
+                        "username", username)));
+    }
+
+    // A miss may be an account moved to the cold tier; bring it back rather than report it missing
+    private Investor orArchived(Investor found, String field, String value) {
+        return found != null ? found : archive.rehydrate(Investor.class, field, value);
     }
 }
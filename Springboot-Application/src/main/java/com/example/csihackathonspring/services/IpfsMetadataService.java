@@ -0,0 +1,335 @@
+package com.example.csihackathonspring.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Artwork metadata and token URI documents fetched from an IPFS gateway.
+ * Content under a CID is immutable, so every document is fetched at most once
+ * per cache directory: hot entries are served from a byte-bounded heap LRU,
+ * the rest straight from the memory-mapped segment store, and only misses go
+ * to the network. Gateway bytes are checked against the CID's multihash
+ * whenever the CID pins them down; documents reached through a path can't be
+ * checked locally and can be evicted instead.
+ */
+@Service
+public class IpfsMetadataService {
+
+    private static final Logger log = LoggerFactory.getLogger(IpfsMetadataService.class);
+    private static final Pattern PATH = Pattern.compile("(/[A-Za-z0-9._-]+)*");
+    private static final int MAX_KEY_LENGTH = 512;
+
+    public static class Stats {
+        private final long heapHits;
+        private final long diskHits;
+        private final long gatewayFetches;
+        private final long rejectedFetches;
+        private final int entries;
+        private final long heapBytes;
+        private final long bytesOnDisk;
+
+        Stats(long heapHits, long diskHits, long gatewayFetches, long rejectedFetches,
+              int entries, long heapBytes, long bytesOnDisk) {
+            this.heapHits = heapHits;
+            this.diskHits = diskHits;
+            this.gatewayFetches = gatewayFetches;
+            this.rejectedFetches = rejectedFetches;
+            this.entries = entries;
+            this.heapBytes = heapBytes;
+            this.bytesOnDisk = bytesOnDisk;
+        }
+
+        public long getHeapHits() {
+            return heapHits;
+        }
+
+        public long getDiskHits() {
+            return diskHits;
+        }
+
+        public long getGatewayFetches() {
+            return gatewayFetches;
+        }
+
+        // Gateway responses that did not hash to their CID
+        public long getRejectedFetches() {
+            return rejectedFetches;
+        }
+
+        public int getEntries() {
+            return entries;
+        }
+
+        public long getHeapBytes() {
+            return heapBytes;
+        }
+
+        public long getBytesOnDisk() {
+            return bytesOnDisk;
+        }
+    }
+
+    public static class PrefetchResult {
+        private final int requested;
+        private final int fetched;
+        private final List<String> failed;
+
+        PrefetchResult(int requested, int fetched, List<String> failed) {
+            this.requested = requested;
+            this.fetched = fetched;
+            this.failed = failed;
+        }
+
+        public int getRequested() {
+            return requested;
+        }
+
+        public int getFetched() {
+            return fetched;
+        }
+
+        public List<String> getFailed() {
+            return failed;
+        }
+    }
+
+    private final MetadataSegmentStore store;
+    private final HttpClient http;
+    private final String gatewayUrl;
+    private final Duration timeout;
+    private final int maxEntryBytes;
+    private final long heapCapacityBytes;
+    private final LinkedHashMap<String, byte[]> hot = new LinkedHashMap<>(256, 0.75f, true);
+    private final SingleFlight<byte[]> fetches;
+    private final ExecutorService prefetchPool;
+    private final int maxPrefetch;
+    private long heapBytes;
+    private final AtomicLong heapHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong gatewayFetches = new AtomicLong();
+    private final AtomicLong rejectedFetches = new AtomicLong();
+
+    @Autowired
+    public IpfsMetadataService(@Value("${ipfs.gateway-url:https://gateway.pinata.cloud/ipfs/}") String gatewayUrl,
+                               @Value("${ipfs.cache.dir:data/ipfs-cache}") Path cacheDir,
+                               @Value("${ipfs.cache.segment-bytes:67108864}") int segmentBytes,
+                               @Value("${ipfs.cache.heap-bytes:33554432}") long heapCapacityBytes,
+                               @Value("${ipfs.max-entry-bytes:1048576}") int maxEntryBytes,
+                               @Value("${ipfs.fetch-timeout-ms:10000}") long timeoutMillis,
+                               @Value("${ipfs.prefetch.parallelism:8}") int parallelism,
+                               @Value("${ipfs.prefetch.max-uris:500}") int maxPrefetch) {
+        try {
+            this.store = new MetadataSegmentStore(cacheDir, segmentBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open IPFS cache at " + cacheDir, e);
+        }
+        this.gatewayUrl = gatewayUrl.endsWith("/") ? gatewayUrl : gatewayUrl + "/";
+        this.timeout = Duration.ofMillis(timeoutMillis);
+        this.http = HttpClient.newBuilder().connectTimeout(timeout).followRedirects(HttpClient.Redirect.NORMAL).build();
+        this.maxEntryBytes = maxEntryBytes;
+        this.heapCapacityBytes = heapCapacityBytes;
+        this.fetches = new SingleFlight<>(timeoutMillis * 2);
+        this.prefetchPool = Executors.newFixedThreadPool(parallelism);
+        this.maxPrefetch = maxPrefetch;
+        log.info("IPFS metadata cache opened with {} entries", store.size());
+    }
+
+    // Accepts a bare CID, CID/path, ipfs://CID/path or a gateway URL containing /ipfs/
+    public static String toKey(String uri) {
+        String key = uri.trim();
+        int gateway = key.indexOf("/ipfs/");
+        if (key.startsWith("ipfs://")) {
+            key = key.substring("ipfs://".length());
+        } else if (gateway >= 0) {
+            key = key.substring(gateway + "/ipfs/".length());
+        }
+        if (key.endsWith("/")) {
+            key = key.substring(0, key.length() - 1);
+        }
+        int slash = key.indexOf('/');
+        if (key.length() > MAX_KEY_LENGTH || !PATH.matcher(key.substring(slash < 0 ? key.length() : slash)).matches()) {
+            throw new IllegalArgumentException("Not an IPFS content path: " + uri);
+        }
+        ContentId.parse(slash < 0 ? key : key.substring(0, slash));
+        return key;
+    }
+
+    // Document bytes for the URI, fetched from the gateway only on first use
+    public byte[] get(String uri) throws IOException {
+        String key = toKey(uri);
+        byte[] value;
+        synchronized (hot) {
+            value = hot.get(key);
+        }
+        if (value != null) {
+            heapHits.incrementAndGet();
+            return value;
+        }
+        value = store.get(key);
+        if (value != null) {
+            diskHits.incrementAndGet();
+            remember(key, value);
+            return value;
+        }
+        try {
+            return fetches.execute(key, () -> {
+                byte[] stored = store.get(key);
+                if (stored != null) {
+                    return stored;
+                }
+                byte[] fetched = fetch(key);
+                store.put(key, fetched);
+                remember(key, fetched);
+                return fetched;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Drop a cached document so the next read fetches it again; true when something was cached
+    public boolean evict(String uri) {
+        String key = toKey(uri);
+        boolean cached;
+        synchronized (hot) {
+            byte[] value = hot.remove(key);
+            if (value != null) {
+                heapBytes -= value.length;
+            }
+            cached = value != null;
+        }
+        return store.remove(key) || cached;
+    }
+
+    // Warm the cache for a gallery's artworks, fetching misses in parallel
+    public PrefetchResult prefetch(Collection<String> uris) {
+        if (uris.size() > maxPrefetch) {
+            throw new IllegalArgumentException("At most " + maxPrefetch + " URIs can be prefetched at once");
+        }
+        List<String> failed = new ArrayList<>();
+        List<String> misses = new ArrayList<>();
+        for (String uri : uris) {
+            try {
+                if (!store.contains(toKey(uri))) {
+                    misses.add(uri);
+                }
+            } catch (IllegalArgumentException e) {
+                failed.add(uri);
+            }
+        }
+        List<CompletableFuture<Boolean>> pending = misses.stream()
+                .map(uri -> CompletableFuture.supplyAsync(() -> {
+                    try {
+                        get(uri);
+                        return true;
+                    } catch (IOException | RuntimeException e) {
+                        log.debug("Prefetch of {} failed: {}", uri, e.getMessage());
+                        return false;
+                    }
+                }, prefetchPool))
+                .toList();
+        int fetched = 0;
+        for (int i = 0; i < pending.size(); i++) {
+            if (pending.get(i).join()) {
+                fetched++;
+            } else {
+                failed.add(misses.get(i));
+            }
+        }
+        return new PrefetchResult(uris.size(), fetched, failed);
+    }
+
+    public Stats stats() {
+        synchronized (hot) {
+            return new Stats(heapHits.get(), diskHits.get(), gatewayFetches.get(), rejectedFetches.get(),
+                    store.size(), heapBytes, store.bytesOnDisk());
+        }
+    }
+
+    private byte[] fetch(String key) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(gatewayUrl + key))
+                .timeout(timeout)
+                .GET()
+                .build();
+        try {
+            gatewayFetches.incrementAndGet();
+            HttpResponse<InputStream> response = http.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            // Read at most one byte past the limit, so an oversized or endless body is never buffered
+            try (InputStream body = response.body()) {
+                if (response.statusCode() != 200) {
+                    throw new IOException("Gateway returned HTTP " + response.statusCode() + " for " + key);
+                }
+                if (response.headers().firstValueAsLong("Content-Length").orElse(0) > maxEntryBytes) {
+                    throw new IOException("Document " + key + " is larger than " + maxEntryBytes + " bytes");
+                }
+                byte[] bytes = body.readNBytes(maxEntryBytes + 1);
+                if (bytes.length > maxEntryBytes) {
+                    throw new IOException("Document " + key + " is larger than " + maxEntryBytes + " bytes");
+                }
+                verify(key, bytes);
+                return bytes;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new IOException("Interrupted fetching " + key, e));
+        }
+    }
+
+    // Refuse bytes that provably aren't what a bare CID addresses, so they are never cached
+    private void verify(String key, byte[] body) throws IOException {
+        if (key.indexOf('/') >= 0) {
+            return;
+        }
+        ContentId cid = ContentId.parse(key);
+        if (cid.isVerifiable(body.length) && !cid.matches(body)) {
+            rejectedFetches.incrementAndGet();
+            throw new IOException("Gateway returned content that does not hash to " + key);
+        }
+    }
+
+    private void remember(String key, byte[] value) {
+        synchronized (hot) {
+            if (hot.put(key, value) == null) {
+                heapBytes += value.length;
+            }
+            Iterator<Map.Entry<String, byte[]>> eldest = hot.entrySet().iterator();
+            while (heapBytes > heapCapacityBytes && eldest.hasNext()) {
+                heapBytes -= eldest.next().getValue().length;
+                eldest.remove();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        prefetchPool.shutdownNow();
+        store.close();
+    }
+}
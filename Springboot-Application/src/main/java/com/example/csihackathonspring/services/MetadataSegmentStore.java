@@ -0,0 +1,235 @@
+package com.example.csihackathonspring.services;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Append-only content-addressed store backed by memory-mapped segment files.
+ * Entries are keyed by IPFS CID and never change, so a record is written once
+ * and its location is remembered for the life of the directory, unless it is
+ * explicitly removed: a removal appends a tombstone, after which the key can
+ * be written again. Once removals leave more than half of the written bytes
+ * dead, live records are copied into fresh segments and the old files are
+ * deleted, so the directory never grows much past twice the live data.
+ *
+ * Record layout: int magic, short keyLength, int valueLength, key, value.
+ * A tombstone has valueLength -1 and no value. The magic word is written last
+ * so a record torn by a crash is never read back.
+ */
+public class MetadataSegmentStore implements AutoCloseable {
+
+    private static final int MAGIC = 0x49504653;
+    private static final int HEADER_BYTES = 4 + 2 + 4;
+    private static final int TOMBSTONE = -1;
+
+    // Readers keep the mapping itself, so a location stays readable while compaction retires its file
+    private record Location(MappedByteBuffer segment, int offset, int length) {
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>();
+    private final List<Path> files = new ArrayList<>();
+    private final ConcurrentHashMap<String, Location> index = new ConcurrentHashMap<>();
+    private int writePosition;
+    private int nextFile;
+    // Bytes held by removed or superseded records and by tombstones
+    private long deadBytes;
+
+    public MetadataSegmentStore(Path directory, int segmentBytes) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        try (Stream<Path> listing = Files.list(directory)) {
+            List<Path> existing = listing.filter(p -> p.getFileName().toString().endsWith(".seg")).sorted().toList();
+            for (Path file : existing) {
+                segments.add(map(file));
+                files.add(file);
+                writePosition = scan(segments.get(segments.size() - 1));
+                nextFile = Integer.parseInt(file.getFileName().toString().replace(".seg", "")) + 1;
+            }
+        }
+        if (segments.isEmpty()) {
+            roll();
+        }
+    }
+
+    // Value bytes for the key, read straight from the mapping, or null when absent
+    public byte[] get(String key) {
+        Location location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        ByteBuffer view = location.segment().duplicate();
+        byte[] value = new byte[location.length()];
+        view.position(location.offset()).get(value);
+        return value;
+    }
+
+    public boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    // Write-once: a key that is already stored keeps its original bytes
+    public synchronized void put(String key, byte[] value) {
+        if (index.containsKey(key)) {
+            return;
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int start = append(keyBytes, value, value.length);
+        index.put(key, new Location(segments.get(segments.size() - 1), start + HEADER_BYTES + keyBytes.length, value.length));
+    }
+
+    // Forget a key, durably; returns false when it wasn't stored
+    public synchronized boolean remove(String key) {
+        if (!index.containsKey(key)) {
+            return false;
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        append(keyBytes, new byte[0], TOMBSTONE);
+        deadBytes += HEADER_BYTES + keyBytes.length + recordBytes(key, index.remove(key));
+        if (deadBytes > segmentBytes && deadBytes * 2 > writtenBytes()) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * Copy every live record into new segments and delete the old files, oldest
+     * first. Each record is written before its location moves, and a crash part
+     * way leaves the surviving old files as a suffix of the log followed by the
+     * copies, which replays to the same entries.
+     */
+    public synchronized void compact() {
+        List<Path> retired = List.copyOf(files);
+        List<MappedByteBuffer> retiredSegments = List.copyOf(segments);
+        try {
+            roll();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (Map.Entry<String, Location> entry : index.entrySet()) {
+            byte[] keyBytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            byte[] value = new byte[entry.getValue().length()];
+            entry.getValue().segment().duplicate().position(entry.getValue().offset()).get(value);
+            int start = append(keyBytes, value, value.length);
+            entry.setValue(new Location(segments.get(segments.size() - 1), start + HEADER_BYTES + keyBytes.length, value.length));
+        }
+        segments.removeAll(retiredSegments);
+        files.removeAll(retired);
+        deadBytes = 0;
+        // The copies must be durable before the only other copy is deleted
+        force();
+        try {
+            for (Path file : retired) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public long bytesOnDisk() {
+        return (long) segments.size() * segmentBytes;
+    }
+
+    long deadBytes() {
+        return deadBytes;
+    }
+
+    // Flush dirty pages so entries survive an OS crash, not just a JVM exit
+    public synchronized void force() {
+        segments.forEach(MappedByteBuffer::force);
+    }
+
+    @Override
+    public void close() {
+        force();
+    }
+
+    // Write one record at the end of the current segment, rolling first if it won't fit
+    private int append(byte[] keyBytes, byte[] value, int valueLength) {
+        if (keyBytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Key of " + keyBytes.length + " bytes is too long");
+        }
+        int recordBytes = HEADER_BYTES + keyBytes.length + value.length;
+        if (recordBytes > segmentBytes) {
+            throw new IllegalArgumentException("Entry of " + value.length + " bytes exceeds segment size");
+        }
+        if (writePosition + recordBytes > segmentBytes) {
+            try {
+                roll();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        MappedByteBuffer buffer = segments.get(segments.size() - 1);
+        int start = writePosition;
+        ByteBuffer view = buffer.duplicate();
+        view.position(start + 4);
+        view.putShort((short) keyBytes.length).putInt(valueLength).put(keyBytes).put(value);
+        buffer.putInt(start, MAGIC);
+        writePosition = start + recordBytes;
+        return start;
+    }
+
+    private int scan(MappedByteBuffer buffer) {
+        int position = 0;
+        while (position + HEADER_BYTES <= segmentBytes && buffer.getInt(position) == MAGIC) {
+            int keyLength = buffer.getShort(position + 4);
+            int valueLength = buffer.getInt(position + 6);
+            byte[] keyBytes = new byte[keyLength];
+            buffer.duplicate().position(position + HEADER_BYTES).get(keyBytes);
+            int valueOffset = position + HEADER_BYTES + keyLength;
+            String key = new String(keyBytes, StandardCharsets.UTF_8);
+            if (valueLength == TOMBSTONE) {
+                deadBytes += HEADER_BYTES + keyLength + recordBytes(key, index.remove(key));
+                position = valueOffset;
+            } else {
+                deadBytes += recordBytes(key, index.put(key, new Location(buffer, valueOffset, valueLength)));
+                position = valueOffset + valueLength;
+            }
+        }
+        return position;
+    }
+
+    private void roll() throws IOException {
+        Path file = directory.resolve(String.format("%08d.seg", nextFile++));
+        segments.add(map(file));
+        files.add(file);
+        writePosition = 0;
+    }
+
+    // Everything appended so far, counting the unused tails of filled segments
+    private long writtenBytes() {
+        return (long) (segments.size() - 1) * segmentBytes + writePosition;
+    }
+
+    private static long recordBytes(String key, Location location) {
+        return location == null ? 0 : HEADER_BYTES + key.getBytes(StandardCharsets.UTF_8).length + location.length();
+    }
+
+    private MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.csihackathonspring.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Shared adaptive limit on the profile services' Mongo reads. A spike is turned
+ * away with a 503 while latency is still low, instead of piling onto the driver
+ * pool until every request times out.
+ */
+@Service
+public class MongoAccessLimiter {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final boolean enabled;
+
+    @Autowired
+    public MongoAccessLimiter(@Value("${mongo.limiter.enabled:true}") boolean enabled,
+                              @Value("${mongo.limiter.initial-limit:20}") int initialLimit,
+                              @Value("${mongo.limiter.min-limit:4}") int minLimit,
+                              @Value("${mongo.limiter.max-limit:200}") int maxLimit,
+                              @Value("${mongo.limiter.tolerance:1.5}") double tolerance,
+                              @Value("${mongo.limiter.smoothing:0.2}") double smoothing,
+                              @Value("${mongo.limiter.min-rtt-window-ms:30000}") long minRttWindowMillis) {
+        this.enabled = enabled;
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, tolerance, smoothing,
+                TimeUnit.MILLISECONDS.toNanos(minRttWindowMillis));
+    }
+
+    public <T> T call(Supplier<T> access) {
+        if (!enabled) {
+            return access.get();
+        }
+        if (!limiter.tryAcquire()) {
+            throw new OverloadedException("Database concurrency limit of " + limiter.getLimit() + " reached");
+        }
+        long start = System.nanoTime();
+        boolean dropped = false;
+        try {
+            return access.get();
+        } catch (TransientDataAccessException e) {
+            dropped = true;
+            throw e;
+        } finally {
+            limiter.release(System.nanoTime() - start, dropped);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        return limiter.stats();
+    }
+}
@@ -0,0 +1,370 @@
+package com.example.csihackathonspring.services;
+
+import com.mongodb.MongoClientSettings;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of entity mutations in memory-mapped segment files, in the
+ * same layout style as {@link MetadataSegmentStore}. An offset is the global
+ * byte address of a record (segment * segmentBytes + position), so readers
+ * can resume from any offset they have seen.
+ *
+ * Appends only copy into the mapping, which already survives a JVM crash. A
+ * single committer thread msyncs whatever accumulated while the previous
+ * flush ran, so one flush covers a whole group of appends and writers never
+ * wait on the disk. Readers only see committed records.
+ *
+ * Segments wholly below an offset every reader has passed can be deleted
+ * with {@link #truncateBefore}; offsets stay global, so the first retained
+ * segment keeps its index and earlier offsets are refused.
+ *
+ * Record layout: int magic, int bodyLength, long timestamp, byte op,
+ * short collectionLength, short idLength, collection, id, delta as BSON.
+ * The magic word is written last so a record torn by a crash is never read back.
+ */
+public class MutationJournal implements AutoCloseable {
+
+    private static final int MAGIC = 0x4A524E4C;
+    private static final int HEADER_BYTES = 4 + 4;
+    private static final int FIXED_BODY_BYTES = 8 + 1 + 2 + 2;
+    private static final Codec<Document> CODEC = MongoClientSettings.getDefaultCodecRegistry().get(Document.class);
+
+    public enum Op {
+        INSERT, UPDATE, REPLACE, DELETE
+    }
+
+    /**
+     * One change to one document. For UPDATE the delta is a Mongo update
+     * document ($set / $unset); INSERT and REPLACE carry the full document;
+     * DELETE carries none. Reading on from nextOffset continues after this record.
+     */
+    public record Mutation(long offset, long nextOffset, long timestamp, String collection, String id, Op op,
+                           Document delta) {
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>();
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final Condition appended = commitLock.newCondition();
+    private final Condition committed = commitLock.newCondition();
+    private final Thread committer;
+    private volatile int firstSegment;
+    private long writeOffset;
+    private volatile long committedOffset;
+    private volatile long commits;
+    private volatile long appends;
+    private volatile boolean closed;
+
+    public MutationJournal(Path directory, int segmentBytes) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> existing = files.filter(p -> p.getFileName().toString().endsWith(".log")).sorted().toList();
+            for (Path file : existing) {
+                int index = Integer.parseInt(file.getFileName().toString().replace(".log", ""));
+                if (segments.isEmpty()) {
+                    firstSegment = index;
+                }
+                // Truncated segments stay as empty slots so offsets keep mapping to their segment
+                while (segments.size() < index) {
+                    segments.add(null);
+                }
+                segments.add(map(file));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.add(map(segmentPath(0)));
+        }
+        int last = segments.size() - 1;
+        writeOffset = (long) last * segmentBytes + scan(segments.get(last));
+        committedOffset = writeOffset;
+        committer = new Thread(this::commitLoop, "mutation-journal-commit");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    // Offset of the appended record; visible to readers once the next group commit completes
+    public long append(long timestamp, String collection, String id, Op op, Document delta) {
+        byte[] collectionBytes = collection.getBytes(StandardCharsets.UTF_8);
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        byte[] deltaBytes = delta == null ? new byte[0] : encode(delta);
+        int bodyBytes = FIXED_BODY_BYTES + collectionBytes.length + idBytes.length + deltaBytes.length;
+        int recordBytes = HEADER_BYTES + bodyBytes;
+        if (recordBytes > segmentBytes) {
+            throw new IllegalArgumentException("Mutation of " + recordBytes + " bytes exceeds segment size");
+        }
+        commitLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            int position = (int) (writeOffset % segmentBytes);
+            if (position + recordBytes > segmentBytes) {
+                try {
+                    segments.add(map(segmentPath(segments.size())));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                writeOffset = (long) (segments.size() - 1) * segmentBytes;
+                position = 0;
+            }
+            long offset = writeOffset;
+            MappedByteBuffer buffer = segments.get(segments.size() - 1);
+            ByteBuffer view = buffer.duplicate();
+            view.position(position + 4);
+            view.putInt(bodyBytes).putLong(timestamp).put((byte) op.ordinal())
+                    .putShort((short) collectionBytes.length).putShort((short) idBytes.length)
+                    .put(collectionBytes).put(idBytes).put(deltaBytes);
+            buffer.putInt(position, MAGIC);
+            writeOffset = offset + recordBytes;
+            appends++;
+            appended.signal();
+            return offset;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Block until everything before the given offset is committed, or the
+     * timeout passes. Returns the committed offset either way.
+     */
+    public long awaitCommitted(long offset, long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        commitLock.lock();
+        try {
+            while (committedOffset <= offset && remaining > 0 && !closed) {
+                remaining = committed.awaitNanos(remaining);
+            }
+            return committedOffset;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    // Committed mutations from the offset onwards, at most limit of them; the offset must be a record boundary
+    public List<Mutation> read(long fromOffset, int limit) {
+        requireBoundary(fromOffset);
+        return readFrom(fromOffset, limit);
+    }
+
+    /**
+     * Reject offsets that were never handed out as a record offset, nextOffset
+     * or committed offset. Starting inside a record would otherwise fail the
+     * magic check and look like the end of the segment, silently skipping it.
+     * Walks the record headers from the start of the segment.
+     */
+    public void requireBoundary(long offset) {
+        long end = committedOffset;
+        long first = firstOffset();
+        if (offset < first || offset > end) {
+            throw new IllegalArgumentException("Offset " + offset + " is outside the journal [" + first + ", " + end + "]");
+        }
+        if (offset == end) {
+            return;
+        }
+        int target = (int) (offset % segmentBytes);
+        ByteBuffer buffer = segment((int) (offset / segmentBytes));
+        int position = 0;
+        while (position < target && position + HEADER_BYTES <= segmentBytes && buffer.getInt(position) == MAGIC) {
+            position += HEADER_BYTES + buffer.getInt(position + 4);
+        }
+        if (position != target) {
+            throw new IllegalArgumentException("Offset " + offset + " is not a record boundary");
+        }
+    }
+
+    // Unchecked read for cursors that only ever advance through nextOffset
+    List<Mutation> readFrom(long fromOffset, int limit) {
+        List<Mutation> mutations = new ArrayList<>();
+        long end = committedOffset;
+        long offset = fromOffset;
+        while (offset < end && mutations.size() < limit) {
+            int segment = (int) (offset / segmentBytes);
+            int position = (int) (offset % segmentBytes);
+            ByteBuffer buffer = segment(segment);
+            if (position + HEADER_BYTES > segmentBytes || buffer.getInt(position) != MAGIC) {
+                // Rest of the segment was too small for the next record
+                offset = (long) (segment + 1) * segmentBytes;
+                continue;
+            }
+            int bodyBytes = buffer.getInt(position + 4);
+            mutations.add(decode(offset, buffer.duplicate().position(position + HEADER_BYTES), bodyBytes));
+            offset += HEADER_BYTES + bodyBytes;
+        }
+        return mutations;
+    }
+
+    /**
+     * Delete the segments that end at or before the offset, never the one being
+     * written. Returns how many were deleted. Callers pass the lowest offset any
+     * reader still needs.
+     */
+    public int truncateBefore(long offset) {
+        commitLock.lock();
+        try {
+            int below = (int) Math.min(Math.min(offset, committedOffset) / segmentBytes, segments.size() - 1);
+            int deleted = 0;
+            for (int segment = firstSegment; segment < below; segment++) {
+                firstSegment = segment + 1;
+                segments.set(segment, null);
+                Files.deleteIfExists(segmentPath(segment));
+                deleted++;
+            }
+            return deleted;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    // Oldest offset still readable
+    public long firstOffset() {
+        return (long) firstSegment * segmentBytes;
+    }
+
+    // Offset just past the last committed record; replay from here to follow only new mutations
+    public long committedOffset() {
+        return committedOffset;
+    }
+
+    public long appends() {
+        return appends;
+    }
+
+    public long commits() {
+        return commits;
+    }
+
+    public long bytesOnDisk() {
+        return (long) (segments.size() - firstSegment) * segmentBytes;
+    }
+
+    @Override
+    public void close() {
+        commitLock.lock();
+        try {
+            closed = true;
+            appended.signal();
+        } finally {
+            commitLock.unlock();
+        }
+        try {
+            committer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segments.stream().filter(Objects::nonNull).forEach(MappedByteBuffer::force);
+    }
+
+    private ByteBuffer segment(int index) {
+        ByteBuffer buffer = index < firstSegment ? null : segments.get(index);
+        if (buffer == null) {
+            throw new IllegalArgumentException("Segment " + index + " was truncated");
+        }
+        return buffer;
+    }
+
+    private void commitLoop() {
+        long flushedOffset = committedOffset;
+        while (true) {
+            long target;
+            commitLock.lock();
+            try {
+                while (writeOffset == flushedOffset && !closed) {
+                    appended.awaitUninterruptibly();
+                }
+                if (writeOffset == flushedOffset) {
+                    return;
+                }
+                target = writeOffset;
+            } finally {
+                commitLock.unlock();
+            }
+            // Flush outside the lock so appends keep landing while the disk works
+            flush(flushedOffset, target);
+            flushedOffset = target;
+            commitLock.lock();
+            try {
+                committedOffset = target;
+                commits++;
+                committed.signalAll();
+            } finally {
+                commitLock.unlock();
+            }
+        }
+    }
+
+    private void flush(long from, long to) {
+        int first = (int) (from / segmentBytes);
+        int last = (int) ((to - 1) / segmentBytes);
+        for (int segment = first; segment <= last; segment++) {
+            int start = segment == first ? (int) (from % segmentBytes) : 0;
+            int end = segment == last ? (int) (to - (long) segment * segmentBytes) : segmentBytes;
+            segments.get(segment).force(start, end - start);
+        }
+    }
+
+    private int scan(ByteBuffer buffer) {
+        int position = 0;
+        while (position + HEADER_BYTES <= segmentBytes && buffer.getInt(position) == MAGIC) {
+            position += HEADER_BYTES + buffer.getInt(position + 4);
+        }
+        return position;
+    }
+
+    private static Mutation decode(long offset, ByteBuffer body, int bodyBytes) {
+        long nextOffset = offset + HEADER_BYTES + bodyBytes;
+        long timestamp = body.getLong();
+        Op op = Op.values()[body.get()];
+        byte[] collection = new byte[body.getShort()];
+        byte[] id = new byte[body.getShort()];
+        body.get(collection).get(id);
+        byte[] delta = new byte[bodyBytes - FIXED_BODY_BYTES - collection.length - id.length];
+        body.get(delta);
+        return new Mutation(offset, nextOffset, timestamp, new String(collection, StandardCharsets.UTF_8),
+                new String(id, StandardCharsets.UTF_8), op,
+                delta.length == 0 ? null : new RawBsonDocument(delta).decode(CODEC));
+    }
+
+    private static byte[] encode(Document document) {
+        ByteBuffer bson = new RawBsonDocument(document, CODEC).getByteBuffer().asNIO();
+        byte[] bytes = new byte[bson.remaining()];
+        bson.get(bytes);
+        return bytes;
+    }
+
+    private Path segmentPath(int index) {
+        return directory.resolve(String.format("%08d.log", index));
+    }
+
+    private MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+}
@@ -0,0 +1,489 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.entities.Curator;
+import com.example.csihackathonspring.entities.Investor;
+import com.example.csihackathonspring.entities.User;
+import com.example.csihackathonspring.services.MutationJournal.Mutation;
+import com.example.csihackathonspring.services.MutationJournal.Op;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.UpdateMapper;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Records every change to users, investors and curators in the {@link MutationJournal}
+ * and feeds it to in-process subscribers, each from its own offset.
+ *
+ * With source EVENTS, repository saves and deletes are journaled as they happen.
+ * A save is diffed against the last saved image of the same document, so a
+ * repeat save journals only the fields that changed. Targeted updates
+ * ($set, $inc, $addToSet) raise no save event, so the services issuing them
+ * call {@link #recordUpdate}. With source CHANGE_STREAM, a Mongo change stream
+ * is the only source, which also catches writes from other instances and from
+ * outside the application. Replay after a restart is at-least-once.
+ *
+ * Passwords are stripped from every image and delta before it is appended,
+ * since the journal is served as is by the admin replay endpoint. Segments
+ * every subscriber has read past are deleted on a schedule.
+ */
+@Service
+public class MutationJournalService {
+
+    private static final Logger log = LoggerFactory.getLogger(MutationJournalService.class);
+    private static final String STATE_COLLECTION = "journal_state";
+    private static final List<String> COLLECTIONS = List.of("users", "investors", "curators");
+    private static final Set<String> REDACTED = Set.of("password");
+
+    public enum Source {
+        EVENTS, CHANGE_STREAM
+    }
+
+    private static final class Subscriber {
+        private final Consumer<Mutation> consumer;
+        private volatile long position;
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+
+        Subscriber(Consumer<Mutation> consumer, long position) {
+            this.consumer = consumer;
+            this.position = position;
+        }
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final UpdateMapper updateMapper;
+    private final MutationJournal journal;
+    private final Source source;
+    private final int dispatchBatch;
+    private final int imageCacheEntries;
+    private final LinkedHashMap<String, Document> lastImages = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final Thread dispatcher;
+    private final AtomicLong unchangedSaves = new AtomicLong();
+    private final AtomicLong changeStreamEvents = new AtomicLong();
+    private volatile Thread changeStream;
+    private volatile boolean running = true;
+
+    @Autowired
+    public MutationJournalService(MongoTemplate mongoTemplate,
+                                  @Value("${journal.source:EVENTS}") Source source,
+                                  @Value("${journal.dir:data/journal}") Path directory,
+                                  @Value("${journal.segment-bytes:67108864}") int segmentBytes,
+                                  @Value("${journal.image-cache-entries:10000}") int imageCacheEntries,
+                                  @Value("${journal.dispatch-batch:1000}") int dispatchBatch) {
+        try {
+            this.journal = new MutationJournal(directory, segmentBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open mutation journal at " + directory, e);
+        }
+        this.mongoTemplate = mongoTemplate;
+        this.updateMapper = new UpdateMapper(mongoTemplate.getConverter());
+        this.source = source;
+        this.imageCacheEntries = imageCacheEntries;
+        this.dispatchBatch = dispatchBatch;
+        this.dispatcher = new Thread(this::dispatchLoop, "mutation-journal-dispatch");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+        log.info("Mutation journal opened at offset {} with source {}", journal.committedOffset(), source);
+    }
+
+    /**
+     * Deliver every committed mutation from the offset onwards to the consumer,
+     * then keep following the journal. Pass {@link #endOffset()} to receive only
+     * new mutations. A consumer that throws is logged and skipped past.
+     */
+    public void subscribe(String name, long fromOffset, Consumer<Mutation> consumer) {
+        Subscriber subscriber = new Subscriber(consumer, fromOffset);
+        if (subscribers.putIfAbsent(name, subscriber) != null) {
+            throw new IllegalArgumentException("Subscriber " + name + " already exists");
+        }
+        // Checked once registered, so retention cannot delete the segment in between
+        try {
+            journal.requireBoundary(fromOffset);
+        } catch (IllegalArgumentException e) {
+            subscribers.remove(name, subscriber);
+            throw e;
+        }
+    }
+
+    public void unsubscribe(String name) {
+        subscribers.remove(name);
+    }
+
+    // Committed mutations from the offset, for audits and consumers that keep their own cursor
+    public List<Mutation> replay(long fromOffset, int limit) {
+        return journal.read(fromOffset, limit);
+    }
+
+    public long endOffset() {
+        return journal.committedOffset();
+    }
+
+    // For targeted writes that bypass repository saves; a no-op when the change stream is the source
+    public void recordUpdate(Class<?> type, String id, Update update) {
+        if (source != Source.EVENTS) {
+            return;
+        }
+        String collection = mongoTemplate.getCollectionName(type);
+        // Mapped the way the template sends it, so modifiers like $each become plain documents
+        Document mapped = updateMapper.getMappedObject(update.getUpdateObject(),
+                mongoTemplate.getConverter().getMappingContext().getPersistentEntity(type));
+        synchronized (lastImages) {
+            // The cached image no longer matches the document, so the next save must journal in full
+            lastImages.remove(collection + ':' + id);
+        }
+        append(System.currentTimeMillis(), collection, id, Op.UPDATE, mapped);
+    }
+
+    // For documents moved in or out without a repository save or delete, such as by the archive tier
+    public void recordInsert(Class<?> type, Document document) {
+        if (source != Source.EVENTS) {
+            return;
+        }
+        String collection = mongoTemplate.getCollectionName(type);
+        String id = document.get("_id").toString();
+        synchronized (lastImages) {
+            lastImages.remove(collection + ':' + id);
+        }
+        append(System.currentTimeMillis(), collection, id, Op.INSERT, document);
+    }
+
+    public void recordDelete(Class<?> type, String id) {
+        if (source != Source.EVENTS) {
+            return;
+        }
+        String collection = mongoTemplate.getCollectionName(type);
+        synchronized (lastImages) {
+            lastImages.remove(collection + ':' + id);
+        }
+        append(System.currentTimeMillis(), collection, id, Op.DELETE, null);
+    }
+
+    @EventListener
+    public void onAfterSave(AfterSaveEvent<?> event) {
+        Object entity = event.getSource();
+        if (source != Source.EVENTS || !(entity instanceof User || entity instanceof Investor || entity instanceof Curator)) {
+            return;
+        }
+        Document saved = redact(event.getDocument());
+        if (saved == null || saved.get("_id") == null) {
+            return;
+        }
+        String id = saved.get("_id").toString();
+        String key = event.getCollectionName() + ':' + id;
+        Document previous;
+        synchronized (lastImages) {
+            previous = lastImages.put(key, saved);
+            if (lastImages.size() > imageCacheEntries) {
+                lastImages.remove(lastImages.keySet().iterator().next());
+            }
+        }
+        if (previous == null) {
+            append(System.currentTimeMillis(), event.getCollectionName(), id, Op.REPLACE, saved);
+            return;
+        }
+        Document delta = delta(previous, saved);
+        if (delta.isEmpty()) {
+            unchangedSaves.incrementAndGet();
+            return;
+        }
+        append(System.currentTimeMillis(), event.getCollectionName(), id, Op.UPDATE, delta);
+    }
+
+    @EventListener
+    public void onAfterDelete(AfterDeleteEvent<?> event) {
+        Object id = event.getSource().get("_id");
+        if (source != Source.EVENTS || id == null || id instanceof Document || !COLLECTIONS.contains(event.getCollectionName())) {
+            return;
+        }
+        synchronized (lastImages) {
+            lastImages.remove(event.getCollectionName() + ':' + id);
+        }
+        append(System.currentTimeMillis(), event.getCollectionName(), id.toString(), Op.DELETE, null);
+    }
+
+    // Every mutation goes through here, so no image or delta reaches the journal with a secret in it
+    private void append(long timestamp, String collection, String id, Op op, Document delta) {
+        Document redacted = op == Op.UPDATE ? redactUpdate(delta) : redact(delta);
+        if (op == Op.UPDATE && redacted.isEmpty() && !delta.isEmpty()) {
+            return; // only a secret changed
+        }
+        journal.append(timestamp, collection, id, op, redacted);
+    }
+
+    // A copy of a full document without its secret fields, or the document itself when it has none
+    static Document redact(Document document) {
+        if (document == null || REDACTED.stream().noneMatch(document::containsKey)) {
+            return document;
+        }
+        Document copy = new Document(document);
+        REDACTED.forEach(copy::remove);
+        return copy;
+    }
+
+    // An update document without any operator touching a secret field or a path inside one
+    static Document redactUpdate(Document update) {
+        Document redacted = new Document();
+        for (Map.Entry<String, Object> entry : update.entrySet()) {
+            if (entry.getKey().startsWith("$") && entry.getValue() instanceof Document fields) {
+                Document kept = new Document();
+                fields.forEach((path, value) -> {
+                    if (!REDACTED.contains(path.split("\\.", 2)[0])) {
+                        kept.put(path, value);
+                    }
+                });
+                if (!kept.isEmpty()) {
+                    redacted.put(entry.getKey(), kept);
+                }
+            } else if (!REDACTED.contains(entry.getKey())) {
+                redacted.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return redacted;
+    }
+
+    /**
+     * $set for fields that were added or changed, $unset for fields that were
+     * removed, recursing into embedded documents so a changed counter inside
+     * profile is recorded as "profile.followersCount" alone. Empty when nothing changed.
+     */
+    static Document delta(Document before, Document after) {
+        Document set = new Document();
+        Document unset = new Document();
+        diff(before, after, "", set, unset);
+        Document delta = new Document();
+        if (!set.isEmpty()) {
+            delta.put("$set", set);
+        }
+        if (!unset.isEmpty()) {
+            delta.put("$unset", unset);
+        }
+        return delta;
+    }
+
+    private static void diff(Document before, Document after, String prefix, Document set, Document unset) {
+        for (Map.Entry<String, Object> field : after.entrySet()) {
+            Object old = before.get(field.getKey());
+            Object now = field.getValue();
+            if (old instanceof Document oldDocument && now instanceof Document newDocument) {
+                diff(oldDocument, newDocument, prefix + field.getKey() + '.', set, unset);
+            } else if (!before.containsKey(field.getKey()) || !Objects.equals(old, now)) {
+                set.put(prefix + field.getKey(), now);
+            }
+        }
+        for (String field : before.keySet()) {
+            if (!after.containsKey(field)) {
+                unset.put(prefix + field, "");
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long appends = journal.appends();
+        long commits = journal.commits();
+        long end = journal.committedOffset();
+        stats.put("source", source);
+        stats.put("firstOffset", journal.firstOffset());
+        stats.put("committedOffset", end);
+        stats.put("appends", appends);
+        stats.put("commits", commits);
+        stats.put("appendsPerCommit", commits == 0 ? 0.0 : (double) appends / commits);
+        stats.put("unchangedSaves", unchangedSaves.get());
+        stats.put("changeStreamEvents", changeStreamEvents.get());
+        stats.put("bytesOnDisk", journal.bytesOnDisk());
+        Map<String, Object> consumers = new LinkedHashMap<>();
+        subscribers.forEach((name, subscriber) -> {
+            Map<String, Object> consumer = new LinkedHashMap<>();
+            consumer.put("position", subscriber.position);
+            consumer.put("lagBytes", Math.max(0, end - subscriber.position));
+            consumer.put("delivered", subscriber.delivered.get());
+            consumer.put("failures", subscriber.failures.get());
+            consumers.put(name, consumer);
+        });
+        stats.put("subscribers", consumers);
+        return stats;
+    }
+
+    // Each subscriber advances independently, so a slow one lags without holding back the others
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                journal.awaitCommitted(lowestPosition(), 500, TimeUnit.MILLISECONDS);
+                for (Map.Entry<String, Subscriber> entry : subscribers.entrySet()) {
+                    deliver(entry.getKey(), entry.getValue());
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Mutation journal dispatch failed", e);
+            }
+        }
+    }
+
+    private long lowestPosition() {
+        return subscribers.values().stream()
+                .mapToLong(s -> s.position)
+                .min()
+                .orElse(journal.committedOffset());
+    }
+
+    // Segments below every subscriber's position are only reachable by replay() and are dropped
+    @Scheduled(fixedDelayString = "${journal.retention-check-ms:60000}")
+    public void truncate() {
+        int deleted = journal.truncateBefore(lowestPosition());
+        if (deleted > 0) {
+            log.info("Mutation journal deleted {} segments, oldest offset now {}", deleted, journal.firstOffset());
+        }
+    }
+
+    private void deliver(String name, Subscriber subscriber) {
+        for (Mutation mutation : journal.readFrom(subscriber.position, dispatchBatch)) {
+            try {
+                subscriber.consumer.accept(mutation);
+                subscriber.delivered.incrementAndGet();
+            } catch (RuntimeException e) {
+                subscriber.failures.incrementAndGet();
+                log.warn("Journal subscriber {} failed on offset {}", name, mutation.offset(), e);
+            }
+            subscriber.position = mutation.nextOffset();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startChangeStream() {
+        if (source != Source.CHANGE_STREAM) {
+            return;
+        }
+        Thread thread = new Thread(this::followChangeStream, "mutation-journal-cdc");
+        thread.setDaemon(true);
+        changeStream = thread;
+        thread.start();
+    }
+
+    // Resume token is checkpointed in Mongo so a restart continues where the stream left off
+    private void followChangeStream() {
+        Document state = mongoTemplate.findById("change-stream", Document.class, STATE_COLLECTION);
+        ChangeStreamIterable<Document> watch = mongoTemplate.getDb()
+                .watch(List.of(Aggregates.match(Filters.in("ns.coll", COLLECTIONS))), Document.class)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        if (state != null && state.get("resumeToken") instanceof Document token) {
+            watch = watch.resumeAfter(BsonDocument.parse(token.toJson()));
+        }
+        BsonDocument unsaved = null;
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = watch.cursor()) {
+            while (running) {
+                ChangeStreamDocument<Document> change = cursor.tryNext();
+                if (change == null) {
+                    if (unsaved != null) {
+                        checkpoint(unsaved);
+                        unsaved = null;
+                    }
+                    continue;
+                }
+                journal(change);
+                changeStreamEvents.incrementAndGet();
+                unsaved = change.getResumeToken();
+            }
+        } catch (RuntimeException e) {
+            if (running) {
+                log.warn("Change stream stopped, mutations are no longer journaled", e);
+            }
+        }
+        if (unsaved != null) {
+            checkpoint(unsaved);
+        }
+    }
+
+    private void journal(ChangeStreamDocument<Document> change) {
+        if (change.getOperationType() == null || change.getDocumentKey() == null || change.getNamespace() == null) {
+            return;
+        }
+        String collection = change.getNamespace().getCollectionName();
+        String id = idString(change.getDocumentKey().get("_id"));
+        long timestamp = change.getWallTime() != null ? change.getWallTime().getValue() : System.currentTimeMillis();
+        switch (change.getOperationType()) {
+            case INSERT -> append(timestamp, collection, id, Op.INSERT, change.getFullDocument());
+            case REPLACE -> append(timestamp, collection, id, Op.REPLACE, change.getFullDocument());
+            case DELETE -> append(timestamp, collection, id, Op.DELETE, null);
+            case UPDATE -> {
+                UpdateDescription description = change.getUpdateDescription();
+                Document delta = new Document();
+                if (description != null && description.getUpdatedFields() != null && !description.getUpdatedFields().isEmpty()) {
+                    delta.put("$set", description.getUpdatedFields());
+                }
+                if (description != null && description.getRemovedFields() != null && !description.getRemovedFields().isEmpty()) {
+                    Document unset = new Document();
+                    description.getRemovedFields().forEach(field -> unset.put(field, ""));
+                    delta.put("$unset", unset);
+                }
+                append(timestamp, collection, id, Op.UPDATE, delta);
+            }
+            default -> {
+                // drop, rename and invalidate carry no document change
+            }
+        }
+    }
+
+    private static String idString(BsonValue id) {
+        if (id == null) {
+            return "";
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    private void checkpoint(BsonDocument resumeToken) {
+        mongoTemplate.upsert(new Query(where("_id").is("change-stream")),
+                new Update().set("resumeToken", Document.parse(resumeToken.toJson())), STATE_COLLECTION);
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        Thread stream = changeStream;
+        if (stream != null) {
+            stream.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        dispatcher.interrupt();
+        dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        journal.close();
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.csihackathonspring.services;
+
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Thrown when the adaptive limit on database access is full; the caller may retry shortly
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class OverloadedException extends TransientDataAccessResourceException {
+
+    public OverloadedException(String message) {
+        super(message);
+    }
+}
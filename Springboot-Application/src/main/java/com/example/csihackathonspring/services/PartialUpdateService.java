@@ -0,0 +1,290 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.config.BadgeProperties.Metric;
+import com.example.csihackathonspring.entities.Curator;
+import com.example.csihackathonspring.entities.Investor;
+import com.example.csihackathonspring.entities.User;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoClientSettings;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mapping.PersistentPropertyPath;
+import org.springframework.data.mapping.context.InvalidPersistentPropertyPath;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.UpdateMapper;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Field-level writes to users, investors and curators. A change is sent as
+ * $set / $inc / $unset on just the touched paths plus a version bump, so the
+ * oplog carries the delta rather than a copy of the whole document.
+ *
+ * Version checks are optimistic: a patch carrying the version the client
+ * last read fails with {@link OptimisticLockingFailureException} if someone
+ * else wrote in between.
+ * These writes raise no save event, so the journal, search index and badge
+ * engine are told about them here.
+ */
+@Service
+public class PartialUpdateService {
+
+    private static final Codec<Document> CODEC = MongoClientSettings.getDefaultCodecRegistry().get(Document.class);
+    private static final Set<String> PROTECTED = Set.of("id", "password", "role", "version", "createdAt");
+
+    // Request body for PATCH: dotted property paths to set, increment or remove
+    public static class Patch {
+        private Map<String, Object> set = new LinkedHashMap<>();
+        private Map<String, Object> inc = new LinkedHashMap<>();
+        private List<String> unset = List.of();
+
+        public Map<String, Object> getSet() {
+            return set;
+        }
+
+        public void setSet(Map<String, Object> set) {
+            this.set = set == null ? new LinkedHashMap<>() : set;
+        }
+
+        public Map<String, Object> getInc() {
+            return inc;
+        }
+
+        public void setInc(Map<String, Object> inc) {
+            this.inc = inc == null ? new LinkedHashMap<>() : inc;
+        }
+
+        public List<String> getUnset() {
+            return unset;
+        }
+
+        public void setUnset(List<String> unset) {
+            this.unset = unset == null ? List.of() : unset;
+        }
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final ReadRoutingService readRouting;
+    private final MutationJournalService journal;
+    private final SearchService searchService;
+    private final BadgeService badgeService;
+    private final ArchiveService archive;
+    private final ObjectMapper objectMapper;
+    private final MongoMappingContext mappingContext;
+    private final UpdateMapper updateMapper;
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong updateBytes = new AtomicLong();
+    private final AtomicLong fullDocumentBytes = new AtomicLong();
+
+    @Autowired
+    public PartialUpdateService(MongoTemplate mongoTemplate,
+                                ReadRoutingService readRouting,
+                                MutationJournalService journal,
+                                SearchService searchService,
+                                BadgeService badgeService,
+                                ArchiveService archive,
+                                ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.readRouting = readRouting;
+        this.journal = journal;
+        this.searchService = searchService;
+        this.badgeService = badgeService;
+        this.archive = archive;
+        this.objectMapper = objectMapper;
+        this.mappingContext = (MongoMappingContext) mongoTemplate.getConverter().getMappingContext();
+        this.updateMapper = new UpdateMapper(mongoTemplate.getConverter());
+    }
+
+    /**
+     * Apply a client patch. With an expected version the write only lands if
+     * the document is still at that version. Empty when the document does
+     * not exist; IllegalArgumentException for unknown, protected or mistyped paths.
+     */
+    public <T> Optional<T> patch(Class<T> type, String id, Patch patch, Long expectedVersion) {
+        Update update = toUpdate(type, patch);
+        T updated = write(type, id, update, expectedVersion);
+        if (updated == null) {
+            if (mongoTemplate.exists(new Query(where("_id").is(id)), type)) {
+                conflicts.incrementAndGet();
+                throw new OptimisticLockingFailureException("Version " + expectedVersion + " of " + id + " is out of date");
+            }
+            return Optional.empty();
+        }
+        return Optional.of(updated);
+    }
+
+    // $set / $inc / $unset on validated paths, with values converted to the property types
+    Update toUpdate(Class<?> type, Patch patch) {
+        if (patch.getSet().isEmpty() && patch.getInc().isEmpty() && patch.getUnset().isEmpty()) {
+            throw new IllegalArgumentException("Patch changes nothing");
+        }
+        Set<String> touched = new HashSet<>();
+        Update update = new Update();
+        for (Map.Entry<String, Object> field : patch.getSet().entrySet()) {
+            MongoPersistentProperty property = resolve(type, field.getKey(), touched);
+            update.set(field.getKey(), convert(field.getKey(), field.getValue(), property));
+        }
+        for (Map.Entry<String, Object> field : patch.getInc().entrySet()) {
+            MongoPersistentProperty property = resolve(type, field.getKey(), touched);
+            Class<?> target = property.getActualType();
+            if (!(Number.class.isAssignableFrom(target) || (target.isPrimitive() && target != boolean.class && target != char.class))) {
+                throw new IllegalArgumentException(field.getKey() + " is not numeric");
+            }
+            update.inc(field.getKey(), (Number) convert(field.getKey(), field.getValue(), property));
+        }
+        for (String path : patch.getUnset()) {
+            resolve(type, path, touched);
+            update.unset(path);
+        }
+        if (mappingContext.getRequiredPersistentEntity(type).getPersistentProperty("updatedAt") != null) {
+            update.set("updatedAt", new Date());
+        }
+        return update;
+    }
+
+    // Version from an If-Match header such as "3" or W/"3"; null when absent
+    public static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        try {
+            return Long.parseLong(tag.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match must carry a version, got " + ifMatch);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long sent = updateBytes.get();
+        long full = fullDocumentBytes.get();
+        stats.put("updates", updates.get());
+        stats.put("conflicts", conflicts.get());
+        // What went into the oplog versus what full-document saves of the same results would have written
+        stats.put("updateBytes", sent);
+        stats.put("fullDocumentBytes", full);
+        stats.put("bytesSavedPercent", full == 0 ? 0.0 : 100.0 * (full - sent) / full);
+        return stats;
+    }
+
+    private <T> T write(Class<T> type, String id, Update update, Long expectedVersion) {
+        update.inc("version", 1);
+        Criteria criteria = where("_id").is(id);
+        if (expectedVersion != null) {
+            // Documents written before versioning have no version field and count as version 0
+            criteria = expectedVersion == 0
+                    ? criteria.orOperator(where("version").is(0L), where("version").exists(false))
+                    : criteria.and("version").is(expectedVersion);
+        }
+        Query query = new Query(criteria);
+        T updated = readRouting.write(ops ->
+                ops.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), type));
+        // Archived accounts are only missing from the hot collection; move them back and apply the patch there
+        if (updated == null && archive.restore(type, id)) {
+            updated = readRouting.write(ops ->
+                    ops.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), type));
+        }
+        if (updated != null) {
+            afterUpdate(type, id, update, updated);
+        }
+        return updated;
+    }
+
+    private <T> void afterUpdate(Class<T> type, String id, Update update, T updated) {
+        updates.incrementAndGet();
+        MongoPersistentEntity<?> entity = mappingContext.getRequiredPersistentEntity(type);
+        updateBytes.addAndGet(bsonSize(updateMapper.getMappedObject(update.getUpdateObject(), entity)));
+        Document full = new Document();
+        mongoTemplate.getConverter().write(updated, full);
+        fullDocumentBytes.addAndGet(bsonSize(full));
+
+        journal.recordUpdate(type, id, update);
+        if (updated instanceof User user) {
+            searchService.index(user);
+        } else if (updated instanceof Curator curator) {
+            searchService.index(curator);
+        } else if (updated instanceof Investor investor) {
+            searchService.index(investor);
+            Set<Metric> changed = changedMetrics(update);
+            if (!changed.isEmpty()) {
+                badgeService.onActivity(id, changed);
+            }
+        }
+    }
+
+    // Badge metrics whose backing field is one of the touched paths, or inside or around one
+    static Set<Metric> changedMetrics(Update update) {
+        Set<Metric> changed = EnumSet.noneOf(Metric.class);
+        for (Object operator : update.getUpdateObject().values()) {
+            for (String path : ((Document) operator).keySet()) {
+                for (Metric metric : Metric.values()) {
+                    String field = BadgeEngine.field(metric);
+                    if (field.equals(path) || field.startsWith(path + '.') || path.startsWith(field + '.')) {
+                        changed.add(metric);
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    private MongoPersistentProperty resolve(Class<?> type, String path, Set<String> touched) {
+        String root = path.contains(".") ? path.substring(0, path.indexOf('.')) : path;
+        if (PROTECTED.contains(root)) {
+            throw new IllegalArgumentException(path + " cannot be patched");
+        }
+        if (!touched.add(path)) {
+            throw new IllegalArgumentException(path + " appears more than once");
+        }
+        try {
+            PersistentPropertyPath<MongoPersistentProperty> resolved = mappingContext.getPersistentPropertyPath(path, type);
+            return resolved.getLeafProperty();
+        } catch (InvalidPersistentPropertyPath e) {
+            throw new IllegalArgumentException("Unknown field " + path, e);
+        }
+    }
+
+    private Object convert(String path, Object value, MongoPersistentProperty property) {
+        if (value == null) {
+            return null;
+        }
+        JavaType target = objectMapper.getTypeFactory().constructType(
+                property.getField() != null ? property.getField().getGenericType() : property.getType());
+        try {
+            return objectMapper.convertValue(value, target);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid value for " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static int bsonSize(Document document) {
+        return new RawBsonDocument(document, CODEC).getByteBuffer().remaining();
+    }
+}
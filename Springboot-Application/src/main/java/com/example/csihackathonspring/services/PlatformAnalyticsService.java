@@ -0,0 +1,430 @@
+package com.example.csihackathonspring.services;
+
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Platform-wide figures: sales by network from users, revenue per curator,
+ * and investor totals. Each collection is aggregated into partials per
+ * partition, where a partition is a window of _id creation time. Partials
+ * are merged in memory.
+ *
+ * A refresh only re-aggregates the partitions holding documents whose
+ * updatedAt passed the collection's watermark, using _id range scans.
+ * Periodic full passes pick up deletes and documents that carry no
+ * updatedAt. Readers get the last merged result and trigger a background
+ * refresh once it is older than the TTL, so a request never waits on an
+ * aggregation after the first one.
+ */
+@Service
+public class PlatformAnalyticsService {
+
+    public record NetworkSales(String network, long artists, double totalSalesValue, long salesCount, long totalMinted) {
+    }
+
+    // Revenue figures are wei, summed exactly and rendered as decimal strings
+    public record CuratorRevenue(String id, String username, String displayName, String totalRevenue, String pendingRevenue) {
+    }
+
+    public record CuratorTotals(long curators, String totalRevenue, String pendingRevenue, List<CuratorRevenue> top) {
+    }
+
+    public record InvestorTotals(long investors, double totalInvested, double portfolioValue, double averageRoi) {
+    }
+
+    public record Platform(Date computedAt, List<NetworkSales> salesByNetwork, CuratorTotals curators,
+                           InvestorTotals investors) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(PlatformAnalyticsService.class);
+    private static final List<String> COLLECTIONS = List.of("users", "curators", "investors");
+
+    private final MongoTemplate mongoTemplate;
+    private final ReadRoutingService readRouting;
+    private final long partitionMillis;
+    private final long ttlMillis;
+    private final long overlapMillis;
+    private final long fullRefreshMillis;
+    private final int maxIncrementalChanges;
+    private final int topCurators;
+    private final ExecutorService pool = Executors.newFixedThreadPool(COLLECTIONS.size());
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    // collection -> partition -> group rows, written by the per-collection recomputes under its own lock
+    private final Map<String, TreeMap<Long, List<Document>>> partials = new HashMap<>();
+    private final Map<String, Date> watermarks = new HashMap<>();
+    private final AtomicLong fullRefreshes = new AtomicLong();
+    private final AtomicLong incrementalRefreshes = new AtomicLong();
+    private final AtomicLong partitionsRecomputed = new AtomicLong();
+    private volatile Platform snapshot;
+    private volatile long lastRefreshMillis;
+    private long lastFullRefresh;
+
+    @Autowired
+    public PlatformAnalyticsService(MongoTemplate mongoTemplate,
+                                    ReadRoutingService readRouting,
+                                    @Value("${analytics.partition-days:7}") int partitionDays,
+                                    @Value("${analytics.cache-ttl-ms:10000}") long ttlMillis,
+                                    @Value("${analytics.watermark-overlap-ms:5000}") long overlapMillis,
+                                    @Value("${analytics.full-refresh-ms:3600000}") long fullRefreshMillis,
+                                    @Value("${analytics.max-incremental-changes:50000}") int maxIncrementalChanges,
+                                    @Value("${analytics.top-curators:20}") int topCurators) {
+        this.mongoTemplate = mongoTemplate;
+        this.readRouting = readRouting;
+        this.partitionMillis = partitionDays * 86_400_000L;
+        this.ttlMillis = ttlMillis;
+        this.overlapMillis = overlapMillis;
+        this.fullRefreshMillis = fullRefreshMillis;
+        this.maxIncrementalChanges = maxIncrementalChanges;
+        this.topCurators = topCurators;
+        for (String collection : COLLECTIONS) {
+            partials.put(collection, new TreeMap<>());
+        }
+    }
+
+    // Last merged figures; stale ones are returned as they are while a refresh runs behind them
+    public Platform getPlatform() {
+        Platform current = snapshot;
+        if (current == null) {
+            return refresh();
+        }
+        if (System.currentTimeMillis() - current.computedAt().getTime() > ttlMillis && refreshing.compareAndSet(false, true)) {
+            refresher.execute(() -> {
+                try {
+                    refresh();
+                } catch (RuntimeException e) {
+                    log.warn("Platform analytics refresh failed, serving previous figures", e);
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        }
+        return current;
+    }
+
+    public synchronized Platform refresh() {
+        long now = System.currentTimeMillis();
+        // Callers that queued behind a refresh get its result rather than starting another
+        if (snapshot != null && now - snapshot.computedAt().getTime() <= ttlMillis) {
+            return snapshot;
+        }
+        boolean full = snapshot == null || now - lastFullRefresh > fullRefreshMillis;
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> work = new ArrayList<>();
+        for (String collection : COLLECTIONS) {
+            work.add(CompletableFuture.runAsync(() -> {
+                if (full) {
+                    recomputeAll(collection);
+                } else {
+                    recomputeChanged(collection);
+                }
+            }, pool));
+        }
+        try {
+            CompletableFuture.allOf(work.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        if (full) {
+            lastFullRefresh = now;
+            fullRefreshes.incrementAndGet();
+        } else {
+            incrementalRefreshes.incrementAndGet();
+        }
+        lastRefreshMillis = (System.nanoTime() - start) / 1_000_000;
+        snapshot = merge(new Date(now), partials, topCurators);
+        return snapshot;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("fullRefreshes", fullRefreshes.get());
+        stats.put("incrementalRefreshes", incrementalRefreshes.get());
+        stats.put("partitionsRecomputed", partitionsRecomputed.get());
+        stats.put("lastRefreshMillis", lastRefreshMillis);
+        Platform current = snapshot;
+        stats.put("computedAt", current == null ? null : current.computedAt());
+        return stats;
+    }
+
+    private void recomputeAll(String collection) {
+        // Read the watermark first so anything written during the aggregation is picked up next time
+        Query newest = new Query(where("updatedAt").exists(true)).with(Sort.by(Sort.Direction.DESC, "updatedAt")).limit(1);
+        newest.fields().include("updatedAt");
+        Document latest = readRouting.read(ops -> ops.findOne(newest, Document.class, collection));
+        List<Document> rows = aggregate(collection, null);
+        TreeMap<Long, List<Document>> byPartition = new TreeMap<>();
+        for (Document row : rows) {
+            byPartition.computeIfAbsent(partitionOf(row), p -> new ArrayList<>()).add(row);
+        }
+        synchronized (partials) {
+            partials.put(collection, byPartition);
+            watermarks.put(collection, latest == null ? new Date(0) : latest.getDate("updatedAt"));
+        }
+        partitionsRecomputed.addAndGet(byPartition.size());
+    }
+
+    private void recomputeChanged(String collection) {
+        Date watermark;
+        synchronized (partials) {
+            watermark = watermarks.getOrDefault(collection, new Date(0));
+        }
+        // Commits can land slightly out of updatedAt order, so look back a little past the watermark
+        Query query = new Query(where("updatedAt").gt(new Date(watermark.getTime() - overlapMillis))).limit(maxIncrementalChanges + 1);
+        query.fields().include("_id", "updatedAt");
+        List<Document> changed = readRouting.read(ops -> ops.find(query, Document.class, collection));
+        if (changed.size() > maxIncrementalChanges) {
+            recomputeAll(collection);
+            return;
+        }
+        Set<Long> touched = new TreeSet<>();
+        Date newest = watermark;
+        for (Document document : changed) {
+            if (document.get("_id") instanceof ObjectId id) {
+                touched.add(id.getDate().getTime() / partitionMillis);
+            }
+            Date updatedAt = document.getDate("updatedAt");
+            if (updatedAt != null && updatedAt.after(newest)) {
+                newest = updatedAt;
+            }
+        }
+        if (touched.isEmpty()) {
+            return;
+        }
+        List<Document> rows = aggregate(collection, touched);
+        synchronized (partials) {
+            TreeMap<Long, List<Document>> byPartition = partials.get(collection);
+            touched.forEach(byPartition::remove);
+            for (Document row : rows) {
+                byPartition.computeIfAbsent(partitionOf(row), p -> new ArrayList<>()).add(row);
+            }
+            watermarks.put(collection, newest);
+        }
+        partitionsRecomputed.addAndGet(touched.size());
+    }
+
+    private List<Document> aggregate(String collection, Set<Long> partitions) {
+        Aggregation aggregation = pipeline(collection, partitions, partitionMillis, topCurators)
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        return readRouting.read(ops -> ops.aggregate(aggregation, collection, Document.class).getMappedResults());
+    }
+
+    /**
+     * Group rows per partition for one collection, over every document or
+     * only the given partitions. Each partition is matched as an _id range,
+     * so a partial recompute is an index range scan. The curator top list
+     * uses $topN (MongoDB 5.2+).
+     */
+    static Aggregation pipeline(String collection, Set<Long> partitions, long partitionMillis, int topCurators) {
+        Document match;
+        if (partitions == null) {
+            match = new Document("_id", new Document("$type", "objectId"));
+        } else {
+            List<Document> ranges = new ArrayList<>();
+            for (long partition : partitions) {
+                ranges.add(new Document("_id", new Document("$gte", idAt(partition * partitionMillis))
+                        .append("$lt", idAt((partition + 1) * partitionMillis))));
+            }
+            match = new Document("$or", ranges);
+        }
+        Document partition = new Document("$floor", new Document("$divide",
+                List.of(new Document("$toLong", new Document("$toDate", "$_id")), partitionMillis)));
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(stage(new Document("$match", match)));
+        switch (collection) {
+            case "users":
+                stages.add(stage(new Document("$group", new Document("_id", new Document("p", partition)
+                        .append("network", new Document("$ifNull", List.of("$contract.network", "unknown"))))
+                        .append("artists", new Document("$sum", 1))
+                        .append("totalSalesValue", new Document("$sum", "$analytics.totalSalesValue"))
+                        .append("salesCount", new Document("$sum", "$profile.salesCount"))
+                        .append("totalMinted", new Document("$sum", "$contract.totalMinted")))));
+                break;
+            case "curators":
+                stages.add(stage(new Document("$set", new Document("revenue", wei("$contract.totalRevenue"))
+                        .append("pending", wei("$contract.pendingRevenue")))));
+                stages.add(stage(new Document("$group", new Document("_id", new Document("p", partition))
+                        .append("curators", new Document("$sum", 1))
+                        .append("totalRevenue", new Document("$sum", "$revenue"))
+                        .append("pendingRevenue", new Document("$sum", "$pending"))
+                        .append("top", new Document("$topN", new Document("n", topCurators)
+                                .append("sortBy", new Document("revenue", -1))
+                                .append("output", new Document("id", "$_id")
+                                        .append("username", "$username")
+                                        .append("displayName", "$profile.displayName")
+                                        .append("revenue", "$revenue")
+                                        .append("pending", "$pending")))))));
+                break;
+            case "investors":
+                stages.add(stage(new Document("$group", new Document("_id", new Document("p", partition))
+                        .append("investors", new Document("$sum", 1))
+                        .append("totalInvested", new Document("$sum", "$analytics.totalInvested"))
+                        .append("portfolioValue", new Document("$sum", "$analytics.portfolioValue"))
+                        .append("roiSum", new Document("$sum", "$analytics.totalROI")))));
+                break;
+            default:
+                throw new IllegalArgumentException("No analytics pipeline for " + collection);
+        }
+        return Aggregation.newAggregation(stages);
+    }
+
+    // Sum the partials of every partition into the published figures
+    static Platform merge(Date computedAt, Map<String, TreeMap<Long, List<Document>>> partials, int topCurators) {
+        // Per network: artists, sales value, sales count, minted; the value is kept as a double
+        Map<String, double[]> networks = new TreeMap<>();
+        long curators = 0;
+        BigDecimal revenue = BigDecimal.ZERO;
+        BigDecimal pending = BigDecimal.ZERO;
+        List<Document> leaders = new ArrayList<>();
+        long investors = 0;
+        double invested = 0;
+        double portfolio = 0;
+        double roiSum = 0;
+        synchronized (partials) {
+            for (List<Document> rows : partials.get("users").values()) {
+                for (Document row : rows) {
+                    double[] sums = networks.computeIfAbsent(row.get("_id", Document.class).getString("network"), n -> new double[4]);
+                    sums[0] += number(row.get("artists"));
+                    sums[1] += real(row.get("totalSalesValue"));
+                    sums[2] += number(row.get("salesCount"));
+                    sums[3] += number(row.get("totalMinted"));
+                }
+            }
+            for (List<Document> rows : partials.get("curators").values()) {
+                for (Document row : rows) {
+                    curators += number(row.get("curators"));
+                    revenue = revenue.add(decimal(row.get("totalRevenue")));
+                    pending = pending.add(decimal(row.get("pendingRevenue")));
+                    leaders.addAll(row.getList("top", Document.class, List.of()));
+                }
+            }
+            for (List<Document> rows : partials.get("investors").values()) {
+                for (Document row : rows) {
+                    investors += number(row.get("investors"));
+                    invested += real(row.get("totalInvested"));
+                    portfolio += real(row.get("portfolioValue"));
+                    roiSum += real(row.get("roiSum"));
+                }
+            }
+        }
+        List<NetworkSales> sales = new ArrayList<>();
+        networks.forEach((network, sums) -> sales.add(new NetworkSales(network, (long) sums[0], sums[1], (long) sums[2], (long) sums[3])));
+        sales.sort(Comparator.comparingDouble(NetworkSales::totalSalesValue).reversed());
+        List<CuratorRevenue> top = leaders.stream()
+                .sorted(Comparator.comparing((Document d) -> decimal(d.get("revenue"))).reversed())
+                .limit(topCurators)
+                .map(d -> new CuratorRevenue(String.valueOf(d.get("id")), d.getString("username"), d.getString("displayName"),
+                        wei(decimal(d.get("revenue"))), wei(decimal(d.get("pending")))))
+                .toList();
+        return new Platform(computedAt, sales,
+                new CuratorTotals(curators, wei(revenue), wei(pending), top),
+                new InvestorTotals(investors, invested, portfolio, investors == 0 ? 0.0 : roiSum / investors));
+    }
+
+    private static long partitionOf(Document row) {
+        return number(row.get("_id", Document.class).get("p"));
+    }
+
+    // Smallest ObjectId created at the given time
+    static ObjectId idAt(long millis) {
+        return new ObjectId(String.format("%08x%016x", millis / 1000, 0L));
+    }
+
+    // Revenue strings as Decimal128, unparseable or missing ones as zero
+    private static Document wei(String field) {
+        return new Document("$convert", new Document("input", field).append("to", "decimal")
+                .append("onError", new Decimal128(0)).append("onNull", new Decimal128(0)));
+    }
+
+    private static String wei(BigDecimal value) {
+        return value.toBigInteger().toString();
+    }
+
+    private static long number(Object value) {
+        return value instanceof Number n ? n.longValue() : 0L;
+    }
+
+    // $sum over amounts comes back as a double once any input has a fraction, or as Decimal128
+    private static double real(Object value) {
+        if (value instanceof Decimal128 d) {
+            return d.bigDecimalValue().doubleValue();
+        }
+        return value instanceof Number n ? n.doubleValue() : 0.0;
+    }
+
+    private static BigDecimal decimal(Object value) {
+        if (value instanceof Decimal128 d) {
+            return d.bigDecimalValue();
+        }
+        return value instanceof Number n ? BigDecimal.valueOf(n.longValue()) : BigDecimal.ZERO;
+    }
+
+    private static AggregationOperation stage(Document stage) {
+        return context -> stage;
+    }
+
+    // Watermark scans read updatedAt ranges; the first figures are computed before any request asks
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            for (String collection : COLLECTIONS) {
+                mongoTemplate.indexOps(collection).ensureIndex(new Index().on("updatedAt", Sort.Direction.ASC));
+            }
+        } catch (RuntimeException e) {
+            log.warn("updatedAt index creation failed, analytics refreshes will scan", e);
+        }
+        if (refreshing.compareAndSet(false, true)) {
+            refresher.execute(() -> {
+                try {
+                    refresh();
+                } catch (RuntimeException e) {
+                    log.warn("Initial platform analytics computation failed", e);
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,419 @@
+package com.example.csihackathonspring.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compressed (radix) trie over lower-cased names. Every node keeps the best
+ * {@code topK} entries of its subtree, so a suggestion lookup is a walk down
+ * the prefix followed by an array copy, independent of how many names match.
+ */
+public class PrefixIndex {
+
+    public enum Kind { USER, INVESTOR, CURATOR }
+
+    public static final class Entry {
+        private final Kind kind;
+        private final String id;
+        private final String name;
+        private final int score;
+
+        Entry(Kind kind, String id, String name, int score) {
+            this.kind = kind;
+            this.id = id;
+            this.name = name;
+            this.score = score;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getScore() {
+            return score;
+        }
+    }
+
+    public static final class Stats {
+        private final int names;
+        private final int nodes;
+        private final long estimatedBytes;
+
+        Stats(int names, int nodes, long estimatedBytes) {
+            this.names = names;
+            this.nodes = nodes;
+            this.estimatedBytes = estimatedBytes;
+        }
+
+        public int getNames() {
+            return names;
+        }
+
+        public int getNodes() {
+            return nodes;
+        }
+
+        public long getEstimatedBytes() {
+            return estimatedBytes;
+        }
+
+        public long getBytesPerName() {
+            return names == 0 ? 0 : estimatedBytes / names;
+        }
+    }
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingInt(Entry::getScore).reversed()
+            .thenComparing(Entry::getName);
+
+    private static final class Node {
+        char[] label;
+        Node[] children = NO_CHILDREN;
+        Entry[] terminals = NO_ENTRIES;
+        Entry[] top = NO_ENTRIES;
+
+        Node(char[] label) {
+            this.label = label;
+        }
+    }
+
+    private final int topK;
+    private final Node root = new Node(new char[0]);
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int nodeCount = 1;
+
+    public PrefixIndex(int topK) {
+        this.topK = topK;
+    }
+
+    // Add or replace the entry for (kind, id); a blank name just removes it
+    public void put(Kind kind, String id, String name, int score) {
+        String ref = kind.name() + ':' + id;
+        lock.writeLock().lock();
+        try {
+            Entry old = entries.get(ref);
+            if (old != null) {
+                if (old.name.equals(name) && old.score == score) {
+                    return;
+                }
+                entries.remove(ref);
+                delete(normalize(old.name), old);
+            }
+            String key = name == null ? "" : normalize(name);
+            if (key.isEmpty()) {
+                return;
+            }
+            Entry entry = new Entry(kind, id, name.trim(), score);
+            entries.put(ref, entry);
+            insert(key, entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Kind kind, String id) {
+        lock.writeLock().lock();
+        try {
+            Entry old = entries.remove(kind.name() + ':' + id);
+            if (old != null) {
+                delete(normalize(old.name), old);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Best-ranked entries whose name starts with the given prefix
+    public List<Entry> suggest(String prefix, int limit) {
+        String key = prefix == null ? "" : normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int i = 0;
+            while (i < key.length()) {
+                int slot = findChild(node, key.charAt(i));
+                if (slot < 0) {
+                    return List.of();
+                }
+                Node child = node.children[slot];
+                int m = commonPrefix(child.label, key, i);
+                if (i + m < key.length() && m < child.label.length) {
+                    return List.of();
+                }
+                node = child;
+                i += m;
+            }
+            Entry[] top = node.top;
+            return List.of(Arrays.copyOf(top, Math.min(limit, top.length)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Rough retained-size estimate assuming compressed oops (12 byte headers, 4 byte refs)
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            List<Node> stack = new ArrayList<>();
+            stack.add(root);
+            while (!stack.isEmpty()) {
+                Node node = stack.remove(stack.size() - 1);
+                bytes += 32 + arrayBytes(node.label.length, 2)
+                        + arrayBytes(node.children.length, 4)
+                        + arrayBytes(node.terminals.length, 4)
+                        + arrayBytes(node.top.length, 4);
+                stack.addAll(Arrays.asList(node.children));
+            }
+            for (Entry entry : entries.values()) {
+                bytes += 32 + stringBytes(entry.id) + stringBytes(entry.name);
+            }
+            return new Stats(entries.size(), nodeCount, bytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(String key, Entry entry) {
+        Node node = root;
+        offer(node, entry);
+        int i = 0;
+        while (i < key.length()) {
+            int slot = findChild(node, key.charAt(i));
+            if (slot < 0) {
+                Node leaf = new Node(key.substring(i).toCharArray());
+                addChild(node, leaf);
+                nodeCount++;
+                node = leaf;
+                offer(node, entry);
+                break;
+            }
+            Node child = node.children[slot];
+            int m = commonPrefix(child.label, key, i);
+            if (m < child.label.length) {
+                Node split = new Node(Arrays.copyOf(child.label, m));
+                child.label = Arrays.copyOfRange(child.label, m, child.label.length);
+                split.children = new Node[] { child };
+                split.top = child.top.clone();
+                node.children[slot] = split;
+                nodeCount++;
+                child = split;
+            }
+            node = child;
+            i += m;
+            offer(node, entry);
+        }
+        node.terminals = append(node.terminals, entry);
+    }
+
+    private void delete(String key, Entry entry) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            int slot = findChild(node, key.charAt(i));
+            if (slot < 0) {
+                return;
+            }
+            node = node.children[slot];
+            i += node.label.length;
+            path.add(node);
+        }
+        node.terminals = without(node.terminals, entry);
+
+        // Prune the emptied leaf and collapse single-child chains left behind
+        int last = path.size() - 1;
+        if (last > 0 && node.terminals.length == 0) {
+            Node parent = path.get(last - 1);
+            if (node.children.length == 0) {
+                removeChild(parent, node);
+                nodeCount--;
+                path.remove(last);
+                last--;
+                if (last > 0 && parent.terminals.length == 0 && parent.children.length == 1) {
+                    collapse(path.get(last - 1), parent);
+                    path.remove(last);
+                }
+            } else if (node.children.length == 1) {
+                collapse(parent, node);
+                path.remove(last);
+            }
+        }
+
+        for (int p = path.size() - 1; p >= 0; p--) {
+            Node n = path.get(p);
+            if (contains(n.top, entry)) {
+                rebuildTop(n);
+            }
+        }
+    }
+
+    // Merge a terminal-less node into its only child
+    private void collapse(Node parent, Node node) {
+        Node child = node.children[0];
+        char[] label = Arrays.copyOf(node.label, node.label.length + child.label.length);
+        System.arraycopy(child.label, 0, label, node.label.length, child.label.length);
+        child.label = label;
+        for (int c = 0; c < parent.children.length; c++) {
+            if (parent.children[c] == node) {
+                parent.children[c] = child;
+            }
+        }
+        nodeCount--;
+    }
+
+    private void offer(Node node, Entry entry) {
+        Entry[] top = node.top;
+        if (top.length < topK) {
+            top = Arrays.copyOf(top, top.length + 1);
+        } else if (RANKING.compare(entry, top[top.length - 1]) >= 0) {
+            return;
+        }
+        int pos = top.length - 1;
+        while (pos > 0 && RANKING.compare(entry, top[pos - 1]) < 0) {
+            top[pos] = top[pos - 1];
+            pos--;
+        }
+        top[pos] = entry;
+        node.top = top;
+    }
+
+    private void rebuildTop(Node node) {
+        List<Entry> candidates = new ArrayList<>(Arrays.asList(node.terminals));
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        candidates.sort(RANKING);
+        int n = Math.min(topK, candidates.size());
+        node.top = n == 0 ? NO_ENTRIES : candidates.subList(0, n).toArray(NO_ENTRIES);
+    }
+
+    private static int findChild(Node node, char c) {
+        Node[] children = node.children;
+        int lo = 0;
+        int hi = children.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char label = children[mid].label[0];
+            if (label < c) {
+                lo = mid + 1;
+            } else if (label > c) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private static void addChild(Node node, Node child) {
+        Node[] children = Arrays.copyOf(node.children, node.children.length + 1);
+        int pos = children.length - 1;
+        while (pos > 0 && children[pos - 1].label[0] > child.label[0]) {
+            children[pos] = children[pos - 1];
+            pos--;
+        }
+        children[pos] = child;
+        node.children = children;
+    }
+
+    private static void removeChild(Node node, Node child) {
+        Node[] children = node.children;
+        if (children.length == 1) {
+            node.children = NO_CHILDREN;
+            return;
+        }
+        Node[] copy = new Node[children.length - 1];
+        int j = 0;
+        for (Node c : children) {
+            if (c != child) {
+                copy[j++] = c;
+            }
+        }
+        node.children = copy;
+    }
+
+    private static int commonPrefix(char[] label, String key, int offset) {
+        int max = Math.min(label.length, key.length() - offset);
+        int m = 0;
+        while (m < max && label[m] == key.charAt(offset + m)) {
+            m++;
+        }
+        return m;
+    }
+
+    private static Entry[] append(Entry[] array, Entry entry) {
+        Entry[] copy = Arrays.copyOf(array, array.length + 1);
+        copy[array.length] = entry;
+        return copy;
+    }
+
+    private static Entry[] without(Entry[] array, Entry entry) {
+        if (array.length == 1 && array[0] == entry) {
+            return NO_ENTRIES;
+        }
+        List<Entry> kept = new ArrayList<>(array.length);
+        for (Entry e : array) {
+            if (e != entry) {
+                kept.add(e);
+            }
+        }
+        return kept.toArray(NO_ENTRIES);
+    }
+
+    private static boolean contains(Entry[] array, Entry entry) {
+        for (Entry e : array) {
+            if (e == entry) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long arrayBytes(int length, int width) {
+        return length == 0 ? 0 : align(16 + (long) length * width);
+    }
+
+    private static long stringBytes(String s) {
+        return 24 + arrayBytes(s.length(), 1);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.config.RateLimitProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+@Service
+public class RateLimitService {
+
+    // Outcome of admission control for one request
+    public enum Verdict { ADMITTED, RATE_LIMITED, SHED }
+
+    public static final class Admission {
+        private final Verdict verdict;
+        private final long retryAfterNanos;
+
+        Admission(Verdict verdict, long retryAfterNanos) {
+            this.verdict = verdict;
+            this.retryAfterNanos = retryAfterNanos;
+        }
+
+        public Verdict getVerdict() {
+            return verdict;
+        }
+
+        public long getRetryAfterNanos() {
+            return retryAfterNanos;
+        }
+    }
+
+    private static final class Quota {
+        private final String pattern;
+        private final RateLimitProperties.Priority priority;
+        private final TokenBucketLimiter limiter;
+        private final LongAdder admitted = new LongAdder();
+        private final LongAdder rateLimited = new LongAdder();
+        private final LongAdder shed = new LongAdder();
+
+        Quota(String pattern, RateLimitProperties.Priority priority, TokenBucketLimiter limiter) {
+            this.pattern = pattern;
+            this.priority = priority;
+            this.limiter = limiter;
+        }
+    }
+
+    private static final Admission ADMITTED = new Admission(Verdict.ADMITTED, 0);
+
+    private final RateLimitProperties properties;
+    private final List<Quota> quotas = new ArrayList<>();
+    private final Quota defaultQuota;
+    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final Semaphore inFlight;
+    private final LongAdder queueNanos = new LongAdder();
+
+    @Autowired
+    public RateLimitService(RateLimitProperties properties) {
+        this.properties = properties;
+        for (RateLimitProperties.Route route : properties.getRoutes()) {
+            quotas.add(new Quota(route.getPattern(), route.getPriority(),
+                    new TokenBucketLimiter(route.getRate(), route.getBurst(), properties.getMaxClients())));
+        }
+        this.defaultQuota = new Quota("/**", RateLimitProperties.Priority.HIGH,
+                new TokenBucketLimiter(properties.getDefaultRate(), properties.getDefaultBurst(), properties.getMaxClients()));
+        this.inFlight = new Semaphore(properties.getMaxConcurrent());
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Take a token for the client on the matched route, then a concurrency slot.
+     * Callers must {@link #release()} after an ADMITTED verdict.
+     */
+    public Admission admit(String path, String clientKey) throws InterruptedException {
+        Quota quota = match(path);
+        long retryAfter = quota.limiter.tryAcquire(clientKey, System.nanoTime());
+        if (retryAfter > 0) {
+            quota.rateLimited.increment();
+            return new Admission(Verdict.RATE_LIMITED, retryAfter);
+        }
+
+        // Low-priority requests give up on a congested server much sooner than high-priority ones
+        if (!inFlight.tryAcquire()) {
+            long maxQueueMs = quota.priority == RateLimitProperties.Priority.LOW
+                    ? properties.getLowPriorityMaxQueueMs()
+                    : properties.getHighPriorityMaxQueueMs();
+            long start = System.nanoTime();
+            boolean acquired = inFlight.tryAcquire(maxQueueMs, TimeUnit.MILLISECONDS);
+            queueNanos.add(System.nanoTime() - start);
+            if (!acquired) {
+                quota.shed.increment();
+                return new Admission(Verdict.SHED, TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+        quota.admitted.increment();
+        return ADMITTED;
+    }
+
+    public void release() {
+        inFlight.release();
+    }
+
+    // Per-route counters plus current concurrency
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("inFlight", properties.getMaxConcurrent() - inFlight.availablePermits());
+        stats.put("queued", inFlight.getQueueLength());
+        stats.put("totalQueueMillis", queueNanos.sum() / 1_000_000);
+        Map<String, Object> routes = new LinkedHashMap<>();
+        List<Quota> all = new ArrayList<>(quotas);
+        all.add(defaultQuota);
+        for (Quota quota : all) {
+            Map<String, Object> route = new LinkedHashMap<>();
+            route.put("priority", quota.priority);
+            route.put("admitted", quota.admitted.sum());
+            route.put("rateLimited", quota.rateLimited.sum());
+            route.put("shed", quota.shed.sum());
+            route.put("trackedClients", quota.limiter.size());
+            route.put("overflowed", quota.limiter.overflowed());
+            routes.put(quota.pattern, route);
+        }
+        stats.put("routes", routes);
+        return stats;
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        for (Quota quota : quotas) {
+            quota.limiter.evictIdle(now);
+        }
+        defaultQuota.limiter.evictIdle(now);
+    }
+
+    private Quota match(String path) {
+        for (Quota quota : quotas) {
+            if (matcher.match(quota.pattern, path)) {
+                return quota;
+            }
+        }
+        return defaultQuota;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.csihackathonspring.services;
+
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.client.ClientSession;
+import jakarta.servlet.http.HttpServletResponse;
+import org.bson.BsonTimestamp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Sends reads to secondaries within the configured staleness bound. A client
+ * that just wrote presents the causal token returned with that write and its
+ * read is pinned after the write's operation time, so it never sees older data.
+ */
+@Service
+public class ReadRoutingService {
+
+    public static final String CAUSAL_TOKEN_HEADER = "X-Causal-Token";
+
+    private static final Logger log = LoggerFactory.getLogger(ReadRoutingService.class);
+    private static final ClientSessionOptions CAUSAL = ClientSessionOptions.builder()
+            .causallyConsistent(true)
+            .build();
+
+    private final MongoTemplate primary;
+    private final MongoTemplate secondary;
+    private final boolean secondaryReads;
+
+    @Autowired
+    public ReadRoutingService(MongoTemplate mongoTemplate,
+                              @Qualifier("secondaryMongoTemplate") MongoTemplate secondaryMongoTemplate,
+                              @Value("${mongo.read.secondary.enabled:true}") boolean secondaryReads) {
+        this.primary = mongoTemplate;
+        this.secondary = secondaryMongoTemplate;
+        this.secondaryReads = secondaryReads;
+    }
+
+    // Read honouring the causal token on the current request, if any
+    public <T> T read(Function<MongoOperations, T> query) {
+        return read(currentToken(), query);
+    }
+
+    public <T> T read(String causalToken, Function<MongoOperations, T> query) {
+        if (!secondaryReads) {
+            return query.apply(primary);
+        }
+        try {
+            return apply(secondary, causalToken, query);
+        } catch (DataAccessException e) {
+            log.warn("Secondary read failed, falling back to primary: {}", e.getMessage());
+            return apply(primary, causalToken, query);
+        }
+    }
+
+    // Write on the primary and hand the resulting causal token back to the caller's client
+    public <T> T write(Function<MongoOperations, T> operation) {
+        return write(operation, ReadRoutingService::publishToken);
+    }
+
+    public <T> T write(Function<MongoOperations, T> operation, Consumer<String> tokenSink) {
+        try (ClientSession session = primary.getMongoDatabaseFactory().getSession(CAUSAL)) {
+            T result = operation.apply(primary.withSession(session));
+            BsonTimestamp operationTime = session.getOperationTime();
+            if (operationTime != null) {
+                tokenSink.accept(Long.toHexString(operationTime.getValue()));
+            }
+            return result;
+        }
+    }
+
+    private static <T> T apply(MongoTemplate template, String causalToken, Function<MongoOperations, T> query) {
+        BsonTimestamp after = parse(causalToken);
+        if (after == null) {
+            return query.apply(template);
+        }
+        try (ClientSession session = template.getMongoDatabaseFactory().getSession(CAUSAL)) {
+            session.advanceOperationTime(after);
+            return query.apply(template.withSession(session));
+        }
+    }
+
+    private static BsonTimestamp parse(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            return new BsonTimestamp(Long.parseUnsignedLong(token.trim(), 16));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Key for coalescing identical reads; only lookups carrying the same causal token may share a query
+    public static String lookupKey(String prefix, String value) {
+        String token = currentToken();
+        return token == null ? prefix + value : prefix + value + '@' + token;
+    }
+
+    public static String currentToken() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servlet) {
+            return servlet.getRequest().getHeader(CAUSAL_TOKEN_HEADER);
+        }
+        return null;
+    }
+
+    private static void publishToken(String token) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servlet) {
+            HttpServletResponse response = servlet.getResponse();
+            if (response != null) {
+                response.setHeader(CAUSAL_TOKEN_HEADER, token);
+            }
+        }
+    }
+}
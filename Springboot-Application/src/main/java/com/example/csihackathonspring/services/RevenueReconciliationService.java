@@ -0,0 +1,433 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.entities.Curator;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Audits Curator.contract revenue against the Gallery contracts it lists.
+ * Curators are packed into leaves of at most one RPC batch of galleries and the
+ * leaves are split across a fork-join pool; every leaf reads its galleries'
+ * getGalleryDetails() in a single JSON-RPC batch and diffs the sums with what
+ * Mongo holds.
+ * Corrections are guarded by the values that were read, so a curator whose
+ * revenue changed during the run is reported but left alone.
+ */
+@Service
+public class RevenueReconciliationService {
+
+    private static final Logger log = LoggerFactory.getLogger(RevenueReconciliationService.class);
+
+    // keccak256("getGalleryDetails()")[0:4]
+    static final String GET_GALLERY_DETAILS = "0xdd86d519";
+    private static final int WORD = 64;
+    private static final String RUNS = "reconciliation_runs";
+    private static final String DISCREPANCIES = "revenue_discrepancies";
+
+    static final class CuratorRevenue {
+        final String id;
+        final List<String> galleries;
+        final String totalRevenue;
+        final String pendingRevenue;
+
+        CuratorRevenue(String id, List<String> galleries, String totalRevenue, String pendingRevenue) {
+            this.id = id;
+            this.galleries = galleries == null ? List.of() : galleries;
+            this.totalRevenue = totalRevenue;
+            this.pendingRevenue = pendingRevenue;
+        }
+    }
+
+    public static class Discrepancy {
+        private final String runId;
+        private final String curatorId;
+        private final String recordedTotal;
+        private final String chainTotal;
+        private final String recordedPending;
+        private final String chainPending;
+        private final List<String> unreadableGalleries;
+        private boolean corrected;
+
+        Discrepancy(String runId, CuratorRevenue curator, BigInteger chainTotal, BigInteger chainPending,
+                    List<String> unreadableGalleries) {
+            this.runId = runId;
+            this.curatorId = curator.id;
+            this.recordedTotal = curator.totalRevenue;
+            this.chainTotal = chainTotal.toString();
+            this.recordedPending = curator.pendingRevenue;
+            this.chainPending = chainPending.toString();
+            this.unreadableGalleries = unreadableGalleries;
+        }
+
+        public String getRunId() {
+            return runId;
+        }
+
+        public String getCuratorId() {
+            return curatorId;
+        }
+
+        public String getRecordedTotal() {
+            return recordedTotal;
+        }
+
+        public String getChainTotal() {
+            return chainTotal;
+        }
+
+        public String getRecordedPending() {
+            return recordedPending;
+        }
+
+        public String getChainPending() {
+            return chainPending;
+        }
+
+        public List<String> getUnreadableGalleries() {
+            return unreadableGalleries;
+        }
+
+        public boolean isCorrected() {
+            return corrected;
+        }
+    }
+
+    public static class Report {
+        private final String runId;
+        private final Date startedAt;
+        private final boolean apply;
+        private Date finishedAt;
+        private long durationMs;
+        private int curators;
+        private int galleries;
+        private int rpcBatches;
+        private int discrepancies;
+        private int corrected;
+        private int unreadableGalleries;
+
+        Report(String runId, Date startedAt, boolean apply) {
+            this.runId = runId;
+            this.startedAt = startedAt;
+            this.apply = apply;
+        }
+
+        public String getRunId() {
+            return runId;
+        }
+
+        public Date getStartedAt() {
+            return startedAt;
+        }
+
+        public boolean isApply() {
+            return apply;
+        }
+
+        public Date getFinishedAt() {
+            return finishedAt;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+
+        public int getCurators() {
+            return curators;
+        }
+
+        public int getGalleries() {
+            return galleries;
+        }
+
+        public int getRpcBatches() {
+            return rpcBatches;
+        }
+
+        public int getDiscrepancies() {
+            return discrepancies;
+        }
+
+        public int getCorrected() {
+            return corrected;
+        }
+
+        public int getUnreadableGalleries() {
+            return unreadableGalleries;
+        }
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final ReadRoutingService readRouting;
+    private final MutationJournalService journal;
+    private final EthRpcClient rpc;
+    private final ForkJoinPool pool;
+    private final int batchSize;
+    private final boolean applyOnSchedule;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicInteger rpcBatches = new AtomicInteger();
+
+    @Autowired
+    public RevenueReconciliationService(MongoTemplate mongoTemplate,
+                                        ReadRoutingService readRouting,
+                                        MutationJournalService journal,
+                                        EthRpcClient rpc,
+                                        @Value("${reconcile.parallelism:8}") int parallelism,
+                                        @Value("${reconcile.rpc-batch-size:250}") int batchSize,
+                                        @Value("${reconcile.apply-corrections:true}") boolean applyOnSchedule) {
+        this.mongoTemplate = mongoTemplate;
+        this.readRouting = readRouting;
+        this.journal = journal;
+        this.rpc = rpc;
+        this.pool = new ForkJoinPool(parallelism);
+        this.batchSize = batchSize;
+        this.applyOnSchedule = applyOnSchedule;
+    }
+
+    @Scheduled(cron = "${reconcile.cron:0 0 3 * * *}")
+    public void nightly() {
+        try {
+            Report report = reconcile(applyOnSchedule);
+            log.info("Revenue reconciliation {}: {} curators, {} galleries, {} discrepancies, {} corrected in {} ms",
+                    report.getRunId(), report.getCurators(), report.getGalleries(),
+                    report.getDiscrepancies(), report.getCorrected(), report.getDurationMs());
+        } catch (IllegalStateException e) {
+            log.info("Skipping scheduled reconciliation: {}", e.getMessage());
+        }
+    }
+
+    // One full audit; apply=false only reports
+    public Report reconcile(boolean apply) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A reconciliation is already running");
+        }
+        try {
+            long start = System.nanoTime();
+            Report report = new Report(UUID.randomUUID().toString(), new Date(), apply);
+            List<CuratorRevenue> curators = loadCurators();
+            rpcBatches.set(0);
+            List<int[]> leaves = packLeaves(curators);
+            List<Discrepancy> found = pool.invoke(new Audit(report.runId, curators, leaves, 0, leaves.size()));
+
+            report.curators = curators.size();
+            report.galleries = curators.stream().mapToInt(c -> c.galleries.size()).sum();
+            report.rpcBatches = rpcBatches.get();
+            report.discrepancies = found.size();
+            report.unreadableGalleries = found.stream().mapToInt(d -> d.unreadableGalleries.size()).sum();
+            if (apply) {
+                report.corrected = correct(curators, found);
+            }
+            if (!found.isEmpty()) {
+                mongoTemplate.insert(found, DISCREPANCIES);
+            }
+            report.finishedAt = new Date();
+            report.durationMs = (System.nanoTime() - start) / 1_000_000;
+            mongoTemplate.insert(report, RUNS);
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public Report lastReport() {
+        return mongoTemplate.findOne(new Query().with(Sort.by(Sort.Direction.DESC, "startedAt")).limit(1), Report.class, RUNS);
+    }
+
+    // Projected scan from a secondary; a stale read only costs a failed guard on the correction.
+    // Galleries are subdocuments and only their addresses are read.
+    List<CuratorRevenue> loadCurators() {
+        Query query = new Query(where("contract.galleries.0").exists(true));
+        query.fields().include("contract.galleries.address", "contract.totalRevenue", "contract.pendingRevenue");
+        return readRouting.read(ops -> {
+            List<CuratorRevenue> curators = new ArrayList<>();
+            try (Stream<Curator> stream = ops.stream(query, Curator.class)) {
+                stream.forEach(c -> curators.add(new CuratorRevenue(c.getId(), addresses(c.getContract().getGalleries()),
+                        c.getContract().getTotalRevenue(), c.getContract().getPendingRevenue())));
+            }
+            return curators;
+        });
+    }
+
+    private static List<String> addresses(List<Curator.Gallery> galleries) {
+        return galleries == null ? List.of()
+                : galleries.stream().map(Curator.Gallery::getAddress).filter(Objects::nonNull).toList();
+    }
+
+    // Consecutive curators packed greedily into ranges of at most one RPC batch of galleries
+    private List<int[]> packLeaves(List<CuratorRevenue> curators) {
+        List<int[]> leaves = new ArrayList<>();
+        int start = 0;
+        int galleries = 0;
+        for (int i = 0; i < curators.size(); i++) {
+            int size = curators.get(i).galleries.size();
+            if (galleries > 0 && galleries + size > batchSize) {
+                leaves.add(new int[]{start, i});
+                start = i;
+                galleries = 0;
+            }
+            galleries += size;
+        }
+        if (start < curators.size()) {
+            leaves.add(new int[]{start, curators.size()});
+        }
+        return leaves;
+    }
+
+    private final class Audit extends RecursiveTask<List<Discrepancy>> {
+        private final String runId;
+        private final List<CuratorRevenue> curators;
+        private final List<int[]> leaves;
+        private final int from;
+        private final int to;
+
+        Audit(String runId, List<CuratorRevenue> curators, List<int[]> leaves, int from, int to) {
+            this.runId = runId;
+            this.curators = curators;
+            this.leaves = leaves;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Discrepancy> compute() {
+            if (to - from <= 1) {
+                return from == to ? List.of() : audit(runId, curators.subList(leaves.get(from)[0], leaves.get(from)[1]));
+            }
+            int mid = (from + to) >>> 1;
+            Audit left = new Audit(runId, curators, leaves, from, mid);
+            left.fork();
+            List<Discrepancy> right = new Audit(runId, curators, leaves, mid, to).compute();
+            List<Discrepancy> merged = new ArrayList<>(left.join());
+            merged.addAll(right);
+            return merged;
+        }
+    }
+
+    // Leaf: one batched read for every gallery of these curators, then a per-curator diff
+    private List<Discrepancy> audit(String runId, List<CuratorRevenue> curators) {
+        List<String> addresses = new ArrayList<>();
+        curators.forEach(c -> addresses.addAll(c.galleries));
+        List<String> results = new ArrayList<>(addresses.size());
+        for (int i = 0; i < addresses.size(); i += batchSize) {
+            List<String> chunk = addresses.subList(i, Math.min(addresses.size(), i + batchSize));
+            rpcBatches.incrementAndGet();
+            try {
+                results.addAll(rpc.ethCallBatch(chunk, GET_GALLERY_DETAILS));
+            } catch (IOException e) {
+                log.warn("Gallery batch of {} failed: {}", chunk.size(), e.getMessage());
+                chunk.forEach(a -> results.add(null));
+            }
+        }
+
+        List<Discrepancy> discrepancies = new ArrayList<>();
+        int next = 0;
+        for (CuratorRevenue curator : curators) {
+            BigInteger total = BigInteger.ZERO;
+            BigInteger pending = BigInteger.ZERO;
+            List<String> unreadable = new ArrayList<>();
+            for (String gallery : curator.galleries) {
+                String result = results.get(next++);
+                if (result == null || result.length() < 2 + 6 * WORD) {
+                    unreadable.add(gallery);
+                    continue;
+                }
+                total = total.add(word(result, 3));
+                pending = pending.add(word(result, 4));
+            }
+            if (!unreadable.isEmpty() || !total.equals(parse(curator.totalRevenue)) || !pending.equals(parse(curator.pendingRevenue))) {
+                discrepancies.add(new Discrepancy(runId, curator, total, pending, unreadable));
+            }
+        }
+        return discrepancies;
+    }
+
+    // Only curators whose galleries were all readable, and only if Mongo still holds what was audited
+    private int correct(List<CuratorRevenue> curators, List<Discrepancy> found) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Curator.class);
+        List<Discrepancy> applied = new ArrayList<>();
+        List<Update> updates = new ArrayList<>();
+        for (Discrepancy discrepancy : found) {
+            if (!discrepancy.unreadableGalleries.isEmpty()) {
+                continue;
+            }
+            Query unchanged = new Query(where("_id").is(discrepancy.curatorId)
+                    .and("contract.totalRevenue").is(discrepancy.recordedTotal)
+                    .and("contract.pendingRevenue").is(discrepancy.recordedPending));
+            Update update = new Update()
+                    .set("contract.totalRevenue", discrepancy.chainTotal)
+                    .set("contract.pendingRevenue", discrepancy.chainPending)
+                    .set("updatedAt", new Date())
+                    .inc("version", 1);
+            bulk.updateOne(unchanged, update);
+            applied.add(discrepancy);
+            updates.add(update);
+        }
+        if (applied.isEmpty()) {
+            return 0;
+        }
+        int modified = bulk.execute().getModifiedCount();
+        if (modified == applied.size()) {
+            applied.forEach(d -> d.corrected = true);
+        } else {
+            // Some guards failed; find out which ones actually took
+            for (Discrepancy d : applied) {
+                Query now = new Query(where("_id").is(d.curatorId)
+                        .and("contract.totalRevenue").is(d.chainTotal)
+                        .and("contract.pendingRevenue").is(d.chainPending));
+                d.corrected = mongoTemplate.exists(now, Curator.class);
+            }
+        }
+        for (int i = 0; i < applied.size(); i++) {
+            if (applied.get(i).corrected) {
+                journal.recordUpdate(Curator.class, applied.get(i).curatorId, updates.get(i));
+            }
+        }
+        return modified;
+    }
+
+    // 32-byte big-endian word at the given index of ABI-encoded return data
+    static BigInteger word(String hex, int index) {
+        int start = 2 + index * WORD;
+        return new BigInteger(hex.substring(start, start + WORD), 16);
+    }
+
+    private static BigInteger parse(String wei) {
+        if (wei == null || wei.isBlank()) {
+            return BigInteger.ZERO;
+        }
+        try {
+            return new BigInteger(wei.trim());
+        } catch (NumberFormatException e) {
+            return BigInteger.ONE.negate();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
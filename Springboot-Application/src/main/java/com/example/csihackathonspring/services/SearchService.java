@@ -0,0 +1,132 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.entities.Curator;
+import com.example.csihackathonspring.entities.Investor;
+import com.example.csihackathonspring.entities.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+@Service
+public class SearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final PrefixIndex index;
+    private final int maxResults;
+
+    @Autowired
+    public SearchService(MongoTemplate mongoTemplate,
+                         @Value("${search.suggest.top-k:10}") int topK,
+                         @Value("${search.suggest.max-results:10}") int maxResults) {
+        this.mongoTemplate = mongoTemplate;
+        this.index = new PrefixIndex(topK);
+        this.maxResults = Math.min(maxResults, topK);
+    }
+
+    // Suggest names starting with the query, best ranked first
+    public List<PrefixIndex.Entry> suggest(String query, int limit) {
+        return index.suggest(query, Math.min(limit, maxResults));
+    }
+
+    public PrefixIndex.Stats stats() {
+        return index.stats();
+    }
+
+    // Build the index from a projected streaming scan of each collection
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        try {
+            Query users = new Query();
+            users.fields().include("username", "profile.followersCount", "profile.salesCount");
+            try (Stream<User> stream = mongoTemplate.stream(users, User.class)) {
+                stream.forEach(this::index);
+            }
+
+            Query investors = new Query();
+            investors.fields().include("username", "profile.followersCount");
+            try (Stream<Investor> stream = mongoTemplate.stream(investors, Investor.class)) {
+                stream.forEach(this::index);
+            }
+
+            Query curators = new Query();
+            curators.fields().include("profile.displayName", "analytics.totalArtworksSold");
+            try (Stream<Curator> stream = mongoTemplate.stream(curators, Curator.class)) {
+                stream.forEach(this::index);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Search index load failed, suggestions will fill in as documents are written", e);
+            return;
+        }
+        PrefixIndex.Stats stats = index.stats();
+        log.info("Search index loaded {} names in {} ms ({} bytes, ~{} bytes/name)",
+                stats.getNames(), (System.nanoTime() - start) / 1_000_000,
+                stats.getEstimatedBytes(), stats.getBytesPerName());
+    }
+
+    // Keep the index current with repository writes
+    @EventListener
+    public void onAfterSave(AfterSaveEvent<?> event) {
+        Object source = event.getSource();
+        if (source instanceof User user) {
+            index(user);
+        } else if (source instanceof Investor investor) {
+            index(investor);
+        } else if (source instanceof Curator curator) {
+            index(curator);
+        }
+    }
+
+    @EventListener
+    public void onAfterDelete(AfterDeleteEvent<?> event) {
+        Object id = event.getSource().get("_id");
+        if (id == null || id instanceof org.bson.Document) {
+            return;
+        }
+        remove(event.getType(), id.toString());
+    }
+
+    // For documents that leave their collection without a repository delete, such as archived accounts
+    public void remove(Class<?> type, String id) {
+        if (type == User.class) {
+            index.remove(PrefixIndex.Kind.USER, id);
+        } else if (type == Investor.class) {
+            index.remove(PrefixIndex.Kind.INVESTOR, id);
+        } else if (type == Curator.class) {
+            index.remove(PrefixIndex.Kind.CURATOR, id);
+        }
+    }
+
+    public void index(User user) {
+        User.Profile profile = user.getProfile();
+        int score = profile == null ? 0 : profile.getFollowersCount() + profile.getSalesCount();
+        index.put(PrefixIndex.Kind.USER, user.getId(), user.getUsername(), score);
+    }
+
+    public void index(Investor investor) {
+        Investor.Profile profile = investor.getProfile();
+        int score = profile == null ? 0 : profile.getFollowersCount();
+        index.put(PrefixIndex.Kind.INVESTOR, investor.getId(), investor.getUsername(), score);
+    }
+
+    public void index(Curator curator) {
+        Curator.Profile profile = curator.getProfile();
+        Curator.Analytics analytics = curator.getAnalytics();
+        int score = analytics == null ? 0 : analytics.getTotalArtworksSold();
+        index.put(PrefixIndex.Kind.CURATOR, curator.getId(),
+                profile == null ? null : profile.getDisplayName(), score);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.csihackathonspring.services;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free token bucket in its GCRA form: each key holds a single
+ * "theoretical arrival time" updated by CAS, so admitting a request is one map
+ * lookup plus one compare-and-set with no per-key locking or refill thread.
+ * At most {@code maxKeys} buckets are tracked; once full, and after dropping
+ * refilled ones, new keys share a single overflow bucket instead of growing
+ * the map.
+ */
+public class TokenBucketLimiter {
+
+    private static final long SWEEP_GAP_NANOS = 1_000_000_000L;
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong overflow = new AtomicLong(Long.MIN_VALUE / 2);
+    private final AtomicLong lastSweep = new AtomicLong(Long.MIN_VALUE / 2);
+    private final LongAdder overflowed = new LongAdder();
+
+    public TokenBucketLimiter(double permitsPerSecond, int burst, int maxKeys) {
+        if (permitsPerSecond <= 0 || burst <= 0 || maxKeys <= 0) {
+            throw new IllegalArgumentException("Rate, burst and key limit must be positive");
+        }
+        this.intervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        this.burstNanos = intervalNanos * burst;
+        this.maxKeys = maxKeys;
+    }
+
+    // Returns 0 when a permit was taken, otherwise the nanos until one frees up
+    public long tryAcquire(String key, long nowNanos) {
+        AtomicLong state = buckets.get(key);
+        if (state == null) {
+            state = admitKey(key, nowNanos);
+        }
+        while (true) {
+            long tat = state.get();
+            long next = Math.max(tat, nowNanos) + intervalNanos;
+            long excess = next - nowNanos - burstNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (state.compareAndSet(tat, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // New bucket for the key, or the shared overflow bucket when the map is full of active ones.
+    // A full map is swept at most once per second so a flood of new keys can't turn every call into a scan.
+    private AtomicLong admitKey(String key, long nowNanos) {
+        if (buckets.size() >= maxKeys) {
+            long swept = lastSweep.get();
+            if (nowNanos - swept >= SWEEP_GAP_NANOS && lastSweep.compareAndSet(swept, nowNanos)) {
+                evictIdle(nowNanos);
+            }
+            if (buckets.size() >= maxKeys) {
+                overflowed.increment();
+                return overflow;
+            }
+        }
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(nowNanos));
+    }
+
+    // Drop buckets that have fully refilled; they are equivalent to absent ones
+    public void evictIdle(long nowNanos) {
+        buckets.values().removeIf(state -> state.get() <= nowNanos);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    // Acquires by keys that found the map full and fell back to the overflow bucket
+    public long overflowed() {
+        return overflowed.sum();
+    }
+}
@@ -0,0 +1,389 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.entities.TrendingRollup;
+import com.mongodb.bulk.BulkWriteError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Streaming activity rollups for artists and curators. Events land in
+ * per-entity minute/hour/day bucket rings; a periodic pass turns them into
+ * decayed scores and republishes an immutable top-K list per window.
+ */
+@Service
+public class TrendingService {
+
+    public enum EntityType { ARTIST, CURATOR }
+
+    public enum EventType { VIEW, LIKE, SALE }
+
+    // Each window scores one ring granularity with its own half-life
+    public enum Window {
+        HOUR(0, 15),
+        DAY(1, 6),
+        WEEK(2, 3);
+
+        private final int ring;
+        private final double halfLifeBuckets;
+
+        Window(int ring, double halfLifeBuckets) {
+            this.ring = ring;
+            this.halfLifeBuckets = halfLifeBuckets;
+        }
+    }
+
+    public static class Event {
+        private EntityType entityType;
+        private String entityId;
+        private EventType type;
+        private long count = 1;
+        private Long timestamp;
+
+        // Getters and Setters
+
+        public EntityType getEntityType() {
+            return entityType;
+        }
+
+        public void setEntityType(EntityType entityType) {
+            this.entityType = entityType;
+        }
+
+        public String getEntityId() {
+            return entityId;
+        }
+
+        public void setEntityId(String entityId) {
+            this.entityId = entityId;
+        }
+
+        public EventType getType() {
+            return type;
+        }
+
+        public void setType(EventType type) {
+            this.type = type;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        public Long getTimestamp() {
+            return timestamp;
+        }
+
+        public void setTimestamp(Long timestamp) {
+            this.timestamp = timestamp;
+        }
+    }
+
+    public static final class Trend {
+        private final String entityId;
+        private final double score;
+
+        Trend(String entityId, double score) {
+            this.entityId = entityId;
+            this.score = score;
+        }
+
+        public String getEntityId() {
+            return entityId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final int BATCH_SIZE = 500;
+
+    private static final class Activity {
+        private final BucketRing[] rings = {
+                new BucketRing(MINUTE, 60),
+                new BucketRing(HOUR, 48),
+                new BucketRing(DAY, 30)
+        };
+        // Adds since creation, and how many of them the last successful flush covered
+        private long changes;
+        private long flushed;
+
+        synchronized void add(long time, int type, long n) {
+            for (BucketRing ring : rings) {
+                ring.add(time, type, n);
+            }
+            changes++;
+        }
+
+        synchronized boolean dirty() {
+            return changes != flushed;
+        }
+
+        synchronized double score(long now, double[] weights, Window window) {
+            return rings[window.ring].score(now, weights, window.halfLifeBuckets);
+        }
+    }
+
+    // Activity added to one hour or day bucket since its last successful flush
+    private static final class PendingRollup {
+        private final EntityType type;
+        private final String entityId;
+        private final Activity entity;
+        private final int ring;
+        private final long bucket;
+        private final long[] delta;
+
+        PendingRollup(EntityType type, String entityId, Activity entity, int ring, long bucket, long[] delta) {
+            this.type = type;
+            this.entityId = entityId;
+            this.entity = entity;
+            this.ring = ring;
+            this.bucket = bucket;
+            this.delta = delta;
+        }
+
+        void written() {
+            synchronized (entity) {
+                entity.rings[ring].markFlushed(bucket, delta);
+            }
+        }
+    }
+
+    // An entity whose rollups are in the current flush, with the change count they reflect
+    private static final class Snapshot {
+        private final Activity entity;
+        private final long changes;
+
+        Snapshot(Activity entity, long changes) {
+            this.entity = entity;
+            this.changes = changes;
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(TrendingService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final int topK;
+    private final double[] weights;
+    private final long maxSkewMillis;
+    private final Map<EntityType, ConcurrentHashMap<String, Activity>> activity = new EnumMap<>(EntityType.class);
+    private final Map<EntityType, Map<Window, List<Trend>>> leaders = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TrendingService(MongoTemplate mongoTemplate,
+                           @Value("${trending.top-k:100}") int topK,
+                           @Value("${trending.weight.view:1}") double viewWeight,
+                           @Value("${trending.weight.like:5}") double likeWeight,
+                           @Value("${trending.weight.sale:25}") double saleWeight,
+                           @Value("${trending.max-clock-skew-ms:5000}") long maxSkewMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.topK = topK;
+        this.weights = new double[] { viewWeight, likeWeight, saleWeight };
+        this.maxSkewMillis = maxSkewMillis;
+        for (EntityType type : EntityType.values()) {
+            activity.put(type, new ConcurrentHashMap<>());
+            Map<Window, List<Trend>> empty = new EnumMap<>(Window.class);
+            for (Window window : Window.values()) {
+                empty.put(window, List.of());
+            }
+            leaders.put(type, empty);
+        }
+    }
+
+    // False for events stamped further ahead than the allowed client clock skew
+    public boolean isTimely(Event event) {
+        return event.getTimestamp() == null || event.getTimestamp() <= System.currentTimeMillis() + maxSkewMillis;
+    }
+
+    // A future bucket would take over its ring slot and drop the real events that land there,
+    // so timestamps within the skew are clamped to now and anything beyond it is refused
+    public void record(Event event) {
+        long now = System.currentTimeMillis();
+        Long timestamp = event.getTimestamp();
+        if (timestamp != null && timestamp > now + maxSkewMillis) {
+            throw new IllegalArgumentException("Event timestamp is in the future");
+        }
+        long time = timestamp == null ? now : Math.min(timestamp, now);
+        activity.get(event.getEntityType())
+                .computeIfAbsent(event.getEntityId(), id -> new Activity())
+                .add(time, event.getType().ordinal(), Math.max(1, event.getCount()));
+    }
+
+    // Current leaders for a window, as of the last refresh
+    public List<Trend> getTrending(EntityType type, Window window, int limit) {
+        List<Trend> top = leaders.get(type).get(window);
+        return top.subList(0, Math.max(0, Math.min(limit, top.size())));
+    }
+
+    @Scheduled(fixedDelayString = "${trending.refresh-ms:5000}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        Comparator<Trend> byScore = Comparator.comparingDouble(Trend::getScore);
+        for (EntityType type : EntityType.values()) {
+            Map<Window, List<Trend>> published = new EnumMap<>(Window.class);
+            for (Window window : Window.values()) {
+                PriorityQueue<Trend> heap = new PriorityQueue<>(byScore);
+                for (Map.Entry<String, Activity> entry : activity.get(type).entrySet()) {
+                    double score = entry.getValue().score(now, weights, window);
+                    if (score <= 0) {
+                        continue;
+                    }
+                    if (heap.size() < topK) {
+                        heap.add(new Trend(entry.getKey(), score));
+                    } else if (score > heap.peek().getScore()) {
+                        heap.poll();
+                        heap.add(new Trend(entry.getKey(), score));
+                    }
+                }
+                List<Trend> top = new ArrayList<>(heap);
+                top.sort(byScore.reversed());
+                published.put(window, List.copyOf(top));
+            }
+            leaders.put(type, published);
+        }
+    }
+
+    // Add what each hour/day bucket gained since the last flush to its rollup. Every instance sees
+    // only its own events, so rollups are incremented rather than overwritten, and any bucket
+    // still in the ring is written, however late its events arrived. A delta counts as flushed
+    // once its batch is written; an unordered batch that fails keeps only the failed deltas
+    // pending, while one that fails without a result is retried whole.
+    @Scheduled(fixedDelayString = "${trending.flush-ms:60000}")
+    public void flush() {
+        List<PendingRollup> pending = new ArrayList<>();
+        List<Snapshot> snapshots = new ArrayList<>();
+        for (EntityType type : EntityType.values()) {
+            for (Map.Entry<String, Activity> entry : activity.get(type).entrySet()) {
+                Activity entity = entry.getValue();
+                synchronized (entity) {
+                    if (!entity.dirty()) {
+                        continue;
+                    }
+                    snapshots.add(new Snapshot(entity, entity.changes));
+                    for (int ring = 1; ring <= 2; ring++) {
+                        for (Map.Entry<Long, long[]> bucket : entity.rings[ring].unflushed().entrySet()) {
+                            pending.add(new PendingRollup(type, entry.getKey(), entity, ring, bucket.getKey(), bucket.getValue()));
+                        }
+                    }
+                }
+            }
+        }
+        for (int from = 0; from < pending.size(); from += BATCH_SIZE) {
+            List<PendingRollup> batch = pending.subList(from, Math.min(from + BATCH_SIZE, pending.size()));
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TrendingRollup.class);
+            for (PendingRollup rollup : batch) {
+                long bucketMillis = rollup.entity.rings[rollup.ring].bucketMillis();
+                Query query = new Query(where("entityType").is(rollup.type.name())
+                        .and("entityId").is(rollup.entityId)
+                        .and("granularity").is(rollup.ring == 1 ? "HOUR" : "DAY")
+                        .and("bucketStart").is(new Date(rollup.bucket * bucketMillis)));
+                Update update = new Update()
+                        .inc("views", rollup.delta[0])
+                        .inc("likes", rollup.delta[1])
+                        .inc("sales", rollup.delta[2]);
+                bulk.upsert(query, update);
+            }
+            try {
+                bulk.execute();
+            } catch (BulkOperationException e) {
+                Set<Integer> failed = e.getErrors().stream().map(BulkWriteError::getIndex).collect(Collectors.toSet());
+                for (int i = 0; i < batch.size(); i++) {
+                    if (!failed.contains(i)) {
+                        batch.get(i).written();
+                    }
+                }
+                throw e;
+            }
+            batch.forEach(PendingRollup::written);
+        }
+        for (Snapshot snapshot : snapshots) {
+            synchronized (snapshot.entity) {
+                snapshot.entity.flushed = Math.max(snapshot.entity.flushed, snapshot.changes);
+            }
+        }
+    }
+
+    // Refill hour and day rings from persisted rollups so a restart keeps its history
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long now = System.currentTimeMillis();
+        int restored = 0;
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps(TrendingRollup.class);
+            IndexResolver.create(mongoTemplate.getConverter().getMappingContext())
+                    .resolveIndexFor(TrendingRollup.class)
+                    .forEach(indexOps::ensureIndex);
+
+            Query query = new Query(where("bucketStart").gte(new Date(now - 30 * DAY)));
+            try (Stream<TrendingRollup> stream = mongoTemplate.stream(query, TrendingRollup.class)) {
+                for (TrendingRollup rollup : (Iterable<TrendingRollup>) stream::iterator) {
+                    if (rollup.getBucketStart().getTime() > now) {
+                        continue; // written from a future-stamped event before those were refused
+                    }
+                    Activity entity = activity.get(EntityType.valueOf(rollup.getEntityType()))
+                            .computeIfAbsent(rollup.getEntityId(), id -> new Activity());
+                    int ring = "HOUR".equals(rollup.getGranularity()) ? 1 : 2;
+                    synchronized (entity) {
+                        BucketRing buckets = entity.rings[ring];
+                        buckets.set(buckets.bucketOf(rollup.getBucketStart().getTime()),
+                                new long[] { rollup.getViews(), rollup.getLikes(), rollup.getSales() });
+                    }
+                    restored++;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Trending rollup restore failed", e);
+            return;
+        }
+        refresh();
+        log.info("Trending engine restored {} rollups", restored);
+    }
+
+    // Forget entities whose newest activity has rotated out of the day ring
+    @Scheduled(fixedDelay = 3_600_000)
+    public void evictIdle() {
+        long cutoff = (System.currentTimeMillis() - 30 * DAY) / DAY;
+        for (ConcurrentHashMap<String, Activity> entities : activity.values()) {
+            entities.values().removeIf(entity -> {
+                synchronized (entity) {
+                    return !entity.dirty() && entity.rings[2].latestBucket() < cutoff;
+                }
+            });
+        }
+    }
+}
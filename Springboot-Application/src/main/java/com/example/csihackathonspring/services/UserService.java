@@ -1,29 +1,54 @@
 package com.example.csihackathonspring.services;
 
 import com.example.csihackathonspring.entities.User;
-import com.example.csihackathonspring.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
 @Service
 public class UserService {
 
-    private final UserRepository userRepository;
+    private final ReadRoutingService readRouting;
+    private final MongoAccessLimiter limiter;
+    private final HotKeyService hotKeys;
+    private final ArchiveService archive;
+    private final SingleFlight<User> lookups;
 
     @Autowired
-    public UserService(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public UserService(ReadRoutingService readRouting,
+                       MongoAccessLimiter limiter,
+                       HotKeyService hotKeys,
+                       ArchiveService archive,
+                       @Value("${lookup.coalesce.max-wait-ms:2000}") long maxWaitMillis) {
+        this.readRouting = readRouting;
+        this.limiter = limiter;
+        this.hotKeys = hotKeys;
+        this.archive = archive;
+        this.lookups = new SingleFlight<>(maxWaitMillis);
     }
 
     // Get user by ID
     public Optional<User> getUserById(String id) {
-        return userRepository.findById(id);
+        hotKeys.sample("users", "id", id);
+        return Optional.ofNullable(lookups.execute(ReadRoutingService.lookupKey("id:", id), () ->
+                orArchived(limiter.call(() -> readRouting.read(ops -> ops.findById(id, User.class))), "id", id)));
     }
 
     // Get user by username
     public Optional<User> getUserByUsername(String username) {
-        return userRepository.findByUsername(username);
+        hotKeys.sample("users", "username", username);
+        return Optional.ofNullable(lookups.execute(ReadRoutingService.lookupKey("username:", username), () ->
+                orArchived(limiter.call(() -> readRouting.read(ops -> ops.findOne(new Query(where("username").is(username)), User.class))),
+                        "username", username)));
+    }
+
+    // A miss may be an account moved to the cold tier; bring it back rather than report it missing
+    private User orArchived(User found, String field, String value) {
+        return found != null ? found : archive.rehydrate(User.class, field, value);
     }
 }
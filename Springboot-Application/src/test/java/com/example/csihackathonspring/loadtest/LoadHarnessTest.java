@@ -0,0 +1,85 @@
+package com.example.csihackathonspring.loadtest;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadHarnessTest {
+
+    @Test
+    void histogramPercentilesStayWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        SplittableRandom random = new SplittableRandom(7);
+        long[] micros = new long[100_000];
+        for (int i = 0; i < micros.length; i++) {
+            micros[i] = (long) (200 * Math.exp(random.nextGaussian() * 1.5)) + 1;
+            histogram.recordNanos(micros[i] * 1_000);
+        }
+        Arrays.sort(micros);
+        for (double percentile : new double[]{50, 90, 99, 99.9}) {
+            long exact = micros[(int) Math.ceil(micros.length * percentile / 100) - 1];
+            long estimate = histogram.percentileMicros(percentile);
+            assertTrue(estimate >= exact && estimate <= exact * 1.032 + 1,
+                    "p" + percentile + " estimate " + estimate + " vs exact " + exact);
+        }
+        assertEquals(micros.length, histogram.count());
+    }
+
+    @Test
+    void zipfConcentratesTrafficOnTheHead() {
+        ZipfSampler sampler = new ZipfSampler(1_000_000, 1.1);
+        int[] hits = new int[10];
+        SplittableRandom random = new SplittableRandom(1);
+        int draws = 200_000;
+        for (int i = 0; i < draws; i++) {
+            int rank = sampler.sample(random);
+            if (rank < hits.length) {
+                hits[rank]++;
+            }
+        }
+        assertTrue(hits[0] > hits[1] && hits[1] > hits[9]);
+        double headShare = Arrays.stream(hits).sum() / (double) draws;
+        assertEquals(sampler.headShare(10), headShare, 0.01);
+        assertTrue(sampler.headShare(1_000) > 0.5, "top 0.1% of profiles should take most requests");
+    }
+
+    @Test
+    void offeredLoadDoesNotBackOffWhenTheServerStalls() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        // One handler thread: at 100 req/s and 20 ms service time the queue grows without bound
+        server.setExecutor(null);
+        server.start();
+        try {
+            URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/users/x");
+            OpenModelDriver driver = new OpenModelDriver(Duration.ofSeconds(10), 10_000);
+            OpenModelDriver.Result result = driver.run(random -> new RequestMix.Request("probe", uri),
+                    100, Duration.ZERO, Duration.ofSeconds(1), 0, 3);
+
+            OpenModelDriver.EndpointStats probe = result.endpoints.get("probe");
+            assertTrue(result.offered > 60 && result.offered < 140, "offered " + result.offered);
+            assertEquals(result.offered, probe.total());
+            // A closed-loop client would report ~20 ms; queueing behind the stall must show up
+            assertTrue(probe.latency().percentileMicros(99) > 300_000,
+                    "p99 " + probe.latency().percentileMicros(99) + " µs");
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.csihackathonspring.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON summary of one run, stamped with the commit it measured. Two reports
+ * with the same dataset fingerprint and settings are directly comparable.
+ */
+public class LoadReport {
+
+    private static final List<String> COMPARED = List.of("throughput", "errorRate", "p50Ms", "p90Ms", "p99Ms", "p999Ms", "maxMs");
+
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final Map<String, Object> report = new LinkedHashMap<>();
+
+    public LoadReport(LoadTestConfig config, OpenModelDriver.Result result) {
+        report.put("commit", commit());
+        report.put("timestamp", Instant.now().toString());
+        report.put("settings", config.describe());
+        report.put("offered", result.offered);
+
+        LatencyHistogram all = new LatencyHistogram();
+        long total = 0;
+        long errors = 0;
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Map.Entry<String, OpenModelDriver.EndpointStats> entry : result.endpoints.entrySet()) {
+            OpenModelDriver.EndpointStats stats = entry.getValue();
+            all.add(stats.latency());
+            total += stats.total();
+            errors += stats.errors();
+            Map<String, Object> summary = summarize(stats.latency(), stats.total(), stats.errors(), result.measuredSeconds);
+            summary.put("statuses", stats.statuses());
+            endpoints.put(entry.getKey(), summary);
+        }
+        report.put("overall", summarize(all, total, errors, result.measuredSeconds));
+        report.put("endpoints", endpoints);
+    }
+
+    private static Map<String, Object> summarize(LatencyHistogram latency, long total, long errors, double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", total);
+        summary.put("throughput", round((total - errors) / seconds));
+        summary.put("errorRate", total == 0 ? 0.0 : round(errors / (double) total));
+        summary.put("p50Ms", latency.percentileMicros(50) / 1000.0);
+        summary.put("p90Ms", latency.percentileMicros(90) / 1000.0);
+        summary.put("p99Ms", latency.percentileMicros(99) / 1000.0);
+        summary.put("p999Ms", latency.percentileMicros(99.9) / 1000.0);
+        summary.put("maxMs", latency.maxMicros() / 1000.0);
+        return summary;
+    }
+
+    public Path write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        String name = "report-" + report.get("commit") + "-" + Instant.now().getEpochSecond() + ".json";
+        Path file = directory.resolve(name);
+        mapper.writeValue(file.toFile(), report);
+        mapper.writeValue(directory.resolve("latest.json").toFile(), report);
+        return file;
+    }
+
+    public void print() throws IOException {
+        System.out.println(mapper.writeValueAsString(report.get("overall")));
+    }
+
+    // Side-by-side table of the headline numbers against an earlier report
+    public void compare(Path baselineFile) throws IOException {
+        JsonNode baseline = mapper.readTree(baselineFile.toFile());
+        JsonNode current = mapper.valueToTree(report);
+        if (!baseline.path("settings").equals(current.path("settings"))) {
+            System.out.println("WARNING: baseline was recorded with different settings; deltas are not like-for-like");
+        }
+        System.out.printf("%-22s %-10s %12s %12s %9s%n", "endpoint", "metric",
+                baseline.path("commit").asText(), current.path("commit").asText(), "change");
+        compareSection("overall", baseline.path("overall"), current.path("overall"));
+        current.path("endpoints").fields().forEachRemaining(entry ->
+                compareSection(entry.getKey(), baseline.path("endpoints").path(entry.getKey()), entry.getValue()));
+    }
+
+    private static void compareSection(String name, JsonNode before, JsonNode after) {
+        for (String metric : COMPARED) {
+            double was = before.path(metric).asDouble(Double.NaN);
+            double now = after.path(metric).asDouble();
+            String change = Double.isNaN(was) || was == 0 ? "" : String.format("%+.1f%%", (now - was) / was * 100);
+            System.out.printf("%-22s %-10s %12.2f %12.2f %9s%n", name, metric, was, now, change);
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    private static String commit() {
+        try {
+            Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true).start();
+            String sha = new String(git.getInputStream().readAllBytes()).trim();
+            return git.waitFor() == 0 ? sha : "unknown";
+        } catch (IOException e) {
+            return "unknown";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "unknown";
+        }
+    }
+}
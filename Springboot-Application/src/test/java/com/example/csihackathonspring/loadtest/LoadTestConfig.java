@@ -0,0 +1,54 @@
+package com.example.csihackathonspring.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Harness settings, read from {@code -Dloadtest.*} system properties so a run
+ * is fully described by its command line and echoed into the report.
+ */
+public class LoadTestConfig {
+
+    public final String mongoUri = string("mongo-uri", "mongodb://localhost:27017/artblock_loadtest");
+    public final String baseUrl = string("base-url", "");
+    public final int users = integer("users", 1_000_000);
+    public final int investors = integer("investors", 200_000);
+    public final int curators = integer("curators", 20_000);
+    public final double skew = Double.parseDouble(string("skew", "1.1"));
+    public final long seed = Long.parseLong(string("seed", "42"));
+    public final double rate = Double.parseDouble(string("rate", "200"));
+    public final int warmupSeconds = integer("warmup-s", 15);
+    public final int durationSeconds = integer("duration-s", 60);
+    public final int intervalSeconds = integer("interval-s", 10);
+    public final int maxInFlight = integer("max-in-flight", 2_000);
+    public final int timeoutMillis = integer("timeout-ms", 5_000);
+    public final boolean rateLimit = Boolean.parseBoolean(string("ratelimit", "false"));
+    public final String mix = string("mix",
+            "user-by-username:35,user-by-id:10,investor-by-id:10,curator-by-id:5,curator-by-username:5,search-suggest:30,trending-artists:5");
+    public final String reportDir = string("report-dir", "target/loadtest");
+    public final String baseline = string("baseline", "");
+
+    public Map<String, Object> describe() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("users", users);
+        settings.put("investors", investors);
+        settings.put("curators", curators);
+        settings.put("skew", skew);
+        settings.put("seed", seed);
+        settings.put("rate", rate);
+        settings.put("warmupSeconds", warmupSeconds);
+        settings.put("durationSeconds", durationSeconds);
+        settings.put("maxInFlight", maxInFlight);
+        settings.put("rateLimit", rateLimit);
+        settings.put("mix", mix);
+        return settings;
+    }
+
+    private static String string(String name, String fallback) {
+        return System.getProperty("loadtest." + name, fallback);
+    }
+
+    private static int integer(String name, int fallback) {
+        return Integer.parseInt(string(name, String.valueOf(fallback)));
+    }
+}
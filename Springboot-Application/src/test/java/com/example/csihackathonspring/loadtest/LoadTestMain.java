@@ -0,0 +1,69 @@
+package com.example.csihackathonspring.loadtest;
+
+import com.example.csihackathonspring.CsihackathonspringApplication;
+import com.mongodb.ConnectionString;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Generates a synthetic dataset into a local mongod, drives the REST API at a
+ * fixed open-model arrival rate and writes a JSON report under target/loadtest.
+ *
+ * <pre>
+ *   ./mvnw -Ploadtest test-compile exec:java -Dloadtest.rate=500 -Dloadtest.duration-s=120
+ *   ./mvnw -Ploadtest test-compile exec:java -Dloadtest.baseline=target/loadtest/report-abc1234-1700000000.json
+ *   ./mvnw -Ploadtest test-compile exec:java -Dloadtest.duration-s=14400 -Dloadtest.interval-s=60   # soak
+ * </pre>
+ *
+ * With no {@code loadtest.base-url} the application is started in-process against
+ * {@code loadtest.mongo-uri}; everything runs offline. See {@link LoadTestConfig}
+ * for the remaining settings.
+ */
+public class LoadTestMain {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = new LoadTestConfig();
+        String database = new ConnectionString(config.mongoUri).getDatabase();
+        try (MongoClient client = MongoClients.create(config.mongoUri)) {
+            new SyntheticDataGenerator(client.getDatabase(database == null ? "artblock_loadtest" : database), config).ensure();
+        }
+
+        ConfigurableApplicationContext app = null;
+        String baseUrl = config.baseUrl;
+        if (baseUrl.isEmpty()) {
+            app = new SpringApplicationBuilder(CsihackathonspringApplication.class)
+                    .properties("spring.data.mongodb.uri=" + config.mongoUri,
+                            "server.port=0",
+                            "ratelimit.enabled=" + config.rateLimit)
+                    .run();
+            baseUrl = "http://127.0.0.1:" + app.getEnvironment().getProperty("local.server.port");
+        }
+
+        try {
+            RequestMix mix = new RequestMix(baseUrl, config);
+            OpenModelDriver driver = new OpenModelDriver(Duration.ofMillis(config.timeoutMillis), config.maxInFlight);
+            System.out.printf("Offering %.0f req/s to %s for %d s after %d s warmup%n",
+                    config.rate, baseUrl, config.durationSeconds, config.warmupSeconds);
+            OpenModelDriver.Result result = driver.run(mix::next, config.rate,
+                    Duration.ofSeconds(config.warmupSeconds), Duration.ofSeconds(config.durationSeconds),
+                    config.intervalSeconds, config.seed);
+
+            LoadReport report = new LoadReport(config, result);
+            report.print();
+            if (!config.baseline.isEmpty()) {
+                report.compare(Path.of(config.baseline));
+            }
+            System.out.println("Report written to " + report.write(Path.of(config.reportDir)));
+        } finally {
+            if (app != null) {
+                app.close();
+            }
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.csihackathonspring.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Open-model load generator: requests arrive as a Poisson process at a fixed
+ * rate no matter how fast the server answers, and latency is measured from each
+ * request's scheduled arrival time rather than from when it was actually sent,
+ * so a stalled server shows up as queueing delay instead of silently lowering
+ * the offered load.
+ */
+public class OpenModelDriver {
+
+    public static class EndpointStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LatencyHistogram interval = new LatencyHistogram();
+        final LongAdder ok = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final ConcurrentHashMap<String, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        void record(long nanos, String status, boolean success) {
+            latency.recordNanos(nanos);
+            interval.recordNanos(nanos);
+            (success ? ok : failed).increment();
+            statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        }
+
+        public long total() {
+            return ok.sum() + failed.sum() + dropped.sum();
+        }
+
+        public long errors() {
+            return failed.sum() + dropped.sum();
+        }
+
+        public LatencyHistogram latency() {
+            return latency;
+        }
+
+        public Map<String, Long> statuses() {
+            Map<String, Long> counts = new TreeMap<>();
+            statuses.forEach((status, count) -> counts.put(status, count.sum()));
+            if (dropped.sum() > 0) {
+                counts.put("dropped", dropped.sum());
+            }
+            return counts;
+        }
+    }
+
+    public static class Result {
+        public final Map<String, EndpointStats> endpoints;
+        public final double measuredSeconds;
+        public final long offered;
+
+        Result(Map<String, EndpointStats> endpoints, double measuredSeconds, long offered) {
+            this.endpoints = endpoints;
+            this.measuredSeconds = measuredSeconds;
+            this.offered = offered;
+        }
+    }
+
+    private final HttpClient http;
+    private final Duration timeout;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public OpenModelDriver(Duration timeout, int maxInFlight) {
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+                .build();
+        this.timeout = timeout;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Offers {@code rate} requests per second for warmup + duration. Only arrivals
+     * scheduled after the warmup are recorded; {@code intervalSeconds > 0} prints a
+     * progress line that far apart, which is what a soak run watches for drift.
+     */
+    public Result run(Function<SplittableRandom, RequestMix.Request> source, double rate,
+                      Duration warmup, Duration duration, int intervalSeconds, long seed) {
+        ConcurrentHashMap<String, EndpointStats> stats = new ConcurrentHashMap<>();
+        SplittableRandom random = new SplittableRandom(seed);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        if (intervalSeconds > 0) {
+            reporter.scheduleAtFixedRate(() -> printInterval(stats, measureFrom, intervalSeconds),
+                    warmup.getSeconds() + intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+
+        long offered = 0;
+        double meanGapNanos = 1_000_000_000.0 / rate;
+        double next = start;
+        while (true) {
+            next += -Math.log(1 - random.nextDouble()) * meanGapNanos;
+            long intended = (long) next;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            RequestMix.Request request = source.apply(random);
+            boolean measured = intended >= measureFrom;
+            EndpointStats endpoint = measured ? stats.computeIfAbsent(request.endpoint(), e -> new EndpointStats()) : null;
+            if (measured) {
+                offered++;
+            }
+            if (inFlight.incrementAndGet() > maxInFlight) {
+                inFlight.decrementAndGet();
+                if (endpoint != null) {
+                    endpoint.dropped.increment();
+                }
+                continue;
+            }
+            HttpRequest httpRequest = HttpRequest.newBuilder(request.uri()).timeout(timeout).GET().build();
+            http.sendAsync(httpRequest, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        inFlight.decrementAndGet();
+                        if (endpoint == null) {
+                            return;
+                        }
+                        long latency = System.nanoTime() - intended;
+                        if (error != null) {
+                            endpoint.record(latency, error.getClass().getSimpleName(), false);
+                        } else {
+                            int code = response.statusCode();
+                            endpoint.record(latency, String.valueOf(code), code >= 200 && code < 300);
+                        }
+                    });
+        }
+
+        long drainDeadline = System.nanoTime() + timeout.toNanos() + 1_000_000_000L;
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(10_000_000);
+        }
+        reporter.shutdownNow();
+        return new Result(new TreeMap<>(stats), duration.toNanos() / 1e9, offered);
+    }
+
+    private static void printInterval(Map<String, EndpointStats> stats, long measureFrom, int intervalSeconds) {
+        LatencyHistogram merged = new LatencyHistogram();
+        long errors = 0;
+        for (EndpointStats endpoint : stats.values()) {
+            merged.add(endpoint.interval);
+            endpoint.interval.reset();
+            errors += endpoint.errors();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("[%5ds] %8.1f req/s  p50 %6.1f ms  p99 %7.1f ms  max %7.1f ms  errors %d  driver heap %d MB%n",
+                (System.nanoTime() - measureFrom) / 1_000_000_000,
+                merged.count() / (double) intervalSeconds,
+                merged.percentileMicros(50) / 1000.0,
+                merged.percentileMicros(99) / 1000.0,
+                merged.maxMicros() / 1000.0,
+                errors,
+                (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+    }
+}
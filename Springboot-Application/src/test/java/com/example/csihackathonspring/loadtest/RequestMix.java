@@ -0,0 +1,79 @@
+package com.example.csihackathonspring.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static com.example.csihackathonspring.loadtest.SyntheticDataGenerator.CURATOR;
+import static com.example.csihackathonspring.loadtest.SyntheticDataGenerator.INVESTOR;
+import static com.example.csihackathonspring.loadtest.SyntheticDataGenerator.USER;
+
+/**
+ * Weighted mix of read endpoints. Which profile a request targets is drawn
+ * from the same Zipf ranking the generator used, so hot profiles get hot traffic.
+ */
+public class RequestMix {
+
+    public record Request(String endpoint, URI uri) {
+    }
+
+    private final String baseUrl;
+    private final List<String> endpoints = new ArrayList<>();
+    private final List<Integer> cumulativeWeights = new ArrayList<>();
+    private final ZipfSampler users;
+    private final ZipfSampler investors;
+    private final ZipfSampler curators;
+    private int totalWeight;
+
+    public RequestMix(String baseUrl, LoadTestConfig config) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.users = new ZipfSampler(config.users, config.skew);
+        this.investors = new ZipfSampler(config.investors, config.skew);
+        this.curators = new ZipfSampler(config.curators, config.skew);
+        for (String entry : config.mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            int weight = Integer.parseInt(parts[1]);
+            if (weight > 0) {
+                totalWeight += weight;
+                endpoints.add(parts[0]);
+                cumulativeWeights.add(totalWeight);
+            }
+        }
+    }
+
+    public Request next(SplittableRandom random) {
+        int roll = random.nextInt(totalWeight);
+        int choice = 0;
+        while (cumulativeWeights.get(choice) <= roll) {
+            choice++;
+        }
+        String endpoint = endpoints.get(choice);
+        return new Request(endpoint, URI.create(baseUrl + path(endpoint, random)));
+    }
+
+    private String path(String endpoint, SplittableRandom random) {
+        switch (endpoint) {
+            case "user-by-username":
+                return "/users/username/" + SyntheticDataGenerator.username(USER, users.sample(random));
+            case "user-by-id":
+                return "/users/" + SyntheticDataGenerator.id(USER, users.sample(random));
+            case "investor-by-id":
+                return "/investors/" + SyntheticDataGenerator.id(INVESTOR, investors.sample(random));
+            case "curator-by-id":
+                return "/curators/" + SyntheticDataGenerator.id(CURATOR, curators.sample(random));
+            case "curator-by-username":
+                return "/curators/username/" + SyntheticDataGenerator.username(CURATOR, curators.sample(random));
+            case "search-suggest":
+                String name = SyntheticDataGenerator.username(USER, users.sample(random));
+                String prefix = name.substring(0, 3 + random.nextInt(name.length() - 2));
+                return "/search/suggest?q=" + URLEncoder.encode(prefix, StandardCharsets.UTF_8);
+            case "trending-artists":
+                return "/trending/artists?window=DAY&limit=20";
+            default:
+                throw new IllegalArgumentException("Unknown endpoint in loadtest.mix: " + endpoint);
+        }
+    }
+}
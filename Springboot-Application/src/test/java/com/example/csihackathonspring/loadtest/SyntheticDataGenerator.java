@@ -0,0 +1,174 @@
+package com.example.csihackathonspring.loadtest;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.ReplaceOptions;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+
+/**
+ * Fills users, investors and curators with documents shaped like the ones the
+ * Node backend writes. Ids, usernames and wallets are derived from the index, so
+ * the driver can address any profile without reading the data back, and
+ * popularity follows the same Zipf ranking the driver samples from: profile 0 is
+ * the most followed and the most requested.
+ */
+public class SyntheticDataGenerator {
+
+    static final int USER = 1;
+    static final int INVESTOR = 2;
+    static final int CURATOR = 3;
+
+    private static final int BATCH = 5_000;
+    private static final long EPOCH = 1_700_000_000_000L;
+
+    private final MongoDatabase database;
+    private final LoadTestConfig config;
+
+    public SyntheticDataGenerator(MongoDatabase database, LoadTestConfig config) {
+        this.database = database;
+        this.config = config;
+    }
+
+    public static String id(int kind, int index) {
+        return new ObjectId(String.format("%08x%016x", kind, index)).toHexString();
+    }
+
+    public static String username(int kind, int index) {
+        String prefix = kind == USER ? "artist" : kind == INVESTOR ? "investor" : "curator";
+        return prefix + "-" + String.format("%07d", index);
+    }
+
+    public static String displayName(int index) {
+        return "Gallery " + String.format("%07d", index);
+    }
+
+    // Regenerates only when the stored fingerprint differs, so repeated runs share one dataset
+    public boolean ensure() {
+        Document fingerprint = new Document("_id", "dataset")
+                .append("users", config.users)
+                .append("investors", config.investors)
+                .append("curators", config.curators)
+                .append("skew", config.skew)
+                .append("seed", config.seed);
+        MongoCollection<Document> meta = database.getCollection("loadtest_meta");
+        if (fingerprint.equals(meta.find(new Document("_id", "dataset")).first())) {
+            return false;
+        }
+        long start = System.nanoTime();
+        CompletableFuture.allOf(
+                CompletableFuture.runAsync(() -> fill("users", USER, config.users, this::user)),
+                CompletableFuture.runAsync(() -> fill("investors", INVESTOR, config.investors, this::investor)),
+                CompletableFuture.runAsync(() -> fill("curators", CURATOR, config.curators, this::curator))
+        ).join();
+        meta.replaceOne(new Document("_id", "dataset"), fingerprint,
+                new ReplaceOptions().upsert(true));
+        System.out.printf("Generated %,d users, %,d investors, %,d curators in %d s%n",
+                config.users, config.investors, config.curators, (System.nanoTime() - start) / 1_000_000_000);
+        return true;
+    }
+
+    private void fill(String collectionName, int kind, int count, BiFunction<Integer, SplittableRandom, Document> factory) {
+        MongoCollection<Document> collection = database.getCollection(collectionName);
+        collection.drop();
+        SplittableRandom random = new SplittableRandom(config.seed * 31 + kind);
+        InsertManyOptions unordered = new InsertManyOptions().ordered(false);
+        List<Document> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < count; i++) {
+            batch.add(factory.apply(i, random));
+            if (batch.size() == BATCH) {
+                collection.insertMany(batch, unordered);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            collection.insertMany(batch, unordered);
+        }
+        // Mirrors the unique indexes declared by the backend's mongoose schemas
+        collection.createIndex(Indexes.ascending("username"), new IndexOptions().unique(true));
+        collection.createIndex(Indexes.ascending("walletAddress"), new IndexOptions().unique(true));
+    }
+
+    // Heavy-tailed popularity: follower counts fall off as 1 / (rank + 1)^skew
+    private int popularity(int index, int max) {
+        return (int) Math.max(0, Math.round(max / Math.pow(index + 1, config.skew)));
+    }
+
+    private Document base(int kind, int index, String role, SplittableRandom random) {
+        Date created = new Date(EPOCH + random.nextLong(90L * 24 * 3600 * 1000));
+        return new Document("_id", new ObjectId(id(kind, index)))
+                .append("username", username(kind, index))
+                .append("password", "$2a$10$loadtestloadtestloadtestloadtestloadtestloadtest")
+                .append("walletAddress", String.format("0x%08x%032x", kind, index))
+                .append("role", role)
+                .append("createdAt", created)
+                .append("updatedAt", created);
+    }
+
+    private Document user(int index, SplittableRandom random) {
+        int followers = popularity(index, 500_000);
+        int sales = popularity(index, 5_000) + random.nextInt(3);
+        int artworks = 1 + random.nextInt(40);
+        Document document = base(USER, index, "artist", random);
+        return document
+                .append("contract", new Document("network", "sepolia")
+                        .append("totalMinted", artworks)
+                        .append("deploymentStatus", "deployed")
+                        .append("address", String.format("0x%040x", 0xC0000000L + index))
+                        .append("deploymentDate", document.getDate("createdAt")))
+                .append("profile", new Document("followersCount", followers)
+                        .append("artworksCount", artworks)
+                        .append("followingCount", random.nextInt(500))
+                        .append("salesCount", sales))
+                .append("analytics", new Document("totalArtworksListed", artworks)
+                        .append("totalSalesValue", sales * (50 + random.nextInt(950)))
+                        .append("averagePrice", 50 + random.nextInt(950))
+                        .append("totalViews", followers * 20 + random.nextInt(1_000))
+                        .append("totalLikes", followers * 2 + random.nextInt(100)))
+                .append("distributionSettings", new Document("galleryShare", 10)
+                        .append("artistShare", 85)
+                        .append("platformFee", 5))
+                .append("registrationDate", document.getDate("createdAt"));
+    }
+
+    private Document investor(int index, SplittableRandom random) {
+        List<String> watchlist = new ArrayList<>();
+        for (int i = random.nextInt(8); i > 0; i--) {
+            watchlist.add(id(USER, random.nextInt(Math.max(1, config.users))));
+        }
+        int invested = popularity(index, 1_000_000) + random.nextInt(1_000);
+        return base(INVESTOR, index, "investor", random)
+                .append("profile", new Document("followersCount", popularity(index, 50_000))
+                        .append("investmentsCount", 1 + random.nextInt(60))
+                        .append("badges", List.of()))
+                .append("analytics", new Document("totalInvested", invested)
+                        .append("totalROI", random.nextInt(40) - 10)
+                        .append("portfolioValue", invested + random.nextInt(1 + invested / 2)))
+                .append("portfolio", new Document("watchlist", watchlist)
+                        .append("investmentHistory", List.of()));
+    }
+
+    private Document curator(int index, SplittableRandom random) {
+        int sold = popularity(index, 20_000) + random.nextInt(5);
+        return base(CURATOR, index, "curator", random)
+                .append("contract", new Document("network", "sepolia")
+                        .append("galleries", List.of())
+                        .append("totalRevenue", String.valueOf(sold * 100L))
+                        .append("pendingRevenue", String.valueOf(random.nextInt(10_000))))
+                .append("profile", new Document("displayName", displayName(index))
+                        .append("galleriesCount", 1 + random.nextInt(10)))
+                .append("analytics", new Document("totalArtistsCurated", 1 + random.nextInt(200))
+                        .append("totalVisitors", popularity(index, 2_000_000) + random.nextInt(1_000))
+                        .append("totalArtworksSold", sold));
+    }
+}
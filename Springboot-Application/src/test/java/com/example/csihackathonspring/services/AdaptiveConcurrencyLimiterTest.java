@@ -0,0 +1,168 @@
+package com.example.csihackathonspring.services;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // Stands in for Mongo: a fixed number of servers, each holding a request for the service time
+    private static final class Backend {
+        private final Semaphore servers;
+        private final long serviceMillis;
+
+        Backend(int servers, long serviceMillis) {
+            this.servers = new Semaphore(servers, true);
+            this.serviceMillis = serviceMillis;
+        }
+
+        void handle() throws InterruptedException {
+            servers.acquire();
+            try {
+                Thread.sleep(serviceMillis);
+            } finally {
+                servers.release();
+            }
+        }
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter() {
+        return new AdaptiveConcurrencyLimiter(20, 2, 200, 1.5, 0.2, TimeUnit.SECONDS.toNanos(30));
+    }
+
+    @Test
+    void failsFastAtTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 1.5, 0.2, TimeUnit.SECONDS.toNanos(30));
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1L, limiter.stats().get("rejected"));
+
+        limiter.release(MILLI, false);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void limitShrinksAsLatencyRisesAndRecovers() {
+        AdaptiveConcurrencyLimiter limiter = limiter();
+        for (int i = 0; i < 50; i++) {
+            saturate(limiter);
+            release(limiter, MILLI);
+        }
+        int grown = limiter.getLimit();
+        assertTrue(grown > 20, "limit should probe upward while latency is flat, was " + grown);
+
+        for (int i = 0; i < 50; i++) {
+            saturate(limiter);
+            release(limiter, 10 * MILLI);
+        }
+        int shrunk = limiter.getLimit();
+        assertTrue(shrunk < grown / 2, "limit should back off under queueing, was " + shrunk);
+        assertTrue((double) limiter.stats().get("estimatedQueue") > 0);
+
+        for (int i = 0; i < 50; i++) {
+            saturate(limiter);
+            release(limiter, MILLI);
+        }
+        assertTrue(limiter.getLimit() > shrunk);
+    }
+
+    @Test
+    void droppedCallsBackOffMultiplicatively() {
+        AdaptiveConcurrencyLimiter limiter = limiter();
+        limiter.tryAcquire();
+        limiter.release(MILLI, true);
+        assertEquals(18, limiter.getLimit());
+        assertEquals(1L, limiter.stats().get("dropped"));
+    }
+
+    /**
+     * Open-loop load at twice the backend's capacity, with callers giving up after
+     * a deadline. Unprotected, the backlog grows until nearly every answer arrives
+     * too late; behind the limiter the excess is rejected up front and goodput
+     * stays close to what the backend manages below saturation. Timing-bound and
+     * several seconds long; run with mvn -Pbenchmark test
+     */
+    @Test
+    @Tag("benchmark")
+    void goodputStaysFlatPastSaturation() throws Exception {
+        int servers = 4;
+        long serviceMillis = 20;
+        double capacity = servers * 1000.0 / serviceMillis;
+
+        double belowSaturation = goodput(capacity * 0.8, servers, serviceMillis, limiter());
+        double limited = goodput(capacity * 2, servers, serviceMillis, limiter());
+        double unprotected = goodput(capacity * 2, servers, serviceMillis, null);
+
+        assertTrue(limited > belowSaturation * 0.8,
+                "goodput past saturation " + limited + "/s fell well below " + belowSaturation + "/s");
+        assertTrue(limited > unprotected * 3,
+                "limiter goodput " + limited + "/s is not clearly above unprotected " + unprotected + "/s");
+    }
+
+    // Successful responses per second that arrived within the deadline
+    private static double goodput(double ratePerSecond, int servers, long serviceMillis,
+                                  AdaptiveConcurrencyLimiter limiter) throws Exception {
+        Backend backend = new Backend(servers, serviceMillis);
+        long deadline = 200 * MILLI;
+        long duration = TimeUnit.SECONDS.toNanos(2);
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        AtomicInteger good = new AtomicInteger();
+        ExecutorService callers = Executors.newCachedThreadPool();
+        long start = System.nanoTime();
+        try {
+            for (long intended = start; intended < start + duration; intended += interval) {
+                LockSupport.parkNanos(intended - System.nanoTime());
+                long arrival = intended;
+                callers.execute(() -> {
+                    if (limiter != null && !limiter.tryAcquire()) {
+                        return;
+                    }
+                    long begin = System.nanoTime();
+                    try {
+                        backend.handle();
+                        if (System.nanoTime() - arrival <= deadline) {
+                            good.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        if (limiter != null) {
+                            limiter.release(System.nanoTime() - begin, false);
+                        }
+                    }
+                });
+            }
+            Thread.sleep(TimeUnit.NANOSECONDS.toMillis(deadline));
+        } finally {
+            callers.shutdownNow();
+            callers.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        return good.get() * (double) TimeUnit.SECONDS.toNanos(1) / duration;
+    }
+
+    private static void saturate(AdaptiveConcurrencyLimiter limiter) {
+        while (limiter.tryAcquire()) {
+            // fill every slot so the sample counts as limit-bound
+        }
+    }
+
+    private static void release(AdaptiveConcurrencyLimiter limiter, long rttNanos) {
+        int inFlight = limiter.getInFlight();
+        for (int i = 0; i < inFlight; i++) {
+            limiter.release(rttNanos, false);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.entities.User;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ArchiveServiceTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final MutationJournalService journal = mock(MutationJournalService.class);
+    private final SearchService searchService = mock(SearchService.class);
+    private final ArchiveService service = new ArchiveService(mongoTemplate, journal, searchService, true, 180, 500, 100_000, 6);
+
+    // Shaped like the Node backend's artist documents, with the long hex strings that dominate them
+    private static Document artist(String username) {
+        return new Document("_id", new ObjectId())
+                .append("username", username)
+                .append("password", "$2b$10$4n8Qx3yJtQm8F1sJt2bH8e5nq1y1pQkqX0a3m2oYzq7x9d1c2v3b4")
+                .append("walletAddress", "0x71C7656EC7ab88b098defB751B7401B5f6d8976F")
+                .append("role", "artist")
+                .append("contract", new Document("network", "polygon")
+                        .append("address", "0x5FbDB2315678afecb367f032d93F642f64180aa3")
+                        .append("blockExplorerUrl", "https://polygonscan.com/address/0x5FbDB2315678afecb367f032d93F642f64180aa3"))
+                .append("profile", new Document("followersCount", 12).append("artworksCount", 3))
+                .append("galleries", List.of("0x5FbDB2315678afecb367f032d93F642f64180aa3", "0x5FbDB2315678afecb367f032d93F642f64180aa4"))
+                .append("createdAt", new Date(0))
+                .append("updatedAt", new Date(1_000));
+    }
+
+    @Test
+    void archivedDocumentsRoundTripWithTheirBsonTypes() {
+        Document original = artist("quiet.painter");
+        byte[] bson = ArchiveService.bson(original);
+
+        byte[] deflated = ArchiveService.deflate(bson, 6);
+
+        assertEquals(original, ArchiveService.decompress(deflated));
+        assertTrue(deflated.length < bson.length * 0.8, deflated.length + " of " + bson.length + " bytes");
+    }
+
+    @Test
+    void inactivityFallsBackToCreatedAtAndSkipsRecentlyRehydrated() {
+        Date cutoff = new Date(5_000);
+        Document criteria = ArchiveService.inactive(cutoff).getCriteriaObject();
+
+        List<Document> clauses = criteria.getList("$and", Document.class);
+        List<Document> activity = clauses.get(0).getList("$or", Document.class);
+        assertEquals(new Document("updatedAt", new Document("$lt", cutoff)), activity.get(0));
+        assertTrue(activity.get(1).toJson().contains("createdAt"));
+        assertEquals(new Document("rehydratedAt", new Document("$not", new Document("$gte", cutoff))), clauses.get(1));
+    }
+
+    @Test
+    void passMovesInactiveDocumentsAndLeavesConcurrentlyUpdatedOnesHot() {
+        Document idle = artist("idle");
+        Document touched = artist("touched");
+        idle.append("version", 3L);
+        BulkOperations bulk = mock(BulkOperations.class);
+        BulkOperations deletes = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "users_cold")).thenReturn(bulk);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "users")).thenReturn(deletes);
+        // First page, then the survivors check finds "touched" was written mid-pass, then no more pages
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("users")))
+                .thenReturn(List.of(idle, touched), List.of(new Document("_id", touched.get("_id"))), List.of());
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("investors"))).thenReturn(List.of());
+        when(mongoTemplate.executeCommand(any(Document.class))).thenReturn(new Document("count", 1));
+
+        Map<String, Object> run = service.archive();
+
+        verify(bulk, times(2)).replaceOne(any(Query.class), any(Document.class), any(FindAndReplaceOptions.class));
+        // Each hot delete is pinned to the image that was archived, version or lack of one included
+        ArgumentCaptor<Query> deleted = ArgumentCaptor.forClass(Query.class);
+        verify(deletes, times(2)).remove(deleted.capture());
+        List<Document> idleGuard = deleted.getAllValues().get(0).getQueryObject().getList("$and", Document.class);
+        assertEquals(new Document("_id", idle.get("_id")), idleGuard.get(0));
+        assertEquals(new Document("version", 3L), idleGuard.get(1));
+        assertEquals(new Document("version", new Document("$exists", false)),
+                deleted.getAllValues().get(1).getQueryObject().getList("$and", Document.class).get(1));
+        verify(journal).recordDelete(User.class, idle.get("_id").toString());
+        verify(searchService).remove(User.class, idle.get("_id").toString());
+        verify(journal, never()).recordDelete(User.class, touched.get("_id").toString());
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(removed.capture(), eq("users_cold"));
+        assertEquals(new Document("_id", new Document("$in", List.of(touched.get("_id")))), removed.getValue().getQueryObject());
+        assertEquals(Map.of("archived", 1, "skipped", 1), run.get("users"));
+        Map<String, Object> stats = service.stats();
+        assertEquals(1L, stats.get("archived"));
+        assertEquals((long) ArchiveService.bson(idle).length, stats.get("archivedBytes"));
+        assertTrue((double) stats.get("compressionRatio") > 1.0);
+    }
+
+    @Test
+    void missedLookupRehydratesFromTheColdCollection() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        Document original = artist("returning.artist");
+        Document cold = new Document("_id", original.get("_id"))
+                .append("username", "returning.artist")
+                .append("data", new Binary(ArchiveService.deflate(ArchiveService.bson(original), 6)));
+        when(mongoTemplate.findOne(any(Query.class), eq(Document.class), eq("users_cold"))).thenReturn(cold, (Document) null);
+
+        User user = service.rehydrate(User.class, "username", "returning.artist");
+
+        assertEquals(original.getObjectId("_id").toHexString(), user.getId());
+        assertEquals("polygon", user.getContract().getNetwork());
+        ArgumentCaptor<Document> inserted = ArgumentCaptor.forClass(Document.class);
+        verify(mongoTemplate).insert(inserted.capture(), eq("users"));
+        assertTrue(inserted.getValue().get("rehydratedAt") instanceof Date);
+        assertEquals(1L, inserted.getValue().get("version"));
+        verify(journal).recordInsert(User.class, inserted.getValue());
+        verify(searchService).index(user);
+        verify(mongoTemplate).remove(any(Query.class), eq("users_cold"));
+        assertEquals(1L, service.stats().get("rehydrated"));
+        assertNull(service.rehydrate(User.class, "id", new ObjectId().toHexString()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void userLookupFallsThroughToTheArchive() {
+        ReadRoutingService readRouting = mock(ReadRoutingService.class);
+        when(readRouting.read(any(Function.class))).thenReturn(null);
+        ArchiveService archive = mock(ArchiveService.class);
+        User archived = new User();
+        when(archive.rehydrate(eq(User.class), eq("username"), anyString())).thenReturn(archived);
+        UserService users = new UserService(readRouting,
+                new MongoAccessLimiter(false, 20, 4, 200, 1.5, 0.2, 30_000), mock(HotKeyService.class), archive, 1_000);
+
+        assertSame(archived, users.getUserByUsername("returning.artist").orElseThrow());
+        assertTrue(users.getUserById("never-existed").isEmpty());
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.config.BadgeProperties;
+import com.example.csihackathonspring.config.BadgeProperties.Metric;
+import com.example.csihackathonspring.config.BadgeProperties.Op;
+import com.example.csihackathonspring.config.BadgeProperties.Rule;
+import com.example.csihackathonspring.entities.Investor;
+import com.example.csihackathonspring.entities.Transaction;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BadgeEngineTest {
+
+    private static final List<Rule> RULES = List.of(
+            new Rule("first", Metric.INVESTMENTS_COUNT, Op.GTE, 1),
+            new Rule("whale", Metric.TOTAL_INVESTED, Op.GTE, 100_000),
+            new Rule("winner", Metric.ROI, Op.GT, 20),
+            new Rule("diamond", Metric.HOLDING_DAYS, Op.GTE, 180));
+
+    private static Investor investor(int investments, int invested, int roi, List<String> badges) {
+        Investor investor = new Investor();
+        investor.setId("inv-1");
+        investor.setWalletAddress("0xabc");
+        Investor.Profile profile = new Investor.Profile();
+        profile.setInvestmentsCount(investments);
+        profile.setBadges(badges);
+        investor.setProfile(profile);
+        Investor.Analytics analytics = new Investor.Analytics();
+        analytics.setTotalInvested(invested);
+        analytics.setTotalROI(roi);
+        investor.setAnalytics(analytics);
+        return investor;
+    }
+
+    @Test
+    void onlyRulesReadingChangedMetricsRun() {
+        BadgeEngine engine = new BadgeEngine(RULES);
+        Investor investor = investor(3, 250_000, 35, List.of());
+        BadgeEngine.Facts facts = new BadgeEngine.Facts(investor, 0, System.currentTimeMillis());
+
+        assertEquals(Set.of("first"), engine.evaluate(facts, EnumSet.of(Metric.INVESTMENTS_COUNT)));
+        assertEquals(Set.of("whale", "winner"), engine.evaluate(facts, EnumSet.of(Metric.TOTAL_INVESTED, Metric.ROI)));
+        assertEquals(Set.of("first", "whale", "winner"), engine.evaluate(facts, EnumSet.allOf(Metric.class)));
+    }
+
+    @Test
+    void heldBadgesAndUnmetThresholdsAreSkipped() {
+        BadgeEngine engine = new BadgeEngine(RULES);
+        Investor investor = investor(5, 99_999, 20, List.of("first"));
+        BadgeEngine.Facts facts = new BadgeEngine.Facts(investor, 0, System.currentTimeMillis());
+
+        assertTrue(engine.evaluate(facts, EnumSet.allOf(Metric.class)).isEmpty());
+    }
+
+    @Test
+    void holdingDaysCountFromFirstPurchase() {
+        BadgeEngine engine = new BadgeEngine(RULES);
+        Investor investor = investor(1, 10, 0, List.of("first"));
+        long now = System.currentTimeMillis();
+        long day = TimeUnit.DAYS.toMillis(1);
+
+        assertTrue(engine.evaluate(new BadgeEngine.Facts(investor, now - 179 * day, now), EnumSet.of(Metric.HOLDING_DAYS)).isEmpty());
+        assertEquals(Set.of("diamond"),
+                engine.evaluate(new BadgeEngine.Facts(investor, now - 180 * day, now), EnumSet.of(Metric.HOLDING_DAYS)));
+        assertEquals(Set.of(180.0), engine.holdingThresholdDays());
+    }
+
+    @Test
+    void awardsArePersistedWithAddToSetOnTheBadgesArray() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.findOne(any(Query.class), eq(Investor.class))).thenReturn(investor(30, 0, 0, List.of("first")));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Investor.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        BadgeProperties properties = new BadgeProperties();
+        properties.setRules(List.of(RULES.get(0), new Rule("rocket", Metric.INVESTMENTS_COUNT, Op.GTE, 25)));
+        BadgeService service = new BadgeService(mongoTemplate, mock(MutationJournalService.class), mock(ArchiveService.class), properties);
+
+        assertEquals(Set.of("rocket"), service.onActivity("inv-1", EnumSet.of(Metric.INVESTMENTS_COUNT)));
+
+        ArgumentCaptor<Query> load = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).findOne(load.capture(), eq(Investor.class));
+        Document fields = load.getValue().getFieldsObject();
+        assertEquals(Set.of("profile.badges", "walletAddress", "profile.investmentsCount"), fields.keySet());
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(Investor.class));
+        Document addToSet = update.getValue().getUpdateObject().get("$addToSet", Document.class);
+        Update.Modifier each = (Update.Modifier) addToSet.get("profile.badges");
+        assertEquals("$each", each.getKey());
+        assertEquals(List.of("rocket"), List.of((Object[]) each.getValue()));
+        assertEquals(new Document("version", 1), update.getValue().getUpdateObject().get("$inc"));
+        assertEquals(Set.of("$addToSet", "$inc"), update.getValue().getUpdateObject().keySet());
+    }
+
+    @Test
+    void noWriteWhenNothingIsEarned() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.findOne(any(Query.class), eq(Investor.class))).thenReturn(investor(2, 0, 0, List.of("first")));
+        BadgeProperties properties = new BadgeProperties();
+        properties.setRules(RULES);
+        BadgeService service = new BadgeService(mongoTemplate, mock(MutationJournalService.class), mock(ArchiveService.class), properties);
+
+        assertTrue(service.onActivity("inv-1", EnumSet.of(Metric.INVESTMENTS_COUNT)).isEmpty());
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(Investor.class));
+    }
+
+    @Test
+    void holdingChecksMatchChecksummedWalletsWhateverTheStoredCasing() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        Investor investor = investor(1, 10, 0, List.of("first"));
+        investor.setWalletAddress("0x71C7656EC7ab88b098defB751B7401B5f6d8976F");
+        Transaction first = new Transaction();
+        first.setCreatedAt(new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(200)));
+        when(mongoTemplate.findOne(any(Query.class), eq(Investor.class))).thenReturn(investor);
+        when(mongoTemplate.findOne(any(Query.class), eq(Transaction.class))).thenReturn(first);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Investor.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        BadgeProperties properties = new BadgeProperties();
+        properties.setRules(RULES);
+        BadgeService service = new BadgeService(mongoTemplate, mock(MutationJournalService.class), mock(ArchiveService.class), properties);
+
+        assertEquals(Set.of("diamond"), service.onActivity("inv-1", EnumSet.of(Metric.HOLDING_DAYS)));
+        assertEquals(BadgeService.wallet(" 0x71c7656ec7AB88B098DEFB751B7401B5F6D8976F "), BadgeService.wallet(investor.getWalletAddress()));
+
+        ArgumentCaptor<Query> purchase = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(1)).findOne(purchase.capture(), eq(Transaction.class));
+        assertEquals("0x71c7656ec7ab88b098defb751b7401b5f6d8976f", purchase.getValue().getQueryObject().get("buyer"));
+        assertEquals(BadgeService.WALLET_CASE, purchase.getValue().getCollation().orElseThrow());
+    }
+
+    @Test
+    void purchasePollsReReadTheOverlapAndEvaluateOnlyUnseenPurchases() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        when(mongoTemplate.indexOps(any(Class.class))).thenReturn(mock(IndexOperations.class));
+        when(mongoTemplate.findById("investors", Document.class, "badge_engine_state"))
+                .thenReturn(new Document("purchaseWatermark", new Date(100_000)).append("holdingCheckedUntil", new Date(100_000)));
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class))).thenReturn(
+                List.of(purchase("p1", "0xaaa", 101_000), purchase("p2", "0xbbb", 102_000)),
+                // p3 committed late, stamped before p2 which the first poll already saw
+                List.of(purchase("p1", "0xaaa", 101_000), purchase("p3", "0xccc", 101_500), purchase("p2", "0xbbb", 102_000)));
+        BadgeProperties properties = new BadgeProperties();
+        properties.setRules(RULES);
+        properties.setPollOverlapMs(5_000);
+        BadgeService service = new BadgeService(mongoTemplate, mock(MutationJournalService.class), mock(ArchiveService.class), properties);
+        service.load();
+
+        service.pollPurchases();
+        service.pollPurchases();
+
+        ArgumentCaptor<Query> polls = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(polls.capture(), eq(Transaction.class));
+        assertEquals(new Date(95_000), polls.getAllValues().get(0).getQueryObject().get("createdAt", Document.class).get("$gte"));
+        assertEquals(new Date(97_000), polls.getAllValues().get(1).getQueryObject().get("createdAt", Document.class).get("$gte"));
+        ArgumentCaptor<Query> evaluated = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(evaluated.capture(), eq(Investor.class));
+        assertEquals(Set.of("0xaaa", "0xbbb"), evaluated.getAllValues().get(0).getQueryObject()
+                .get("walletAddress", Document.class).get("$in"));
+        assertEquals(Set.of("0xccc"), evaluated.getAllValues().get(1).getQueryObject()
+                .get("walletAddress", Document.class).get("$in"));
+    }
+
+    private static Transaction purchase(String id, String buyer, long createdAt) {
+        Transaction purchase = new Transaction();
+        purchase.setId(id);
+        purchase.setBuyer(buyer);
+        purchase.setCreatedAt(new Date(createdAt));
+        return purchase;
+    }
+}
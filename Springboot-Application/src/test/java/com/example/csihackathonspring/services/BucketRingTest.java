@@ -0,0 +1,82 @@
+package com.example.csihackathonspring.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BucketRingTest {
+
+    private static final double[] VIEWS_ONLY = { 1, 0, 0 };
+
+    @Test
+    void slotsResetLazilyWhenANewerBucketLandsOnThem() {
+        BucketRing ring = new BucketRing(1_000, 4);
+        ring.add(0, 0, 1);
+        ring.add(999, 0, 2);
+        ring.add(1_500, 2, 1);
+        assertArrayEquals(new long[] { 3, 0, 0 }, ring.get(0));
+        assertArrayEquals(new long[] { 0, 0, 1 }, ring.get(1));
+        assertNull(ring.get(2));
+
+        // Bucket 4 shares slot 0 with bucket 0 and replaces it
+        ring.add(4_200, 1, 5);
+        assertNull(ring.get(0));
+        assertArrayEquals(new long[] { 0, 5, 0 }, ring.get(4));
+        assertEquals(4, ring.latestBucket());
+
+        // Late events older than the slot's current bucket are dropped rather than mixed in
+        ring.add(300, 0, 7);
+        assertArrayEquals(new long[] { 0, 5, 0 }, ring.get(4));
+        assertNull(ring.get(0));
+    }
+
+    @Test
+    void restoredTotalsNeverOverwriteANewerBucket() {
+        BucketRing ring = new BucketRing(1_000, 4);
+        ring.set(3, new long[] { 1, 2, 3 });
+        assertArrayEquals(new long[] { 1, 2, 3 }, ring.get(3));
+        ring.add(7_000, 0, 1);
+        ring.set(3, new long[] { 9, 9, 9 });
+        assertNull(ring.get(3));
+        assertArrayEquals(new long[] { 1, 0, 0 }, ring.get(7));
+        assertEquals(Long.MIN_VALUE, new BucketRing(1_000, 4).latestBucket());
+    }
+
+    @Test
+    void scoreHalvesPerHalfLifeAndIgnoresBucketsOutsideTheRing() {
+        BucketRing ring = new BucketRing(1_000, 4);
+        ring.add(0, 0, 8);
+        ring.add(2_000, 0, 4);
+        ring.add(2_000, 2, 100);
+
+        assertEquals(8 + 4, ring.score(2_999, VIEWS_ONLY, Double.POSITIVE_INFINITY), 1e-9);
+        assertEquals(8 / 4.0 + 4, ring.score(2_000, VIEWS_ONLY, 1), 1e-9);
+        assertEquals(8 + 4 + 100 * 0.5, ring.score(2_000, new double[] { 1, 0, 0.5 }, 1e9), 1e-3);
+        // Four buckets on, bucket 0 has aged out of the ring; bucket 2 is two half-lives old
+        assertEquals(1, ring.score(4_000, VIEWS_ONLY, 1), 1e-9);
+        // Buckets newer than "now" don't count
+        assertEquals(8, ring.score(1_000, VIEWS_ONLY, Double.POSITIVE_INFINITY), 1e-9);
+    }
+
+    @Test
+    void onlyTheUnpersistedPartOfEachBucketIsPending() {
+        BucketRing ring = new BucketRing(1_000, 4);
+        ring.set(1, new long[] { 5, 0, 0 });
+        ring.add(1_200, 0, 2);
+        ring.add(2_000, 2, 1);
+        assertArrayEquals(new long[] { 2, 0, 0 }, ring.unflushed().get(1L));
+        assertArrayEquals(new long[] { 0, 0, 1 }, ring.unflushed().get(2L));
+
+        ring.markFlushed(1, new long[] { 2, 0, 0 });
+        ring.add(1_300, 0, 1);
+        assertArrayEquals(new long[] { 1, 0, 0 }, ring.unflushed().get(1L));
+
+        // A flush that completes after its bucket rotated out must not discount the newcomer
+        ring.add(6_000, 0, 3);
+        ring.markFlushed(2, new long[] { 0, 0, 1 });
+        assertArrayEquals(new long[] { 3, 0, 0 }, ring.unflushed().get(6L));
+        assertNull(ring.unflushed().get(2L));
+    }
+}
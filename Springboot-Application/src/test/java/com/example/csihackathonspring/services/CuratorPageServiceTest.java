@@ -0,0 +1,158 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.entities.CuratorPage;
+import com.example.csihackathonspring.services.MutationJournal.Mutation;
+import com.example.csihackathonspring.services.MutationJournal.Op;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CuratorPageServiceTest {
+
+    private static final String CURATOR_ID = new ObjectId().toHexString();
+
+    private final AtomicInteger aggregations = new AtomicInteger();
+    private final MutationJournalService journal = mock(MutationJournalService.class);
+
+    @SuppressWarnings("unchecked")
+    private CuratorPageService service(CuratorPage page, long ttlMillis) {
+        MongoOperations ops = mock(MongoOperations.class);
+        when(ops.aggregate(any(Aggregation.class), eq("curators"), eq(CuratorPage.class))).thenAnswer(invocation -> {
+            aggregations.incrementAndGet();
+            return new AggregationResults<>(page == null ? List.of() : List.of(page), new Document());
+        });
+        ReadRoutingService readRouting = mock(ReadRoutingService.class);
+        when(readRouting.read(any(Function.class))).thenAnswer(invocation ->
+                ((Function<MongoOperations, Object>) invocation.getArgument(0)).apply(ops));
+        return new CuratorPageService(mock(MongoTemplate.class), readRouting,
+                new MongoAccessLimiter(true, 20, 4, 200, 1.5, 0.2, 30_000), journal, ttlMillis, 100, 5_000);
+    }
+
+    @Test
+    void pipelineJoinsGalleriesAndArtistsInOneAggregation() {
+        List<Document> stages = CuratorPageService.pipeline(CURATOR_ID).toPipeline(Aggregation.DEFAULT_CONTEXT);
+
+        assertEquals(4, stages.size());
+        assertEquals(new ObjectId(CURATOR_ID), stages.get(0).get("$match", Document.class).get("_id"));
+        Document curatorFields = stages.get(1).get("$project", Document.class);
+        assertFalse(curatorFields.containsKey("password"));
+        // Node stores contract.galleries as {address, name, status, createdAt}; the join needs only the address
+        assertTrue(curatorFields.containsKey("contract.galleries.address"));
+        assertFalse(curatorFields.containsKey("contract.galleries"));
+
+        Document galleries = stages.get(2).get("$lookup", Document.class);
+        assertEquals("galleries", galleries.get("from"));
+        assertEquals("contract.galleries.address", galleries.get("localField"));
+        assertEquals("galleryAddress", galleries.get("foreignField"));
+        Document artists = galleries.getList("pipeline", Document.class).get(1).get("$lookup", Document.class);
+        assertEquals("users", artists.get("from"));
+        assertEquals("_id", artists.get("foreignField"));
+        Document artistFields = artists.getList("pipeline", Document.class).get(0).get("$project", Document.class);
+        assertTrue(artistFields.containsKey("username"));
+        assertFalse(artistFields.containsKey("password"));
+        assertEquals("contract.galleries", stages.get(3).get("$unset"));
+    }
+
+    @Test
+    void aggregationOutputMapsOntoThePageModel() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        ObjectId artistId = new ObjectId();
+        Document output = new Document("_id", new ObjectId(CURATOR_ID))
+                .append("profile", new Document("displayName", "North Wing"))
+                .append("galleries", List.of(new Document("_id", new ObjectId())
+                        .append("name", "Dawn")
+                        .append("galleryAddress", "0xabc")
+                        .append("stats", new Document("artistCount", 1).append("totalSales", 2.5))
+                        .append("artists", List.of(new Document("_id", artistId)
+                                .append("username", "painter")
+                                .append("contract", new Document("address", "0xdef"))))));
+
+        CuratorPage page = converter.read(CuratorPage.class, output);
+
+        assertEquals(CURATOR_ID, page.getId());
+        assertEquals("North Wing", page.getProfile().getDisplayName());
+        CuratorPage.Gallery gallery = page.getGalleries().get(0);
+        assertEquals("0xabc", gallery.getGalleryAddress());
+        assertEquals(2.5, gallery.getStats().getTotalSales());
+        assertEquals(artistId.toHexString(), gallery.getArtists().get(0).getId());
+        assertEquals("0xdef", gallery.getArtists().get(0).getContract().getAddress());
+    }
+
+    @Test
+    void curatorContractsShapedByTheNodeSchemaMapOntoThePageModel() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        Document output = new Document("_id", new ObjectId(CURATOR_ID))
+                .append("contract", new Document("network", "sepolia")
+                        .append("galleries", List.of(new Document("address", "0xabc").append("name", "Dawn")
+                                .append("status", "active").append("createdAt", new Date())))
+                        .append("totalRevenue", "12"));
+
+        CuratorPage page = converter.read(CuratorPage.class, output);
+
+        assertEquals("0xabc", page.getContract().getGalleries().get(0).getAddress());
+        assertEquals("active", page.getContract().getGalleries().get(0).getStatus());
+        assertEquals("12", page.getContract().getTotalRevenue());
+    }
+
+    @Test
+    void assembledPageIsCachedUntilTheCuratorChanges() {
+        CuratorPage page = new CuratorPage();
+        CuratorPageService service = service(page, 60_000);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<Mutation>> subscriber = ArgumentCaptor.forClass(Consumer.class);
+        verify(journal).subscribe(eq("curator-page-cache"), anyLong(), subscriber.capture());
+
+        assertSame(page, service.getPage(CURATOR_ID).orElseThrow());
+        assertSame(page, service.getPage(CURATOR_ID).orElseThrow());
+        assertEquals(1, aggregations.get());
+
+        subscriber.getValue().accept(new Mutation(0, 1, 0, "users", CURATOR_ID, Op.UPDATE, new Document()));
+        service.getPage(CURATOR_ID);
+        assertEquals(1, aggregations.get(), "a change to another collection should not evict the page");
+
+        subscriber.getValue().accept(new Mutation(1, 2, 0, "curators", CURATOR_ID, Op.UPDATE, new Document()));
+        service.getPage(CURATOR_ID);
+        assertEquals(2, aggregations.get());
+        assertEquals(2L, service.stats().get("hits"));
+    }
+
+    @Test
+    void expiredPagesAreReassembledAndMissingCuratorsAreNotCached() throws Exception {
+        CuratorPageService service = service(new CuratorPage(), 1);
+        service.getPage(CURATOR_ID);
+        Thread.sleep(5);
+        service.getPage(CURATOR_ID);
+        assertEquals(2, aggregations.get());
+
+        CuratorPageService empty = service(null, 60_000);
+        assertTrue(empty.getPage("missing").isEmpty());
+        assertEquals(0, empty.stats().get("entries"));
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.entities.DeploymentJob;
+import com.example.csihackathonspring.entities.User;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeploymentJobServiceTest {
+
+    private static final long LEASE = 60_000;
+    private static final long BASE_BACKOFF = 2_000;
+    private static final long MAX_BACKOFF = 10_000;
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final EthRpcClient rpc = mock(EthRpcClient.class);
+    private final DeploymentJobService service = new DeploymentJobService(mongoTemplate,
+            mock(MutationJournalService.class), mock(ArchiveService.class), rpc, 1, 4, 100, LEASE, BASE_BACKOFF, MAX_BACKOFF, 5);
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        service.shutdown();
+    }
+
+    private static DeploymentJob job(String id, int attempts) {
+        DeploymentJob job = new DeploymentJob();
+        job.setId(id);
+        job.setUserId("artist-" + id);
+        job.setTransactionHash("0xhash" + id);
+        job.setStatus(DeploymentJob.Status.PENDING);
+        job.setAttempts(attempts);
+        return job;
+    }
+
+    // Serves the given jobs to claim(), stamped with whatever lease the service asked for
+    private void queue(DeploymentJob... jobs) {
+        Deque<DeploymentJob> due = new ArrayDeque<>(List.of(jobs));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(DeploymentJob.class)))
+                .thenAnswer(invocation -> {
+                    DeploymentJob job = due.poll();
+                    if (job != null) {
+                        Document lease = invocation.getArgument(1, Update.class).getUpdateObject().get("$set", Document.class);
+                        job.setStatus(DeploymentJob.Status.CLAIMED);
+                        job.setLeaseOwner(lease.getString("leaseOwner"));
+                        job.setLeaseExpiresAt(lease.getDate("leaseExpiresAt"));
+                    }
+                    return job;
+                });
+    }
+
+    private void jobUpdatesModify(long modified) {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(DeploymentJob.class)))
+                .thenReturn(UpdateResult.acknowledged(modified, modified, null));
+    }
+
+    private List<Document> jobUpdates(int count) {
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(count)).updateFirst(any(Query.class), updates.capture(), eq(DeploymentJob.class));
+        return updates.getAllValues().stream().map(Update::getUpdateObject).toList();
+    }
+
+    @Test
+    void claimLeasesDueAndLapsedJobsUpToTheLimit() {
+        queue(job("a", 0), job("b", 0), job("c", 0));
+
+        long before = System.currentTimeMillis();
+        List<DeploymentJob> claimed = service.claim(2);
+
+        assertEquals(List.of("a", "b"), claimed.stream().map(DeploymentJob::getId).toList());
+        ArgumentCaptor<Query> due = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).findAndModify(due.capture(), any(Update.class), any(FindAndModifyOptions.class), eq(DeploymentJob.class));
+        List<Document> branches = due.getValue().getQueryObject().getList("$or", Document.class);
+        assertEquals(DeploymentJob.Status.PENDING, branches.get(0).get("status"));
+        assertTrue(branches.get(0).get("nextAttemptAt", Document.class).containsKey("$lte"));
+        assertEquals(DeploymentJob.Status.CLAIMED, branches.get(1).get("status"));
+        assertTrue(branches.get(1).get("leaseExpiresAt", Document.class).containsKey("$lt"), "lapsed leases are claimable");
+        assertTrue(claimed.get(0).getLeaseExpiresAt().getTime() >= before + LEASE);
+        assertEquals(claimed.get(0).getLeaseOwner(), claimed.get(1).getLeaseOwner());
+
+        assertEquals(List.of("c"), service.claim(5).stream().map(DeploymentJob::getId).toList());
+    }
+
+    @Test
+    void unminedJobsBackOffExponentiallyThenFail() throws IOException {
+        queue(job("new", 0), job("third", 2), job("capped", 3), job("last", 4));
+        jobUpdatesModify(1);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(User.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        when(rpc.getTransactionReceipts(anyList())).thenReturn(Map.of());
+
+        long before = System.currentTimeMillis();
+        service.process(service.claim(10));
+
+        List<Document> updates = jobUpdates(4);
+        long[] delays = new long[3];
+        for (int i = 0; i < 3; i++) {
+            Document set = updates.get(i).get("$set", Document.class);
+            assertEquals(DeploymentJob.Status.PENDING, set.get("status"));
+            assertEquals(new Document("attempts", 1), updates.get(i).get("$inc"));
+            delays[i] = set.getDate("nextAttemptAt").getTime() - before;
+        }
+        assertTrue(delays[0] >= BASE_BACKOFF && delays[0] < BASE_BACKOFF + 1_000, "first retry " + delays[0]);
+        assertTrue(delays[1] >= 4 * BASE_BACKOFF && delays[1] < 4 * BASE_BACKOFF + 1_000, "third retry " + delays[1]);
+        assertTrue(delays[2] >= MAX_BACKOFF && delays[2] < MAX_BACKOFF + 1_000, "capped retry " + delays[2]);
+
+        Document failed = updates.get(3).get("$set", Document.class);
+        assertEquals(DeploymentJob.Status.FAILED, failed.get("status"));
+        assertEquals("Not mined after 5 polls", failed.get("lastError"));
+        ArgumentCaptor<Update> contract = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), contract.capture(), eq(User.class));
+        assertEquals("failed", contract.getValue().getUpdateObject().get("$set", Document.class).get("contract.deploymentStatus"));
+    }
+
+    @Test
+    void rpcFailureRetriesTheWholeBatch() throws IOException {
+        queue(job("a", 0), job("b", 1));
+        jobUpdatesModify(1);
+        when(rpc.getTransactionReceipts(anyList())).thenThrow(new IOException("connection reset"));
+
+        service.process(service.claim(10));
+
+        for (Document update : jobUpdates(2)) {
+            assertEquals("connection reset", update.get("$set", Document.class).get("lastError"));
+            assertTrue(update.get("$unset", Document.class).containsKey("leaseOwner"));
+        }
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(User.class));
+    }
+
+    @Test
+    void onlyTheCurrentLeaseHolderMayCompleteAndTouchTheUser() throws IOException {
+        queue(job("mined", 0));
+        List<DeploymentJob> batch = service.claim(10);
+        when(rpc.getTransactionReceipts(anyList())).thenReturn(
+                Map.of("0xhashmined", new EthRpcClient.Receipt(true, "0xcontract", 12)));
+
+        // The lease lapsed and another worker claimed the job, so the fenced update matches nothing
+        jobUpdatesModify(0);
+        service.process(batch);
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(User.class));
+
+        ArgumentCaptor<Query> fence = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(fence.capture(), any(Update.class), eq(DeploymentJob.class));
+        Document match = fence.getValue().getQueryObject();
+        assertEquals(batch.get(0).getLeaseOwner(), match.get("leaseOwner"));
+        assertEquals(batch.get(0).getLeaseExpiresAt(), match.get("leaseExpiresAt"));
+
+        jobUpdatesModify(1);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(User.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        service.process(batch);
+        ArgumentCaptor<Update> contract = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), contract.capture(), eq(User.class));
+        Document set = contract.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals("deployed", set.get("contract.deploymentStatus"));
+        assertEquals("0xcontract", set.get("contract.address"));
+        assertTrue(set.get("contract.deploymentDate") instanceof Date);
+        assertEquals(new Document("version", 1), contract.getValue().getUpdateObject().get("$inc"));
+    }
+
+    @Test
+    void resubmittedTransactionsReturnTheTrackedJob() {
+        when(mongoTemplate.exists(any(Query.class), eq(User.class))).thenReturn(true);
+        when(mongoTemplate.insert(any(DeploymentJob.class))).thenThrow(new DuplicateKeyException("transaction_hash"));
+        DeploymentJob tracked = job("tracked", 3);
+        when(mongoTemplate.findOne(any(Query.class), eq(DeploymentJob.class))).thenReturn(tracked);
+
+        assertSame(tracked, service.enqueue("artist-tracked", "0xhashtracked"));
+        // Left alone: the contract may already have moved past pending
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(User.class));
+        assertThrows(IllegalArgumentException.class, () -> service.enqueue("someone-else", "0xhashtracked"));
+    }
+
+    @Test
+    void unknownUsersAreRefusedBeforeAnythingIsWritten() {
+        assertThrows(NoSuchElementException.class, () -> service.enqueue("ghost", "0xhash"));
+        verify(mongoTemplate, never()).insert(any(DeploymentJob.class));
+    }
+}
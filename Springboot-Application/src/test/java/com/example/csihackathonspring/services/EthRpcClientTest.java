@@ -0,0 +1,86 @@
+package com.example.csihackathonspring.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs against a local Hardhat node with automining, e.g.
+ * HARDHAT_RPC_URL=http://127.0.0.1:8545 after "npx hardhat node". The Gallery
+ * test also needs "npx hardhat compile" to have produced the contract artifacts.
+ */
+@EnabledIfEnvironmentVariable(named = "HARDHAT_RPC_URL", matches = ".+")
+class EthRpcClientTest {
+
+    // Init code that deploys an empty contract: returns zero bytes of runtime code
+    private static final String EMPTY_CONTRACT = "0x6080604052348015600f57600080fd5b50600080f3";
+
+    private final EthRpcClient rpc = new EthRpcClient(new ObjectMapper(), System.getenv("HARDHAT_RPC_URL"), 10_000);
+
+    @Test
+    void batchedReceiptPollReturnsDeployedContracts() throws Exception {
+        String from = rpc.call("eth_accounts").get(0).asText();
+        List<String> hashes = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            JsonNode hash = rpc.call("eth_sendTransaction", Map.of("from", from, "data", EMPTY_CONTRACT, "gas", "0x100000"));
+            hashes.add(hash.asText());
+        }
+        String unknown = "0x" + "0".repeat(63) + "1";
+        hashes.add(unknown);
+
+        Map<String, EthRpcClient.Receipt> receipts = rpc.getTransactionReceipts(hashes);
+
+        assertEquals(5, receipts.size());
+        assertFalse(receipts.containsKey(unknown));
+        for (String hash : hashes.subList(0, 5)) {
+            EthRpcClient.Receipt receipt = receipts.get(hash);
+            assertTrue(receipt.isSuccess());
+            assertNotNull(receipt.getContractAddress());
+            assertTrue(receipt.getBlockNumber() > 0);
+        }
+    }
+
+    @Test
+    void galleryDetailsAreReadInOneBatch() throws Exception {
+        Path artifact = Path.of("../artifacts/contracts/Gallery.sol/Gallery.json");
+        assumeTrue(Files.exists(artifact), "run npx hardhat compile first");
+        String bytecode = new ObjectMapper().readTree(artifact.toFile()).get("bytecode").asText();
+        String from = rpc.call("eth_accounts").get(0).asText();
+
+        List<String> galleries = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            // constructor(string name, string description, address curator, address artBlock)
+            String args = word(BigInteger.valueOf(0x80)) + word(BigInteger.valueOf(0xc0))
+                    + word(new BigInteger(from.substring(2), 16)) + word(BigInteger.ONE)
+                    + word(BigInteger.ONE) + String.format("%-64s", "47").replace(' ', '0')
+                    + word(BigInteger.ONE) + String.format("%-64s", "44").replace(' ', '0');
+            String hash = rpc.call("eth_sendTransaction", Map.of("from", from, "data", bytecode + args, "gas", "0x300000")).asText();
+            galleries.add(rpc.getTransactionReceipts(List.of(hash)).get(hash).getContractAddress());
+        }
+        rpc.call("eth_sendTransaction", Map.of("from", from, "to", galleries.get(1), "value", "0x2710"));
+
+        List<String> results = rpc.ethCallBatch(galleries, RevenueReconciliationService.GET_GALLERY_DETAILS);
+
+        assertEquals(BigInteger.ZERO, RevenueReconciliationService.word(results.get(0), 3));
+        assertEquals(BigInteger.valueOf(10_000), RevenueReconciliationService.word(results.get(1), 3));
+        assertEquals(BigInteger.valueOf(10_000), RevenueReconciliationService.word(results.get(1), 4));
+    }
+
+    private static String word(BigInteger value) {
+        return String.format("%64s", value.toString(16)).replace(' ', '0');
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.csihackathonspring.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FollowGraphTest {
+
+    @Test
+    void edgesAreKeptSortedAndMirroredInBothDirections() {
+        FollowGraph graph = new FollowGraph();
+        int fan = graph.intern("fan");
+        int c = graph.intern("c");
+        int a = graph.intern("a");
+        int b = graph.intern("b");
+        assertEquals(fan, graph.intern("fan"));
+        assertEquals(-1, graph.lookup("never-followed"));
+        assertEquals("a", graph.name(a));
+
+        assertTrue(graph.add(fan, c));
+        assertTrue(graph.add(fan, a));
+        assertTrue(graph.add(fan, b));
+        assertFalse(graph.add(fan, a), "duplicate edges are ignored");
+        assertTrue(graph.add(a, c));
+
+        assertArrayEquals(new int[] { c, a, b }, graph.following(fan));
+        assertArrayEquals(new int[] { fan, a }, graph.followers(c));
+        assertTrue(graph.contains(fan, b));
+        assertFalse(graph.contains(b, fan));
+
+        assertTrue(graph.remove(fan, a));
+        assertFalse(graph.remove(fan, a));
+        assertArrayEquals(new int[] { c, b }, graph.following(fan));
+        assertArrayEquals(new int[0], graph.followers(a));
+        assertEquals(2, graph.followingCount(fan));
+        assertEquals(2, graph.followersCount(c));
+    }
+
+    @Test
+    void growsPastItsInitialCapacityAndMatchesASetModel() {
+        FollowGraph graph = new FollowGraph();
+        int nodes = 5_000;
+        for (int i = 0; i < nodes; i++) {
+            assertEquals(i, graph.intern("id" + i));
+        }
+        assertEquals(nodes, graph.size());
+
+        @SuppressWarnings("unchecked")
+        TreeSet<Integer>[] following = new TreeSet[nodes];
+        for (int i = 0; i < nodes; i++) {
+            following[i] = new TreeSet<>();
+        }
+        int[] followers = new int[nodes];
+        SplittableRandom random = new SplittableRandom(7);
+        for (int step = 0; step < 200_000; step++) {
+            // A small set of followers keeps adjacency lists long enough to regrow several times
+            int from = random.nextInt(50);
+            int to = random.nextInt(nodes);
+            if (random.nextInt(3) == 0) {
+                boolean removed = following[from].remove(to);
+                assertEquals(removed, graph.remove(from, to));
+                followers[to] -= removed ? 1 : 0;
+            } else {
+                boolean added = following[from].add(to);
+                assertEquals(added, graph.add(from, to));
+                followers[to] += added ? 1 : 0;
+            }
+        }
+        for (int i = 0; i < 50; i++) {
+            assertArrayEquals(following[i].stream().mapToInt(Integer::intValue).toArray(), graph.following(i));
+        }
+        for (int i = 0; i < nodes; i++) {
+            assertEquals(followers[i], graph.followersCount(i));
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.entities.Follow;
+import com.example.csihackathonspring.entities.Investor;
+import com.example.csihackathonspring.entities.Transaction;
+import com.example.csihackathonspring.entities.User;
+import com.example.csihackathonspring.repositories.FollowRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FollowServiceTest {
+
+    private final FollowRepository followRepository = mock(FollowRepository.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final MongoOperations primary = mock(MongoOperations.class);
+    private final SearchService searchService = mock(SearchService.class);
+
+    @SuppressWarnings("unchecked")
+    private FollowService service() {
+        ReadRoutingService readRouting = mock(ReadRoutingService.class);
+        when(readRouting.write(any(Function.class))).thenAnswer(invocation ->
+                ((Function<MongoOperations, Object>) invocation.getArgument(0)).apply(primary));
+        return new FollowService(followRepository, mongoTemplate, readRouting,
+                mock(MutationJournalService.class), searchService, mock(ArchiveService.class), 20, 30, 10_000);
+    }
+
+    private static User user(String id, String wallet) {
+        User user = new User();
+        user.setId(id);
+        user.setWalletAddress(wallet);
+        return user;
+    }
+
+    private static Follow edge(String follower, String followee) {
+        Follow edge = new Follow();
+        edge.setFollowerId(follower);
+        edge.setFolloweeId(followee);
+        return edge;
+    }
+
+    private static Transaction sale(String seller, long createdAt) {
+        Transaction sale = new Transaction();
+        sale.setId("sale-" + seller + '-' + createdAt);
+        sale.setSeller(seller);
+        sale.setPrice("1000");
+        sale.setCreatedAt(new Date(createdAt));
+        return sale;
+    }
+
+    // Feeds the startup load and first sales poll from in-memory users, edges and sales
+    private FollowService loaded(List<User> users, List<Follow> edges, List<Transaction> sales) {
+        return loaded(users, edges, sales, List.of());
+    }
+
+    // As above, with the stored user documents whose counts the resync checks against the edges
+    private FollowService loaded(List<User> users, List<Follow> edges, List<Transaction> sales, List<Document> stored) {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        when(mongoTemplate.getCollectionName(User.class)).thenReturn("users");
+        when(mongoTemplate.getCollectionName(Investor.class)).thenReturn("investors");
+        when(mongoTemplate.indexOps(Follow.class)).thenReturn(mock(IndexOperations.class));
+        when(mongoTemplate.stream(any(Query.class), eq(User.class))).thenAnswer(invocation -> users.stream());
+        when(mongoTemplate.stream(any(Query.class), eq(Follow.class))).thenAnswer(invocation -> edges.stream());
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("users"))).thenAnswer(invocation -> stored.stream());
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("investors"))).thenAnswer(invocation -> Stream.empty());
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class))).thenReturn(sales);
+        FollowService service = service();
+        service.load();
+        return service;
+    }
+
+    @Test
+    void unknownAccountsAreRejectedBeforeAnyEdgeIsPersisted() {
+        when(mongoTemplate.exists(any(Query.class), eq(User.class))).thenAnswer(invocation ->
+                invocation.getArgument(0, Query.class).getQueryObject().get("_id").equals("artist"));
+        FollowService service = service();
+
+        assertThrows(NoSuchElementException.class, () -> service.follow("ghost", "artist"));
+        assertThrows(NoSuchElementException.class, () -> service.follow("artist", "ghost"));
+        verify(followRepository, never()).insert(any(Follow.class));
+        assertEquals(List.of(), service.getFollowing("ghost"));
+    }
+
+    @Test
+    void countersMoveByOneOnlyWhenThisInstanceChangedThePersistedEdge() {
+        when(mongoTemplate.exists(any(Query.class), eq(User.class))).thenReturn(true);
+        User artist = user("artist", null);
+        when(primary.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(User.class)))
+                .thenReturn(artist);
+        when(followRepository.insert(any(Follow.class)))
+                .thenReturn(new Follow())
+                .thenThrow(new DuplicateKeyException("follows_pair"));
+        when(followRepository.deleteByFollowerIdAndFolloweeId("fan", "artist")).thenReturn(1L, 0L);
+        FollowService service = service();
+
+        assertTrue(service.follow("fan", "artist"));
+        assertFalse(service.follow("fan", "artist"), "another instance already persisted it");
+        assertEquals(1, service.getFollowersCount("artist"));
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(primary, times(2)).findAndModify(any(Query.class), updates.capture(), any(FindAndModifyOptions.class), eq(User.class));
+        assertEquals("{\"$inc\": {\"profile.followingCount\": 1, \"version\": 1}}", updates.getAllValues().get(0).getUpdateObject().toJson());
+        assertEquals("{\"$inc\": {\"profile.followersCount\": 1, \"version\": 1}}", updates.getAllValues().get(1).getUpdateObject().toJson());
+        verify(searchService).index(artist);
+
+        assertTrue(service.unfollow("fan", "artist"));
+        assertFalse(service.unfollow("fan", "artist"));
+        verify(primary, times(4)).findAndModify(any(Query.class), updates.capture(), any(FindAndModifyOptions.class), eq(User.class));
+        assertEquals("{\"$inc\": {\"profile.followersCount\": -1, \"version\": 1}}", updates.getAllValues().get(5).getUpdateObject().toJson());
+        verify(primary, times(2)).findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Investor.class));
+        assertEquals(0, service.getFollowersCount("artist"));
+    }
+
+    @Test
+    void feedMatchesSalesWhateverTheSellerWalletCasing() {
+        FollowService service = loaded(
+                List.of(user("artist", "0x71C7656EC7ab88b098defB751B7401B5f6d8976F"), user("other", "0x5fbdb2315678afecb367f032d93f642f64180aa3")),
+                List.of(edge("fan", "artist"), edge("fan", "other")),
+                List.of(sale("0x71c7656ec7ab88b098defb751b7401b5f6d8976f", 1_000),
+                        sale("0x5FbDB2315678afecb367f032d93F642f64180aa3", 2_000),
+                        sale("0x71C7656EC7AB88B098DEFB751B7401B5F6D8976F", 3_000)));
+
+        List<Transaction> feed = service.getFeed("fan", 10);
+
+        assertEquals(List.of(3_000L, 2_000L, 1_000L), feed.stream().map(t -> t.getCreatedAt().getTime()).toList());
+
+        // The next poll re-reads the overlap window, which now also holds a sale that committed late
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class))).thenReturn(List.of(
+                sale("0x71c7656ec7ab88b098defb751b7401b5f6d8976f", 1_000),
+                sale("0x5FbDB2315678afecb367f032d93F642f64180aa3", 2_000),
+                sale("0x5fbdb2315678afecb367f032d93f642f64180aa3", 2_500),
+                sale("0x71C7656EC7AB88B098DEFB751B7401B5F6D8976F", 3_000)));
+        service.pollSales();
+
+        assertEquals(List.of(3_000L, 2_500L, 2_000L, 1_000L),
+                service.getFeed("fan", 10).stream().map(t -> t.getCreatedAt().getTime()).toList());
+        ArgumentCaptor<Query> poll = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(poll.capture(), eq(Transaction.class));
+        // Nothing newer than the load-time watermark arrived, so the window did not move
+        assertEquals(poll.getAllValues().get(0).getQueryObject(), poll.getAllValues().get(1).getQueryObject());
+    }
+
+    @Test
+    void resyncRewritesStoredCountsThatDisagreeWithTheEdges() {
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class)).thenReturn(bulk);
+        FollowService service = loaded(List.of(), List.of(edge("fan", "artist"), edge("critic", "artist")), List.of(), List.of(
+                new Document("_id", "artist").append("username", "artist")
+                        .append("profile", new Document("followersCount", 7).append("followingCount", 0)),
+                new Document("_id", "fan").append("username", "fan"),
+                new Document("_id", "idle").append("username", "idle").append("profile", new Document("followersCount", 0))));
+
+        ArgumentCaptor<Query> guards = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(2)).updateOne(guards.capture(), updates.capture());
+        verify(bulk).execute();
+        assertEquals(new Document("_id", "artist").append("profile.followersCount", 7), guards.getAllValues().get(0).getQueryObject());
+        assertEquals(new Document("profile.followersCount", 2), updates.getAllValues().get(0).getUpdateObject().get("$set"));
+        // A count that was never stored is guarded on its absence
+        assertEquals(new Document("_id", "fan").append("profile.followingCount", null), guards.getAllValues().get(1).getQueryObject());
+        assertEquals(new Document("profile.followingCount", 1), updates.getAllValues().get(1).getUpdateObject().get("$set"));
+        verify(searchService, times(2)).index(any(User.class));
+        assertEquals(2, service.getFollowersCount("artist"));
+    }
+
+    @Test
+    void edgesWrittenByOtherInstancesArriveThroughThePoll() {
+        FollowService service = loaded(List.of(), List.of(), List.of());
+        Follow elsewhere = edge("fan", "artist");
+        elsewhere.setCreatedAt(new Date());
+        when(mongoTemplate.find(any(Query.class), eq(Follow.class))).thenReturn(List.of(elsewhere));
+
+        service.pollEdges();
+        service.pollEdges();
+
+        assertEquals(List.of("fan"), service.getFollowers("artist"));
+        assertEquals(1, service.getFollowingCount("fan"));
+    }
+
+    // Feed latency for a reader following 5k artists with full sales histories; run with mvn -Pbenchmark test
+    @Test
+    @Tag("benchmark")
+    void feedOverFiveThousandFollowsStaysUnderTenMilliseconds() {
+        int artists = 5_000;
+        List<User> users = new ArrayList<>();
+        List<Follow> edges = new ArrayList<>();
+        List<Transaction> sales = new ArrayList<>();
+        for (int a = 0; a < artists; a++) {
+            String wallet = String.format("0x%040x", a);
+            users.add(user("artist" + a, wallet));
+            edges.add(edge("fan", "artist" + a));
+        }
+        for (int s = 0; s < artists * 20; s++) {
+            sales.add(sale(String.format("0x%040x", (s * 7919) % artists), s));
+        }
+        FollowService service = loaded(users, edges, sales);
+        assertEquals(50, service.getFeed("fan", 50).size());
+
+        long[] nanos = new long[2_000];
+        for (int i = 0; i < 500; i++) {
+            service.getFeed("fan", 50);
+        }
+        for (int i = 0; i < nanos.length; i++) {
+            long start = System.nanoTime();
+            service.getFeed("fan", 50);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        long p99 = nanos[nanos.length * 99 / 100];
+        System.out.printf("feed over %d follows: p50 %d us, p99 %d us%n",
+                artists, nanos[nanos.length / 2] / 1_000, p99 / 1_000);
+        assertTrue(p99 < 10_000_000, "p99 " + p99 + " ns");
+    }
+}
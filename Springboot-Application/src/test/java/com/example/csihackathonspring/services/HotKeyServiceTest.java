@@ -0,0 +1,116 @@
+package com.example.csihackathonspring.services;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HotKeyServiceTest {
+
+    private static HotKeyService service(MongoTemplate mongoTemplate, ReadRoutingService readRouting, int sampleRate) {
+        return new HotKeyService(mongoTemplate, readRouting, true, sampleRate, 8192, 4, 50, 4, 5_000);
+    }
+
+    @Test
+    void leadersOfASkewedStreamAreFoundWithBoundedOvercount() {
+        HeavyHitters sketch = new HeavyHitters(4096, 4, 20);
+        int keys = 20_000;
+        int[] truth = new int[keys];
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < 500_000; i++) {
+            // Roughly Zipfian: key k is drawn with probability proportional to 1 / (k + 1)
+            int key = (int) Math.min(keys - 1, Math.exp(random.nextDouble() * Math.log(keys)) - 1);
+            truth[key]++;
+            sketch.add("users/id/" + key, 1);
+        }
+
+        List<String> leaders = sketch.top().stream().limit(5).map(HeavyHitters.Entry::key).collect(Collectors.toList());
+        assertEquals(List.of("users/id/0", "users/id/1", "users/id/2", "users/id/3", "users/id/4"), leaders);
+        long slack = 4 * sketch.total() / 4096;
+        for (int key = 0; key < 50; key++) {
+            long estimate = sketch.estimate("users/id/" + key);
+            assertTrue(estimate >= truth[key] && estimate <= truth[key] + slack,
+                    "key " + key + " estimate " + estimate + " vs " + truth[key]);
+        }
+
+        long before = sketch.estimate("users/id/0");
+        sketch.decay();
+        assertEquals(before / 2, sketch.estimate("users/id/0"), 1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void snapshotIsPrefetchedInParallelByTheNextInstance() {
+        MongoTemplate first = mock(MongoTemplate.class);
+        HotKeyService running = service(first, mock(ReadRoutingService.class), 1);
+        for (int i = 0; i < 100; i++) {
+            running.sample("users", "id", "hot");
+            running.sample("curators", "username", "gallery" + (i % 3));
+        }
+        running.sample("investors", "id", "cold");
+        assertEquals(new HotKeyService.HotKey("users", "id", "hot", 100), running.top(1).get(0));
+
+        running.snapshot();
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(first).upsert(any(Query.class), update.capture(), eq("hot_keys"));
+        Document snapshot = update.getValue().getUpdateObject().get("$set", Document.class);
+
+        MongoTemplate second = mock(MongoTemplate.class);
+        when(second.findById("latest", Document.class, "hot_keys")).thenReturn(snapshot);
+        AtomicInteger reads = new AtomicInteger();
+        ReadRoutingService readRouting = mock(ReadRoutingService.class);
+        when(readRouting.read(any(Function.class))).thenAnswer(invocation -> {
+            reads.incrementAndGet();
+            return null;
+        });
+        HotKeyService restarted = service(second, readRouting, 1);
+        restarted.prefetch();
+
+        assertEquals(5, reads.get());
+        Map<String, Object> prefetch = (Map<String, Object>) restarted.stats().get("lastPrefetch");
+        assertEquals(5, prefetch.get("fetched"));
+        assertEquals("hot", restarted.top(1).get(0).value(), "snapshot counts should carry over");
+    }
+
+    // Per-lookup cost at the default sampling rate and when every call is counted; run with mvn -Pbenchmark test
+    @Test
+    @Tag("benchmark")
+    void samplingCostsWellUnderAMicrosecondPerLookup() {
+        String[] ids = new String[4096];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = Integer.toHexString(0x652f0000 + i * 31);
+        }
+        for (int rate : new int[]{16, 1}) {
+            HotKeyService service = service(mock(MongoTemplate.class), mock(ReadRoutingService.class), rate);
+            int calls = 4_000_000;
+            for (int i = 0; i < calls; i++) {
+                service.sample("users", "id", ids[(i * 7) & (ids.length - 1)]);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                service.sample("users", "id", ids[(i * 7) & (ids.length - 1)]);
+            }
+            double nanos = (System.nanoTime() - start) / (double) calls;
+            System.out.printf("hot key sampling at 1/%d: %.1f ns per lookup%n", rate, nanos);
+            assertTrue(nanos < (rate == 1 ? 1_000 : 250), "sampling cost " + nanos + " ns at 1/" + rate);
+        }
+    }
+}
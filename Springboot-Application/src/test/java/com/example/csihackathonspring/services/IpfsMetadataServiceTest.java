@@ -0,0 +1,242 @@
+package com.example.csihackathonspring.services;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IpfsMetadataServiceTest {
+
+    private static final String CID = "QmYwAPJzv5CZsnA625s3Xf2nemtYgPpHdWEz79ojWnPbdG";
+    // What "echo 'hello world' | ipfs add" prints
+    private static final String HELLO_CID = "QmT78zSuBmuS4z925WZfrqQ1qHaJ56DQaTfyMUF7F8ff5o";
+
+    @TempDir
+    Path cacheDir;
+
+    // Stand-in gateway serving /ipfs/<key> from a map and counting requests per key
+    private HttpServer gateway;
+    private final ConcurrentHashMap<String, String> documents = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    // Keys served with chunked encoding, so no Content-Length announces their size
+    private final Set<String> chunked = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void startGateway() throws IOException {
+        gateway = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        gateway.createContext("/ipfs/", exchange -> {
+            String key = exchange.getRequestURI().getPath().substring("/ipfs/".length());
+            requests.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+            String document = documents.get(key);
+            byte[] body = document == null ? new byte[0] : document.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(document == null ? 404 : 200, document == null ? -1 : chunked.contains(key) ? 0 : body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        gateway.start();
+    }
+
+    @AfterEach
+    void stopGateway() {
+        gateway.stop(0);
+    }
+
+    private IpfsMetadataService service() {
+        String url = "http://127.0.0.1:" + gateway.getAddress().getPort() + "/ipfs/";
+        return new IpfsMetadataService(url, cacheDir, 4096, 1024, 2048, 2_000, 4, 200);
+    }
+
+    // CIDv1, base16, raw codec, sha2-256: the one form whose digest is simply the document's hash
+    private static String rawCid(String document) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(document.getBytes(StandardCharsets.UTF_8));
+            return "f01551220" + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String metadata(int i) {
+        return "{\"name\":\"Artwork " + i + "\",\"image\":\"ipfs://" + CID + "/" + i + ".png\"}";
+    }
+
+    @Test
+    void cachedReadsNeverReachTheGateway() throws IOException {
+        String cid = rawCid(metadata(0));
+        documents.put(cid, metadata(0));
+        IpfsMetadataService service = service();
+
+        byte[] first = service.get(cid);
+        byte[] again = service.get("ipfs://" + cid);
+        byte[] viaGatewayUrl = service.get("https://gateway.pinata.cloud/ipfs/" + cid);
+
+        assertArrayEquals(metadata(0).getBytes(StandardCharsets.UTF_8), first);
+        assertArrayEquals(first, again);
+        assertArrayEquals(first, viaGatewayUrl);
+        assertEquals(1, requests.get(cid).get());
+        assertEquals(1, service.stats().getGatewayFetches());
+        assertEquals(2, service.stats().getHeapHits());
+        service.close();
+    }
+
+    @Test
+    void entriesSurviveRestartAndRollAcrossSegments() throws IOException {
+        List<String> uris = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            documents.put(CID + "/" + i + ".json", metadata(i));
+            uris.add("ipfs://" + CID + "/" + i + ".json");
+        }
+        IpfsMetadataService warm = service();
+        IpfsMetadataService.PrefetchResult result = warm.prefetch(uris);
+        assertEquals(100, result.getFetched());
+        assertTrue(result.getFailed().isEmpty());
+        assertTrue(warm.stats().getBytesOnDisk() > 4096, "100 documents should span several 4 KB segments");
+        assertTrue(warm.stats().getHeapBytes() <= 1024, "heap LRU stays within its byte budget");
+        warm.close();
+
+        gateway.stop(0);
+        IpfsMetadataService cold = service();
+        for (int i = 0; i < 100; i++) {
+            assertArrayEquals(metadata(i).getBytes(StandardCharsets.UTF_8), cold.get(uris.get(i)));
+        }
+        assertEquals(0, cold.stats().getGatewayFetches());
+        assertEquals(100, cold.stats().getDiskHits());
+        assertEquals(0, cold.prefetch(uris).getFetched());
+        cold.close();
+    }
+
+    @Test
+    void missingDocumentsAreNotCached() throws IOException {
+        String cid = rawCid(metadata(1));
+        IpfsMetadataService service = service();
+        assertThrows(IOException.class, () -> service.get(cid));
+        documents.put(cid, metadata(1));
+        assertArrayEquals(metadata(1).getBytes(StandardCharsets.UTF_8), service.get(cid));
+        assertEquals(2, requests.get(cid).get());
+        assertThrows(IllegalArgumentException.class, () -> service.get("../../etc/passwd"));
+        service.close();
+    }
+
+    @Test
+    void gatewayBytesThatDoNotHashToTheCidAreNeverCached() throws IOException {
+        String cid = rawCid(metadata(2));
+        documents.put(cid, metadata(3));
+        documents.put(HELLO_CID, "hello world\n");
+        IpfsMetadataService service = service();
+
+        assertThrows(IOException.class, () -> service.get(cid));
+        assertThrows(IOException.class, () -> service.get(cid));
+        assertEquals(2, requests.get(cid).get());
+        assertEquals(2, service.stats().getRejectedFetches());
+
+        // A v0 CID covers the UnixFS node wrapping the bytes, which is rebuilt and hashed
+        assertArrayEquals("hello world\n".getBytes(StandardCharsets.UTF_8), service.get(HELLO_CID));
+        documents.put(HELLO_CID, "hello world?");
+        service.evict(HELLO_CID);
+        assertThrows(IOException.class, () -> service.get(HELLO_CID));
+        assertEquals(3, service.stats().getRejectedFetches());
+        service.close();
+    }
+
+    @Test
+    void evictedDocumentsAreFetchedAgainEvenAfterARestart() throws IOException {
+        String uri = "ipfs://" + CID + "/7.json";
+        documents.put(CID + "/7.json", metadata(7));
+        IpfsMetadataService service = service();
+        service.get(uri);
+        documents.put(CID + "/7.json", metadata(8));
+
+        assertTrue(service.evict(uri));
+        assertFalse(service.evict(uri));
+        service.close();
+
+        IpfsMetadataService restarted = service();
+        assertEquals(0, restarted.stats().getEntries());
+        assertArrayEquals(metadata(8).getBytes(StandardCharsets.UTF_8), restarted.get(uri));
+        assertEquals(2, requests.get(CID + "/7.json").get());
+        restarted.close();
+    }
+
+    @Test
+    void keysAndPrefetchBatchesAreBounded() throws IOException {
+        IpfsMetadataService service = service();
+        assertThrows(IllegalArgumentException.class, () -> service.get(CID.substring(0, 20)));
+        assertThrows(IllegalArgumentException.class, () -> service.get("bafybeigdyrzt5sfp7udm7hu76uh7y26nf3efuylqabf3oclgtqy55fbzd!"));
+        assertThrows(IllegalArgumentException.class, () -> service.get(CID + "/" + "a".repeat(600)));
+        assertThrows(IllegalArgumentException.class, () -> service.prefetch(Collections.nCopies(201, CID)));
+        assertEquals("bafybeigdyrzt5sfp7udm7hu76uh7y26nf3efuylqabf3oclgtqy55fbzdi",
+                IpfsMetadataService.toKey("https://ipfs.io/ipfs/bafybeigdyrzt5sfp7udm7hu76uh7y26nf3efuylqabf3oclgtqy55fbzdi/"));
+        service.close();
+
+        try (MetadataSegmentStore store = new MetadataSegmentStore(cacheDir.resolve("raw"), 65_536)) {
+            assertThrows(IllegalArgumentException.class, () -> store.put("k".repeat(Short.MAX_VALUE + 1), new byte[1]));
+            assertEquals(0, store.size());
+        }
+    }
+
+    @Test
+    void oversizedDocumentsAreRefusedWithOrWithoutAContentLength() throws IOException {
+        String declared = CID + "/declared.json";
+        String streamed = CID + "/streamed.json";
+        documents.put(declared, "x".repeat(10_000));
+        documents.put(streamed, "y".repeat(10_000));
+        chunked.add(streamed);
+        documents.put(CID + "/exact.json", "z".repeat(2048));
+        chunked.add(CID + "/exact.json");
+        IpfsMetadataService service = service();
+
+        assertThrows(IOException.class, () -> service.get("ipfs://" + declared));
+        assertThrows(IOException.class, () -> service.get("ipfs://" + streamed));
+        assertEquals(2048, service.get("ipfs://" + CID + "/exact.json").length);
+        assertEquals(1, service.stats().getEntries());
+        service.close();
+    }
+
+    @Test
+    void removalsAreCompactedAwayAndStayRemovedAfterReopening() throws IOException {
+        Path dir = cacheDir.resolve("compacted");
+        byte[] value = new byte[200];
+        try (MetadataSegmentStore store = new MetadataSegmentStore(dir, 4096)) {
+            for (int round = 0; round < 20; round++) {
+                for (int i = 0; i < 10; i++) {
+                    store.put("churn-" + i, value);
+                }
+                for (int i = 0; i < 10; i++) {
+                    store.remove("churn-" + i);
+                }
+            }
+            store.put("kept", metadata(4).getBytes(StandardCharsets.UTF_8));
+            // 200 puts and removes would fill over a dozen segments without compaction
+            assertTrue(store.bytesOnDisk() <= 3 * 4096, "on disk " + store.bytesOnDisk());
+            assertTrue(store.deadBytes() <= store.bytesOnDisk());
+        }
+        try (MetadataSegmentStore reopened = new MetadataSegmentStore(dir, 4096)) {
+            assertEquals(1, reopened.size());
+            assertArrayEquals(metadata(4).getBytes(StandardCharsets.UTF_8), reopened.get("kept"));
+            assertFalse(reopened.contains("churn-3"));
+        }
+    }
+}
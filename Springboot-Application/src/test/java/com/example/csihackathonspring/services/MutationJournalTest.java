@@ -0,0 +1,310 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.entities.User;
+import com.example.csihackathonspring.services.MutationJournal.Mutation;
+import com.example.csihackathonspring.services.MutationJournal.Op;
+import org.bson.Document;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MutationJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private static Document profile(String username, int followers) {
+        return new Document("_id", "u1").append("username", username)
+                .append("profile", new Document("followersCount", followers).append("bio", "painter"));
+    }
+
+    @Test
+    void replaysFromAnyOffsetAcrossSegmentsAndReopen() throws Exception {
+        long second;
+        try (MutationJournal journal = new MutationJournal(dir, 4096)) {
+            journal.append(1, "users", "u1", Op.INSERT, profile("alice", 0));
+            second = journal.append(2, "users", "u1", Op.UPDATE, new Document("$set", new Document("profile.followersCount", 1)));
+            for (int i = 0; i < 100; i++) {
+                journal.append(3 + i, "investors", "i" + i, Op.UPDATE, new Document("$set", new Document("note", "x".repeat(40))));
+            }
+            long last = journal.append(200, "curators", "c1", Op.DELETE, null);
+            journal.awaitCommitted(last, 5, TimeUnit.SECONDS);
+
+            List<Mutation> all = journal.read(0, 1_000);
+            assertEquals(103, all.size());
+            assertTrue(journal.bytesOnDisk() > 4096, "expected the journal to roll onto a second segment");
+            assertEquals("alice", all.get(0).delta().getEmbedded(List.of("username"), String.class));
+            assertEquals(Op.DELETE, all.get(102).op());
+            assertNull(all.get(102).delta());
+
+            List<Mutation> fromSecond = journal.read(second, 2);
+            assertEquals(Op.UPDATE, fromSecond.get(0).op());
+            assertEquals(1, ((Document) fromSecond.get(0).delta().get("$set")).get("profile.followersCount"));
+            assertEquals(fromSecond.get(0).nextOffset(), fromSecond.get(1).offset());
+        }
+
+        try (MutationJournal reopened = new MutationJournal(dir, 4096)) {
+            assertEquals(103, reopened.read(0, 1_000).size());
+            long next = reopened.append(300, "users", "u2", Op.INSERT, profile("bob", 0));
+            reopened.awaitCommitted(next, 5, TimeUnit.SECONDS);
+            List<Mutation> tail = reopened.read(next, 10);
+            assertEquals(1, tail.size());
+            assertEquals("u2", tail.get(0).id());
+        }
+    }
+
+    @Test
+    void tornRecordIsNotReadBack() throws Exception {
+        long end;
+        try (MutationJournal journal = new MutationJournal(dir, 4096)) {
+            long offset = journal.append(1, "users", "u1", Op.INSERT, profile("alice", 0));
+            end = journal.awaitCommitted(offset, 5, TimeUnit.SECONDS);
+        }
+        // A crash after the body was copied but before the magic word was written
+        try (FileChannel channel = FileChannel.open(dir.resolve("00000000.log"), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, 4096);
+            buffer.putInt((int) end + 4, 64).putLong((int) end + 8, 2L);
+            buffer.force();
+        }
+        try (MutationJournal reopened = new MutationJournal(dir, 4096)) {
+            assertEquals(end, reopened.committedOffset());
+            assertEquals(1, reopened.read(0, 10).size());
+        }
+    }
+
+    @Test
+    void misalignedOffsetsAreRejectedInsteadOfSkippingTheSegment() throws Exception {
+        try (MutationJournal journal = new MutationJournal(dir, 4096)) {
+            journal.append(1, "users", "u1", Op.INSERT, profile("alice", 0));
+            long second = journal.append(2, "users", "u1", Op.UPDATE, new Document("$set", new Document("profile.followersCount", 1)));
+            long end = journal.awaitCommitted(second, 5, TimeUnit.SECONDS);
+
+            assertThrows(IllegalArgumentException.class, () -> journal.read(second - 3, 10));
+            assertThrows(IllegalArgumentException.class, () -> journal.read(second + 8, 10));
+            assertThrows(IllegalArgumentException.class, () -> journal.read(-1, 10));
+            assertThrows(IllegalArgumentException.class, () -> journal.read(end + 1, 10));
+            assertEquals(1, journal.read(second, 10).size());
+            assertTrue(journal.read(end, 10).isEmpty());
+        }
+    }
+
+    @Test
+    void truncatedSegmentsAreDeletedAndTheirOffsetsRefusedAcrossReopen() throws Exception {
+        long kept;
+        try (MutationJournal journal = new MutationJournal(dir, 4096)) {
+            long last = 0;
+            for (int i = 0; i < 100; i++) {
+                last = journal.append(i, "investors", "i" + i, Op.UPDATE, new Document("$set", new Document("note", "x".repeat(40))));
+            }
+            journal.awaitCommitted(last, 5, TimeUnit.SECONDS);
+            long before = journal.bytesOnDisk();
+            kept = journal.read(0, 1_000).stream()
+                    .filter(mutation -> mutation.offset() >= 2 * 4096)
+                    .findFirst().orElseThrow().offset();
+
+            assertEquals(2, journal.truncateBefore(kept));
+            assertEquals(2 * 4096, journal.firstOffset());
+            assertEquals(before - 2 * 4096, journal.bytesOnDisk());
+            assertFalse(Files.exists(dir.resolve("00000000.log")));
+            assertThrows(IllegalArgumentException.class, () -> journal.read(0, 10));
+            assertEquals(kept, journal.read(journal.firstOffset(), 1).get(0).offset());
+            // Never past the segment being written, whatever a subscriber reports
+            assertEquals(0, journal.truncateBefore(Long.MAX_VALUE - before));
+        }
+        try (MutationJournal reopened = new MutationJournal(dir, 4096)) {
+            assertEquals(2 * 4096, reopened.firstOffset());
+            assertEquals(kept, reopened.read(kept, 1).get(0).offset());
+            assertThrows(IllegalArgumentException.class, () -> reopened.read(4096, 10));
+        }
+    }
+
+    @Test
+    void concurrentAppendsAreGroupCommitted() throws Exception {
+        int total = appendConcurrently(8, 5_000);
+        try (MutationJournal journal = new MutationJournal(dir, 64 * 1024 * 1024)) {
+            assertEquals(total, journal.read(0, total).size());
+        }
+    }
+
+    // Writers only copy into the mapping, flushes are shared across many appends; run with mvn -Pbenchmark test
+    @Test
+    @Tag("benchmark")
+    void appendCostStaysUnderFiftyMicroseconds() throws Exception {
+        int threads = 8;
+        int perThread = 50_000;
+        long start = System.nanoTime();
+        int total = appendConcurrently(threads, perThread);
+        // Wall time per append across all writers, so time slicing between threads is not counted twice
+        double microsPerAppend = (System.nanoTime() - start) / 1_000.0 / total;
+        System.out.printf("journal append: %.2f us each%n", microsPerAppend);
+        assertTrue(microsPerAppend < 50, "append cost " + microsPerAppend + " us");
+    }
+
+    // Appends from several threads, waits for the commit and checks every record was grouped into few flushes
+    private int appendConcurrently(int threads, int perThread) throws Exception {
+        try (MutationJournal journal = new MutationJournal(dir, 64 * 1024 * 1024)) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            Document delta = new Document("$set", new Document("profile.followersCount", 42));
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        journal.append(i, "users", "u" + thread, Op.UPDATE, delta);
+                    }
+                });
+            }
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+            int total = threads * perThread;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (journal.read(0, total).size() < total && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(total, journal.appends());
+            assertEquals(total, journal.read(0, total).size());
+            assertTrue(journal.commits() < total / 10, "expected grouped flushes, got " + journal.commits() + " for " + total);
+            return total;
+        }
+    }
+
+    @Test
+    void deltaRecordsOnlyChangedAndRemovedPaths() {
+        Document before = profile("alice", 10).append("walletAddress", "0xabc");
+        Document after = profile("alice", 11);
+
+        Document delta = MutationJournalService.delta(before, after);
+
+        assertEquals(new Document("profile.followersCount", 11), delta.get("$set"));
+        assertEquals(new Document("walletAddress", ""), delta.get("$unset"));
+        assertTrue(MutationJournalService.delta(after, profile("alice", 11)).isEmpty());
+    }
+
+    @Test
+    void repositorySavesReachSubscribersAsDeltas() throws Exception {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getConverter()).thenReturn(
+                new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()));
+        MutationJournalService service = new MutationJournalService(mongoTemplate,
+                MutationJournalService.Source.EVENTS, dir, 1024 * 1024, 100, 100);
+        try {
+            List<Mutation> everything = new CopyOnWriteArrayList<>();
+            List<Mutation> live = new CopyOnWriteArrayList<>();
+            service.subscribe("audit", 0, everything::add);
+
+            service.onAfterSave(new AfterSaveEvent<>(new User(), profile("alice", 0), "users"));
+            service.onAfterSave(new AfterSaveEvent<>(new User(), profile("alice", 0), "users"));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (everything.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            service.subscribe("cache", service.endOffset(), live::add);
+            service.onAfterSave(new AfterSaveEvent<>(new User(), profile("alice", 5), "users"));
+
+            while ((everything.size() < 2 || live.isEmpty()) && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, everything.size(), "an unchanged save should not be journaled");
+            assertEquals(Op.REPLACE, everything.get(0).op());
+            assertEquals(Op.UPDATE, everything.get(1).op());
+            assertEquals(new Document("$set", new Document("profile.followersCount", 5)), everything.get(1).delta());
+            assertEquals(1, live.size());
+            assertEquals(everything.get(1).offset(), live.get(0).offset());
+        } finally {
+            service.close();
+        }
+    }
+
+    @Test
+    void passwordsNeverReachTheJournal() throws Exception {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        when(mongoTemplate.getCollectionName(User.class)).thenReturn("users");
+        MutationJournalService service = new MutationJournalService(mongoTemplate,
+                MutationJournalService.Source.EVENTS, dir, 1024 * 1024, 100, 100);
+        try {
+            Document saved = profile("alice", 0).append("password", "hunter2");
+            service.onAfterSave(new AfterSaveEvent<>(new User(), saved, "users"));
+            // Only the password changed, so there is nothing left to journal
+            service.onAfterSave(new AfterSaveEvent<>(new User(), profile("alice", 0).append("password", "hunter3"), "users"));
+            service.recordInsert(User.class, new Document("_id", "u2").append("username", "bob").append("password", "pw"));
+            service.recordUpdate(User.class, "u1", new Update().set("password", "hunter4").set("username", "alicia"));
+            service.recordUpdate(User.class, "u1", new Update().set("password", "hunter5"));
+
+            List<Mutation> journaled = service.replay(0, 10);
+            assertEquals(3, journaled.size());
+            assertEquals(profile("alice", 0), journaled.get(0).delta());
+            assertEquals(new Document("_id", "u2").append("username", "bob"), journaled.get(1).delta());
+            assertEquals(new Document("$set", new Document("username", "alicia")), journaled.get(2).delta());
+            assertEquals("hunter2", saved.getString("password"), "the saved document itself is left alone");
+        } finally {
+            service.close();
+        }
+    }
+
+    @Test
+    void retentionKeepsEverySegmentASubscriberHasNotPassed() throws Exception {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getConverter()).thenReturn(
+                new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()));
+        MutationJournalService service = new MutationJournalService(mongoTemplate,
+                MutationJournalService.Source.EVENTS, dir, 4096, 100, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // Holds its position at the first mutation until released
+            service.subscribe("stalled", 0, mutation -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            for (int i = 0; i < 100; i++) {
+                service.onAfterSave(new AfterSaveEvent<>(new User(), profile("user" + i, i).append("_id", "u" + i), "users"));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (service.endOffset() < 3 * 4096 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            service.truncate();
+            assertEquals(100, service.replay(0, 1_000).size());
+
+            service.unsubscribe("stalled");
+            service.truncate();
+            assertThrows(IllegalArgumentException.class, () -> service.replay(0, 1));
+            assertThrows(IllegalArgumentException.class, () -> service.subscribe("late", 0, mutation -> { }));
+            assertTrue((long) service.stats().get("firstOffset") >= 2 * 4096);
+        } finally {
+            release.countDown();
+            service.close();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.config.BadgeProperties.Metric;
+import com.example.csihackathonspring.entities.Investor;
+import com.example.csihackathonspring.entities.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PartialUpdateServiceTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final MongoOperations ops = mock(MongoOperations.class);
+    private final MutationJournalService journal = mock(MutationJournalService.class);
+    private final SearchService searchService = mock(SearchService.class);
+    private final BadgeService badgeService = mock(BadgeService.class);
+    private final ArchiveService archive = mock(ArchiveService.class);
+
+    @SuppressWarnings("unchecked")
+    private PartialUpdateService service() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        ReadRoutingService readRouting = mock(ReadRoutingService.class);
+        when(readRouting.write(any(Function.class))).thenAnswer(invocation ->
+                ((Function<MongoOperations, Object>) invocation.getArgument(0)).apply(ops));
+        return new PartialUpdateService(mongoTemplate, readRouting, journal, searchService, badgeService, archive,
+                new ObjectMapper());
+    }
+
+    private static PartialUpdateService.Patch patch(Map<String, Object> set, Map<String, Object> inc, List<String> unset) {
+        PartialUpdateService.Patch patch = new PartialUpdateService.Patch();
+        patch.setSet(set);
+        patch.setInc(inc);
+        patch.setUnset(unset);
+        return patch;
+    }
+
+    // A fully populated artist, roughly what the Node backend writes
+    private static User artist(long version) {
+        User user = new User();
+        user.setId("652f1c2ab4e1f0a1b2c3d4e5");
+        user.setUsername("aurora.studio");
+        user.setPassword("$2b$10$4n8Qx3yJtQm8F1sJt2bH8e5nq1y1pQkqX0a3m2oYzq7x9d1c2v3b4");
+        user.setWalletAddress("0x71C7656EC7ab88b098defB751B7401B5f6d8976F");
+        user.setRole("artist");
+        User.Contract contract = new User.Contract();
+        contract.setNetwork("polygon");
+        contract.setTotalMinted(42);
+        contract.setDeploymentStatus("deployed");
+        contract.setAddress("0x5FbDB2315678afecb367f032d93F642f64180aa3");
+        contract.setBlockExplorerUrl("https://polygonscan.com/address/0x5FbDB2315678afecb367f032d93F642f64180aa3");
+        contract.setDeploymentDate(new Date());
+        contract.setTransactionHash("0x3a1b2c3d4e5f60718293a4b5c6d7e8f90a1b2c3d4e5f60718293a4b5c6d7e8f9");
+        contract.setTransactionId("tx-7f3e2a");
+        user.setContract(contract);
+        User.Profile profile = new User.Profile();
+        profile.setFollowersCount(1_204);
+        profile.setArtworksCount(42);
+        profile.setFollowingCount(87);
+        user.setProfile(profile);
+        user.setAnalytics(new User.Analytics());
+        user.setDistributionSettings(new User.DistributionSettings());
+        user.setRegistrationDate(new Date());
+        user.setCreatedAt(new Date());
+        user.setUpdatedAt(new Date());
+        user.setVersion(version);
+        return user;
+    }
+
+    @Test
+    void patchTranslatesToTargetedOperatorsWithConvertedValues() {
+        PartialUpdateService service = service();
+
+        Update update = service.toUpdate(User.class, patch(
+                Map.of("walletAddress", "0xabc", "profile.artworksCount", "43"),
+                Map.of("profile.followersCount", 1),
+                List.of("distributionSettings")));
+
+        Document operators = update.getUpdateObject();
+        Document set = operators.get("$set", Document.class);
+        assertEquals("0xabc", set.get("walletAddress"));
+        assertEquals(43, set.get("profile.artworksCount"));
+        assertTrue(set.get("updatedAt") instanceof Date);
+        assertEquals(new Document("profile.followersCount", 1), operators.get("$inc"));
+        assertEquals(Set.of("distributionSettings"), operators.get("$unset", Document.class).keySet());
+    }
+
+    @Test
+    void unknownProtectedRepeatedAndMistypedPathsAreRejected() {
+        PartialUpdateService service = service();
+
+        assertThrows(IllegalArgumentException.class, () ->
+                service.toUpdate(User.class, patch(Map.of("profile.nickname", "x"), null, null)));
+        assertThrows(IllegalArgumentException.class, () ->
+                service.toUpdate(User.class, patch(Map.of("password", "hunter2"), null, null)));
+        assertThrows(IllegalArgumentException.class, () ->
+                service.toUpdate(User.class, patch(null, Map.of("version", 1), null)));
+        assertThrows(IllegalArgumentException.class, () ->
+                service.toUpdate(User.class, patch(null, Map.of("username", 1), null)));
+        assertThrows(IllegalArgumentException.class, () ->
+                service.toUpdate(User.class, patch(Map.of("profile.followersCount", 3), Map.of("profile.followersCount", 1), null)));
+        assertThrows(IllegalArgumentException.class, () ->
+                service.toUpdate(User.class, patch(Map.of("profile.followersCount", "many"), null, null)));
+        assertThrows(IllegalArgumentException.class, () ->
+                service.toUpdate(User.class, patch(null, null, null)));
+    }
+
+    @Test
+    void staleVersionConflictsAndMissingDocumentIsEmpty() {
+        PartialUpdateService service = service();
+        when(ops.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(User.class)))
+                .thenReturn(null);
+        when(mongoTemplate.exists(any(Query.class), eq(User.class))).thenReturn(true, false);
+        PartialUpdateService.Patch rename = patch(Map.of("walletAddress", "0xabc"), null, null);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> service.patch(User.class, "u1", rename, 4L));
+        assertTrue(service.patch(User.class, "u1", rename, 4L).isEmpty());
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(ops, times(2)).findAndModify(query.capture(), any(Update.class), any(FindAndModifyOptions.class), eq(User.class));
+        assertEquals(4L, query.getValue().getQueryObject().get("version"));
+        assertEquals(1L, service.stats().get("conflicts"));
+        assertEquals(4L, PartialUpdateService.parseIfMatch("W/\"4\""));
+        assertNull(PartialUpdateService.parseIfMatch(null));
+    }
+
+    @Test
+    void patchOfAnArchivedAccountMovesItBackAndApplies() {
+        PartialUpdateService service = service();
+        User restored = artist(4);
+        when(ops.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(User.class)))
+                .thenReturn(null, restored);
+        when(archive.restore(User.class, "u1")).thenReturn(true);
+
+        User result = service.patch(User.class, "u1", patch(Map.of("walletAddress", "0xabc"), null, null), null).orElseThrow();
+
+        assertEquals(restored, result);
+        verify(ops, times(2)).findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(User.class));
+        verify(journal).recordUpdate(eq(User.class), eq("u1"), any(Update.class));
+        verify(searchService).index(restored);
+    }
+
+    @Test
+    void investorPatchesReevaluateOnlyAffectedBadgeMetrics() {
+        PartialUpdateService service = service();
+        Investor investor = new Investor();
+        investor.setId("i1");
+        when(ops.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Investor.class)))
+                .thenReturn(investor);
+
+        service.patch(Investor.class, "i1", patch(null, Map.of("analytics.totalROI", 5), null), null);
+
+        verify(badgeService).onActivity("i1", Set.of(Metric.ROI));
+        verify(searchService).index(investor);
+    }
+
+    // Oplog cost of a follower-count bump: the mapped update versus the whole document a save would replace
+    @Test
+    void targetedUpdateWritesAFractionOfTheFullDocument() {
+        PartialUpdateService service = service();
+        User updated = artist(8);
+        when(ops.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(User.class)))
+                .thenReturn(updated);
+
+        service.patch(User.class, updated.getId(), patch(null, Map.of("profile.followersCount", 1), null), 7L);
+
+        Map<String, Object> stats = service.stats();
+        long updateBytes = (long) stats.get("updateBytes");
+        long fullBytes = (long) stats.get("fullDocumentBytes");
+        assertTrue(updateBytes * 4 < fullBytes, updateBytes + " vs " + fullBytes);
+    }
+}
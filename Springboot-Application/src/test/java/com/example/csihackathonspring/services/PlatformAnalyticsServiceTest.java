@@ -0,0 +1,155 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.services.PlatformAnalyticsService.Platform;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PlatformAnalyticsServiceTest {
+
+    private static final long WEEK = 7 * 86_400_000L;
+
+    private static Document networkRow(long partition, String network, int artists, int sales) {
+        return new Document("_id", new Document("p", (double) partition).append("network", network))
+                .append("artists", artists).append("totalSalesValue", sales).append("salesCount", 1).append("totalMinted", 2);
+    }
+
+    private static AggregationResults<Document> results(Document... rows) {
+        return new AggregationResults<>(List.of(rows), new Document());
+    }
+
+    @Test
+    void partialRecomputeMatchesOnlyTheTouchedIdRanges() {
+        List<Document> full = PlatformAnalyticsService.pipeline("users", null, WEEK, 20).toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(new Document("_id", new Document("$type", "objectId")), full.get(0).get("$match"));
+        Document key = full.get(1).get("$group", Document.class).get("_id", Document.class);
+        assertTrue(key.containsKey("p") && key.containsKey("network"));
+
+        List<Document> partial = PlatformAnalyticsService.pipeline("curators", Set.of(3L), WEEK, 20).toPipeline(Aggregation.DEFAULT_CONTEXT);
+        Document range = partial.get(0).get("$match", Document.class).getList("$or", Document.class).get(0).get("_id", Document.class);
+        assertEquals(PlatformAnalyticsService.idAt(3 * WEEK), range.get("$gte"));
+        assertEquals(PlatformAnalyticsService.idAt(4 * WEEK), range.get("$lt"));
+        assertEquals(new Date(3 * WEEK / 1000 * 1000), ((ObjectId) range.get("$gte")).getDate());
+        assertTrue(partial.get(2).get("$group", Document.class).containsKey("top"));
+    }
+
+    @Test
+    void partialsMergeIntoPlatformTotals() {
+        Map<String, TreeMap<Long, List<Document>>> partials = Map.of(
+                "users", new TreeMap<>(Map.of(
+                        1L, List.of(networkRow(1, "polygon", 3, 30), networkRow(1, "ethereum", 1, 50)),
+                        2L, List.of(networkRow(2, "polygon", 2, 40)))),
+                "curators", new TreeMap<>(Map.of(
+                        1L, List.of(new Document("_id", new Document("p", 1.0)).append("curators", 2)
+                                .append("totalRevenue", new Decimal128(new BigDecimal("3000000000000000000")))
+                                .append("pendingRevenue", new Decimal128(0))
+                                .append("top", List.of(
+                                        new Document("id", "c1").append("username", "north").append("revenue", new Decimal128(new BigDecimal("2000000000000000000"))),
+                                        new Document("id", "c2").append("username", "south").append("revenue", new Decimal128(new BigDecimal("1000000000000000000")))))),
+                        2L, List.of(new Document("_id", new Document("p", 2.0)).append("curators", 1)
+                                .append("totalRevenue", new Decimal128(new BigDecimal("5000000000000000000")))
+                                .append("pendingRevenue", new Decimal128(new BigDecimal("7")))
+                                .append("top", List.of(
+                                        new Document("id", "c3").append("username", "east").append("revenue", new Decimal128(new BigDecimal("5000000000000000000")))))))),
+                "investors", new TreeMap<>(Map.of(
+                        1L, List.of(new Document("_id", new Document("p", 1.0)).append("investors", 4)
+                                .append("totalInvested", 100).append("portfolioValue", 120).append("roiSum", 40)))));
+
+        Platform platform = PlatformAnalyticsService.merge(new Date(), partials, 2);
+
+        assertEquals("polygon", platform.salesByNetwork().get(0).network());
+        assertEquals(5, platform.salesByNetwork().get(0).artists());
+        assertEquals(70, platform.salesByNetwork().get(0).totalSalesValue());
+        assertEquals(3, platform.curators().curators());
+        assertEquals("8000000000000000000", platform.curators().totalRevenue());
+        assertEquals("7", platform.curators().pendingRevenue());
+        assertEquals(List.of("east", "north"), platform.curators().top().stream().map(c -> c.username()).toList());
+        assertEquals(4, platform.investors().investors());
+        assertEquals(10.0, platform.investors().averageRoi());
+    }
+
+    @Test
+    void fractionalSumsAreNotTruncatedWhenMerged() {
+        Map<String, TreeMap<Long, List<Document>>> partials = Map.of(
+                "users", new TreeMap<>(Map.of(1L, List.of(networkRow(1, "polygon", 1, 0).append("totalSalesValue", 0.75)),
+                        2L, List.of(networkRow(2, "polygon", 1, 0).append("totalSalesValue", 0.5)))),
+                "curators", new TreeMap<>(),
+                "investors", new TreeMap<>(Map.of(
+                        1L, List.of(new Document("_id", new Document("p", 1.0)).append("investors", 2)
+                                .append("totalInvested", 10.5).append("portfolioValue", new Decimal128(new BigDecimal("12.25")))
+                                .append("roiSum", 0.9)),
+                        2L, List.of(new Document("_id", new Document("p", 2.0)).append("investors", 1)
+                                .append("totalInvested", 2).append("portfolioValue", 3).append("roiSum", 0.6)))));
+
+        Platform platform = PlatformAnalyticsService.merge(new Date(), partials, 2);
+
+        assertEquals(1.25, platform.salesByNetwork().get(0).totalSalesValue(), 1e-9);
+        assertEquals(12.5, platform.investors().totalInvested(), 1e-9);
+        assertEquals(15.25, platform.investors().portfolioValue(), 1e-9);
+        assertEquals(0.5, platform.investors().averageRoi(), 1e-9);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void refreshAfterTheFirstOnlyReaggregatesPartitionsWithNewUpdates() throws Exception {
+        long current = System.currentTimeMillis() / WEEK;
+        MongoOperations ops = mock(MongoOperations.class);
+        ReadRoutingService readRouting = mock(ReadRoutingService.class);
+        when(readRouting.read(any(Function.class))).thenAnswer(invocation ->
+                ((Function<MongoOperations, Object>) invocation.getArgument(0)).apply(ops));
+        when(ops.findOne(any(Query.class), eq(Document.class), anyString())).thenReturn(new Document("updatedAt", new Date(1_000)));
+        when(ops.aggregate(any(Aggregation.class), anyString(), eq(Document.class))).thenReturn(results());
+        when(ops.aggregate(any(Aggregation.class), eq("users"), eq(Document.class))).thenReturn(
+                results(networkRow(current - 1, "polygon", 10, 100), networkRow(current, "polygon", 1, 5)),
+                results(networkRow(current, "polygon", 2, 25)));
+        when(ops.find(any(Query.class), eq(Document.class), anyString())).thenReturn(List.of());
+        when(ops.find(any(Query.class), eq(Document.class), eq("users"))).thenReturn(List.of(
+                new Document("_id", new ObjectId(new Date())).append("updatedAt", new Date(2_000))));
+        PlatformAnalyticsService service = new PlatformAnalyticsService(mock(MongoTemplate.class), readRouting,
+                7, 0, 5_000, 3_600_000, 50_000, 20);
+        try {
+            assertEquals(105, service.getPlatform().salesByNetwork().get(0).totalSalesValue());
+            Thread.sleep(5);
+            Platform refreshed = service.refresh();
+
+            assertEquals(125, refreshed.salesByNetwork().get(0).totalSalesValue());
+            assertEquals(12, refreshed.salesByNetwork().get(0).artists());
+            ArgumentCaptor<Aggregation> pipelines = ArgumentCaptor.forClass(Aggregation.class);
+            verify(ops, times(2)).aggregate(pipelines.capture(), eq("users"), eq(Document.class));
+            Document match = pipelines.getAllValues().get(1).toPipeline(Aggregation.DEFAULT_CONTEXT).get(0).get("$match", Document.class);
+            assertEquals(1, match.getList("$or", Document.class).size());
+            // Nothing changed in curators or investors, so they were aggregated only in the first, full pass
+            verify(ops, times(1)).aggregate(any(Aggregation.class), eq("curators"), eq(Document.class));
+            Map<String, Object> stats = service.stats();
+            assertEquals(1L, stats.get("fullRefreshes"));
+            assertEquals(1L, stats.get("incrementalRefreshes"));
+        } finally {
+            service.shutdown();
+        }
+    }
+}
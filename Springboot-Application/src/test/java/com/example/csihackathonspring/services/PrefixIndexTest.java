@@ -0,0 +1,159 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.services.PrefixIndex.Entry;
+import com.example.csihackathonspring.services.PrefixIndex.Kind;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrefixIndexTest {
+
+    private static List<String> names(List<Entry> entries) {
+        return entries.stream().map(Entry::getName).collect(Collectors.toList());
+    }
+
+    @Test
+    void insertSplitsSharedEdgesAndDeleteCollapsesThem() {
+        PrefixIndex index = new PrefixIndex(10);
+        index.put(Kind.USER, "1", "Anna", 1);
+        index.put(Kind.USER, "2", "annabel", 2);
+        assertEquals(3, index.stats().getNodes());
+
+        // "anne" splits the "anna" edge into "ann" -> {"a", "e"}
+        index.put(Kind.INVESTOR, "3", "anne", 3);
+        assertEquals(5, index.stats().getNodes());
+        assertEquals(List.of("anne", "annabel", "Anna"), names(index.suggest("AN", 10)));
+        assertEquals(List.of("annabel", "Anna"), names(index.suggest("anna", 10)));
+        assertEquals(List.of(), index.suggest("annb", 10));
+        assertEquals(List.of(), index.suggest("annabelle", 10));
+
+        // Dropping "anne" prunes its leaf and merges "ann" back into its only child
+        index.remove(Kind.INVESTOR, "3");
+        assertEquals(3, index.stats().getNodes());
+        assertEquals(List.of("annabel", "Anna"), names(index.suggest("ann", 10)));
+
+        // "anna" has no terminal left once removed, so it collapses into "annabel"
+        index.remove(Kind.USER, "1");
+        assertEquals(2, index.stats().getNodes());
+        assertEquals(List.of("annabel"), names(index.suggest("annab", 10)));
+
+        index.remove(Kind.USER, "2");
+        assertEquals(1, index.stats().getNodes());
+        assertEquals(0, index.size());
+        assertEquals(List.of(), index.suggest("a", 10));
+    }
+
+    @Test
+    void topEntriesFollowRescoresRenamesAndRemovals() {
+        PrefixIndex index = new PrefixIndex(2);
+        index.put(Kind.USER, "a", "mara", 5);
+        index.put(Kind.USER, "b", "marco", 9);
+        index.put(Kind.USER, "c", "marek", 1);
+        index.put(Kind.CURATOR, "a", "mars gallery", 7);
+        assertEquals(List.of("marco", "mars gallery"), names(index.suggest("mar", 10)));
+
+        index.put(Kind.USER, "c", "marek", 12);
+        assertEquals(List.of("marek", "marco"), names(index.suggest("mar", 10)));
+
+        // The best entry leaving must pull the next one up from a sibling subtree
+        index.remove(Kind.USER, "c");
+        assertEquals(List.of("marco", "mars gallery"), names(index.suggest("mar", 10)));
+
+        index.put(Kind.USER, "b", "zed", 9);
+        assertEquals(List.of("mars gallery", "mara"), names(index.suggest("mar", 10)));
+        assertEquals(List.of("zed"), names(index.suggest("z", 1)));
+
+        // A blank name removes, and kinds never collide on the same id
+        index.put(Kind.USER, "a", "  ", 5);
+        assertEquals(List.of("mars gallery"), names(index.suggest("mar", 10)));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void randomPutsAndRemovesMatchABruteForceScan() {
+        SplittableRandom random = new SplittableRandom(11);
+        int topK = 4;
+        PrefixIndex index = new PrefixIndex(topK);
+        Map<String, Entry> truth = new HashMap<>();
+        Comparator<Entry> ranking = Comparator.comparingInt(Entry::getScore).reversed().thenComparing(Entry::getName);
+        for (int step = 0; step < 20_000; step++) {
+            String id = Integer.toString(random.nextInt(300));
+            if (random.nextInt(4) == 0) {
+                index.remove(Kind.USER, id);
+                truth.remove(id);
+            } else {
+                // A three letter alphabet keeps names overlapping, so edges split and collapse constantly
+                char[] name = new char[1 + random.nextInt(6)];
+                for (int i = 0; i < name.length; i++) {
+                    name[i] = "abc".charAt(random.nextInt(3));
+                }
+                Entry entry = new Entry(Kind.USER, id, new String(name), random.nextInt(50));
+                index.put(Kind.USER, id, entry.getName(), entry.getScore());
+                truth.put(id, entry);
+            }
+            if (step % 50 == 0) {
+                for (String prefix : List.of("a", "b", "ab", "ca", "abc", "bba", "cabc")) {
+                    List<String> expected = truth.values().stream()
+                            .filter(e -> e.getName().startsWith(prefix))
+                            .sorted(ranking).limit(topK)
+                            .map(e -> e.getName() + ':' + e.getScore())
+                            .collect(Collectors.toList());
+                    List<String> actual = index.suggest(prefix, topK).stream()
+                            .map(e -> e.getName() + ':' + e.getScore())
+                            .collect(Collectors.toList());
+                    assertEquals(expected, actual, "prefix " + prefix + " at step " + step);
+                }
+            }
+        }
+        assertEquals(truth.size(), index.size());
+        truth.keySet().forEach(id -> index.remove(Kind.USER, id));
+        assertEquals(1, index.stats().getNodes(), "every node should be pruned once the index is empty");
+    }
+
+    // Latency of a suggestion lookup over 200k names; run with mvn -Pbenchmark test
+    @Test
+    @Tag("benchmark")
+    void suggestP99StaysUnderAMillisecond() {
+        SplittableRandom random = new SplittableRandom(5);
+        PrefixIndex index = new PrefixIndex(10);
+        for (int i = 0; i < 200_000; i++) {
+            char[] name = new char[4 + random.nextInt(10)];
+            for (int c = 0; c < name.length; c++) {
+                name[c] = (char) ('a' + random.nextInt(26));
+            }
+            index.put(Kind.USER, Integer.toString(i), new String(name), random.nextInt(10_000));
+        }
+        String[] prefixes = new String[100_000];
+        for (int i = 0; i < prefixes.length; i++) {
+            char[] prefix = new char[1 + random.nextInt(4)];
+            for (int c = 0; c < prefix.length; c++) {
+                prefix[c] = (char) ('a' + random.nextInt(26));
+            }
+            prefixes[i] = new String(prefix);
+        }
+        for (String prefix : prefixes) {
+            index.suggest(prefix, 10);
+        }
+        long[] nanos = new long[prefixes.length];
+        for (int i = 0; i < prefixes.length; i++) {
+            long start = System.nanoTime();
+            index.suggest(prefixes[i], 10);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        long p99 = nanos[nanos.length * 99 / 100];
+        System.out.printf("prefix index suggest over %d names: p50 %d ns, p99 %d ns%n",
+                index.size(), nanos[nanos.length / 2], p99);
+        assertTrue(p99 < 1_000_000, "p99 " + p99 + " ns");
+    }
+}
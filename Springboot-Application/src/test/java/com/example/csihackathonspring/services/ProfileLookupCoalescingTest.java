@@ -0,0 +1,156 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.entities.Curator;
+import com.example.csihackathonspring.entities.Investor;
+import com.example.csihackathonspring.entities.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProfileLookupCoalescingTest {
+
+    private static final int CALLERS = 64;
+
+    // Stands in for Mongo: counts queries and holds the first one open until every caller has arrived
+    private static final class SlowStore {
+        private final AtomicInteger queries = new AtomicInteger();
+        private final CountDownLatch arrived = new CountDownLatch(CALLERS);
+
+        <T> T query(T result) {
+            queries.incrementAndGet();
+            try {
+                arrived.await(5, TimeUnit.SECONDS);
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return result;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ReadRoutingService routingTo(SlowStore store, Object document) {
+        ReadRoutingService readRouting = mock(ReadRoutingService.class);
+        when(readRouting.read(any(Function.class))).thenAnswer(invocation -> store.query(document));
+        return readRouting;
+    }
+
+    private static MongoAccessLimiter limiter() {
+        return new MongoAccessLimiter(true, 20, 4, 200, 1.5, 0.2, 30_000);
+    }
+
+    private static <T> List<T> concurrently(SlowStore store, Supplier<T> lookup) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                futures.add(pool.submit(() -> {
+                    store.arrived.countDown();
+                    return lookup.get();
+                }));
+            }
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentUsernameLookupsIssueOneQuery() throws Exception {
+        SlowStore store = new SlowStore();
+        User artist = new User();
+        UserService service = new UserService(routingTo(store, artist), limiter(),
+                mock(HotKeyService.class), mock(ArchiveService.class), 5_000);
+
+        List<Optional<User>> results = concurrently(store, () -> service.getUserByUsername("popular-artist"));
+
+        assertEquals(1, store.queries.get());
+        results.forEach(result -> assertSame(artist, result.orElseThrow()));
+    }
+
+    @Test
+    void concurrentInvestorLookupsIssueOneQuery() throws Exception {
+        SlowStore store = new SlowStore();
+        Investor investor = new Investor();
+        InvestorService service = new InvestorService(routingTo(store, investor), limiter(),
+                mock(HotKeyService.class), mock(ArchiveService.class), 5_000);
+
+        List<Optional<Investor>> results = concurrently(store, () -> service.getInvestorById("42"));
+
+        assertEquals(1, store.queries.get());
+        results.forEach(result -> assertSame(investor, result.orElseThrow()));
+    }
+
+    @Test
+    void concurrentCuratorLookupsIssueOneQuery() throws Exception {
+        SlowStore store = new SlowStore();
+        Curator curator = new Curator();
+        CuratorService service = new CuratorService(routingTo(store, curator), limiter(), mock(HotKeyService.class), 5_000);
+
+        List<Optional<Curator>> results = concurrently(store, () -> service.getCuratorByUsername("gallery"));
+
+        assertEquals(1, store.queries.get());
+        results.forEach(result -> assertSame(curator, result.orElseThrow()));
+    }
+
+    @Test
+    void waiterGivesUpAfterMaxWaitWithoutCancellingTheLoad() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>(50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService leader = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> slow = leader.submit(() -> flight.execute("key", () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "loaded";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertThrows(QueryTimeoutException.class, () -> flight.execute("key", () -> "second load"));
+
+            release.countDown();
+            assertEquals("loaded", slow.get(5, TimeUnit.SECONDS));
+            assertEquals(1, flight.getLoads());
+            assertEquals("fresh", flight.execute("key", () -> "fresh"));
+        } finally {
+            leader.shutdownNow();
+        }
+    }
+
+    @Test
+    void loaderFailureIsRethrownAndNotRemembered() {
+        SingleFlight<String> flight = new SingleFlight<>(1_000);
+        assertThrows(IllegalStateException.class, () -> flight.execute("key", () -> {
+            throw new IllegalStateException("down");
+        }));
+        assertEquals("recovered", flight.execute("key", () -> "recovered"));
+    }
+}
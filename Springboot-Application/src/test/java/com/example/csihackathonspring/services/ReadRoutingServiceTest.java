@@ -0,0 +1,104 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.entities.User;
+import com.mongodb.ConnectionString;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Runs against a local multi-member replica set, e.g.
+ * MONGO_RS_URI=mongodb://localhost:27017,localhost:27018,localhost:27019/routing_test?replicaSet=rs0
+ */
+@EnabledIfEnvironmentVariable(named = "MONGO_RS_URI", matches = ".+")
+class ReadRoutingServiceTest {
+
+    private static MongoClient client;
+    private static MongoTemplate primary;
+    private static MongoTemplate secondary;
+    private static ReadRoutingService readRouting;
+
+    @BeforeAll
+    static void connect() {
+        String uri = System.getenv("MONGO_RS_URI");
+        client = MongoClients.create(uri);
+        String database = new ConnectionString(uri).getDatabase();
+        SimpleMongoClientDatabaseFactory factory =
+                new SimpleMongoClientDatabaseFactory(client, database == null ? "routing_test" : database);
+        primary = new MongoTemplate(factory);
+        secondary = new MongoTemplate(factory);
+        secondary.setReadPreference(ReadPreference.secondary(90, TimeUnit.SECONDS));
+        readRouting = new ReadRoutingService(primary, secondary, true);
+        primary.dropCollection(User.class);
+    }
+
+    @AfterAll
+    static void close() {
+        primary.dropCollection(User.class);
+        client.close();
+    }
+
+    @Test
+    void readWithCausalTokenSeesOwnWrite() {
+        User user = new User();
+        user.setUsername("routing-artist");
+        user.setProfile(new User.Profile());
+        primary.insert(user);
+
+        for (int i = 1; i <= 50; i++) {
+            int followers = i;
+            AtomicReference<String> token = new AtomicReference<>();
+            readRouting.write(ops -> ops.updateFirst(new Query(where("_id").is(user.getId())),
+                    new Update().set("profile.followersCount", followers), User.class), token::set);
+            assertNotNull(token.get());
+
+            User read = readRouting.read(token.get(), ops -> ops.findById(user.getId(), User.class));
+            assertNotNull(read);
+            assertEquals(followers, read.getProfile().getFollowersCount());
+        }
+    }
+
+    @Test
+    void readWithoutTokenIsServedBySecondary() throws InterruptedException {
+        User user = new User();
+        user.setUsername("routing-reader");
+        primary.insert(user);
+
+        AtomicReference<MongoOperations> servedBy = new AtomicReference<>();
+        User read = null;
+        for (int attempt = 0; attempt < 100 && read == null; attempt++) {
+            read = readRouting.read(null, ops -> {
+                servedBy.set(ops);
+                return ops.findById(user.getId(), User.class);
+            });
+            if (read == null) {
+                Thread.sleep(50);
+            }
+        }
+        assertNotNull(read);
+        // Found through the secondary-preferring template, not the primary fallback
+        assertSame(secondary, servedBy.get());
+        // and that template's reads really land on a secondary member
+        Document hello = secondary.executeCommand(new Document("hello", 1), secondary.getReadPreference());
+        assertTrue(hello.getBoolean("secondary", false), hello::toJson);
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.csihackathonspring.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.example.csihackathonspring.entities.Curator;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RevenueReconciliationTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    // Stand-in JSON-RPC node answering getGalleryDetails() for known gallery addresses
+    private HttpServer node;
+    private final Map<String, BigInteger[]> galleries = new ConcurrentHashMap<>();
+    private final AtomicInteger httpRequests = new AtomicInteger();
+
+    private MongoTemplate mongoTemplate;
+    private BulkOperations bulk;
+
+    @BeforeEach
+    void start() throws IOException {
+        node = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        node.setExecutor(Executors.newFixedThreadPool(8));
+        node.createContext("/", exchange -> {
+            httpRequests.incrementAndGet();
+            ArrayNode responses = mapper.createArrayNode();
+            for (JsonNode request : mapper.readTree(exchange.getRequestBody())) {
+                JsonNode call = request.get("params").get(0);
+                ObjectNode response = responses.addObject().put("jsonrpc", "2.0").put("id", request.get("id").asInt());
+                BigInteger[] revenue = galleries.get(call.get("to").asText());
+                if (revenue == null || !RevenueReconciliationService.GET_GALLERY_DETAILS.equals(call.get("data").asText())) {
+                    response.putObject("error").put("code", -32000).put("message", "execution reverted");
+                } else {
+                    response.put("result", encodeDetails(revenue[0], revenue[1]));
+                }
+            }
+            byte[] body = mapper.writeValueAsBytes(responses);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        node.start();
+
+        mongoTemplate = mock(MongoTemplate.class);
+        bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(eq(BulkOperations.BulkMode.UNORDERED), any(Class.class))).thenReturn(bulk);
+    }
+
+    @AfterEach
+    void stop() {
+        node.stop(0);
+    }
+
+    // (string name, string description, address curator, uint256 total, uint256 pending, bool active)
+    private static String encodeDetails(BigInteger total, BigInteger pending) {
+        return "0x" + word(BigInteger.valueOf(0xc0)) + word(BigInteger.valueOf(0xe0))
+                + word(new BigInteger("c0ffee", 16)) + word(total) + word(pending) + word(BigInteger.ONE)
+                + word(BigInteger.ZERO) + word(BigInteger.ZERO);
+    }
+
+    private static String word(BigInteger value) {
+        return String.format("%64s", value.toString(16)).replace(' ', '0');
+    }
+
+    private static String address(int i) {
+        return String.format("0x%040x", i);
+    }
+
+    @SuppressWarnings("unchecked")
+    private RevenueReconciliationService service(List<RevenueReconciliationService.CuratorRevenue> curators, int batchSize) {
+        ReadRoutingService readRouting = mock(ReadRoutingService.class);
+        when(readRouting.read(any(Function.class))).thenReturn(curators);
+        EthRpcClient rpc = new EthRpcClient(mapper, "http://127.0.0.1:" + node.getAddress().getPort(), 10_000);
+        return new RevenueReconciliationService(mongoTemplate, readRouting, mock(MutationJournalService.class), rpc, 8, batchSize, true);
+    }
+
+    @Test
+    void driftIsCorrectedOnlyWhenEveryGalleryWasRead() {
+        galleries.put(address(1), new BigInteger[]{BigInteger.valueOf(700), BigInteger.valueOf(100)});
+        galleries.put(address(2), new BigInteger[]{BigInteger.valueOf(300), BigInteger.ZERO});
+        galleries.put(address(3), new BigInteger[]{new BigInteger("5000000000000000000"), BigInteger.TEN});
+        List<RevenueReconciliationService.CuratorRevenue> curators = List.of(
+                new RevenueReconciliationService.CuratorRevenue("in-sync", List.of(address(1), address(2)), "1000", "100"),
+                new RevenueReconciliationService.CuratorRevenue("drifted", List.of(address(3)), "4000000000000000000", "0"),
+                new RevenueReconciliationService.CuratorRevenue("broken", List.of(address(1), address(99)), "700", "100"));
+        BulkWriteResult result = mock(BulkWriteResult.class);
+        when(result.getModifiedCount()).thenReturn(1);
+        when(bulk.execute()).thenReturn(result);
+
+        RevenueReconciliationService.Report report = service(curators, 2).reconcile(true);
+
+        assertEquals(3, report.getCurators());
+        assertEquals(5, report.getGalleries());
+        assertEquals(2, report.getDiscrepancies());
+        assertEquals(1, report.getUnreadableGalleries());
+        assertEquals(1, report.getCorrected());
+
+        ArgumentCaptor<Query> guard = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(1)).updateOne(guard.capture(), update.capture());
+        assertEquals("drifted", guard.getValue().getQueryObject().get("_id"));
+        assertEquals("4000000000000000000", guard.getValue().getQueryObject().get("contract.totalRevenue"));
+        assertEquals("5000000000000000000", update.getValue().getUpdateObject().get("$set", org.bson.Document.class).get("contract.totalRevenue"));
+        assertEquals(new org.bson.Document("version", 1), update.getValue().getUpdateObject().get("$inc"));
+        verify(mongoTemplate).insert(any(List.class), eq("revenue_discrepancies"));
+    }
+
+    @Test
+    void dryRunReportsWithoutWriting() {
+        galleries.put(address(1), new BigInteger[]{BigInteger.ONE, BigInteger.ONE});
+        List<RevenueReconciliationService.CuratorRevenue> curators = List.of(
+                new RevenueReconciliationService.CuratorRevenue("drifted", List.of(address(1)), "0", "0"));
+
+        RevenueReconciliationService.Report report = service(curators, 250).reconcile(false);
+
+        assertEquals(1, report.getDiscrepancies());
+        assertEquals(0, report.getCorrected());
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), any(Class.class));
+        verify(mongoTemplate).insert(any(RevenueReconciliationService.Report.class), anyString());
+    }
+
+    // 100k galleries against the stub node takes several seconds; run with mvn -Pbenchmark test
+    @Test
+    @Tag("benchmark")
+    void hundredThousandGalleriesInBatchedCalls() {
+        List<RevenueReconciliationService.CuratorRevenue> curators = new ArrayList<>();
+        int gallery = 0;
+        for (int c = 0; c < 20_000; c++) {
+            List<String> owned = new ArrayList<>();
+            long total = 0;
+            for (int g = 0; g < 5; g++, gallery++) {
+                owned.add(address(gallery));
+                galleries.put(address(gallery), new BigInteger[]{BigInteger.valueOf(gallery), BigInteger.ZERO});
+                total += gallery;
+            }
+            curators.add(new RevenueReconciliationService.CuratorRevenue("c" + c, owned, String.valueOf(total), "0"));
+        }
+
+        long start = System.nanoTime();
+        RevenueReconciliationService.Report report = service(curators, 250).reconcile(true);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(100_000, report.getGalleries());
+        assertEquals(0, report.getDiscrepancies());
+        assertEquals(httpRequests.get(), report.getRpcBatches());
+        assertEquals(100_000 / 250, report.getRpcBatches());
+        assertTrue(millis < 120_000, "took " + millis + " ms");
+        System.out.printf("Reconciled %d galleries in %d RPC batches, %d ms%n", report.getGalleries(), report.getRpcBatches(), millis);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void curatorsAreLoadedFromTheGallerySubdocumentsTheNodeBackendWrites() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        // Shape of curators.contract as the Node schema defines it
+        Document stored = new Document("_id", "curator-1").append("contract", new Document("network", "sepolia")
+                .append("galleries", List.of(
+                        new Document("address", address(1)).append("name", "North Wing").append("status", "active")
+                                .append("createdAt", new Date()),
+                        new Document("name", "Draft").append("status", "pending"),
+                        new Document("address", address(2)).append("name", "South Wing").append("status", "active")))
+                .append("totalRevenue", "1000").append("pendingRevenue", "100"));
+        MongoTemplate secondary = mock(MongoTemplate.class);
+        when(secondary.stream(any(Query.class), eq(Curator.class)))
+                .thenAnswer(invocation -> Stream.of(converter.read(Curator.class, stored)));
+        ReadRoutingService readRouting = mock(ReadRoutingService.class);
+        when(readRouting.read(any(Function.class)))
+                .thenAnswer(invocation -> ((Function<MongoOperations, Object>) invocation.getArgument(0)).apply(secondary));
+        EthRpcClient rpc = new EthRpcClient(mapper, "http://127.0.0.1:" + node.getAddress().getPort(), 10_000);
+        RevenueReconciliationService service = new RevenueReconciliationService(mongoTemplate, readRouting,
+                mock(MutationJournalService.class), rpc, 8, 100, true);
+
+        List<RevenueReconciliationService.CuratorRevenue> curators = service.loadCurators();
+
+        assertEquals(List.of(address(1), address(2)), curators.get(0).galleries);
+        ArgumentCaptor<Query> scan = ArgumentCaptor.forClass(Query.class);
+        verify(secondary).stream(scan.capture(), eq(Curator.class));
+        assertTrue(scan.getValue().getFieldsObject().containsKey("contract.galleries.address"));
+        assertFalse(scan.getValue().getFieldsObject().containsKey("contract.galleries"));
+    }
+}
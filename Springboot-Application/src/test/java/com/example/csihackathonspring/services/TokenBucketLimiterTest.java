@@ -0,0 +1,93 @@
+package com.example.csihackathonspring.services;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketLimiterTest {
+
+    @Test
+    void allowsBurstThenRefillsAtRate() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(10, 5, 100);
+        long now = 0;
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("wallet", now));
+        }
+        assertTrue(limiter.tryAcquire("wallet", now) > 0);
+        assertEquals(0, limiter.tryAcquire("other", now));
+
+        now += TimeUnit.MILLISECONDS.toNanos(100);
+        assertEquals(0, limiter.tryAcquire("wallet", now));
+        assertTrue(limiter.tryAcquire("wallet", now) > 0);
+    }
+
+    @Test
+    void concurrentCallersNeverExceedBurst() throws Exception {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 100, 100);
+        AtomicInteger admitted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        long now = System.nanoTime();
+        for (int t = 0; t < 8; t++) {
+            pool.submit(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    if (limiter.tryAcquire("hot", now) == 0) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(100, admitted.get());
+    }
+
+    @Test
+    void rotatingKeysShareAnOverflowBucketOnceTheMapIsFull() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 2, 3);
+        long now = 0;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("client" + i, now));
+        }
+        // Every fresh key past the cap draws on the one overflow bucket, so rotation buys nothing
+        assertEquals(0, limiter.tryAcquire("rotated-1", now));
+        assertEquals(0, limiter.tryAcquire("rotated-2", now));
+        assertTrue(limiter.tryAcquire("rotated-3", now) > 0);
+        assertEquals(3, limiter.size());
+        assertEquals(3, limiter.overflowed());
+
+        // Once the tracked clients have refilled, a new key gets a bucket of its own again
+        now += TimeUnit.SECONDS.toNanos(5);
+        assertEquals(0, limiter.tryAcquire("returning", now));
+        assertEquals(1, limiter.size());
+        assertEquals(3, limiter.overflowed());
+    }
+
+    // Per-acquire overhead; a JIT-warm acquire should cost tens of nanoseconds. Run with mvn -Pbenchmark test
+    @Test
+    @Tag("benchmark")
+    void acquireOverheadIsNegligible() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1_000_000_000, 1_000_000, 4096);
+        String[] keys = new String[1024];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "0x" + Integer.toHexString(i * 7919);
+        }
+        for (int i = 0; i < 2_000_000; i++) {
+            limiter.tryAcquire(keys[i & 1023], System.nanoTime());
+        }
+        int iterations = 5_000_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            limiter.tryAcquire(keys[i & 1023], System.nanoTime());
+        }
+        double nanosPerOp = (System.nanoTime() - start) / (double) iterations;
+        System.out.printf("TokenBucketLimiter.tryAcquire: %.1f ns/op%n", nanosPerOp);
+        assertTrue(nanosPerOp < 2_000, "limiter overhead " + nanosPerOp + " ns/op");
+    }
+}
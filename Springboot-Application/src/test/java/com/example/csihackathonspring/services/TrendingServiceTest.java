@@ -0,0 +1,159 @@
+package com.example.csihackathonspring.services;
+
+import com.example.csihackathonspring.entities.TrendingRollup;
+import com.example.csihackathonspring.services.TrendingService.EntityType;
+import com.example.csihackathonspring.services.TrendingService.Event;
+import com.example.csihackathonspring.services.TrendingService.EventType;
+import com.example.csihackathonspring.services.TrendingService.Window;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TrendingServiceTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final TrendingService service = new TrendingService(mongoTemplate, 10, 1, 5, 25, 5_000);
+
+    private static Event event(String artist, EventType type, Long timestamp) {
+        Event event = new Event();
+        event.setEntityType(EntityType.ARTIST);
+        event.setEntityId(artist);
+        event.setType(type);
+        event.setTimestamp(timestamp);
+        return event;
+    }
+
+    @Test
+    void futureTimestampsAreClampedWithinTheSkewAndRefusedBeyondIt() {
+        long now = System.currentTimeMillis();
+        // Stamped a few seconds ahead: counted as now, so it can't claim a later ring slot
+        service.record(event("drifting", EventType.VIEW, now + 3_000));
+        service.record(event("drifting", EventType.VIEW, null));
+        service.record(event("steady", EventType.LIKE, now - 1_000));
+
+        Event ahead = event("spoofed", EventType.SALE, now + TimeUnit.HOURS.toMillis(2));
+        assertFalse(service.isTimely(ahead));
+        assertThrows(IllegalArgumentException.class, () -> service.record(ahead));
+
+        service.refresh();
+        var leaders = service.getTrending(EntityType.ARTIST, Window.HOUR, 10);
+        assertEquals(2, leaders.size());
+        assertEquals("steady", leaders.get(0).getEntityId());
+        assertEquals(2, leaders.get(1).getScore(), 0.1);
+        assertTrue(service.getTrending(EntityType.ARTIST, Window.WEEK, 10).stream()
+                .noneMatch(trend -> trend.getEntityId().equals("spoofed")));
+    }
+
+    @Test
+    void entitiesStayDirtyUntilTheirRollupsAreWritten() {
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TrendingRollup.class)).thenReturn(bulk);
+        when(bulk.execute())
+                .thenThrow(new DataAccessResourceFailureException("primary stepped down"))
+                .thenReturn(null);
+        service.record(event("artist", EventType.SALE, null));
+
+        assertThrows(DataAccessResourceFailureException.class, service::flush);
+        service.flush();
+        // Current hour and day rollups, sent by both the failed pass and its retry
+        verify(bulk, times(4)).upsert(any(Query.class), any(Update.class));
+
+        service.flush();
+        verify(mongoTemplate, times(2)).bulkOps(BulkOperations.BulkMode.UNORDERED, TrendingRollup.class);
+        verify(bulk, times(2)).execute();
+        verify(mongoTemplate, never()).remove(any(Query.class), any(Class.class));
+    }
+
+    @Test
+    void flushIncrementsEachBucketByWhatItGainedIncludingLateEvents() {
+        BulkOperations first = mock(BulkOperations.class);
+        BulkOperations second = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TrendingRollup.class)).thenReturn(first, second);
+        long now = System.currentTimeMillis();
+        long late = now - TimeUnit.HOURS.toMillis(3);
+        service.record(event("artist", EventType.VIEW, now));
+        service.record(event("artist", EventType.VIEW, now));
+        service.flush();
+        service.record(event("artist", EventType.VIEW, now));
+        // Stamped three hours back, long past the previous hour
+        service.record(event("artist", EventType.SALE, late));
+        service.flush();
+
+        String hourNow = "HOUR@" + bucketStart(now, TimeUnit.HOURS);
+        assertEquals(new Document("views", 2L).append("likes", 0L).append("sales", 0L), increments(first).get(hourNow));
+        Map<String, Document> next = increments(second);
+        // Only the new view: an absolute total would overwrite what other instances added
+        assertEquals(new Document("views", 1L).append("likes", 0L).append("sales", 0L), next.get(hourNow));
+        assertEquals(new Document("views", 0L).append("likes", 0L).append("sales", 1L),
+                next.get("HOUR@" + bucketStart(late, TimeUnit.HOURS)));
+    }
+
+    @Test
+    void rollupsTheServerAppliedAreNotResentAfterAPartialBulkFailure() {
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TrendingRollup.class)).thenReturn(bulk);
+        MongoBulkWriteException partial = new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1)), null,
+                new ServerAddress(), Set.of());
+        when(bulk.execute())
+                .thenThrow(new BulkOperationException("one upsert failed", partial))
+                .thenReturn(null);
+        service.record(event("artist", EventType.LIKE, null));
+
+        assertThrows(BulkOperationException.class, service::flush);
+        service.flush();
+
+        // Hour and day on the first pass, then only the day rollup that failed
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(bulk, times(3)).upsert(queries.capture(), any(Update.class));
+        assertEquals("HOUR", queries.getAllValues().get(0).getQueryObject().get("granularity"));
+        assertEquals("DAY", queries.getAllValues().get(2).getQueryObject().get("granularity"));
+    }
+
+    // The $inc of each upsert in a bulk, keyed by granularity and bucket start
+    private static Map<String, Document> increments(BulkOperations bulk) {
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, atLeastOnce()).upsert(queries.capture(), updates.capture());
+        Map<String, Document> increments = new HashMap<>();
+        for (int i = 0; i < queries.getAllValues().size(); i++) {
+            Document query = queries.getAllValues().get(i).getQueryObject();
+            increments.put(query.get("granularity") + "@" + query.getDate("bucketStart").getTime(),
+                    updates.getAllValues().get(i).getUpdateObject().get("$inc", Document.class));
+        }
+        return increments;
+    }
+
+    private static long bucketStart(long time, TimeUnit unit) {
+        return time - Math.floorMod(time, unit.toMillis(1));
+    }
+}